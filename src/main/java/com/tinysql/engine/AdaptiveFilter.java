@@ -0,0 +1,106 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.util.function.Predicate;
+
+/**
+ * An AND or OR of compiled predicates that short-circuits and reorders its
+ * operands while it runs. Every {@link #SAMPLE_EVERY}th row tests all of them,
+ * timing each, which tells how often each passes and what it costs without
+ * the bias of short-circuiting; the other rows test them cheapest-to-decide
+ * first. For AND that is ascending cost / (1 - pass rate), the cost paid per
+ * row an operand rejects; for OR, ascending cost / pass rate. Like the
+ * predicates it is built from, it keeps state and is not thread-safe.
+ */
+final class AdaptiveFilter implements Predicate<Row> {
+    static final int SAMPLE_EVERY = 64;
+
+    private final Predicate<Row>[] terms;
+    private final boolean any;
+    private final long[] passed;
+    private final long[] nanos;
+    private final int[] order;
+    private final double[] rank;
+    private long samples;
+    private long rows;
+
+    private AdaptiveFilter(Predicate<Row>[] terms, boolean any) {
+        this.terms = terms;
+        this.any = any;
+        this.passed = new long[terms.length];
+        this.nanos = new long[terms.length];
+        this.order = new int[terms.length];
+        this.rank = new double[terms.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+    }
+
+    /**
+     * The whole tree as one predicate: leaves compiled by
+     * {@link PredicateCompiler}, each AND and OR an adaptive filter.
+     * @throws IllegalArgumentException if a literal does not parse as its column's type
+     */
+    static Predicate<Row> compile(Table table, WhereExpr where) {
+        if (where.getKind() == WhereExpr.Kind.CONDITION) {
+            Condition c = where.getCondition();
+            return PredicateCompiler.compile(table, c.getColumn(), c.getOperator(), c.getValue());
+        }
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Predicate<Row>[] terms = new Predicate[where.getChildren().size()];
+        for (int i = 0; i < terms.length; i++) terms[i] = compile(table, where.getChildren().get(i));
+        return new AdaptiveFilter(terms, where.getKind() == WhereExpr.Kind.OR);
+    }
+
+    @Override
+    public boolean test(Row row) {
+        if (rows++ % SAMPLE_EVERY == 0) return sample(row);
+        if (any) {
+            for (int i : order) if (terms[i].test(row)) return true;
+            return false;
+        }
+        for (int i : order) if (!terms[i].test(row)) return false;
+        return true;
+    }
+
+    /** Operand indexes in the order they are currently tested. */
+    int[] order() {
+        return order.clone();
+    }
+
+    private boolean sample(Row row) {
+        boolean all = true, some = false;
+        for (int i = 0; i < terms.length; i++) {
+            long start = System.nanoTime();
+            boolean pass = terms[i].test(row);
+            nanos[i] += System.nanoTime() - start;
+            if (pass) {
+                passed[i]++;
+                some = true;
+            } else {
+                all = false;
+            }
+        }
+        samples++;
+        reorder();
+        return any ? some : all;
+    }
+
+    private void reorder() {
+        for (int i = 0; i < terms.length; i++) {
+            // Smoothed so an operand not yet seen to pass or fail keeps a finite rank
+            double p = (passed[i] + 1.0) / (samples + 2.0);
+            double cost = (nanos[i] + 1.0) / samples;
+            rank[i] = cost / (any ? p : 1 - p);
+        }
+        // A handful of operands: insertion sort, stable for ties
+        for (int i = 1; i < order.length; i++) {
+            int t = order[i];
+            int j = i - 1;
+            while (j >= 0 && rank[order[j]] > rank[t]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = t;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.ColumnRef;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+
+/**
+ * Folds all of the child's rows into one aggregate, returned as a single row
+ * whose only column is named after the expression, e.g. "SUM(score)".
+ */
+public class AggregateOperator implements Operator {
+    private final Operator child;
+    private final ColumnRef column;
+    private final String function;
+    private boolean done;
+
+    public AggregateOperator(Operator child, String colName, String function) {
+        this.child = child;
+        this.column = new ColumnRef(colName);
+        this.function = function;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        done = false;
+    }
+
+    @Override
+    public Row next() {
+        if (done) return null;
+        done = true;
+        Aggregator.Accumulator acc = new Aggregator.Accumulator();
+        Row r;
+        while ((r = child.next()) != null) {
+            acc.add(column.get(r));
+        }
+        Schema schema = new Schema();
+        schema.add(function.toUpperCase() + "(" + column.getName() + ")");
+        Row out = new Row(1, schema);
+        out.set(0, acc.result(function));
+        return out;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.tinysql.engine;
 
+import com.tinysql.model.ColumnRef;
 import com.tinysql.model.Row;
 import java.util.List;
 
@@ -26,8 +27,9 @@ public class Aggregator {
 
     private static double calculateSum(List<Row> rows, String colName) {
         double sum = 0;
+        ColumnRef col = new ColumnRef(colName);
         for (Row r : rows) {
-            Object val = r.get(colName);
+            Object val = col.get(r);
             if (val instanceof Number) {
                 sum += ((Number) val).doubleValue();
             }
@@ -37,8 +39,9 @@ public class Aggregator {
 
     private static double calculateMax(List<Row> rows, String colName) {
         double max = -Double.MAX_VALUE;
+        ColumnRef col = new ColumnRef(colName);
         for (Row r : rows) {
-            Object val = r.get(colName);
+            Object val = col.get(r);
             if (val instanceof Number) {
                 double v = ((Number) val).doubleValue();
                 if (v > max) max = v;
@@ -49,8 +52,9 @@ public class Aggregator {
 
     private static double calculateMin(List<Row> rows, String colName) {
         double min = Double.MAX_VALUE;
+        ColumnRef col = new ColumnRef(colName);
         for (Row r : rows) {
-            Object val = r.get(colName);
+            Object val = col.get(r);
             if (val instanceof Number) {
                 double v = ((Number) val).doubleValue();
                 if (v < min) min = v;
@@ -58,4 +62,38 @@ public class Aggregator {
         }
         return min;
     }
-}
\ No newline at end of file
+
+    /**
+     * Running COUNT/SUM/AVG/MIN/MAX state fed one cell at a time, with the
+     * same results as {@link #calculate} over the same rows.
+     */
+    public static final class Accumulator {
+        private long count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        /** Adds one row's cell; non-numeric cells only count towards COUNT and AVG. */
+        public void add(Object val) {
+            count++;
+            if (val instanceof Number) {
+                double v = ((Number) val).doubleValue();
+                sum += v;
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+        }
+
+        public double result(String function) {
+            if (count == 0) return 0.0;
+            switch (function.toUpperCase()) {
+                case "COUNT": return count;
+                case "SUM": return sum;
+                case "AVG": return sum / count;
+                case "MAX": return max;
+                case "MIN": return min;
+                default: throw new IllegalArgumentException("Unknown aggregation function: " + function);
+            }
+        }
+    }
+}
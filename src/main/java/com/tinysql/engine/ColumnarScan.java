@@ -0,0 +1,169 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import com.tinysql.storage.ColumnVector;
+import com.tinysql.storage.ColumnarRowStore;
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+
+/**
+ * Filters and aggregates over a {@link ColumnarRowStore} using tight loops on
+ * the primitive column vectors. Results match {@link ConditionEvaluator} and
+ * {@link Aggregator} on the same rows.
+ */
+public class ColumnarScan {
+
+    /**
+     * Positions of the rows matching {@code col op literal}, or of every row
+     * when {@code col} is null.
+     */
+    public static int[] filter(ColumnarRowStore store, String col, String op, String literal) {
+        int n = store.size();
+        if (col == null) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+        ColumnVector v = store.getColumn(col);
+        if (v == null || !hasValue(v, n)) return new int[0];
+
+        int[] sel = new int[n];
+        int count = 0;
+        if (v instanceof ColumnVector.Ints) {
+            ColumnVector.Ints ints = (ColumnVector.Ints) v;
+            IntPredicate p = PredicateCompiler.intComparison(op, Integer.parseInt(literal));
+            for (int i = 0; i < n; i++) {
+                if (!ints.isNull(i) && p.test(ints.getInt(i))) sel[count++] = i;
+            }
+        } else if (v instanceof ColumnVector.Doubles) {
+            ColumnVector.Doubles doubles = (ColumnVector.Doubles) v;
+            DoublePredicate p = PredicateCompiler.doubleComparison(op, Double.parseDouble(literal));
+            for (int i = 0; i < n; i++) {
+                if (!doubles.isNull(i) && p.test(doubles.getDouble(i))) sel[count++] = i;
+            }
+        } else if (v instanceof ColumnVector.Floats) {
+            ColumnVector.Floats floats = (ColumnVector.Floats) v;
+            DoublePredicate p = PredicateCompiler.floatComparison(op, Float.parseFloat(literal));
+            for (int i = 0; i < n; i++) {
+                if (!floats.isNull(i) && p.test(floats.getFloat(i))) sel[count++] = i;
+            }
+        } else if (v instanceof ColumnVector.Booleans) {
+            ColumnVector.Booleans bools = (ColumnVector.Booleans) v;
+            boolean target = Boolean.parseBoolean(literal);
+            if (!op.equals("=") && !op.equals("!=")) return new int[0];
+            boolean wantEqual = op.equals("=");
+            for (int i = 0; i < n; i++) {
+                if (!bools.isNull(i) && (bools.getBoolean(i) == target) == wantEqual) sel[count++] = i;
+            }
+        } else {
+            ColumnVector.Strings strings = (ColumnVector.Strings) v;
+            if (!op.equals("=") && !op.equals("!=")) return new int[0];
+            // Compare dictionary codes; a literal no row holds has code -1
+            int code = strings.codeOf(literal);
+            boolean wantEqual = op.equals("=");
+            if (wantEqual && code < 0) return new int[0];
+            for (int i = 0; i < n; i++) {
+                if (!strings.isNull(i) && (strings.getCode(i) == code) == wantEqual) sel[count++] = i;
+            }
+        }
+        return Arrays.copyOf(sel, count);
+    }
+
+    /** Operator that materializes the rows at the selected positions, one per call. */
+    public static Operator rows(ColumnarRowStore store, int[] sel) {
+        return new Operator() {
+            private int next;
+
+            @Override
+            public void open() {
+                next = 0;
+            }
+
+            @Override
+            public Row next() {
+                return next < sel.length ? store.materialize(sel[next++]) : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Evaluates COUNT, SUM, AVG, MIN or MAX of a column over the selected positions.
+     */
+    public static double aggregate(ColumnarRowStore store, int[] sel, String col, String function) {
+        int n = sel.length;
+        if (n == 0) return 0.0;
+
+        String fn = function.toUpperCase();
+        switch (fn) {
+            case "COUNT": return n;
+            case "SUM": case "AVG": case "MIN": case "MAX": break;
+            default: throw new IllegalArgumentException("Unknown aggregation function: " + function);
+        }
+
+        // Non-numeric or missing columns contribute nothing, as in Aggregator
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        ColumnVector v = store.getColumn(col);
+        if (v instanceof ColumnVector.Ints) {
+            ColumnVector.Ints ints = (ColumnVector.Ints) v;
+            long isum = 0;
+            int imin = Integer.MAX_VALUE;
+            int imax = Integer.MIN_VALUE;
+            boolean any = false;
+            for (int k = 0; k < n; k++) {
+                int i = sel[k];
+                if (ints.isNull(i)) continue;
+                int x = ints.getInt(i);
+                isum += x;
+                if (x < imin) imin = x;
+                if (x > imax) imax = x;
+                any = true;
+            }
+            sum = isum;
+            if (any) {
+                min = imin;
+                max = imax;
+            }
+        } else if (v instanceof ColumnVector.Doubles) {
+            ColumnVector.Doubles doubles = (ColumnVector.Doubles) v;
+            for (int k = 0; k < n; k++) {
+                int i = sel[k];
+                if (doubles.isNull(i)) continue;
+                double x = doubles.getDouble(i);
+                sum += x;
+                if (x < min) min = x;
+                if (x > max) max = x;
+            }
+        } else if (v instanceof ColumnVector.Floats) {
+            ColumnVector.Floats floats = (ColumnVector.Floats) v;
+            for (int k = 0; k < n; k++) {
+                int i = sel[k];
+                if (floats.isNull(i)) continue;
+                double x = floats.getFloat(i);
+                sum += x;
+                if (x < min) min = x;
+                if (x > max) max = x;
+            }
+        }
+
+        switch (fn) {
+            case "SUM": return sum;
+            case "AVG": return sum / n;
+            case "MIN": return min;
+            default: return max;
+        }
+    }
+
+    private static boolean hasValue(ColumnVector v, int n) {
+        for (int i = 0; i < n; i++) {
+            if (!v.isNull(i)) return true;
+        }
+        return false;
+    }
+}
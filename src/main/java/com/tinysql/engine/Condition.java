@@ -0,0 +1,34 @@
+package com.tinysql.engine;
+
+/**
+ * One {@code column op literal} term of a WHERE clause, with the literal
+ * still as written; it is parsed against the column's type when planned.
+ */
+public final class Condition {
+    private final String column;
+    private final String operator;
+    private final String value;
+
+    public Condition(String column, String operator, String value) {
+        this.column = column;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return column + " " + operator + " " + value;
+    }
+}
@@ -6,8 +6,27 @@ public class ConditionEvaluator {
 
     public static boolean evaluate(Row row, String colName, String operator, String value) {
         // Handle Table.Column syntax for joins
-        Object cellValue = row.get(colName);
-        
+        return evaluate(row.get(colName), operator, value);
+    }
+
+    /** Evaluates a WHERE tree on one row, operands left to right, short-circuiting. */
+    public static boolean evaluate(Row row, WhereExpr where) {
+        switch (where.getKind()) {
+            case CONDITION: {
+                Condition c = where.getCondition();
+                return evaluate(row, c.getColumn(), c.getOperator(), c.getValue());
+            }
+            case AND:
+                for (WhereExpr child : where.getChildren()) if (!evaluate(row, child)) return false;
+                return true;
+            default:
+                for (WhereExpr child : where.getChildren()) if (evaluate(row, child)) return true;
+                return false;
+        }
+    }
+
+    /** Compares an already resolved cell, so callers can look the column up by ordinal. */
+    public static boolean evaluate(Object cellValue, String operator, String value) {
         if (cellValue == null) return false;
 
         if (cellValue instanceof Integer) {
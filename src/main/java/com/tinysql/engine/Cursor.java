@@ -0,0 +1,54 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over a query's rows, pulled from an operator pipeline on demand.
+ * The pipeline is opened on creation and closed once exhausted or when the
+ * cursor is closed, whichever comes first.
+ */
+public class Cursor implements Iterator<Row>, AutoCloseable {
+    private final Operator root;
+    private Row pending;
+    private boolean closed;
+
+    public Cursor(Operator root) {
+        this.root = root;
+        root.open();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending != null) return true;
+        if (closed) return false;
+        pending = root.next();
+        if (pending == null) close();
+        return pending != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Row r = pending;
+        pending = null;
+        return r;
+    }
+
+    /** Drains the remaining rows into a list. */
+    public List<Row> toList() {
+        List<Row> rows = new ArrayList<>();
+        while (hasNext()) rows.add(next());
+        return rows;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        root.close();
+    }
+}
@@ -8,6 +8,9 @@ public class ExecutionResult {
     private String message;
     private List<Row> data;
     private Double aggregateResult;
+    private Cursor cursor;
+    private int spillCount;
+    private long spillBytes;
 
     public ExecutionResult(boolean success, String message) {
         this.success = success;
@@ -23,6 +26,13 @@ public class ExecutionResult {
         this.aggregateResult = null;
     }
     
+    /** A streaming result; rows are produced as the cursor is read. */
+    public ExecutionResult(boolean success, String message, Cursor cursor) {
+        this.success = success;
+        this.message = message;
+        this.cursor = cursor;
+    }
+
     public ExecutionResult(boolean success, String message, Double aggregateResult) {
         this.success = success;
         this.message = message;
@@ -32,6 +42,22 @@ public class ExecutionResult {
 
     public boolean isSuccess() { return success; }
     public String getMessage() { return message; }
-    public List<Row> getData() { return data; }
+    /** The result rows; for a streaming result this drains the cursor on first use. */
+    public List<Row> getData() {
+        if (data == null && cursor != null) data = cursor.toList();
+        return data;
+    }
+
+    /** Cursor of a streaming result, or null if the rows were materialized. */
+    public Cursor getCursor() { return cursor; }
     public Double getAggregateResult() { return aggregateResult; }
+
+    /** Temporary files and bytes written by an operator that spilled to disk. */
+    public int getSpillCount() { return spillCount; }
+    public long getSpillBytes() { return spillBytes; }
+
+    void setSpillStats(int spillCount, long spillBytes) {
+        this.spillCount = spillCount;
+        this.spillBytes = spillBytes;
+    }
 }
\ No newline at end of file
@@ -1,21 +1,163 @@
 package com.tinysql.engine;
 
+import com.tinysql.engine.batch.Batch;
+import com.tinysql.engine.batch.BatchAggregate;
+import com.tinysql.engine.batch.BatchFilter;
+import com.tinysql.engine.batch.BatchOperator;
+import com.tinysql.engine.batch.BatchScan;
+import com.tinysql.engine.batch.HashAggregate;
+import com.tinysql.engine.batch.Morsels;
+import com.tinysql.index.BTreeIndex;
+import com.tinysql.index.BitmapIndex;
+import com.tinysql.index.HashIndex;
+import com.tinysql.index.RoaringBitmap;
 import com.tinysql.model.*;
+import com.tinysql.parser.ParseException;
+import com.tinysql.parser.Parser;
+import com.tinysql.stats.ColumnStats;
+import com.tinysql.stats.Histogram;
+import com.tinysql.stats.TableStats;
+import com.tinysql.storage.ColumnarRowStore;
 import com.tinysql.storage.StorageManager;
 import com.tinysql.util.TinySQLException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 public class Executor {
+    /** An index range is only read while it selects under this fraction of the table; past that a scan is cheaper. */
+    private static final int RANGE_SCAN_FRACTION = 4;
+    /** Prepared statements kept by {@link #prepare}; past this the least recently used is dropped. */
+    static final int PLAN_CACHE_SIZE = 256;
+
     private Database db;
     private StorageManager storage;
+    private int joinParallelism = Runtime.getRuntime().availableProcessors();
+    private long joinMemoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private long groupMemoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private int aggregateParallelism = Runtime.getRuntime().availableProcessors();
+    private final Map<String, PreparedQuery> plans = new LinkedHashMap<String, PreparedQuery>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedQuery> eldest) {
+            return size() > PLAN_CACHE_SIZE;
+        }
+    };
+    private volatile int schemaVersion;
+    private volatile ResultCache resultCache;
 
     public Executor(Database db, StorageManager storage) {
         this.db = db;
         this.storage = storage;
     }
 
+    /** Threads a large join may use; 1 keeps every join on the calling thread. */
+    public void setJoinParallelism(int joinParallelism) {
+        if (joinParallelism < 1) throw new IllegalArgumentException("Join parallelism must be at least 1");
+        this.joinParallelism = joinParallelism;
+    }
+
+    /** Heap bytes one join's hash table may use before both inputs are spilled to disk. */
+    public void setJoinMemoryBudget(long bytes) {
+        this.joinMemoryBudget = bytes;
+    }
+
+    /** Threads an aggregate or GROUP BY over a large table may use; 1 keeps it on the calling thread. */
+    public void setAggregateParallelism(int aggregateParallelism) {
+        if (aggregateParallelism < 1) throw new IllegalArgumentException("Aggregate parallelism must be at least 1");
+        this.aggregateParallelism = aggregateParallelism;
+    }
+
+    /** Heap bytes one GROUP BY's groups may use before new groups are spilled to disk. */
+    public void setGroupMemoryBudget(long bytes) {
+        this.groupMemoryBudget = bytes;
+    }
+
+    /**
+     * Turns on caching of prepared SELECT results within an estimated heap
+     * budget, or off with 0, the default. A SELECT SQL_NO_CACHE is never cached.
+     */
+    public void setResultCacheBudget(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Result cache budget cannot be negative");
+        this.resultCache = bytes == 0 ? null : new ResultCache(bytes);
+    }
+
+    /** The result cache and its metrics, or null while it is off. */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Parses a statement, with {@code ?} for any WHERE or INSERT value, into a
+     * handle to run with bound parameters. Statements are cached by their
+     * text with whitespace runs collapsed and a trailing ';' dropped, so the
+     * same text prepared again, or run ad hoc, is not parsed again; creating a
+     * table or index, or loading one from disk, empties the cache.
+     * @throws ParseException with the CLI's message if the statement is malformed
+     */
+    public PreparedQuery prepare(String sql) {
+        String key = normalize(sql);
+        synchronized (plans) {
+            PreparedQuery cached = plans.get(key);
+            if (cached != null) return cached;
+        }
+        PreparedQuery query = new PreparedQuery(this, Parser.parse(sql), key);
+        synchronized (plans) {
+            plans.put(key, query);
+        }
+        return query;
+    }
+
+    /** Statements {@link #prepare} holds at the moment. */
+    public int cachedPlans() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    /** Bumped on every schema change; a prepared statement resolved under an older one resolves again. */
+    int schemaVersion() {
+        return schemaVersion;
+    }
+
+    private void schemaChanged() {
+        synchronized (plans) {
+            schemaVersion++;
+            plans.clear();
+        }
+        ResultCache cache = resultCache;
+        if (cache != null) cache.clear();
+    }
+
+    /** The statement trimmed, whitespace runs outside quotes made one space, a trailing ';' dropped. */
+    static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean quoted = false, space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') quoted = !quoted;
+            if (!quoted && Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) sb.append(' ');
+            space = false;
+            sb.append(c);
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ';' && !quoted) end--;
+        if (end > 0 && sb.charAt(end - 1) == ' ') end--;
+        return sb.substring(0, end);
+    }
+
     public ExecutionResult executeCreate(String tableName, List<Column> columns) {
+        return executeCreate(tableName, columns, StorageMode.ROW);
+    }
+
+    public ExecutionResult executeCreate(String tableName, List<Column> columns, StorageMode mode) {
         // 1. Check Memory
         if (db.exists(tableName)) {
             return new ExecutionResult(false, "Table already exists: " + tableName);
@@ -27,6 +169,7 @@ public class Executor {
             Table existing = storage.loadTable(tableName);
             if (existing != null) {
                 db.addTable(existing);
+                schemaChanged();
                 return new ExecutionResult(false, "Table already exists on disk: " + tableName);
             }
         } catch (TinySQLException e) {
@@ -35,11 +178,11 @@ public class Executor {
         }
 
         // 3. If not in memory AND not on disk, create new
-        Table t = new Table(tableName);
-        for (Column c : columns) t.addColumn(c);
-        db.addTable(t);
-        
+        Table t;
         try { 
+            t = storage.createTable(tableName, columns, mode);
+            db.addTable(t);
+            schemaChanged();
             storage.saveTable(t); 
         } catch (TinySQLException e) { 
             return new ExecutionResult(false, e.getMessage()); 
@@ -52,51 +195,596 @@ public class Executor {
         Table t = getOrLoadTable(tableName);
         if (t == null) return new ExecutionResult(false, "Table not found: " + tableName);
 
-        Row row = new Row(t.getNextId());
+        Row row = new Row(t.getNextId(), t.getSchema());
         List<Column> cols = t.getColumns();
         
         if (values.size() != cols.size()) return new ExecutionResult(false, "Column count mismatch");
 
         for (int i = 0; i < cols.size(); i++) {
-            row.set(cols.get(i).getName(), values.get(i));
+            row.set(i, values.get(i));
         }
         
-        t.insert(row);
-        try { storage.saveTable(t); } 
+        try { t.insert(row); }
+        catch (IllegalArgumentException e) { return new ExecutionResult(false, e.getMessage()); }
+        try { storage.appendRow(t, row); } 
         catch (TinySQLException e) { return new ExecutionResult(true, "Inserted but save failed: " + e.getMessage()); }
 
         return new ExecutionResult(true, "1 row inserted");
     }
 
+    public ExecutionResult executeCreateIndex(String indexName, String tableName, String colName) {
+        return executeCreateIndex(indexName, tableName, colName, IndexType.HASH);
+    }
+
+    /**
+     * CREATE INDEX: builds an index over the column's current rows, which
+     * later inserts keep up to date, and persists it next to the table.
+     */
+    public ExecutionResult executeCreateIndex(String indexName, String tableName, String colName, IndexType type) {
+        if (!indexName.matches("\\w+")) return new ExecutionResult(false, "Invalid index name: " + indexName);
+        Table t = getOrLoadTable(tableName);
+        if (t == null) return new ExecutionResult(false, "Table not found: " + tableName);
+        if (t.getColumn(colName) == null) return new ExecutionResult(false, "Unknown column: " + colName);
+
+        Index index;
+        try {
+            switch (type) {
+                case BTREE: index = new BTreeIndex(indexName, t, colName); break;
+                case BITMAP: index = new BitmapIndex(indexName, t, colName); break;
+                default: index = new HashIndex(indexName, t, colName);
+            }
+            // Registered before the build so no concurrent insert is missed
+            t.addIndex(index);
+            schemaChanged();
+        } catch (IllegalArgumentException e) {
+            return new ExecutionResult(false, e.getMessage());
+        }
+        index.build(t.scan());
+        String created = "Created index " + indexName + " on " + tableName + "(" + index.getColumn() + ")";
+        try { storage.saveIndex(t, index); }
+        catch (TinySQLException e) { return new ExecutionResult(true, created + " but save failed: " + e.getMessage()); }
+        return new ExecutionResult(true, created);
+    }
+
+    /**
+     * ANALYZE: gathers the table's statistics again in one scan, with an
+     * equi-depth histogram per column, and persists them next to the table.
+     */
+    public ExecutionResult executeAnalyze(String tableName) {
+        Table t = getOrLoadTable(tableName);
+        if (t == null) return new ExecutionResult(false, "Table not found: " + tableName);
+        TableStats stats = TableStats.build(t, true);
+        t.setStats(stats);
+        String analyzed = "Analyzed " + tableName + ": " + stats.getRowCount() + " rows";
+        try { storage.saveStats(t); }
+        catch (TinySQLException e) { return new ExecutionResult(true, analyzed + " but save failed: " + e.getMessage()); }
+        return new ExecutionResult(true, analyzed);
+    }
+
+    /** SHOW STATS: one row per column with its null fraction, range, distinct count and histogram. */
+    public ExecutionResult executeShowStats(String tableName) {
+        Table t = getOrLoadTable(tableName);
+        if (t == null) return new ExecutionResult(false, "Table not found: " + tableName);
+        TableStats stats = t.getStats();
+        Schema schema = new Schema();
+        for (String name : new String[] { "column", "type", "null_fraction", "min", "max", "distinct", "histogram" }) schema.add(name);
+        List<Row> rows = new ArrayList<>();
+        for (ColumnStats c : stats.getColumns()) {
+            Histogram h = c.getHistogram();
+            Row row = new Row(rows.size() + 1, schema);
+            row.set(0, c.getColumn());
+            row.set(1, c.getType().name());
+            row.set(2, c.getNullFraction());
+            row.set(3, c.getMin());
+            row.set(4, c.getMax());
+            row.set(5, c.getDistinct());
+            row.set(6, h == null ? "-" : h.toString());
+            rows.add(row);
+        }
+        String state = stats.isAnalyzed() ? "analyzed, " + stats.getInsertsSinceAnalyze() + " inserts since" : "not analyzed";
+        return new ExecutionResult(true, "Stats for " + tableName + ": " + stats.getRowCount() + " rows, " + state, rows);
+    }
+
     public ExecutionResult executeSelect(String tableName, String whereCol, String operator, String whereVal) {
+        return executeSelect(tableName, where(whereCol, operator, whereVal));
+    }
+
+    /** SELECT with a WHERE clause of conditions joined by AND, or by OR when {@code any}. */
+    public ExecutionResult executeSelect(String tableName, List<Condition> where, boolean any) {
+        return executeSelect(tableName, WhereExpr.of(where, any));
+    }
+
+    /** SELECT with a WHERE clause of AND and OR over conditions; null selects every row. */
+    public ExecutionResult executeSelect(String tableName, WhereExpr where) {
+        ExecutionResult res = openSelect(tableName, where);
+        if (!res.isSuccess()) return res;
+        List<Row> results = res.getData();
+        return new ExecutionResult(true, results.size() + " rows found.", results);
+    }
+
+    /**
+     * Streaming SELECT: returns a result whose cursor pulls matching rows from
+     * the table as it is read, without collecting them first. Close the cursor
+     * if it is not read to the end.
+     */
+    public ExecutionResult openSelect(String tableName, String whereCol, String operator, String whereVal) {
+        return openSelect(tableName, where(whereCol, operator, whereVal));
+    }
+
+    /** Streaming SELECT with conditions joined by AND, or by OR when {@code any}. */
+    public ExecutionResult openSelect(String tableName, List<Condition> where, boolean any) {
+        return openSelect(tableName, WhereExpr.of(where, any));
+    }
+
+    /** Streaming SELECT with a WHERE clause of AND and OR over conditions; null selects every row. */
+    public ExecutionResult openSelect(String tableName, WhereExpr where) {
         Table t = getOrLoadTable(tableName);
         if (t == null) return new ExecutionResult(false, "Table not found");
 
-        List<Row> results = new ArrayList<>();
-        for (Row r : t.selectAll()) {
-            if (whereCol == null) {
-                results.add(r);
-            } else {
-                if (ConditionEvaluator.evaluate(r, whereCol, operator, whereVal)) {
-                    results.add(r);
+        Operator plan;
+        try {
+            plan = planSelect(t, where);
+        } catch (IllegalArgumentException e) {
+            return new ExecutionResult(false, e.getMessage());
+        }
+        return new ExecutionResult(true, "Streaming rows from " + tableName, new Cursor(plan));
+    }
+
+    private static WhereExpr where(String whereCol, String operator, String whereVal) {
+        return whereCol == null ? null : WhereExpr.of(whereCol, operator, whereVal);
+    }
+
+    /**
+     * A tree of conditions is compiled into one adaptive predicate. Indexes
+     * narrow the rows to fetch before any is read: the candidates of the
+     * indexed conjuncts of an AND are intersected, smallest first, and those
+     * of an OR united when every operand has some. Past the range fraction
+     * of the table, or with no index, a conjunct on the key of a clustered
+     * table still limits the scan to its key range.
+     */
+    private Operator planSelect(Table t, WhereExpr where) {
+        if (where == null) return planSelect(t, null, null, null);
+        if (where.getKind() == WhereExpr.Kind.CONDITION) {
+            Condition c = where.getCondition();
+            return planSelect(t, c.getColumn(), c.getOperator(), c.getValue());
+        }
+        Predicate<Row> filter = AdaptiveFilter.compile(t, where);
+        RoaringBitmap candidates = indexCandidates(t, where);
+        if (candidates != null && candidates.cardinality() <= t.size() / RANGE_SCAN_FRACTION) {
+            return new IndexScanOperator(t, candidates.toArray(), filter);
+        }
+        if (where.getKind() == WhereExpr.Kind.AND) {
+            for (WhereExpr conjunct : where.getChildren()) {
+                if (conjunct.getKind() != WhereExpr.Kind.CONDITION) continue;
+                Condition c = conjunct.getCondition();
+                Iterable<Row> run = clusteredRun(t, c.getColumn(), c.getOperator(), c.getValue());
+                if (run != null) return new FilterOperator(new ScanOperator(run), filter);
+            }
+        }
+        return new FilterOperator(new ScanOperator(t), filter);
+    }
+
+    /**
+     * Ids of the rows that can satisfy the expression according to the
+     * indexes on its columns; null if they cannot narrow it down, as for an
+     * OR with an operand no index answers, whose rows could be anywhere.
+     */
+    private static RoaringBitmap indexCandidates(Table t, WhereExpr where) {
+        switch (where.getKind()) {
+            case CONDITION:
+                return indexCandidates(t, where.getCondition());
+            case AND: {
+                List<RoaringBitmap> sets = new ArrayList<>();
+                for (WhereExpr child : where.getChildren()) {
+                    RoaringBitmap ids = indexCandidates(t, child);
+                    if (ids != null) sets.add(ids);
                 }
+                if (sets.isEmpty()) return null;
+                sets.sort((a, b) -> Long.compare(a.cardinality(), b.cardinality()));
+                RoaringBitmap out = sets.get(0);
+                for (int i = 1; i < sets.size() && !out.isEmpty(); i++) out = out.and(sets.get(i));
+                return out;
+            }
+            default: {
+                RoaringBitmap out = new RoaringBitmap();
+                for (WhereExpr child : where.getChildren()) {
+                    RoaringBitmap ids = indexCandidates(t, child);
+                    if (ids == null) return null;
+                    out = out.or(ids);
+                }
+                return out;
             }
         }
-        
-        return new ExecutionResult(true, results.size() + " rows found.", results);
+    }
+
+    /** A condition's candidates from {@link #indexLookup}, or from a bitmap index whatever their number. */
+    private static RoaringBitmap indexCandidates(Table t, Condition cond) {
+        Column c = t.getColumn(cond.getColumn());
+        if (c == null) return null;
+        long[] ids = keyLookup(t, c, cond.getOperator(), cond.getValue());
+        if (ids == null) ids = rangeLookup(t, c, cond.getOperator(), cond.getValue());
+        if (ids != null) {
+            RoaringBitmap out = new RoaringBitmap();
+            for (long id : ids) out.add(id);
+            return out;
+        }
+        BitmapIndex bitmap = bitmapIndexOn(t, c.getName());
+        return bitmap == null ? null : bitmap.matching(PredicateCompiler.compileKey(c, cond.getOperator(), cond.getValue()));
+    }
+
+    /**
+     * The rows matching the expression, exactly, when every condition in it
+     * has a bitmap index without mistyped cells; null otherwise.
+     */
+    private static RoaringBitmap exactBitmap(Table t, WhereExpr where) {
+        if (where.getKind() == WhereExpr.Kind.CONDITION) {
+            Condition cond = where.getCondition();
+            BitmapIndex index = bitmapIndexOn(t, cond.getColumn());
+            if (index == null || index.mistypedCount() > 0) return null;
+            return index.matching(PredicateCompiler.compileKey(t.getColumn(cond.getColumn()), cond.getOperator(), cond.getValue()));
+        }
+        RoaringBitmap out = null;
+        for (WhereExpr child : where.getChildren()) {
+            RoaringBitmap ids = exactBitmap(t, child);
+            if (ids == null) return null;
+            if (out == null) out = ids;
+            else out = where.getKind() == WhereExpr.Kind.OR ? out.or(ids) : out.and(ids);
+        }
+        return out;
+    }
+
+    /** COUNT of the rows matching the expression as the cardinality of its exact bitmap; null when anything else is asked for. */
+    private static Double bitmapCount(Table t, List<String> functions, WhereExpr where) {
+        if (where == null) return null;
+        for (String fn : functions) {
+            if (!fn.equalsIgnoreCase("COUNT")) return null;
+        }
+        RoaringBitmap ids = exactBitmap(t, where);
+        return ids == null ? null : (double) ids.cardinality();
+    }
+
+    private static BitmapIndex bitmapIndexOn(Table t, String col) {
+        for (Index index : t.getIndexes()) {
+            if (index instanceof BitmapIndex && index.getColumn().equalsIgnoreCase(col)) return (BitmapIndex) index;
+        }
+        return null;
+    }
+
+    /**
+     * Scan plus optional filter; the WHERE literal is parsed here, once. A
+     * condition on the key of a clustered table reads just its key range, and
+     * one an index on the column can answer fetches just the rows the index lists.
+     */
+    private Operator planSelect(Table t, String whereCol, String operator, String whereVal) {
+        Predicate<Row> where = whereCol == null ? null : PredicateCompiler.compile(t, whereCol, operator, whereVal);
+        Iterable<Row> run = whereCol == null ? null : clusteredRun(t, whereCol, operator, whereVal);
+        if (run != null) return new FilterOperator(new ScanOperator(run), where);
+        long[] candidates = whereCol == null ? null : indexLookup(t, whereCol, operator, whereVal);
+        if (candidates != null) return new IndexScanOperator(t, candidates, where);
+        if (t.getRowStore() instanceof ColumnarRowStore) {
+            ColumnarRowStore store = (ColumnarRowStore) t.getRowStore();
+            return ColumnarScan.rows(store, ColumnarScan.filter(store, whereCol, operator, whereVal));
+        }
+        Operator scan = new ScanOperator(t);
+        return where == null ? scan : new FilterOperator(scan, where);
+    }
+    
+    /**
+     * Candidate row ids for the condition from an index on its column: the
+     * primary key or a hash index for '=', else an ordered one, else a bitmap
+     * one. Null when no index applies or the range would cover too much of
+     * the table.
+     */
+    private static long[] indexLookup(Table t, String col, String op, String val) {
+        Column c = t.getColumn(col);
+        if (c == null) return null;
+        long[] ids = keyLookup(t, c, op, val);
+        if (ids == null) ids = rangeLookup(t, c, op, val);
+        if (ids != null) return ids;
+        BitmapIndex bitmap = bitmapIndexOn(t, col);
+        if (bitmap == null) return null;
+        RoaringBitmap matching = bitmap.matching(PredicateCompiler.compileKey(c, op, val));
+        return matching.cardinality() > t.size() / RANGE_SCAN_FRACTION ? null : matching.toArray();
+    }
+
+    /** The row ids for '=' from the primary key or a hash index on the column; null if neither applies. */
+    private static long[] keyLookup(Table t, Column c, String op, String val) {
+        if (!op.equals("=")) return null;
+        PrimaryKeyIndex pk = t.getPrimaryKey();
+        // '=' on FLOAT and DOUBLE allows an epsilon, which exact keys cannot answer
+        if (pk != null && pk.getColumn().equalsIgnoreCase(c.getName())
+                && pk.getType() != DataType.FLOAT && pk.getType() != DataType.DOUBLE) {
+            long id = pk.lookup(PredicateCompiler.literal(c, val));
+            return id < 0 ? new long[0] : new long[] { id };
+        }
+        for (Index index : t.getIndexes()) {
+            if (index instanceof HashIndex && index.getColumn().equalsIgnoreCase(c.getName())) {
+                return ((HashIndex) index).lookup(PredicateCompiler.literal(c, val));
+            }
+        }
+        return null;
+    }
+
+    /** The row ids in the condition's key range of an ordered index; null if none or the range is too wide. */
+    private static long[] rangeLookup(Table t, Column c, String op, String val) {
+        BTreeIndex ordered = orderedIndexOn(t, c.getName());
+        if (ordered == null) return null;
+        KeyRange r = KeyRange.of(c, op, PredicateCompiler.literal(c, val));
+        if (r == KeyRange.ALL) return null;
+        return ordered.range(r.lo, r.loInclusive, r.hi, r.hiInclusive, t.size() / RANGE_SCAN_FRACTION);
+    }
+
+    /**
+     * The rows of a clustered table whose primary key can satisfy the
+     * condition, read as one run in key order; null if it does not bound the key.
+     */
+    private static Iterable<Row> clusteredRun(Table t, String col, String op, String val) {
+        if (!(t.getRowStore() instanceof ClusteredRowStore) || !t.getPrimaryKey().getColumn().equalsIgnoreCase(col)) return null;
+        Column c = t.getColumn(col);
+        KeyRange r = KeyRange.of(c, op, PredicateCompiler.literal(c, val));
+        if (r == KeyRange.ALL) return null;
+        ClusteredRowStore store = (ClusteredRowStore) t.getRowStore();
+        return () -> store.range(r.lo, r.loInclusive, r.hi, r.hiInclusive);
+    }
+
+    private static BTreeIndex orderedIndexOn(Table t, String col) {
+        for (Index index : t.getIndexes()) {
+            if (index instanceof BTreeIndex && index.getColumn().equalsIgnoreCase(col)) return (BTreeIndex) index;
+        }
+        return null;
+    }
+
+    /**
+     * MIN, MAX and COUNT over a column with an ordered index, filtered on that
+     * column or not at all, read from the index keys without touching the
+     * rows. Null when anything else is asked for or the index holds cells it
+     * could not order, whose values only the rows have.
+     */
+    private static Row indexOnlyAggregates(Table t, List<String> functions, List<String> colNames, String whereCol, String op, String val,
+                                           Schema schema, int[] ordinals) {
+        String col = whereCol;
+        for (int a = 0; a < functions.size(); a++) {
+            String fn = functions.get(a).toUpperCase();
+            if (fn.equals("COUNT")) continue;
+            if (!fn.equals("MIN") && !fn.equals("MAX")) return null;
+            if (col == null) col = colNames.get(a);
+            else if (!col.equals(colNames.get(a))) return null;
+        }
+        BTreeIndex index = col == null ? null : orderedIndexOn(t, col);
+        if (index == null || !index.getColumn().equals(col) || index.unorderedCount() > 0) return null;
+
+        KeyRange r = KeyRange.ALL;
+        Predicate<Object> test = k -> true;
+        if (whereCol != null) {
+            Column c = t.getColumn(whereCol);
+            test = PredicateCompiler.compileKey(c, op, val);
+            r = KeyRange.of(c, op, PredicateCompiler.literal(c, val));
+        }
+        // Rows with a null cell never match a condition but still count without one
+        double count = whereCol == null ? t.size() : index.count(r.lo, r.loInclusive, r.hi, r.hiInclusive, test);
+        Row out = new Row(1, schema);
+        for (int a = 0; a < functions.size(); a++) {
+            double v;
+            switch (functions.get(a).toUpperCase()) {
+                case "COUNT":
+                    v = count;
+                    break;
+                case "MIN": {
+                    Object k = index.first(r.lo, r.loInclusive, r.hi, r.hiInclusive, test);
+                    v = k instanceof Number ? ((Number) k).doubleValue() : Double.MAX_VALUE;
+                    break;
+                }
+                default: {
+                    Object k = index.last(r.lo, r.loInclusive, r.hi, r.hiInclusive, test);
+                    v = k instanceof Number ? ((Number) k).doubleValue() : -Double.MAX_VALUE;
+                    break;
+                }
+            }
+            // Aggregates over no rows are 0
+            out.set(ordinals[a], count == 0 ? 0.0 : v);
+        }
+        return out;
     }
     
     public ExecutionResult executeAggregate(String tableName, String colName, String function, String whereCol, String op, String val) {
-        ExecutionResult filterRes = executeSelect(tableName, whereCol, op, val);
-        if (!filterRes.isSuccess()) return filterRes;
-        double result = Aggregator.calculate(filterRes.getData(), colName, function);
-        return new ExecutionResult(true, function + " result", result);
+        return executeAggregate(tableName, colName, function, where(whereCol, op, val));
+    }
+
+    public ExecutionResult executeAggregate(String tableName, String colName, String function, List<Condition> where, boolean any) {
+        return executeAggregate(tableName, colName, function, WhereExpr.of(where, any));
+    }
+
+    public ExecutionResult executeAggregate(String tableName, String colName, String function, WhereExpr where) {
+        ExecutionResult res = executeAggregates(tableName, List.of(function), List.of(colName), where);
+        if (!res.isSuccess()) return res;
+        return new ExecutionResult(true, function + " result", (Double) res.getData().get(0).get(0));
+    }
+
+    /**
+     * Evaluates several aggregates, e.g. SUM(a), MIN(a), MAX(b), COUNT(*), in
+     * one filtered scan of the table. The result holds a single row with one
+     * column per aggregate, named like "SUM(a)", in the order given.
+     */
+    public ExecutionResult executeAggregates(String tableName, List<String> functions, List<String> colNames, String whereCol, String op, String val) {
+        return executeAggregates(tableName, functions, colNames, where(whereCol, op, val));
+    }
+
+    public ExecutionResult executeAggregates(String tableName, List<String> functions, List<String> colNames, List<Condition> where, boolean any) {
+        return executeAggregates(tableName, functions, colNames, WhereExpr.of(where, any));
+    }
+
+    /**
+     * Aggregates over the rows matching a WHERE tree, or all rows if it is
+     * null. A COUNT the bitmap indexes answer exactly is their cardinality;
+     * AND and OR otherwise aggregate the rows {@link #openSelect} would return.
+     */
+    public ExecutionResult executeAggregates(String tableName, List<String> functions, List<String> colNames, WhereExpr where) {
+        Table t = getOrLoadTable(tableName);
+        if (t == null) return new ExecutionResult(false, "Table not found");
+
+        int k = functions.size();
+        Schema schema = new Schema();
+        // A repeated expression shares one column
+        int[] ordinals = new int[k];
+        for (int a = 0; a < k; a++) ordinals[a] = schema.add(functions.get(a).toUpperCase() + "(" + colNames.get(a) + ")");
+        Row out = new Row(1, schema);
+
+        Condition c = where != null && where.getKind() == WhereExpr.Kind.CONDITION ? where.getCondition() : null;
+        String whereCol = c == null ? null : c.getColumn();
+        String op = c == null ? null : c.getOperator();
+        String val = c == null ? null : c.getValue();
+        BatchOperator plan;
+        ForkJoinPool pool = null;
+        try {
+            Double count = bitmapCount(t, functions, where);
+            if (count != null) {
+                for (int a = 0; a < k; a++) out.set(ordinals[a], count == 0 ? 0.0 : count);
+                return new ExecutionResult(true, "Aggregate result", List.of(out));
+            }
+            if (where != null && c == null) {
+                aggregateRows(planSelect(t, where), functions, colNames, out, ordinals);
+                return new ExecutionResult(true, "Aggregate result", List.of(out));
+            }
+            Row fromIndex = indexOnlyAggregates(t, functions, colNames, whereCol, op, val, schema, ordinals);
+            if (fromIndex != null) return new ExecutionResult(true, "Aggregate result", List.of(fromIndex));
+            if (t.getRowStore() instanceof ColumnarRowStore && filtersOnString(t, whereCol)) {
+                // String filters compare dictionary codes in the column vector
+                PredicateCompiler.compile(t, whereCol, op, val);
+                ColumnarRowStore store = (ColumnarRowStore) t.getRowStore();
+                int[] sel = ColumnarScan.filter(store, whereCol, op, val);
+                for (int a = 0; a < k; a++) out.set(ordinals[a], ColumnarScan.aggregate(store, sel, colNames.get(a), functions.get(a)));
+                return new ExecutionResult(true, "Aggregate result", List.of(out));
+            }
+            // Column batches aggregated by the (possibly SIMD) kernels; columnar
+            // tables copy straight from their vectors, others gather from rows.
+            // Each distinct column is read once, however many aggregates use it.
+            List<String> scanned = new ArrayList<>();
+            int[] columns = new int[k];
+            for (int a = 0; a < k; a++) columns[a] = slot(scanned, colNames.get(a));
+            int whereSlot = whereCol == null ? -1 : slot(scanned, whereCol);
+            String[] cols = scanned.toArray(new String[0]);
+            BatchAggregate agg = new BatchAggregate(filtered(new BatchScan(t, cols), whereSlot, t, whereCol, op, val),
+                    columns, functions.toArray(new String[0]));
+            if (parallel(t)) {
+                pool = new ForkJoinPool(aggregateParallelism);
+                Morsels morsels = new Morsels(t);
+                agg.setParallelism(pool, aggregateParallelism,
+                        () -> filtered(new BatchScan(morsels, cols), whereSlot, t, whereCol, op, val));
+            }
+            plan = agg;
+        } catch (IllegalArgumentException e) {
+            return new ExecutionResult(false, e.getMessage());
+        }
+        try (BatchOperator p = plan) {
+            p.open();
+            Batch b = p.nextBatch();
+            for (int a = 0; a < k; a++) out.set(ordinals[a], b.columns[a].doubles[0]);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        return new ExecutionResult(true, "Aggregate result", List.of(out));
+    }
+
+    /** Feeds the plan's rows to one accumulator per aggregate and sets the results in {@code out}. */
+    private static void aggregateRows(Operator plan, List<String> functions, List<String> colNames, Row out, int[] ordinals) {
+        int k = functions.size();
+        ColumnRef[] refs = new ColumnRef[k];
+        Aggregator.Accumulator[] acc = new Aggregator.Accumulator[k];
+        for (int a = 0; a < k; a++) {
+            // Fails before the scan on an unknown function
+            new Aggregator.Accumulator().result(functions.get(a));
+            refs[a] = new ColumnRef(colNames.get(a));
+            acc[a] = new Aggregator.Accumulator();
+        }
+        try (Operator p = plan) {
+            p.open();
+            for (Row r = p.next(); r != null; r = p.next()) {
+                for (int a = 0; a < k; a++) acc[a].add(refs[a].get(r));
+            }
+        }
+        for (int a = 0; a < k; a++) out.set(ordinals[a], acc[a].result(functions.get(a)));
+    }
+
+    /**
+     * GROUP BY: one row per distinct combination of the key columns, holding
+     * the keys followed by the aggregates, named like "SUM(a)".
+     */
+    public ExecutionResult executeGroupBy(String tableName, List<String> groupBy, List<String> functions, List<String> colNames,
+                                          String whereCol, String op, String val) {
+        Table t = getOrLoadTable(tableName);
+        if (t == null) return new ExecutionResult(false, "Table not found");
+
+        // Keys come first in the scan, so they are batch columns 0..k-1
+        List<String> scanned = new ArrayList<>();
+        for (String key : groupBy) {
+            if (t.getColumn(key) == null) return new ExecutionResult(false, "Unknown column in GROUP BY: " + key);
+            slot(scanned, key);
+        }
+        String[] keys = scanned.toArray(new String[0]);
+        int k = functions.size();
+        int[] columns = new int[k];
+        for (int a = 0; a < k; a++) columns[a] = slot(scanned, colNames.get(a));
+
+        int where = whereCol == null ? -1 : slot(scanned, whereCol);
+        String[] cols = scanned.toArray(new String[0]);
+        HashAggregate plan;
+        try {
+            plan = new HashAggregate(filtered(new BatchScan(t, cols), where, t, whereCol, op, val),
+                    keys, columns, functions.toArray(new String[0]), colNames.toArray(new String[0]));
+        } catch (IllegalArgumentException e) {
+            return new ExecutionResult(false, e.getMessage());
+        }
+        plan.setMemoryBudget(groupMemoryBudget, storage.getDataDir());
+        ForkJoinPool pool = null;
+        if (parallel(t)) {
+            pool = new ForkJoinPool(aggregateParallelism);
+            Morsels morsels = new Morsels(t);
+            plan.setParallelism(pool, aggregateParallelism,
+                    () -> filtered(new BatchScan(morsels, cols), where, t, whereCol, op, val));
+        }
+
+        List<Row> rows;
+        try (Cursor cursor = new Cursor(plan)) {
+            rows = cursor.toList();
+        } catch (UncheckedIOException e) {
+            plan.close();
+            return new ExecutionResult(false, e.getMessage());
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        String spilled = plan.getSpillCount() == 0 ? ""
+                : " (spilled " + plan.getSpillCount() + " partitions, " + plan.getSpillBytes() + " bytes)";
+        ExecutionResult res = new ExecutionResult(true, rows.size() + " groups found" + spilled + ".", rows);
+        res.setSpillStats(plan.getSpillCount(), plan.getSpillBytes());
+        return res;
+    }
+
+    /** Large tables are aggregated on several threads, small ones serially. */
+    private boolean parallel(Table t) {
+        return aggregateParallelism > 1 && t.size() >= Morsels.PARALLEL_THRESHOLD;
+    }
+
+    private static BatchOperator filtered(BatchOperator scan, int where, Table t, String whereCol, String op, String val) {
+        return whereCol == null ? scan : new BatchFilter(scan, where, t, whereCol, op, val);
+    }
+
+    /** Position of a column in the scan list, appending it on first use. */
+    private static int slot(List<String> scanned, String col) {
+        int i = scanned.indexOf(col);
+        if (i >= 0) return i;
+        scanned.add(col);
+        return scanned.size() - 1;
     }
     
+    private static boolean filtersOnString(Table t, String whereCol) {
+        Column c = whereCol == null ? null : t.getColumn(whereCol);
+        return c != null && c.getType() == DataType.STRING;
+    }
+
     public ExecutionResult executeJoin(String table1, String table2, String col1, String col2) {
         Table t1 = getOrLoadTable(table1);
         Table t2 = getOrLoadTable(table2);
-        return JoinProcessor.executeJoin(t1, t2, col1, col2);
+        return JoinProcessor.executeJoin(t1, t2, col1, col2, joinParallelism, joinMemoryBudget, storage.getDataDir());
     }
     
     // Helper to lazy load tables from disk if they aren't in memory
@@ -105,7 +793,10 @@ public class Executor {
         if (t == null) {
             try {
                 t = storage.loadTable(name);
-                if (t != null) db.addTable(t);
+                if (t != null) {
+                    db.addTable(t);
+                    schemaChanged();
+                }
             } catch (TinySQLException e) { return null; }
         }
         return t;
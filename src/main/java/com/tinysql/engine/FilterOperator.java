@@ -0,0 +1,37 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import java.util.function.Predicate;
+
+/**
+ * Passes on the child's rows that satisfy a predicate, usually one built by
+ * {@link PredicateCompiler}.
+ */
+public class FilterOperator implements Operator {
+    private final Operator child;
+    private final Predicate<Row> predicate;
+
+    public FilterOperator(Operator child, Predicate<Row> predicate) {
+        this.child = child;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public Row next() {
+        Row r;
+        while ((r = child.next()) != null) {
+            if (predicate.test(r)) return r;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+}
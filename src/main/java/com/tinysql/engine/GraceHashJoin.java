@@ -0,0 +1,266 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.ColumnRef;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import com.tinysql.model.Table;
+import com.tinysql.storage.RowCodec;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hash join for inputs whose hash table would not fit the memory budget.
+ *
+ * Both inputs are streamed into partition files by a hash of the key's string
+ * form, so any two matching keys land in the same partition whatever their
+ * Java types. Each partition pair is then joined in memory, or partitioned
+ * again on the next hash bits when it is still over budget. Every spill file
+ * is deleted once consumed, and all of them are deleted if the join fails.
+ */
+final class GraceHashJoin {
+    /** Rough heap cost of a decoded row and its hash entry, on top of its encoded size. */
+    static final int ROW_OVERHEAD_BYTES = 64;
+    private static final int MAX_FANOUT = 256;
+    private static final int BITS_PER_LEVEL = 8;
+    private static final int MAX_LEVEL = 3;
+
+    private final File dir;
+    private final long budget;
+    private final List<File> files = new ArrayList<>();
+    private int spillCount;
+    private long spillBytes;
+
+    GraceHashJoin(File dir, long budget) {
+        this.dir = dir;
+        this.budget = budget;
+    }
+
+    /** Matched input rows, tagged with their scan positions for ordering. */
+    private static final class Match {
+        final long order;
+        final Row left;
+        final Row right;
+
+        Match(long order, Row left, Row right) {
+            this.order = order;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /** Estimated heap needed to hash the rows of a table, from a sample of encoded rows. */
+    static long estimateBytes(Table t) {
+        int n = t.size();
+        if (n == 0) return 0;
+        long sampled = 0;
+        int count = 0;
+        for (Row r : t.scan()) {
+            sampled += RowCodec.encode(r).length;
+            if (++count == 64) break;
+        }
+        // Decoded objects take about twice their encoded size
+        return n * (2 * sampled / Math.max(1, count) + ROW_OVERHEAD_BYTES);
+    }
+
+    List<Row> join(Table t1, Table t2, String col1, String col2, Schema out, int[] slots1, int[] slots2) throws IOException {
+        try {
+            long build = Math.min(estimateBytes(t1), estimateBytes(t2));
+            int fanout = fanout(build);
+            File[] left = spill(t1, col1, fanout);
+            File[] right = spill(t2, col2, fanout);
+
+            List<Match> matches = new ArrayList<>();
+            for (int p = 0; p < fanout; p++) {
+                joinPartition(left[p], right[p], t1, t2, col1, col2, 1, matches);
+            }
+
+            // Same left-major order and row numbering as the in-memory join
+            matches.sort(Comparator.comparingLong(m -> m.order));
+            List<Row> result = new ArrayList<>(matches.size());
+            long id = 1;
+            for (Match m : matches) {
+                Row newRow = new Row(id++, out);
+                for (int i = 0; i < slots1.length; i++) newRow.set(slots1[i], m.left.get(i));
+                for (int i = 0; i < slots2.length; i++) newRow.set(slots2[i], m.right.get(i));
+                result.add(newRow);
+            }
+            return result;
+        } finally {
+            for (File f : files) f.delete();
+            files.clear();
+        }
+    }
+
+    int getSpillCount() {
+        return spillCount;
+    }
+
+    long getSpillBytes() {
+        return spillBytes;
+    }
+
+    private int fanout(long bytes) {
+        long needed = (bytes + budget - 1) / Math.max(1, budget);
+        int fanout = 2;
+        while (fanout < MAX_FANOUT && fanout < needed * 2) fanout <<= 1;
+        return fanout;
+    }
+
+    /** Streams a table into partition files at level 0; rows with a null key are dropped. */
+    private File[] spill(Table t, String col, int fanout) throws IOException {
+        ColumnRef key = new ColumnRef(col);
+        Partitioner parts = new Partitioner(fanout);
+        try {
+            int index = 0;
+            for (Row r : t.scan()) {
+                Object k = key.get(r);
+                if (k != null) parts.write(partitionOf(k, 0, fanout), index, r);
+                index++;
+            }
+        } finally {
+            parts.close();
+        }
+        return parts.files;
+    }
+
+    private void joinPartition(File leftFile, File rightFile, Table t1, Table t2, String col1, String col2,
+                               int level, List<Match> matches) throws IOException {
+        try {
+            if (leftFile == null || rightFile == null) return;
+            long smaller = Math.min(leftFile.length(), rightFile.length());
+
+            if (2 * smaller > budget && level <= MAX_LEVEL) {
+                // Still too big for memory: split both sides on the next hash bits
+                int fanout = fanout(2 * smaller);
+                File[] left = repartition(leftFile, t1, col1, level, fanout);
+                File[] right = repartition(rightFile, t2, col2, level, fanout);
+                for (int p = 0; p < fanout; p++) {
+                    joinPartition(left[p], right[p], t1, t2, col1, col2, level + 1, matches);
+                }
+                return;
+            }
+
+            List<Row> leftRows = new ArrayList<>();
+            List<Row> rightRows = new ArrayList<>();
+            int[] leftIdx = read(leftFile, t1.getSchema(), leftRows);
+            int[] rightIdx = read(rightFile, t2.getSchema(), rightRows);
+
+            Object[] keys1 = JoinProcessor.keys(leftRows, col1);
+            Object[] keys2 = JoinProcessor.keys(rightRows, col2);
+            long[] pairs = JoinProcessor.matchPairs(keys1, keys2);
+            for (long pr : pairs) {
+                int l = (int) (pr >>> 32);
+                int r = (int) pr;
+                long order = ((long) leftIdx[l] << 32) | rightIdx[r];
+                matches.add(new Match(order, leftRows.get(l), rightRows.get(r)));
+            }
+        } finally {
+            if (leftFile != null) leftFile.delete();
+            if (rightFile != null) rightFile.delete();
+        }
+    }
+
+    private File[] repartition(File in, Table t, String col, int level, int fanout) throws IOException {
+        ColumnRef key = new ColumnRef(col);
+        Partitioner parts = new Partitioner(fanout);
+        try (DataInputStream din = open(in)) {
+            while (true) {
+                int index;
+                try {
+                    index = din.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] bytes = new byte[din.readInt()];
+                din.readFully(bytes);
+                Row r = RowCodec.decode(ByteBuffer.wrap(bytes), t.getSchema());
+                parts.write(partitionOf(key.get(r), level, fanout), index, bytes);
+            }
+        } finally {
+            parts.close();
+        }
+        return parts.files;
+    }
+
+    /** Reads a partition file into rows and returns their scan positions. */
+    private static int[] read(File f, Schema schema, List<Row> rows) throws IOException {
+        List<Integer> positions = new ArrayList<>();
+        try (DataInputStream din = open(f)) {
+            while (true) {
+                int index;
+                try {
+                    index = din.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] bytes = new byte[din.readInt()];
+                din.readFully(bytes);
+                rows.add(RowCodec.decode(ByteBuffer.wrap(bytes), schema));
+                positions.add(index);
+            }
+        }
+        int[] out = new int[positions.size()];
+        for (int i = 0; i < out.length; i++) out[i] = positions.get(i);
+        return out;
+    }
+
+    /**
+     * Partition of a key at the given level. Hashing the string form keeps
+     * keys that compare equal (1 and "1") together.
+     */
+    private static int partitionOf(Object key, int level, int fanout) {
+        int h = key.toString().hashCode() * 0x9E3779B9;
+        return (h >>> ((level * BITS_PER_LEVEL) % 32)) & (fanout - 1);
+    }
+
+    private static DataInputStream open(File f) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16));
+    }
+
+    /**
+     * One temp file per non-empty partition (null otherwise), each record
+     * written as scan position, length, encoded row.
+     */
+    private final class Partitioner {
+        final File[] files;
+        private final DataOutputStream[] outs;
+
+        Partitioner(int fanout) {
+            files = new File[fanout];
+            outs = new DataOutputStream[fanout];
+        }
+
+        void write(int p, int index, Row r) throws IOException {
+            write(p, index, RowCodec.encode(r));
+        }
+
+        void write(int p, int index, byte[] bytes) throws IOException {
+            if (outs[p] == null) {
+                files[p] = File.createTempFile("join", ".spill", dir);
+                GraceHashJoin.this.files.add(files[p]);
+                spillCount++;
+                outs[p] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[p]), 8192));
+            }
+            outs[p].writeInt(index);
+            outs[p].writeInt(bytes.length);
+            outs[p].write(bytes);
+            spillBytes += 8 + bytes.length;
+        }
+
+        void close() throws IOException {
+            IOException error = null;
+            for (DataOutputStream out : outs) {
+                if (out == null) continue;
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+            }
+            if (error != null) throw error;
+        }
+    }
+}
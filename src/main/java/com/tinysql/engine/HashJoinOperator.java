@@ -0,0 +1,116 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.ColumnRef;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import com.tinysql.model.Table;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming equi-join: the right child is drained into a hash table on open,
+ * then left rows are probed one at a time. Keys match as in
+ * {@link JoinProcessor} (equal string forms, nulls never match) and rows come
+ * out in the same left-major order with ids numbered from 1.
+ * Children must produce rows of the two given tables.
+ */
+public class HashJoinOperator implements Operator {
+    private final Operator left;
+    private final Operator right;
+    private final ColumnRef leftKey;
+    private final ColumnRef rightKey;
+    private final Schema schema = new Schema();
+    private final int[] slots1;
+    private final int[] slots2;
+
+    /** Right rows by long key, used while every right key is an Integer or Long. */
+    private Map<Long, List<Row>> byLong;
+    /** Right rows by string form, built lazily when a probe cannot use byLong. */
+    private Map<String, List<Row>> byText;
+    private List<Row> buildRows;
+
+    private Row probe;
+    private List<Row> matches;
+    private int matchPos;
+    private long nextId;
+
+    public HashJoinOperator(Operator left, Table leftTable, Operator right, Table rightTable, String col1, String col2) {
+        this.left = left;
+        this.right = right;
+        this.leftKey = new ColumnRef(col1);
+        this.rightKey = new ColumnRef(col2);
+        this.slots1 = JoinProcessor.prefixed(schema, leftTable);
+        this.slots2 = JoinProcessor.prefixed(schema, rightTable);
+    }
+
+    @Override
+    public void open() {
+        buildRows = new ArrayList<>();
+        byLong = new HashMap<>();
+        byText = null;
+        right.open();
+        try {
+            Row r;
+            while ((r = right.next()) != null) {
+                Object k = rightKey.get(r);
+                if (k == null) continue;
+                buildRows.add(r);
+                if (byLong == null) continue;
+                if (k instanceof Integer || k instanceof Long) {
+                    byLong.computeIfAbsent(((Number) k).longValue(), x -> new ArrayList<>()).add(r);
+                } else {
+                    byLong = null;
+                }
+            }
+        } finally {
+            right.close();
+        }
+        left.open();
+        probe = null;
+        matches = null;
+        nextId = 1;
+    }
+
+    @Override
+    public Row next() {
+        while (true) {
+            if (matches != null && matchPos < matches.size()) {
+                Row r2 = matches.get(matchPos++);
+                Row out = new Row(nextId++, schema);
+                for (int i = 0; i < slots1.length; i++) out.set(slots1[i], probe.get(i));
+                for (int i = 0; i < slots2.length; i++) out.set(slots2[i], r2.get(i));
+                return out;
+            }
+            probe = left.next();
+            if (probe == null) return null;
+            matches = lookup(leftKey.get(probe));
+            matchPos = 0;
+        }
+    }
+
+    private List<Row> lookup(Object k) {
+        if (k == null) return null;
+        // Integer and Long print alike, so numeric equality is string equality here
+        if (byLong != null && (k instanceof Integer || k instanceof Long)) {
+            return byLong.get(((Number) k).longValue());
+        }
+        if (byText == null) {
+            byText = new HashMap<>();
+            for (Row r : buildRows) {
+                byText.computeIfAbsent(rightKey.get(r).toString(), x -> new ArrayList<>()).add(r);
+            }
+        }
+        return byText.get(k.toString());
+    }
+
+    @Override
+    public void close() {
+        left.close();
+        buildRows = null;
+        byLong = null;
+        byText = null;
+        matches = null;
+    }
+}
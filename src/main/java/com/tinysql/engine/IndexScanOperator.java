@@ -0,0 +1,41 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.util.function.Predicate;
+
+/**
+ * Fetches the candidate rows an index lookup returned by row id and passes on
+ * those that satisfy the predicate. Ids whose row is gone are skipped.
+ */
+public class IndexScanOperator implements Operator {
+    private final Table table;
+    private final long[] rowIds;
+    private final Predicate<Row> predicate;
+    private int next;
+
+    public IndexScanOperator(Table table, long[] rowIds, Predicate<Row> predicate) {
+        this.table = table;
+        this.rowIds = rowIds;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void open() {
+        next = 0;
+    }
+
+    @Override
+    public Row next() {
+        while (next < rowIds.length) {
+            Row r = table.getRow(rowIds[next++]);
+            if (r != null && predicate.test(r)) return r;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        next = rowIds.length;
+    }
+}
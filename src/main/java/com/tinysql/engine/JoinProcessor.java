@@ -1,54 +1,392 @@
 package com.tinysql.engine;
 
 import com.tinysql.model.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * Equi-join of two tables on one column each. Two keys match when their
+ * string forms are equal and neither is null; output rows carry every
+ * column of both tables as "table.column", in left-then-right row order.
+ */
 public class JoinProcessor {
 
+    /** All keys are Integer or Long: compare as primitive longs. */
+    private static final int KEYS_INTEGRAL = 0;
+    /** All keys share one class whose equals agrees with its toString. */
+    private static final int KEYS_TYPED = 1;
+    /** Mixed classes (e.g. 1 and "1"): compare string forms. */
+    private static final int KEYS_TEXT = 2;
+
+    /** Combined input size below which a parallel join runs serially. */
+    static final int PARALLEL_THRESHOLD = 16_384;
+
     public static ExecutionResult executeJoin(Table t1, Table t2, String col1, String col2) {
-        if (t1 == null || t2 == null) {
-            return new ExecutionResult(false, "One or more tables not found for JOIN.");
+        return executeJoin(t1, t2, col1, col2, 1);
+    }
+
+    /**
+     * Hash join using up to {@code parallelism} threads. Large inputs are
+     * radix-partitioned by key hash and the partitions are built and probed
+     * concurrently; the output is the same as the serial join.
+     */
+    public static ExecutionResult executeJoin(Table t1, Table t2, String col1, String col2, int parallelism) {
+        return executeJoin(t1, t2, col1, col2, parallelism, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Hash join that keeps its hash table within {@code memoryBudget} bytes.
+     * When the smaller input is estimated to exceed the budget, both inputs
+     * are partitioned to temporary files in {@code spillDir} and joined one
+     * partition at a time (see {@link GraceHashJoin}); the result reports how
+     * many files and bytes were spilled.
+     */
+    public static ExecutionResult executeJoin(Table t1, Table t2, String col1, String col2,
+                                              int parallelism, long memoryBudget, File spillDir) {
+        ExecutionResult invalid = validate(t1, t2, col1, col2);
+        if (invalid != null) return invalid;
+
+        if (spillDir != null && memoryBudget < Long.MAX_VALUE
+                && Math.min(GraceHashJoin.estimateBytes(t1), GraceHashJoin.estimateBytes(t2)) > memoryBudget) {
+            Schema out = new Schema();
+            int[] slots1 = prefixed(out, t1);
+            int[] slots2 = prefixed(out, t2);
+            GraceHashJoin grace = new GraceHashJoin(spillDir, memoryBudget);
+            try {
+                List<Row> rows = grace.join(t1, t2, col1, col2, out, slots1, slots2);
+                ExecutionResult res = new ExecutionResult(true, "Joined " + rows.size() + " rows (spilled "
+                        + grace.getSpillCount() + " partitions, " + grace.getSpillBytes() + " bytes).", rows);
+                res.setSpillStats(grace.getSpillCount(), grace.getSpillBytes());
+                return res;
+            } catch (IOException e) {
+                return new ExecutionResult(false, "Join spill failed: " + e.getMessage());
+            }
         }
 
-        // Verify Columns Exist
-        if (t1.getColumn(col1) == null) return new ExecutionResult(false, "Column " + col1 + " missing in " + t1.getName());
-        if (t2.getColumn(col2) == null) return new ExecutionResult(false, "Column " + col2 + " missing in " + t2.getName());
+        List<Row> rows1 = t1.selectAll();
+        List<Row> rows2 = t2.selectAll();
+        Object[] keys1 = keys(rows1, col1);
+        Object[] keys2 = keys(rows2, col2);
 
-        List<Row> resultRows = new ArrayList<>();
-        long resultIdCounter = 1;
+        int kind = keyKind(keys1, keys2);
+        if (kind == KEYS_TEXT) {
+            toText(keys1);
+            toText(keys2);
+        }
+
+        List<Row> out;
+        if (parallelism > 1 && rows1.size() + rows2.size() >= PARALLEL_THRESHOLD) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                long[] pairs = parallelJoin(pool, keys1, keys2, kind, parallelism);
+                out = output(t1, t2, rows1, rows2, pairs, pool);
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            out = output(t1, t2, rows1, rows2, serialJoin(keys1, keys2, kind), null);
+        }
+
+        return new ExecutionResult(true, "Joined " + out.size() + " rows.", out);
+    }
+
+    /**
+     * The original nested-loop join, comparing every pair by toString. Kept as
+     * the reference the hash join is checked and benchmarked against.
+     */
+    public static ExecutionResult executeNestedLoopJoin(Table t1, Table t2, String col1, String col2) {
+        ExecutionResult invalid = validate(t1, t2, col1, col2);
+        if (invalid != null) return invalid;
 
-        // Nested Loop Join
         List<Row> rows1 = t1.selectAll();
         List<Row> rows2 = t2.selectAll();
+        ColumnRef key1 = new ColumnRef(col1);
+        ColumnRef key2 = new ColumnRef(col2);
 
-        for (Row r1 : rows1) {
-            Object val1 = r1.get(col1);
+        LongList pairs = new LongList();
+        for (int i = 0; i < rows1.size(); i++) {
+            Object val1 = key1.get(rows1.get(i));
             if (val1 == null) continue;
 
-            for (Row r2 : rows2) {
-                Object val2 = r2.get(col2);
+            for (int j = 0; j < rows2.size(); j++) {
+                Object val2 = key2.get(rows2.get(j));
                 if (val2 == null) continue;
 
                 if (val1.toString().equals(val2.toString())) {
-                    // Match found - Merge Rows
-                    Row newRow = new Row(resultIdCounter++);
-                    
-                    // Add data from T1 (prefixed)
-                    for (Column c : t1.getColumns()) {
-                        newRow.set(t1.getName() + "." + c.getName(), r1.get(c.getName()));
-                    }
-                    
-                    // Add data from T2 (prefixed)
-                    for (Column c : t2.getColumns()) {
-                        newRow.set(t2.getName() + "." + c.getName(), r2.get(c.getName()));
-                    }
-                    
-                    resultRows.add(newRow);
+                    pairs.add(pair(i, j));
+                }
+            }
+        }
+
+        long[] matched = pairs.toArray();
+        return new ExecutionResult(true, "Joined " + matched.length + " rows.", output(t1, t2, rows1, rows2, matched, null));
+    }
+
+    private static ExecutionResult validate(Table t1, Table t2, String col1, String col2) {
+        if (t1 == null || t2 == null) {
+            return new ExecutionResult(false, "One or more tables not found for JOIN.");
+        }
+
+        // Verify Columns Exist
+        if (t1.getColumn(col1) == null) return new ExecutionResult(false, "Column " + col1 + " missing in " + t1.getName());
+        if (t2.getColumn(col2) == null) return new ExecutionResult(false, "Column " + col2 + " missing in " + t2.getName());
+        return null;
+    }
+
+    /**
+     * Matching (left index << 32 | right index) pairs of two key arrays, in
+     * left-major order. The key arrays may be rewritten to their string forms.
+     */
+    static long[] matchPairs(Object[] keys1, Object[] keys2) {
+        int kind = keyKind(keys1, keys2);
+        if (kind == KEYS_TEXT) {
+            toText(keys1);
+            toText(keys2);
+        }
+        return serialJoin(keys1, keys2, kind);
+    }
+
+    private static long[] serialJoin(Object[] keys1, Object[] keys2, int kind) {
+        LongList pairs = new LongList();
+        boolean builtLeft = joinPartition(keys1, identity(keys1.length), keys2, identity(keys2.length), kind, 0, pairs);
+        long[] matched = pairs.toArray();
+        // Probing with the right side yields right-major order; restore left-major
+        if (builtLeft) Arrays.sort(matched);
+        return matched;
+    }
+
+    /**
+     * Splits both inputs into 2^bits partitions by the low bits of the key
+     * hash, then joins matching partitions as independent fork/join tasks.
+     * Each task fills its own pair list, so merging needs no lock.
+     */
+    private static long[] parallelJoin(ForkJoinPool pool, Object[] keys1, Object[] keys2, int kind, int parallelism) {
+        int bits = 32 - Integer.numberOfLeadingZeros(parallelism * 4 - 1);
+        int[][] parts1 = partition(keys1, kind, bits);
+        int[][] parts2 = partition(keys2, kind, bits);
+
+        List<ForkJoinTask<long[]>> tasks = new ArrayList<>(parts1.length);
+        for (int p = 0; p < parts1.length; p++) {
+            final int part = p;
+            tasks.add(pool.submit(() -> {
+                LongList pairs = new LongList();
+                joinPartition(keys1, parts1[part], keys2, parts2[part], kind, bits, pairs);
+                return pairs.toArray();
+            }));
+        }
+
+        long[][] results = new long[tasks.size()][];
+        int total = 0;
+        for (int p = 0; p < results.length; p++) {
+            results[p] = tasks.get(p).join();
+            total += results[p].length;
+        }
+        long[] pairs = new long[total];
+        int offset = 0;
+        for (long[] r : results) {
+            System.arraycopy(r, 0, pairs, offset, r.length);
+            offset += r.length;
+        }
+        // Same left-major order as the serial join
+        Arrays.parallelSort(pairs);
+        return pairs;
+    }
+
+    /** Row indices of each partition, in input order; null keys are dropped. */
+    private static int[][] partition(Object[] keys, int kind, int bits) {
+        int parts = 1 << bits;
+        int[] hashes = new int[keys.length];
+        int[] counts = new int[parts];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) continue;
+            hashes[i] = hash(keys[i], kind);
+            counts[hashes[i] & (parts - 1)]++;
+        }
+        int[][] out = new int[parts][];
+        for (int p = 0; p < parts; p++) out[p] = new int[counts[p]];
+        int[] fill = new int[parts];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) continue;
+            int p = hashes[i] & (parts - 1);
+            out[p][fill[p]++] = i;
+        }
+        return out;
+    }
+
+    /**
+     * Joins the given left and right rows, building on the smaller side, and
+     * adds the matches as (left index << 32 | right index). Hash bits below
+     * {@code shift} were used for partitioning and are skipped. Null keys never match.
+     * @return true if the left side was built, i.e. pairs came out right-major
+     */
+    private static boolean joinPartition(Object[] keys1, int[] idx1, Object[] keys2, int[] idx2,
+                                         int kind, int shift, LongList pairs) {
+        boolean buildLeft = idx1.length < idx2.length;
+        Object[] build = buildLeft ? keys1 : keys2;
+        int[] buildIdx = buildLeft ? idx1 : idx2;
+        Object[] probe = buildLeft ? keys2 : keys1;
+        int[] probeIdx = buildLeft ? idx2 : idx1;
+
+        int capacity = Integer.highestOneBit(Math.max(2, buildIdx.length) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        int[] heads = new int[capacity];
+        Arrays.fill(heads, -1);
+        int[] next = new int[buildIdx.length];
+        long[] longKeys = kind == KEYS_INTEGRAL ? new long[buildIdx.length] : null;
+
+        // Insert back to front so every chain lists build rows in input order
+        for (int e = buildIdx.length - 1; e >= 0; e--) {
+            Object k = build[buildIdx[e]];
+            if (k == null) continue;
+            if (longKeys != null) longKeys[e] = ((Number) k).longValue();
+            int h = (hash(k, kind) >>> shift) & mask;
+            next[e] = heads[h];
+            heads[h] = e;
+        }
+
+        for (int p : probeIdx) {
+            Object k = probe[p];
+            if (k == null) continue;
+            int h = (hash(k, kind) >>> shift) & mask;
+            if (longKeys != null) {
+                long key = ((Number) k).longValue();
+                for (int e = heads[h]; e >= 0; e = next[e]) {
+                    if (longKeys[e] == key) pairs.add(buildLeft ? pair(buildIdx[e], p) : pair(p, buildIdx[e]));
+                }
+            } else {
+                for (int e = heads[h]; e >= 0; e = next[e]) {
+                    if (k.equals(build[buildIdx[e]])) pairs.add(buildLeft ? pair(buildIdx[e], p) : pair(p, buildIdx[e]));
                 }
             }
         }
+        return buildLeft;
+    }
+
+    /**
+     * Materializes the matched pairs as prefixed rows numbered from 1. With a
+     * pool, chunks of the result are built concurrently into disjoint slots.
+     */
+    private static List<Row> output(Table t1, Table t2, List<Row> rows1, List<Row> rows2, long[] pairs, ForkJoinPool pool) {
+        // One prefixed schema shared by every result row
+        // (a self join maps both sides onto the same names, the right side wins)
+        Schema out = new Schema();
+        int[] slots1 = prefixed(out, t1);
+        int[] slots2 = prefixed(out, t2);
+
+        Row[] result = new Row[pairs.length];
+        if (pool == null || pairs.length < PARALLEL_THRESHOLD) {
+            merge(rows1, rows2, pairs, 0, pairs.length, out, slots1, slots2, result);
+        } else {
+            int chunks = pool.getParallelism() * 4;
+            int chunk = (pairs.length + chunks - 1) / chunks;
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+            for (int from = 0; from < pairs.length; from += chunk) {
+                final int start = from;
+                final int end = Math.min(pairs.length, from + chunk);
+                tasks.add(pool.submit(() -> merge(rows1, rows2, pairs, start, end, out, slots1, slots2, result)));
+            }
+            for (ForkJoinTask<?> task : tasks) task.join();
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private static void merge(List<Row> rows1, List<Row> rows2, long[] pairs, int from, int to,
+                              Schema out, int[] slots1, int[] slots2, Row[] result) {
+        for (int k = from; k < to; k++) {
+            Row r1 = rows1.get((int) (pairs[k] >>> 32));
+            Row r2 = rows2.get((int) pairs[k]);
+            // Merge Rows (table rows are laid out in column order)
+            Row newRow = new Row(k + 1, out);
+            for (int i = 0; i < slots1.length; i++) newRow.set(slots1[i], r1.get(i));
+            for (int i = 0; i < slots2.length; i++) newRow.set(slots2[i], r2.get(i));
+            result[k] = newRow;
+        }
+    }
+
+    /** Adds the table's columns to the output schema as "table.column" and returns their ordinals. */
+    static int[] prefixed(Schema out, Table t) {
+        List<Column> cols = t.getColumns();
+        int[] slots = new int[cols.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = out.add(t.getName() + "." + cols.get(i).getName());
+        }
+        return slots;
+    }
+
+    static Object[] keys(List<Row> rows, String col) {
+        ColumnRef ref = new ColumnRef(col);
+        Object[] keys = new Object[rows.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = ref.get(rows.get(i));
+        return keys;
+    }
+
+    /**
+     * Picks the cheapest key comparison that still agrees with comparing
+     * toString() results. Integer and Long print alike, so they can share a
+     * long key; any other mix of classes (1 vs "1", 1.0 vs 1.0f) cannot.
+     */
+    private static int keyKind(Object[] a, Object[] b) {
+        boolean integral = true;
+        Class<?> common = null;
+        boolean sameClass = true;
+        for (Object[] keys : new Object[][] { a, b }) {
+            for (Object k : keys) {
+                if (k == null) continue;
+                if (!(k instanceof Integer || k instanceof Long)) integral = false;
+                if (common == null) common = k.getClass();
+                else if (k.getClass() != common) sameClass = false;
+            }
+        }
+        if (integral) return KEYS_INTEGRAL;
+        if (sameClass && (common == String.class || common == Double.class
+                || common == Float.class || common == Boolean.class)) {
+            return KEYS_TYPED;
+        }
+        return KEYS_TEXT;
+    }
+
+    private static void toText(Object[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) keys[i] = keys[i].toString();
+        }
+    }
 
-        return new ExecutionResult(true, "Joined " + resultRows.size() + " rows.", resultRows);
+    private static int hash(Object key, int kind) {
+        return kind == KEYS_INTEGRAL ? mix(((Number) key).longValue()) : mix(key.hashCode());
+    }
+
+    private static int[] identity(int n) {
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        return idx;
+    }
+
+    private static long pair(int left, int right) {
+        return ((long) left << 32) | right;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Growable long[] for match pairs. */
+    private static final class LongList {
+        private long[] items = new long[16];
+        private int size;
+
+        void add(long v) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = v;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+
+/**
+ * Bounds on the keys of an ordered index that can satisfy
+ * {@code column op literal}. They are exact for ordering operators and widened
+ * by the comparison epsilon for '=' on FLOAT and DOUBLE. Operators that cannot
+ * be narrowed ('!=', or ordering on strings, which only mistyped cells can
+ * match) leave the range open, so every entry has to be tested.
+ */
+final class KeyRange {
+    /** Every key. */
+    static final KeyRange ALL = new KeyRange(null, false, null, false);
+
+    final Object lo;
+    final boolean loInclusive;
+    final Object hi;
+    final boolean hiInclusive;
+
+    private KeyRange(Object lo, boolean loInclusive, Object hi, boolean hiInclusive) {
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+    }
+
+    /** @param key the literal as a cell of the column's type */
+    static KeyRange of(Column col, String op, Object key) {
+        if (op.equals("=")) {
+            switch (col.getType()) {
+                case DOUBLE: {
+                    double t = (Double) key;
+                    return new KeyRange(t - 2 * 0.000001, true, t + 2 * 0.000001, true);
+                }
+                case FLOAT: {
+                    float t = (Float) key;
+                    return new KeyRange(t - 2 * 0.000001f, true, t + 2 * 0.000001f, true);
+                }
+                default: return new KeyRange(key, true, key, true);
+            }
+        }
+        if (col.getType() == DataType.STRING) return ALL;
+        switch (op) {
+            case ">": return new KeyRange(key, false, null, false);
+            case ">=": return new KeyRange(key, true, null, false);
+            case "<": return new KeyRange(null, false, key, false);
+            case "<=": return new KeyRange(null, false, key, true);
+            default: return ALL;
+        }
+    }
+}
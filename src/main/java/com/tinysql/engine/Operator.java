@@ -0,0 +1,19 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+
+/**
+ * Pull-based (Volcano) query operator. A consumer calls {@link #open()} once,
+ * then {@link #next()} until it returns null, then {@link #close()}. Operators
+ * hand rows up one at a time, so a pipeline without a blocking operator
+ * (scan, filter, project, the probe side of a join) runs in constant memory.
+ */
+public interface Operator extends AutoCloseable {
+    void open();
+
+    /** The next row, or null when the operator is exhausted. */
+    Row next();
+
+    @Override
+    void close();
+}
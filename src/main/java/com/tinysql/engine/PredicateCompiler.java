@@ -0,0 +1,198 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.ColumnRef;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Turns a {@code column op literal} condition into a {@link Predicate} once
+ * per query. The literal is parsed according to the column's declared type
+ * and the operator is resolved to a primitive comparison up front, so the
+ * scan loop only reads the cell by ordinal and compares, without allocating.
+ *
+ * Cells whose Java type does not match the declared type (the engine does not
+ * type-check inserts) fall back to {@link ConditionEvaluator} for that row,
+ * except the Doubles a FLOAT column gets from SQL literals, which compile too, so
+ * results are the same as evaluating row by row. A compiled predicate caches
+ * the column ordinal and is not thread-safe; compile one per thread.
+ */
+public class PredicateCompiler {
+    /** Non-null cells that took the per-row fallback, so tests can tell which cells compile. */
+    static final LongAdder FALLBACKS = new LongAdder();
+
+    /**
+     * @throws IllegalArgumentException if the literal does not parse as the column's type
+     */
+    public static Predicate<Row> compile(Table table, String colName, String operator, String value) {
+        Column col = table.getColumn(colName);
+        // Unknown columns read as null in every row, which never matches
+        if (col == null || table.getSchema().indexOf(colName) < 0) return row -> false;
+
+        ColumnRef ref = new ColumnRef(colName);
+        try {
+            switch (col.getType()) {
+                case INTEGER: {
+                    IntPredicate cmp = intComparison(operator, Integer.parseInt(value));
+                    return row -> {
+                        Object cell = ref.get(row);
+                        if (cell instanceof Integer) return cmp.test((Integer) cell);
+                        return fallback(cell, operator, value);
+                    };
+                }
+                case DOUBLE: {
+                    DoublePredicate cmp = doubleComparison(operator, Double.parseDouble(value));
+                    return row -> {
+                        Object cell = ref.get(row);
+                        if (cell instanceof Double) return cmp.test((Double) cell);
+                        return fallback(cell, operator, value);
+                    };
+                }
+                case FLOAT: {
+                    float target = Float.parseFloat(value);
+                    DoublePredicate cmp = floatComparison(operator, target);
+                    // Inserts are not coerced and the parser yields Double, so FLOAT
+                    // columns mostly hold Doubles; compare those as the evaluator does
+                    DoublePredicate wide = doubleComparison(operator, Double.parseDouble(value));
+                    return row -> {
+                        Object cell = ref.get(row);
+                        if (cell instanceof Float) return cmp.test((Float) cell);
+                        if (cell instanceof Double) return wide.test((Double) cell);
+                        return fallback(cell, operator, value);
+                    };
+                }
+                case BOOLEAN: {
+                    boolean target = Boolean.parseBoolean(value);
+                    boolean equal = operator.equals("=");
+                    if (!equal && !operator.equals("!=")) return booleanFallback(ref, operator, value);
+                    return row -> {
+                        Object cell = ref.get(row);
+                        if (cell instanceof Boolean) return ((Boolean) cell == target) == equal;
+                        return fallback(cell, operator, value);
+                    };
+                }
+                default: {
+                    boolean equal = operator.equals("=");
+                    if (!equal && !operator.equals("!=")) return stringFallback(ref, operator, value);
+                    return row -> {
+                        Object cell = ref.get(row);
+                        if (cell instanceof String) return cell.equals(value) == equal;
+                        return fallback(cell, operator, value);
+                    };
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + col.getType() + " literal for " + colName + ": " + value);
+        }
+    }
+
+    /**
+     * The literal as a cell of the column's declared type, e.g. for an index lookup.
+     * @throws IllegalArgumentException if it does not parse as that type
+     */
+    public static Object literal(Column col, String value) {
+        try {
+            switch (col.getType()) {
+                case INTEGER: return Integer.parseInt(value);
+                case DOUBLE: return Double.parseDouble(value);
+                case FLOAT: return Float.parseFloat(value);
+                case BOOLEAN: return Boolean.parseBoolean(value);
+                default: return value;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + col.getType() + " literal for " + col.getName() + ": " + value);
+        }
+    }
+
+    /**
+     * The condition applied to a value already of the column's type, such as
+     * an index key, so no cell fallback is needed.
+     * @throws IllegalArgumentException if the literal does not parse as the column's type
+     */
+    static Predicate<Object> compileKey(Column col, String operator, String value) {
+        Object target = literal(col, value);
+        switch (col.getType()) {
+            case INTEGER: {
+                IntPredicate cmp = intComparison(operator, (Integer) target);
+                return k -> cmp.test((Integer) k);
+            }
+            case DOUBLE: {
+                DoublePredicate cmp = doubleComparison(operator, (Double) target);
+                return k -> cmp.test((Double) k);
+            }
+            case FLOAT: {
+                DoublePredicate cmp = floatComparison(operator, (Float) target);
+                return k -> cmp.test((Float) k);
+            }
+            default: {
+                if (operator.equals("=")) return target::equals;
+                if (operator.equals("!=")) return k -> !target.equals(k);
+                return k -> false;
+            }
+        }
+    }
+
+    /** Strings and booleans only support = and !=, other operators only match mistyped cells. */
+    private static Predicate<Row> booleanFallback(ColumnRef ref, String operator, String value) {
+        return row -> {
+            Object cell = ref.get(row);
+            return !(cell instanceof Boolean) && fallback(cell, operator, value);
+        };
+    }
+
+    private static Predicate<Row> stringFallback(ColumnRef ref, String operator, String value) {
+        return row -> {
+            Object cell = ref.get(row);
+            return !(cell instanceof String) && fallback(cell, operator, value);
+        };
+    }
+
+    private static boolean fallback(Object cell, String operator, String value) {
+        if (cell == null) return false;
+        FALLBACKS.increment();
+        return ConditionEvaluator.evaluate(cell, operator, value);
+    }
+
+    static IntPredicate intComparison(String op, int target) {
+        switch (op) {
+            case "=": return x -> x == target;
+            case ">": return x -> x > target;
+            case "<": return x -> x < target;
+            case ">=": return x -> x >= target;
+            case "<=": return x -> x <= target;
+            case "!=": return x -> x != target;
+            default: return x -> false;
+        }
+    }
+
+    static DoublePredicate doubleComparison(String op, double target) {
+        double epsilon = 0.000001;
+        switch (op) {
+            case "=": return x -> Math.abs(x - target) < epsilon;
+            case ">": return x -> x > target;
+            case "<": return x -> x < target;
+            case ">=": return x -> x >= target;
+            case "<=": return x -> x <= target;
+            case "!=": return x -> Math.abs(x - target) > epsilon;
+            default: return x -> false;
+        }
+    }
+
+    /** Float comparisons done in float arithmetic; the widened value narrows back exactly. */
+    static DoublePredicate floatComparison(String op, float target) {
+        float epsilon = 0.000001f;
+        switch (op) {
+            case "=": return x -> Math.abs((float) x - target) < epsilon;
+            case ">": return x -> (float) x > target;
+            case "<": return x -> (float) x < target;
+            case ">=": return x -> (float) x >= target;
+            case "<=": return x -> (float) x <= target;
+            case "!=": return x -> Math.abs((float) x - target) > epsilon;
+            default: return x -> false;
+        }
+    }
+}
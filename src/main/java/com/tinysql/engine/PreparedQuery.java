@@ -0,0 +1,246 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Table;
+import com.tinysql.parser.AnalyzeStatement;
+import com.tinysql.parser.CreateIndexStatement;
+import com.tinysql.parser.CreateTableStatement;
+import com.tinysql.parser.InsertStatement;
+import com.tinysql.parser.JoinStatement;
+import com.tinysql.parser.Parameter;
+import com.tinysql.parser.SelectItem;
+import com.tinysql.parser.SelectStatement;
+import com.tinysql.parser.ShowStatsStatement;
+import com.tinysql.parser.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A statement parsed once by {@link Executor#prepare}, run any number of
+ * times with its {@code ?} placeholders bound to typed values. The column
+ * each placeholder stands for is looked up on first use and again only after
+ * a schema change; each bound value must be of that column's type (any
+ * number for FLOAT and DOUBLE, an int-range integer for INTEGER) and is
+ * converted to it. Which index or scan reads the rows still depends on the
+ * bound values, so that choice is made per run. While the executor has a
+ * {@link ResultCache}, a SELECT's result is looked up there by the
+ * statement's text and bound values before anything is read.
+ */
+public final class PreparedQuery {
+    private final Executor executor;
+    private final Statement statement;
+    private final String key;
+    /** Each WHERE placeholder's condition to its parameter index. */
+    private final Map<Condition, Integer> slots = new IdentityHashMap<>();
+    private final List<String> functions = new ArrayList<>();
+    private final List<String> columns = new ArrayList<>();
+    private volatile Binding binding;
+
+    /** The type and column name of each placeholder, as of one schema version. */
+    private static final class Binding {
+        final int version;
+        final DataType[] types;
+        final String[] targets;
+
+        Binding(int version, DataType[] types, String[] targets) {
+            this.version = version;
+            this.types = types;
+            this.targets = targets;
+        }
+    }
+
+    PreparedQuery(Executor executor, Statement statement, String key) {
+        this.executor = executor;
+        this.statement = statement;
+        this.key = key;
+        if (statement instanceof SelectStatement) {
+            SelectStatement select = (SelectStatement) statement;
+            for (Condition c : select.getParameters()) slots.put(c, slots.size());
+            for (SelectItem item : select.getItems()) {
+                if (!item.isAggregate()) continue;
+                functions.add(item.getFunction());
+                columns.add(item.getColumn());
+            }
+        }
+    }
+
+    public Statement getStatement() {
+        return statement;
+    }
+
+    public int getParameterCount() {
+        return statement.getParameterCount();
+    }
+
+    /** Runs the statement; a SELECT of rows returns them all. */
+    public ExecutionResult execute(Object... params) {
+        return run(false, params);
+    }
+
+    /** Like {@link #execute}, except a SELECT of rows returns a cursor, as {@link Executor#openSelect} does. */
+    public ExecutionResult open(Object... params) {
+        return run(true, params);
+    }
+
+    private ExecutionResult run(boolean stream, Object[] params) {
+        int expected = getParameterCount();
+        if (params.length != expected) {
+            return new ExecutionResult(false, "Expected " + expected + " parameters but got " + params.length);
+        }
+        Object[] bound = new Object[params.length];
+        if (expected > 0) {
+            Binding b = resolve();
+            for (int i = 0; i < params.length; i++) {
+                try {
+                    bound[i] = bind(b, i, params[i]);
+                } catch (IllegalArgumentException e) {
+                    return new ExecutionResult(false, e.getMessage());
+                }
+            }
+        }
+
+        if (statement instanceof SelectStatement) {
+            SelectStatement select = (SelectStatement) statement;
+            ResultCache cache = executor.getResultCache();
+            Table table = cache == null || !select.isCacheable() ? null : executor.getOrLoadTable(select.getTable());
+            if (table == null) return select(select, bound, stream);
+
+            // Read before running, so an insert racing the query leaves the entry stale rather than wrong
+            long version = table.getVersion();
+            List<Object> resultKey = Arrays.asList(key, Arrays.asList(bound));
+            ExecutionResult res = cache.get(resultKey, table, version);
+            if (res == null) {
+                res = select(select, bound, false);
+                cache.put(resultKey, table, version, res);
+            }
+            if (stream && res.isSuccess() && functions.isEmpty()) {
+                return new ExecutionResult(true, "Streaming rows from " + select.getTable(), new Cursor(new ScanOperator(res.getData())));
+            }
+            return res;
+        }
+        if (statement instanceof InsertStatement) {
+            InsertStatement insert = (InsertStatement) statement;
+            List<Object> values = new ArrayList<>(insert.getValues());
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) instanceof Parameter) values.set(i, bound[((Parameter) values.get(i)).getIndex()]);
+            }
+            return executor.executeInsert(insert.getTable(), values);
+        }
+        if (statement instanceof CreateTableStatement) {
+            CreateTableStatement create = (CreateTableStatement) statement;
+            return executor.executeCreate(create.getTable(), new ArrayList<>(create.getColumns()), create.getMode());
+        }
+        if (statement instanceof CreateIndexStatement) {
+            CreateIndexStatement index = (CreateIndexStatement) statement;
+            return executor.executeCreateIndex(index.getName(), index.getTable(), index.getColumn(), index.getType());
+        }
+        if (statement instanceof AnalyzeStatement) return executor.executeAnalyze(((AnalyzeStatement) statement).getTable());
+        if (statement instanceof ShowStatsStatement) return executor.executeShowStats(((ShowStatsStatement) statement).getTable());
+        JoinStatement join = (JoinStatement) statement;
+        return executor.executeJoin(join.getLeft(), join.getRight(), join.getLeftColumn(), join.getRightColumn());
+    }
+
+    private ExecutionResult select(SelectStatement select, Object[] bound, boolean stream) {
+        WhereExpr where = select.getWhere() == null ? null : substitute(select.getWhere(), bound);
+        String table = select.getTable();
+        if (!select.getGroupBy().isEmpty()) {
+            Condition c = where == null ? null : where.getCondition();
+            return executor.executeGroupBy(table, select.getGroupBy(), functions, columns,
+                    c == null ? null : c.getColumn(), c == null ? null : c.getOperator(), c == null ? null : c.getValue());
+        }
+        if (functions.size() > 1) return executor.executeAggregates(table, functions, columns, where);
+        if (functions.size() == 1) return executor.executeAggregate(table, columns.get(0), functions.get(0), where);
+        return stream ? executor.openSelect(table, where) : executor.executeSelect(table, where);
+    }
+
+    /** Looks up the column behind each placeholder, unless that was done under the current schema. */
+    private Binding resolve() {
+        Binding b = binding;
+        if (b != null && b.version == executor.schemaVersion()) return b;
+        int n = getParameterCount();
+        DataType[] t = new DataType[n];
+        String[] names = new String[n];
+        if (statement instanceof SelectStatement) {
+            SelectStatement select = (SelectStatement) statement;
+            Table table = executor.getOrLoadTable(select.getTable());
+            for (Condition c : select.getParameters()) {
+                int i = slots.get(c);
+                Column col = table == null ? null : table.getColumn(c.getColumn());
+                names[i] = c.getColumn();
+                t[i] = col == null ? null : col.getType();
+            }
+        } else {
+            InsertStatement insert = (InsertStatement) statement;
+            Table table = executor.getOrLoadTable(insert.getTable());
+            List<Object> values = insert.getValues();
+            for (int v = 0; v < values.size(); v++) {
+                if (!(values.get(v) instanceof Parameter)) continue;
+                int i = ((Parameter) values.get(v)).getIndex();
+                Column col = table == null || v >= table.getColumns().size() ? null : table.getColumns().get(v);
+                names[i] = col == null ? "value " + (v + 1) : col.getName();
+                t[i] = col == null ? null : col.getType();
+            }
+        }
+        // Loading the table above may itself have bumped the version
+        b = new Binding(executor.schemaVersion(), t, names);
+        binding = b;
+        return b;
+    }
+
+    /**
+     * The value converted to its column's type; unchanged if the column is
+     * unknown, which the executor then reports.
+     * @throws IllegalArgumentException if the value is not of the column's type
+     */
+    private Object bind(Binding b, int i, Object value) {
+        DataType type = b.types[i];
+        if (value == null) {
+            // NULL never matches a condition, but is a valid cell
+            if (statement instanceof SelectStatement) {
+                throw new IllegalArgumentException("Parameter " + (i + 1) + " for " + b.targets[i] + " cannot be NULL");
+            }
+            return null;
+        }
+        if (type == null) return value;
+        switch (type) {
+            case INTEGER:
+                if (value instanceof Integer) return value;
+                if (value instanceof Long || value instanceof Short || value instanceof Byte) {
+                    long l = ((Number) value).longValue();
+                    if (l == (int) l) return (int) l;
+                }
+                break;
+            case DOUBLE:
+                if (value instanceof Number) return ((Number) value).doubleValue();
+                break;
+            case FLOAT:
+                if (value instanceof Number) return ((Number) value).floatValue();
+                break;
+            case BOOLEAN:
+                if (value instanceof Boolean) return value;
+                break;
+            case STRING:
+                if (value instanceof CharSequence) return value.toString();
+                break;
+        }
+        throw new IllegalArgumentException("Parameter " + (i + 1) + " for " + b.targets[i] + " must be " + type
+                + " but got " + value.getClass().getSimpleName() + " " + value);
+    }
+
+    /** The WHERE tree with each placeholder condition replaced by one holding its bound value. */
+    private WhereExpr substitute(WhereExpr where, Object[] bound) {
+        if (slots.isEmpty()) return where;
+        if (where.getKind() == WhereExpr.Kind.CONDITION) {
+            Condition c = where.getCondition();
+            Integer slot = slots.get(c);
+            return slot == null ? where : WhereExpr.of(c.getColumn(), c.getOperator(), String.valueOf(bound[slot]));
+        }
+        List<WhereExpr> children = new ArrayList<>();
+        for (WhereExpr child : where.getChildren()) children.add(substitute(child, bound));
+        return where.getKind() == WhereExpr.Kind.AND ? WhereExpr.and(children) : WhereExpr.or(children);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.ColumnRef;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import java.util.List;
+
+/**
+ * Keeps only the named columns of each row, in the given order. Output rows
+ * keep their row ids and share one schema.
+ */
+public class ProjectOperator implements Operator {
+    private final Operator child;
+    private final Schema schema = new Schema();
+    private final ColumnRef[] refs;
+
+    public ProjectOperator(Operator child, List<String> columns) {
+        this.child = child;
+        this.refs = new ColumnRef[columns.size()];
+        for (int i = 0; i < refs.length; i++) {
+            schema.add(columns.get(i));
+            refs[i] = new ColumnRef(columns.get(i));
+        }
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public Row next() {
+        Row in = child.next();
+        if (in == null) return null;
+        Row out = new Row(in.getRowId(), schema);
+        for (int i = 0; i < refs.length; i++) out.set(i, refs[i].get(in));
+        return out;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+}
@@ -0,0 +1,156 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of prepared SELECTs, each kept with the table it read and that
+ * table's {@link Table#getVersion() version} at the time. An entry whose
+ * table has changed since is dropped when next looked up. Entries are
+ * weighed by an estimate of their heap bytes, and the least recently used
+ * are evicted while the total is over budget; a result heavier than the
+ * whole budget is not kept. Cached rows are shared by every hit and must
+ * not be modified.
+ */
+public final class ResultCache {
+    /** Rough heap bytes of an entry, its key and map node, before any rows. */
+    private static final long ENTRY_BYTES = 160;
+    private static final long ROW_BYTES = 64;
+    private static final long CELL_BYTES = 24;
+
+    private final long budget;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private static final class Entry {
+        final Table table;
+        final long version;
+        final ExecutionResult result;
+        final long weight;
+
+        Entry(Table table, long version, ExecutionResult result, long weight) {
+            this.table = table;
+            this.version = version;
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+    public ResultCache(long budgetBytes) {
+        if (budgetBytes < 1) throw new IllegalArgumentException("Result cache budget must be positive");
+        this.budget = budgetBytes;
+    }
+
+    /** A copy of the result cached for the key at this version of the table, or null. */
+    synchronized ExecutionResult get(Object key, Table table, long version) {
+        Entry e = entries.get(key);
+        if (e != null && (e.table != table || e.version != version)) {
+            remove(key, e);
+            invalidations++;
+            e = null;
+        }
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(e.result);
+    }
+
+    /** Keeps a successful result read from the table at this version. */
+    synchronized void put(Object key, Table table, long version, ExecutionResult result) {
+        if (!result.isSuccess() || result.getCursor() != null) return;
+        List<Row> data = result.getData();
+        ExecutionResult kept = data == null ? result
+                : new ExecutionResult(true, result.getMessage(), Collections.unmodifiableList(data));
+        long w = weigh(key, kept);
+        if (w > budget) return;
+        Entry old = entries.get(key);
+        if (old != null) remove(key, old);
+        entries.put(key, new Entry(table, version, kept, w));
+        weight += w;
+        for (Iterator<Map.Entry<Object, Entry>> it = entries.entrySet().iterator(); weight > budget && it.hasNext(); ) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private void remove(Object key, Entry e) {
+        entries.remove(key);
+        weight -= e.weight;
+    }
+
+    private static ExecutionResult copy(ExecutionResult res) {
+        if (res.getData() != null) return new ExecutionResult(true, res.getMessage(), res.getData());
+        return new ExecutionResult(true, res.getMessage(), res.getAggregateResult());
+    }
+
+    /** Estimated heap bytes of a cached result and its key. */
+    static long weigh(Object key, ExecutionResult res) {
+        long bytes = ENTRY_BYTES + 2L * key.toString().length() + 2L * res.getMessage().length();
+        if (res.getData() == null) return bytes;
+        for (Row r : res.getData()) {
+            bytes += ROW_BYTES;
+            for (int i = 0; i < r.getSchema().size(); i++) {
+                Object cell = r.get(i);
+                bytes += CELL_BYTES;
+                if (cell instanceof String) bytes += 40 + 2L * ((String) cell).length();
+            }
+        }
+        return bytes;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    /** Estimated heap bytes of the cached results. */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** Lookups that found nothing current, including those that found a stale entry. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Entries dropped to stay within the budget. */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** Entries dropped because their table changed. */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResultCache{budget=" + budget + ", weight=" + weight + ", entries=" + entries.size() + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "}";
+    }
+}
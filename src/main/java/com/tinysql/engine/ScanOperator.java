@@ -0,0 +1,37 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.util.Iterator;
+
+/**
+ * Streams a table's rows straight from its row store, or just a run of them
+ * such as a key range of a clustered store.
+ */
+public class ScanOperator implements Operator {
+    private final Iterable<Row> source;
+    private Iterator<Row> rows;
+
+    public ScanOperator(Table table) {
+        this.source = () -> table.getRowStore().scan();
+    }
+
+    public ScanOperator(Iterable<Row> source) {
+        this.source = source;
+    }
+
+    @Override
+    public void open() {
+        rows = source.iterator();
+    }
+
+    @Override
+    public Row next() {
+        return rows != null && rows.hasNext() ? rows.next() : null;
+    }
+
+    @Override
+    public void close() {
+        rows = null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.tinysql.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A WHERE clause as a tree: single conditions at the leaves, joined by AND
+ * and OR nodes. Nested nodes of the same kind are flattened when built, so
+ * an AND node's children are conditions or OR nodes, and the other way round.
+ */
+public final class WhereExpr {
+    public enum Kind { CONDITION, AND, OR }
+
+    private final Kind kind;
+    private final Condition condition;
+    private final List<WhereExpr> children;
+
+    private WhereExpr(Kind kind, Condition condition, List<WhereExpr> children) {
+        this.kind = kind;
+        this.condition = condition;
+        this.children = children;
+    }
+
+    public static WhereExpr of(Condition condition) {
+        return new WhereExpr(Kind.CONDITION, condition, List.of());
+    }
+
+    public static WhereExpr of(String column, String operator, String value) {
+        return of(new Condition(column, operator, value));
+    }
+
+    /** @throws IllegalArgumentException if there are no children */
+    public static WhereExpr and(List<WhereExpr> children) {
+        return join(Kind.AND, children);
+    }
+
+    /** @throws IllegalArgumentException if there are no children */
+    public static WhereExpr or(List<WhereExpr> children) {
+        return join(Kind.OR, children);
+    }
+
+    /** The conditions joined by AND, or by OR when {@code any}. */
+    public static WhereExpr of(List<Condition> conditions, boolean any) {
+        List<WhereExpr> leaves = new ArrayList<>();
+        for (Condition c : conditions) leaves.add(of(c));
+        return any ? or(leaves) : and(leaves);
+    }
+
+    private static WhereExpr join(Kind kind, List<WhereExpr> children) {
+        if (children.isEmpty()) throw new IllegalArgumentException("Empty " + kind + " in WHERE");
+        if (children.size() == 1) return children.get(0);
+        List<WhereExpr> flat = new ArrayList<>();
+        for (WhereExpr child : children) {
+            if (child.kind == kind) flat.addAll(child.children);
+            else flat.add(child);
+        }
+        return new WhereExpr(kind, null, Collections.unmodifiableList(flat));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** The condition of a leaf; null for AND and OR. */
+    public Condition getCondition() {
+        return condition;
+    }
+
+    /** The operands of AND and OR; empty for a leaf. */
+    public List<WhereExpr> getChildren() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.CONDITION) return condition.toString();
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) sb.append(' ').append(kind).append(' ');
+            sb.append(children.get(i));
+        }
+        return sb.append(')').toString();
+    }
+}
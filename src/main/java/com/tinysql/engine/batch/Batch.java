@@ -0,0 +1,37 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.model.DataType;
+
+/**
+ * A slice of up to {@link #CAPACITY} rows passed between batch operators:
+ * one {@link ColumnBatch} per requested column plus a selection vector of
+ * the slots still live. Filters shrink the selection instead of copying
+ * values, and operators reuse the same batch object for every slice.
+ */
+public final class Batch {
+    public static final int CAPACITY = 1024;
+
+    public final ColumnBatch[] columns;
+    /** Live slot numbers, ascending; only the first {@link #selected} are valid. */
+    public final int[] selection = new int[CAPACITY];
+    /** Number of filled slots. */
+    public int size;
+    /** Number of live slots in {@link #selection}. */
+    public int selected;
+
+    public Batch(DataType[] types) {
+        columns = new ColumnBatch[types.length];
+        for (int c = 0; c < types.length; c++) columns[c] = new ColumnBatch(types[c]);
+    }
+
+    /** True while no filter has dropped a slot, so loops can run densely over 0..size. */
+    public boolean isDense() {
+        return selected == size;
+    }
+
+    /** Marks every filled slot live. */
+    void selectAll() {
+        for (int i = 0; i < size; i++) selection[i] = i;
+        selected = size;
+    }
+}
@@ -0,0 +1,292 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.model.DataType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Folds every selected slot of the child's batches into one or more of
+ * COUNT, SUM, AVG, MIN and MAX, in a single pass over the input, and hands
+ * up a single batch holding one DOUBLE slot per aggregate. Results match
+ * {@link com.tinysql.engine.Aggregator}: every selected row counts, only
+ * numeric cells feed the sum and extremes.
+ *
+ * Dense batches go through {@link Kernels}; integer columns are summed in a
+ * long. With the scalar kernels floating point columns are summed in slot
+ * order, so results are identical to the row path. A parallel run folds
+ * morsels into per-worker partial states and merges them, so its floating
+ * point sums may differ from a serial run in the last bits.
+ */
+public class BatchAggregate implements BatchOperator {
+    private final BatchOperator child;
+    private final int[] columns;
+    private final String[] functions;
+    private final State[] states;
+    private final Kernels kernels = Kernels.get();
+    private final Batch out;
+    private boolean done;
+    private long count;
+    private ForkJoinPool pool;
+    private int workers;
+    private Supplier<BatchOperator> inputs;
+
+    /** Running state of one aggregate. */
+    private static final class State {
+        final int column;
+        final String function;
+        final String fn;
+        long intSum;
+        double sum;
+        double min;
+        double max;
+
+        State(int column, String function) {
+            this.column = column;
+            this.function = function;
+            this.fn = function.toUpperCase();
+        }
+
+        void reset() {
+            intSum = 0;
+            sum = 0;
+            min = Double.MAX_VALUE;
+            max = -Double.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @param column index of the aggregated column in the child's batches
+     */
+    public BatchAggregate(BatchOperator child, int column, String function) {
+        this(child, new int[] { column }, new String[] { function });
+    }
+
+    /**
+     * @param columns index in the child's batches of each aggregate's column
+     * @param functions each aggregate's function, parallel to columns
+     */
+    public BatchAggregate(BatchOperator child, int[] columns, String[] functions) {
+        this.child = child;
+        this.columns = columns;
+        this.functions = functions;
+        this.states = new State[columns.length];
+        DataType[] types = new DataType[columns.length];
+        for (int a = 0; a < columns.length; a++) {
+            states[a] = new State(columns[a], functions[a]);
+            types[a] = DataType.DOUBLE;
+        }
+        this.out = new Batch(types);
+    }
+
+    /**
+     * Aggregates on {@code workers} tasks of the pool instead of the calling
+     * thread. Each task folds the batches of its own input, typically a
+     * {@link BatchScan} over shared {@link Morsels}, into private partial
+     * states, which are merged once all are done. The child is then not read.
+     */
+    public void setParallelism(ForkJoinPool pool, int workers, Supplier<BatchOperator> inputs) {
+        this.pool = pool;
+        this.workers = workers;
+        this.inputs = inputs;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        done = false;
+        count = 0;
+        for (State s : states) s.reset();
+    }
+
+    @Override
+    public Batch nextBatch() {
+        if (done) return null;
+        done = true;
+        if (pool != null && workers > 1) {
+            List<ForkJoinTask<BatchAggregate>> tasks = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) tasks.add(pool.submit(this::partial));
+            for (ForkJoinTask<BatchAggregate> task : tasks) merge(task.join());
+        } else {
+            drain();
+        }
+        for (int a = 0; a < states.length; a++) out.columns[a].set(0, result(states[a]));
+        out.size = 1;
+        out.selectAll();
+        return out;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    private void drain() {
+        Batch b;
+        while ((b = child.nextBatch()) != null) {
+            count += b.selected;
+            for (State s : states) add(s, b);
+        }
+    }
+
+    /** One worker's share: the states of whatever its input reads. */
+    private BatchAggregate partial() {
+        try (BatchAggregate part = new BatchAggregate(inputs.get(), columns, functions)) {
+            part.open();
+            part.drain();
+            return part;
+        }
+    }
+
+    private void merge(BatchAggregate part) {
+        count += part.count;
+        for (int a = 0; a < states.length; a++) {
+            State s = states[a];
+            State p = part.states[a];
+            s.intSum += p.intSum;
+            s.sum += p.sum;
+            s.min = Math.min(s.min, p.min);
+            s.max = Math.max(s.max, p.max);
+        }
+    }
+
+    private void add(State s, Batch b) {
+        // COUNT only needs the selected row count
+        if (s.fn.equals("COUNT")) return;
+        ColumnBatch c = b.columns[s.column];
+        if (c.hasRaw) {
+            addSlow(s, b, c);
+            return;
+        }
+        if (b.isDense()) {
+            addDense(s, c, b.size);
+            return;
+        }
+        switch (c.type) {
+            case INTEGER: addInts(s, b, c.ints, c.nulls); break;
+            case FLOAT: addFloats(s, b, c.floats, c.nulls); break;
+            case DOUBLE: addDoubles(s, b, c.doubles, c.nulls); break;
+            default: break;
+        }
+    }
+
+    private double result(State s) {
+        if (count == 0) return 0.0;
+        double total = s.intSum + s.sum;
+        switch (s.fn) {
+            case "COUNT": return count;
+            case "SUM": return total;
+            case "AVG": return total / count;
+            case "MAX": return s.max;
+            case "MIN": return s.min;
+            default: throw new IllegalArgumentException("Unknown aggregation function: " + s.function);
+        }
+    }
+
+    /** Whole-batch kernels, computing only what the function needs. */
+    private void addDense(State s, ColumnBatch c, int n) {
+        switch (s.fn) {
+            case "SUM":
+            case "AVG":
+                switch (c.type) {
+                    case INTEGER: s.intSum += kernels.sum(c.ints, n); break;
+                    case FLOAT: s.sum = kernels.sum(c.floats, n, s.sum); break;
+                    case DOUBLE: s.sum = kernels.sum(c.doubles, n, s.sum); break;
+                    default: break;
+                }
+                break;
+            case "MIN":
+                switch (c.type) {
+                    case INTEGER: s.min = Math.min(s.min, kernels.min(c.ints, c.nulls, n)); break;
+                    case FLOAT: s.min = Math.min(s.min, kernels.min(c.floats, c.nulls, n)); break;
+                    case DOUBLE: s.min = Math.min(s.min, kernels.min(c.doubles, c.nulls, n)); break;
+                    default: break;
+                }
+                break;
+            case "MAX":
+                switch (c.type) {
+                    case INTEGER: s.max = Math.max(s.max, kernels.max(c.ints, c.nulls, n)); break;
+                    case FLOAT: s.max = Math.max(s.max, kernels.max(c.floats, c.nulls, n)); break;
+                    case DOUBLE: s.max = Math.max(s.max, kernels.max(c.doubles, c.nulls, n)); break;
+                    default: break;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void addInts(State st, Batch b, int[] v, boolean[] nulls) {
+        // Null slots hold 0, so the sum needs no null check
+        long s = 0;
+        int lo = Integer.MAX_VALUE;
+        int hi = Integer.MIN_VALUE;
+        boolean any = false;
+        for (int k = 0; k < b.selected; k++) {
+            int i = b.selection[k];
+            s += v[i];
+            if (nulls[i]) continue;
+            lo = Math.min(lo, v[i]);
+            hi = Math.max(hi, v[i]);
+            any = true;
+        }
+        st.intSum += s;
+        if (any) {
+            st.min = Math.min(st.min, lo);
+            st.max = Math.max(st.max, hi);
+        }
+    }
+
+    private static void addDoubles(State st, Batch b, double[] v, boolean[] nulls) {
+        double s = st.sum;
+        double lo = st.min;
+        double hi = st.max;
+        for (int k = 0; k < b.selected; k++) {
+            int i = b.selection[k];
+            if (nulls[i]) continue;
+            double x = v[i];
+            s += x;
+            if (x < lo) lo = x;
+            if (x > hi) hi = x;
+        }
+        st.sum = s;
+        st.min = lo;
+        st.max = hi;
+    }
+
+    private static void addFloats(State st, Batch b, float[] v, boolean[] nulls) {
+        double s = st.sum;
+        double lo = st.min;
+        double hi = st.max;
+        for (int k = 0; k < b.selected; k++) {
+            int i = b.selection[k];
+            if (nulls[i]) continue;
+            double x = v[i];
+            s += x;
+            if (x < lo) lo = x;
+            if (x > hi) hi = x;
+        }
+        st.sum = s;
+        st.min = lo;
+        st.max = hi;
+    }
+
+    /** Per-slot path for batches holding cells whose class differs from the declared type. */
+    private static void addSlow(State st, Batch b, ColumnBatch c) {
+        for (int k = 0; k < b.selected; k++) {
+            Object cell = c.get(b.selection[k]);
+            if (cell instanceof Integer || cell instanceof Long) {
+                st.intSum += ((Number) cell).longValue();
+            } else if (cell instanceof Number) {
+                st.sum += ((Number) cell).doubleValue();
+            } else {
+                continue;
+            }
+            double x = ((Number) cell).doubleValue();
+            if (x < st.min) st.min = x;
+            if (x > st.max) st.max = x;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.engine.ConditionEvaluator;
+import com.tinysql.model.Column;
+import com.tinysql.model.Table;
+
+/**
+ * Narrows each batch's selection vector to the slots where
+ * {@code column op literal} holds, with the same results as
+ * {@link com.tinysql.engine.PredicateCompiler} row by row.
+ *
+ * The literal is parsed and the operator resolved once. Numeric columns are
+ * compared by {@link Kernels}, which write the surviving slot numbers without
+ * a branch per slot. Batches holding mistyped cells take a per-slot path
+ * that hands those cells to {@link ConditionEvaluator}.
+ */
+public class BatchFilter implements BatchOperator {
+    private final BatchOperator child;
+    private final int column;
+    private final String operator;
+    private final String literal;
+    private final int op;
+    private final boolean matchNone;
+    private int intTarget;
+    private float floatTarget;
+    private double doubleTarget;
+    private boolean boolTarget;
+    private final int[] single = new int[1];
+    private final Kernels kernels = Kernels.get();
+
+    /**
+     * @param column index of the filtered column in the child's batches
+     * @throws IllegalArgumentException if the literal does not parse as the column's type
+     */
+    public BatchFilter(BatchOperator child, int column, Table table, String colName, String operator, String literal) {
+        this.child = child;
+        this.column = column;
+        this.operator = operator;
+        this.literal = literal;
+        this.op = Kernels.opCode(operator);
+
+        Column col = table.getColumn(colName);
+        // Unknown columns read as null in every row, which never matches
+        matchNone = col == null || table.getSchema().indexOf(colName) < 0;
+        if (matchNone) return;
+        try {
+            switch (col.getType()) {
+                case INTEGER: intTarget = Integer.parseInt(literal); break;
+                case FLOAT: floatTarget = Float.parseFloat(literal); break;
+                case DOUBLE: doubleTarget = Double.parseDouble(literal); break;
+                case BOOLEAN: boolTarget = Boolean.parseBoolean(literal); break;
+                default: break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + col.getType() + " literal for " + colName + ": " + literal);
+        }
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public Batch nextBatch() {
+        if (matchNone) return null;
+        Batch b;
+        while ((b = child.nextBatch()) != null) {
+            ColumnBatch c = b.columns[column];
+            b.selected = c.hasRaw ? filterSlow(b, c) : filter(b, c);
+            if (b.selected > 0) return b;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    /** Dense numeric batches go to the (possibly SIMD) kernels, thinned ones to the in-place loops. */
+    private int filter(Batch b, ColumnBatch c) {
+        if (b.isDense()) {
+            switch (c.type) {
+                case INTEGER: return kernels.select(c.ints, c.nulls, b.size, op, intTarget, b.selection);
+                case FLOAT: return kernels.select(c.floats, c.nulls, b.size, op, floatTarget, b.selection);
+                case DOUBLE: return kernels.select(c.doubles, c.nulls, b.size, op, doubleTarget, b.selection);
+                default: break;
+            }
+        }
+        return filter(b.selection, b.selected, c);
+    }
+
+    private int filter(int[] sel, int n, ColumnBatch c) {
+        switch (c.type) {
+            case INTEGER: return ScalarKernels.selectInts(c.ints, c.nulls, op, intTarget, sel, n);
+            case FLOAT: return ScalarKernels.selectFloats(c.floats, c.nulls, op, floatTarget, sel, n);
+            case DOUBLE: return ScalarKernels.selectDoubles(c.doubles, c.nulls, op, doubleTarget, sel, n);
+            case BOOLEAN: return filterBools(sel, n, c.bools, c.nulls);
+            default: return filterStrings(sel, n, c.strings, c.nulls);
+        }
+    }
+
+    /** Booleans and strings only support = and !=. */
+    private int filterBools(int[] sel, int n, boolean[] v, boolean[] nulls) {
+        if (op != Kernels.EQ && op != Kernels.NE) return 0;
+        boolean want = op == Kernels.EQ;
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            int i = sel[k];
+            sel[m] = i;
+            m += !nulls[i] & (v[i] == boolTarget) == want ? 1 : 0;
+        }
+        return m;
+    }
+
+    private int filterStrings(int[] sel, int n, String[] v, boolean[] nulls) {
+        if (op != Kernels.EQ && op != Kernels.NE) return 0;
+        boolean want = op == Kernels.EQ;
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            int i = sel[k];
+            if (!nulls[i] && v[i].equals(literal) == want) sel[m++] = i;
+        }
+        return m;
+    }
+
+    /** Per-slot path for batches holding cells whose class differs from the declared type. */
+    private int filterSlow(Batch b, ColumnBatch c) {
+        int[] sel = b.selection;
+        int m = 0;
+        for (int k = 0; k < b.selected; k++) {
+            int i = sel[k];
+            Object cell = c.raw[i];
+            boolean hit;
+            if (cell != null) {
+                hit = ConditionEvaluator.evaluate(cell, operator, literal);
+            } else {
+                single[0] = i;
+                hit = filter(single, 1, c) == 1;
+            }
+            if (hit) sel[m++] = i;
+        }
+        return m;
+    }
+}
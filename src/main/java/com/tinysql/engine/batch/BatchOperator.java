@@ -0,0 +1,16 @@
+package com.tinysql.engine.batch;
+
+/**
+ * Batch counterpart of {@link com.tinysql.engine.Operator}: each call hands
+ * up a {@link Batch} of up to 1024 rows instead of a single row. The
+ * returned batch is only valid until the next call.
+ */
+public interface BatchOperator extends AutoCloseable {
+    void open();
+
+    /** The next batch with at least one filled slot, or null when exhausted. */
+    Batch nextBatch();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,127 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.storage.ColumnVector;
+import com.tinysql.storage.ColumnarRowStore;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Reads the named columns of a table into batches. Columnar tables are
+ * copied slice by slice straight out of their column vectors; other tables
+ * are scanned row by row and their cells gathered into the primitive arrays.
+ * A column the table does not have reads as null in every slot.
+ */
+public class BatchScan implements BatchOperator {
+    private final Table table;
+    private final int[] ordinals;
+    private final String[] names;
+    private final Batch batch;
+    private final Row[] buffer = new Row[Batch.CAPACITY];
+    private final Morsels morsels;
+    private Iterator<Row> rows;
+    private int position;
+    private int end;
+
+    public BatchScan(Table table, String... columns) {
+        this(table, null, columns);
+    }
+
+    /** A scan that reads whichever slices it claims from morsels shared with other scans. */
+    public BatchScan(Morsels morsels, String... columns) {
+        this(morsels.table(), morsels, columns);
+    }
+
+    private BatchScan(Table table, Morsels morsels, String... columns) {
+        this.table = table;
+        this.morsels = morsels;
+        this.names = columns;
+        this.ordinals = new int[columns.length];
+        DataType[] types = new DataType[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            Column col = table.getColumn(columns[c]);
+            ordinals[c] = col == null ? -1 : table.getSchema().indexOf(columns[c]);
+            types[c] = ordinals[c] < 0 ? DataType.STRING : col.getType();
+        }
+        this.batch = new Batch(types);
+    }
+
+    @Override
+    public void open() {
+        if (morsels != null) return;
+        position = 0;
+        // Like a row scan, a columnar scan only sees rows present when it opened
+        end = table.getRowStore().size();
+        rows = table.getRowStore() instanceof ColumnarRowStore ? null : table.getRowStore().scan();
+    }
+
+    @Override
+    public Batch nextBatch() {
+        if (table.getRowStore() instanceof ColumnarRowStore) {
+            if (morsels != null) {
+                position = morsels.claim();
+                if (position < 0) return null;
+                end = morsels.end();
+            }
+            return copyVectors((ColumnarRowStore) table.getRowStore());
+        }
+        int n = 0;
+        if (morsels != null) {
+            n = morsels.fill(buffer);
+        } else {
+            if (rows == null) return null;
+            while (n < Batch.CAPACITY && rows.hasNext()) buffer[n++] = rows.next();
+        }
+        // Column at a time, so each gather loop handles a single type
+        for (int c = 0; c < ordinals.length; c++) {
+            ColumnBatch out = batch.columns[c];
+            out.reset();
+            if (ordinals[c] < 0) {
+                for (int i = 0; i < n; i++) out.setNull(i);
+            } else {
+                out.gather(buffer, n, ordinals[c]);
+            }
+        }
+        return fill(n);
+    }
+
+    private Batch copyVectors(ColumnarRowStore store) {
+        int n = Math.min(Batch.CAPACITY, end - position);
+        if (n <= 0) return null;
+        for (int c = 0; c < ordinals.length; c++) {
+            ColumnBatch out = batch.columns[c];
+            out.reset();
+            ColumnVector v = ordinals[c] < 0 ? null : store.getColumn(names[c]);
+            if (v == null) {
+                for (int i = 0; i < n; i++) out.setNull(i);
+                continue;
+            }
+            v.copyNulls(position, n, out.nulls);
+            switch (out.type) {
+                case INTEGER: ((ColumnVector.Ints) v).copyTo(position, n, out.ints); break;
+                case FLOAT: ((ColumnVector.Floats) v).copyTo(position, n, out.floats); break;
+                case DOUBLE: ((ColumnVector.Doubles) v).copyTo(position, n, out.doubles); break;
+                case BOOLEAN: ((ColumnVector.Booleans) v).copyTo(position, n, out.bools); break;
+                default: ((ColumnVector.Strings) v).copyTo(position, n, out.strings); break;
+            }
+        }
+        position += n;
+        return fill(n);
+    }
+
+    private Batch fill(int n) {
+        if (n == 0) return null;
+        batch.size = n;
+        batch.selectAll();
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        rows = null;
+        Arrays.fill(buffer, null);
+    }
+}
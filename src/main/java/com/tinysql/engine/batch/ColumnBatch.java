@@ -0,0 +1,131 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.model.DataType;
+import com.tinysql.model.Row;
+import java.util.Arrays;
+
+/**
+ * Up to {@link Batch#CAPACITY} values of one column in a primitive array.
+ * Only the array matching the declared type is allocated. Null slots hold
+ * the type's zero value and are flagged in {@link #nulls}.
+ *
+ * The engine does not type-check inserts, so a row may hold a cell whose
+ * Java class differs from the declared type. Such a cell is kept as is in
+ * {@link #raw} (its slot is flagged null in the primitive view) and
+ * operators evaluate it the way the row path would.
+ */
+public final class ColumnBatch {
+    public final DataType type;
+    public final int[] ints;
+    public final float[] floats;
+    public final double[] doubles;
+    public final boolean[] bools;
+    public final String[] strings;
+    public final boolean[] nulls = new boolean[Batch.CAPACITY];
+    public final Object[] raw = new Object[Batch.CAPACITY];
+    /** True if any slot in the batch has a raw cell. */
+    public boolean hasRaw;
+
+    public ColumnBatch(DataType type) {
+        this.type = type;
+        this.ints = type == DataType.INTEGER ? new int[Batch.CAPACITY] : null;
+        this.floats = type == DataType.FLOAT ? new float[Batch.CAPACITY] : null;
+        this.doubles = type == DataType.DOUBLE ? new double[Batch.CAPACITY] : null;
+        this.bools = type == DataType.BOOLEAN ? new boolean[Batch.CAPACITY] : null;
+        this.strings = type == DataType.STRING ? new String[Batch.CAPACITY] : null;
+    }
+
+    /** Stores one boxed cell at slot i. */
+    public void set(int i, Object cell) {
+        raw[i] = null;
+        if (cell == null) {
+            setNull(i);
+            return;
+        }
+        switch (type) {
+            case INTEGER:
+                if (cell instanceof Integer) { ints[i] = (Integer) cell; nulls[i] = false; return; }
+                break;
+            case FLOAT:
+                if (cell instanceof Float) { floats[i] = (Float) cell; nulls[i] = false; return; }
+                break;
+            case DOUBLE:
+                if (cell instanceof Double) { doubles[i] = (Double) cell; nulls[i] = false; return; }
+                break;
+            case BOOLEAN:
+                if (cell instanceof Boolean) { bools[i] = (Boolean) cell; nulls[i] = false; return; }
+                break;
+            default:
+                if (cell instanceof String) { strings[i] = (String) cell; nulls[i] = false; return; }
+                break;
+        }
+        setNull(i);
+        raw[i] = cell;
+        hasRaw = true;
+    }
+
+    /**
+     * Fills slots [0, n) from one ordinal of the given rows, with the type
+     * test hoisted out of the loop. Expects a freshly reset column.
+     */
+    void gather(Row[] rows, int n, int ordinal) {
+        switch (type) {
+            case INTEGER:
+                for (int i = 0; i < n; i++) {
+                    Object cell = rows[i].get(ordinal);
+                    if (cell instanceof Integer) { ints[i] = (Integer) cell; nulls[i] = false; }
+                    else setOther(i, cell);
+                }
+                break;
+            case DOUBLE:
+                for (int i = 0; i < n; i++) {
+                    Object cell = rows[i].get(ordinal);
+                    if (cell instanceof Double) { doubles[i] = (Double) cell; nulls[i] = false; }
+                    else setOther(i, cell);
+                }
+                break;
+            default:
+                for (int i = 0; i < n; i++) set(i, rows[i].get(ordinal));
+                break;
+        }
+    }
+
+    private void setOther(int i, Object cell) {
+        setNull(i);
+        if (cell != null) {
+            raw[i] = cell;
+            hasRaw = true;
+        }
+    }
+
+    /** The cell at slot i as the row path would see it. */
+    public Object get(int i) {
+        if (raw[i] != null) return raw[i];
+        if (nulls[i]) return null;
+        switch (type) {
+            case INTEGER: return ints[i];
+            case FLOAT: return floats[i];
+            case DOUBLE: return doubles[i];
+            case BOOLEAN: return bools[i];
+            default: return strings[i];
+        }
+    }
+
+    void setNull(int i) {
+        nulls[i] = true;
+        switch (type) {
+            case INTEGER: ints[i] = 0; break;
+            case FLOAT: floats[i] = 0f; break;
+            case DOUBLE: doubles[i] = 0d; break;
+            case BOOLEAN: bools[i] = false; break;
+            default: strings[i] = null; break;
+        }
+    }
+
+    void reset() {
+        if (hasRaw) {
+            Arrays.fill(raw, null);
+            hasRaw = false;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.tinysql.engine.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory hash table of groups for {@link HashAggregate}. The key columns
+ * are slots 0..k-1 of the incoming batches.
+ *
+ * Each key column maps its values to dense codes in first-seen order:
+ * INTEGER cells through a primitive open-addressing map, BOOLEAN cells
+ * through a two-entry array, and strings (or cells of any other class)
+ * through a map that keeps the first instance seen, so every group shares
+ * one interned copy of its key. With several key columns the codes are
+ * folded left to right through long-keyed primitive maps, (id so far, next
+ * code) to new id. Group ids are dense as well, and the accumulators are
+ * parallel arrays indexed by group id.
+ *
+ * Results match {@link com.tinysql.engine.Aggregator} per group: every row
+ * counts, only numeric cells feed SUM, AVG, MIN and MAX.
+ */
+final class GroupTable {
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int AVG = 2;
+    private static final int MIN = 3;
+    private static final int MAX = 4;
+
+    private final KeyCodes[] keys;
+    /** levels[c] maps (id of columns 0..c-1, code of column c) to the id of columns 0..c. */
+    private final LongIntMap[] levels;
+    private final int[] aggColumns;
+    private final int[] ops;
+    private final int limit;
+    private final int[][] scratch;
+
+    private int groups;
+    /** Per key column, the code of each group's value; unused with a single key column. */
+    private int[][] groupCodes;
+    private long[] counts;
+    private final double[][] sums;
+    private final double[][] mins;
+    private final double[][] maxs;
+
+    /**
+     * @param keyCount number of key columns, at the front of each batch
+     * @param aggColumns index in the batches of each aggregate's column
+     * @param functions each aggregate's function
+     * @param limit most groups the table will hold; rows of further groups are rejected
+     */
+    GroupTable(int keyCount, int[] aggColumns, String[] functions, int limit) {
+        this.keys = new KeyCodes[keyCount];
+        this.levels = new LongIntMap[keyCount];
+        this.scratch = new int[keyCount][Batch.CAPACITY];
+        for (int c = 0; c < keyCount; c++) {
+            keys[c] = new KeyCodes();
+            if (c > 0) levels[c] = new LongIntMap();
+        }
+        this.aggColumns = aggColumns;
+        this.ops = new int[functions.length];
+        this.limit = limit;
+        this.sums = new double[functions.length][];
+        this.mins = new double[functions.length][];
+        this.maxs = new double[functions.length][];
+
+        int capacity = 16;
+        this.groupCodes = new int[keyCount][capacity];
+        this.counts = new long[capacity];
+        for (int a = 0; a < functions.length; a++) {
+            ops[a] = opCode(functions[a]);
+            if (ops[a] == SUM || ops[a] == AVG) sums[a] = new double[capacity];
+            if (ops[a] == MIN) mins[a] = filled(capacity, Double.MAX_VALUE);
+            if (ops[a] == MAX) maxs[a] = filled(capacity, -Double.MAX_VALUE);
+        }
+    }
+
+    /** Throws IllegalArgumentException for anything but COUNT, SUM, AVG, MIN or MAX. */
+    static int opCode(String function) {
+        switch (function.toUpperCase()) {
+            case "COUNT": return COUNT;
+            case "SUM": return SUM;
+            case "AVG": return AVG;
+            case "MIN": return MIN;
+            case "MAX": return MAX;
+            default: throw new IllegalArgumentException("Unknown aggregation function: " + function);
+        }
+    }
+
+    /** Rough heap cost of one group: key maps, boxed key values and accumulator slots. */
+    static long bytesPerGroup(int keyCount, int aggregates) {
+        return 64 + 48L * keyCount + 8L * aggregates;
+    }
+
+    int size() {
+        return groups;
+    }
+
+    /**
+     * Adds the batch's live rows to their groups. Once the table holds
+     * {@code limit} groups, rows of any other group are left out and their
+     * slots written to {@code rejected}; returns how many were.
+     */
+    int add(Batch b, int[] rejected) {
+        int n = b.selected;
+        int[] sel = b.selection;
+        int last = keys.length - 1;
+        int[] ids = scratch[0];
+        keys[0].codes(b.columns[0], sel, n, ids, last == 0 ? limit : Integer.MAX_VALUE);
+        for (int c = 1; c <= last; c++) {
+            int[] codes = scratch[c];
+            keys[c].codes(b.columns[c], sel, n, codes, Integer.MAX_VALUE);
+            LongIntMap level = levels[c];
+            int cap = c == last ? limit : Integer.MAX_VALUE;
+            for (int k = 0; k < n; k++) {
+                if (ids[k] < 0) continue;
+                long key = ((long) ids[k] << 32) | codes[k];
+                int id = level.get(key, -1);
+                if (id < 0 && level.size() < cap) {
+                    id = level.size();
+                    level.put(key, id);
+                }
+                ids[k] = id;
+            }
+        }
+
+        int before = groups;
+        int r = 0;
+        for (int k = 0; k < n; k++) {
+            int g = ids[k];
+            if (g < 0) {
+                rejected[r++] = sel[k];
+                continue;
+            }
+            if (g >= groups) {
+                groups = g + 1;
+                if (groups > counts.length) grow();
+            }
+            counts[g]++;
+        }
+        if (groups > before && last > 0) remember(b, before);
+
+        for (int a = 0; a < ops.length; a++) {
+            if (ops[a] != COUNT) fold(a, b.columns[aggColumns[a]], sel, n, ids);
+        }
+        return r;
+    }
+
+    /**
+     * Records the key codes of groups created by the last batch. Column 0's
+     * codes were overwritten by the running ids, so they are looked up again.
+     */
+    private void remember(Batch b, int before) {
+        int[] ids = scratch[0];
+        for (int k = 0; k < b.selected; k++) {
+            int g = ids[k];
+            if (g < before) continue;
+            groupCodes[0][g] = keys[0].find(b.columns[0].get(b.selection[k]));
+            for (int c = 1; c < keys.length; c++) groupCodes[c][g] = scratch[c][k];
+        }
+    }
+
+    private void fold(int a, ColumnBatch col, int[] sel, int n, int[] ids) {
+        if (col.hasRaw) {
+            for (int k = 0; k < n; k++) {
+                Object cell = col.get(sel[k]);
+                if (ids[k] >= 0 && cell instanceof Number) update(a, ids[k], ((Number) cell).doubleValue());
+            }
+            return;
+        }
+        boolean[] nulls = col.nulls;
+        switch (col.type) {
+            case INTEGER:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    if (ids[k] >= 0 && !nulls[i]) update(a, ids[k], col.ints[i]);
+                }
+                break;
+            case FLOAT:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    if (ids[k] >= 0 && !nulls[i]) update(a, ids[k], col.floats[i]);
+                }
+                break;
+            case DOUBLE:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    if (ids[k] >= 0 && !nulls[i]) update(a, ids[k], col.doubles[i]);
+                }
+                break;
+            default:
+                // Strings and booleans are not numbers
+                break;
+        }
+    }
+
+    private void update(int a, int g, double x) {
+        switch (ops[a]) {
+            case SUM:
+            case AVG:
+                sums[a][g] += x;
+                break;
+            case MIN:
+                if (x < mins[a][g]) mins[a][g] = x;
+                break;
+            case MAX:
+                if (x > maxs[a][g]) maxs[a][g] = x;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Folds another table's groups into this one, adding the ones it lacks whatever the limit. */
+    void merge(GroupTable other) {
+        Object[] cells = new Object[keys.length];
+        int[] codes = new int[keys.length];
+        for (int g = 0; g < other.groups; g++) {
+            for (int c = 0; c < keys.length; c++) cells[c] = other.key(c, g);
+            int id = groupOf(cells, codes);
+            counts[id] += other.counts[g];
+            for (int a = 0; a < ops.length; a++) {
+                if (sums[a] != null) sums[a][id] += other.sums[a][g];
+                if (mins[a] != null) mins[a][id] = Math.min(mins[a][id], other.mins[a][g]);
+                if (maxs[a] != null) maxs[a][id] = Math.max(maxs[a][id], other.maxs[a][g]);
+            }
+        }
+    }
+
+    /** Id of the group with the given key cells, creating it if new. */
+    private int groupOf(Object[] cells, int[] codes) {
+        for (int c = 0; c < keys.length; c++) codes[c] = keys[c].code(cells[c], Integer.MAX_VALUE);
+        int id = codes[0];
+        for (int c = 1; c < keys.length; c++) {
+            long key = ((long) id << 32) | codes[c];
+            int next = levels[c].get(key, -1);
+            if (next < 0) {
+                next = levels[c].size();
+                levels[c].put(key, next);
+            }
+            id = next;
+        }
+        if (id >= groups) {
+            groups = id + 1;
+            if (groups > counts.length) grow();
+            for (int c = 0; c < keys.length; c++) groupCodes[c][id] = codes[c];
+        }
+        return id;
+    }
+
+    /** Value of key column c for group g. */
+    Object key(int c, int g) {
+        return keys[c].value(keys.length == 1 ? g : groupCodes[c][g]);
+    }
+
+    /** Aggregate a for group g. */
+    double result(int a, int g) {
+        switch (ops[a]) {
+            case COUNT: return counts[g];
+            case SUM: return sums[a][g];
+            case AVG: return sums[a][g] / counts[g];
+            case MIN: return mins[a][g];
+            default: return maxs[a][g];
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(counts.length * 2, groups);
+        counts = Arrays.copyOf(counts, capacity);
+        for (int c = 0; c < groupCodes.length; c++) groupCodes[c] = Arrays.copyOf(groupCodes[c], capacity);
+        for (int a = 0; a < ops.length; a++) {
+            if (sums[a] != null) sums[a] = Arrays.copyOf(sums[a], capacity);
+            if (mins[a] != null) mins[a] = extend(mins[a], capacity, Double.MAX_VALUE);
+            if (maxs[a] != null) maxs[a] = extend(maxs[a], capacity, -Double.MAX_VALUE);
+        }
+    }
+
+    private static double[] filled(int n, double value) {
+        double[] out = new double[n];
+        Arrays.fill(out, value);
+        return out;
+    }
+
+    private static double[] extend(double[] v, int n, double value) {
+        double[] out = Arrays.copyOf(v, n);
+        Arrays.fill(out, v.length, n, value);
+        return out;
+    }
+
+    /** Dense codes, in first-seen order, for the values of one key column. */
+    private static final class KeyCodes {
+        private final LongIntMap ints = new LongIntMap();
+        private final int[] bools = { -1, -1 };
+        private final Map<Object, Integer> others = new HashMap<>();
+        private final List<Object> values = new ArrayList<>();
+        private int nullCode = -1;
+
+        /**
+         * Codes for the live slots of a column batch, adding new values while
+         * fewer than {@code limit} are known; a value that is not added gets -1.
+         */
+        void codes(ColumnBatch col, int[] sel, int n, int[] out, int limit) {
+            if (col.hasRaw) {
+                for (int k = 0; k < n; k++) out[k] = code(col.get(sel[k]), limit);
+                return;
+            }
+            boolean[] nulls = col.nulls;
+            switch (col.type) {
+                case INTEGER:
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        if (nulls[i]) {
+                            out[k] = nullCode(limit);
+                            continue;
+                        }
+                        int code = ints.get(col.ints[i], -1);
+                        out[k] = code >= 0 ? code : intCode(col.ints[i], limit);
+                    }
+                    break;
+                case BOOLEAN:
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[k] = nulls[i] ? nullCode(limit) : boolCode(col.bools[i], limit);
+                    }
+                    break;
+                case STRING:
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[k] = nulls[i] ? nullCode(limit) : otherCode(col.strings[i], limit);
+                    }
+                    break;
+                default:
+                    for (int k = 0; k < n; k++) out[k] = code(col.get(sel[k]), limit);
+                    break;
+            }
+        }
+
+        /** Code of one boxed cell, routed to the same map the typed loops use. */
+        int code(Object cell, int limit) {
+            if (cell == null) return nullCode(limit);
+            if (cell instanceof Integer) {
+                int code = ints.get((Integer) cell, -1);
+                return code >= 0 ? code : intCode((Integer) cell, limit);
+            }
+            if (cell instanceof Boolean) return boolCode((Boolean) cell, limit);
+            return otherCode(cell, limit);
+        }
+
+        /** Code of a value already seen, or -1. */
+        int find(Object cell) {
+            return code(cell, 0);
+        }
+
+        Object value(int code) {
+            return values.get(code);
+        }
+
+        private int nullCode(int limit) {
+            if (nullCode < 0) nullCode = next(null, limit);
+            return nullCode;
+        }
+
+        private int intCode(int v, int limit) {
+            int code = next(v, limit);
+            if (code >= 0) ints.put(v, code);
+            return code;
+        }
+
+        private int boolCode(boolean v, int limit) {
+            int i = v ? 1 : 0;
+            if (bools[i] < 0) bools[i] = next(v, limit);
+            return bools[i];
+        }
+
+        private int otherCode(Object v, int limit) {
+            Integer code = others.get(v);
+            if (code != null) return code;
+            int c = next(v, limit);
+            if (c >= 0) others.put(v, c);
+            return c;
+        }
+
+        private int next(Object value, int limit) {
+            if (values.size() >= limit) return -1;
+            values.add(value);
+            return values.size() - 1;
+        }
+    }
+}
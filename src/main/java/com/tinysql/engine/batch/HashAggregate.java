@@ -0,0 +1,358 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.engine.Operator;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import com.tinysql.storage.RowCodec;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * GROUP BY: folds the child's batches into a {@link GroupTable} and hands up
+ * one row per group, the key columns followed by one column per aggregate
+ * named like "SUM(score)". Groups come out in the order they were first seen.
+ *
+ * When the groups would exceed the memory budget the table stops taking new
+ * ones: rows of groups already in it are still folded in memory, the others
+ * are written to partition files by a hash of their key. Each partition is
+ * then aggregated on its own once the in-memory groups have been returned,
+ * and partitioned again on the next hash bits if it is still too big. Every
+ * spill file is deleted once read, and all of them on close.
+ *
+ * A parallel run gives each worker its own table and an equal share of the
+ * budget and merges the tables at the end, so groups come out in worker
+ * order instead. If any worker runs out of room the partial tables are
+ * dropped and the input is aggregated serially, spilling as above.
+ */
+public class HashAggregate implements Operator {
+    private static final int FANOUT = 16;
+    private static final int BITS_PER_LEVEL = 4;
+    private static final int MAX_LEVEL = 7;
+
+    private final BatchOperator child;
+    private final int keyCount;
+    private final int[] aggColumns;
+    private final String[] functions;
+    private final Schema schema;
+    private final int[] ordinals;
+    private final int[] rejected = new int[Batch.CAPACITY];
+    private final List<File> files = new ArrayList<>();
+    private final Deque<Partition> pending = new ArrayDeque<>();
+    private long memoryBudget = Long.MAX_VALUE;
+    private File spillDir;
+    private ForkJoinPool pool;
+    private int workers;
+    private Supplier<BatchOperator> inputs;
+
+    private DataType[] types;
+    private GroupTable table;
+    private int emitted;
+    private long nextId;
+    private int spillCount;
+    private long spillBytes;
+
+    /** A spilled partition and the hash level its rows were split on. */
+    private static final class Partition {
+        final File file;
+        final int level;
+
+        Partition(File file, int level) {
+            this.file = file;
+            this.level = level;
+        }
+    }
+
+    /**
+     * @param child batches whose first keyNames.length columns are the group keys
+     * @param keyNames name of each key column, for the output rows
+     * @param aggColumns index in the child's batches of each aggregate's column
+     * @param functions each aggregate's function
+     * @param aggNames name of each aggregate's column, for the output rows
+     */
+    public HashAggregate(BatchOperator child, String[] keyNames, int[] aggColumns, String[] functions, String[] aggNames) {
+        for (String f : functions) GroupTable.opCode(f);
+        this.child = child;
+        this.keyCount = keyNames.length;
+        this.aggColumns = aggColumns;
+        this.functions = functions;
+        this.schema = new Schema();
+        // A repeated expression shares one column
+        this.ordinals = new int[keyNames.length + functions.length];
+        for (int c = 0; c < keyNames.length; c++) ordinals[c] = schema.add(keyNames[c]);
+        for (int a = 0; a < functions.length; a++) {
+            ordinals[keyCount + a] = schema.add(functions[a].toUpperCase() + "(" + aggNames[a] + ")");
+        }
+    }
+
+    /**
+     * Heap bytes the groups may take before new groups are spilled to
+     * temporary files in {@code dir}; a null directory never spills.
+     */
+    public void setMemoryBudget(long bytes, File dir) {
+        this.memoryBudget = bytes;
+        this.spillDir = dir;
+    }
+
+    /**
+     * Aggregates on {@code workers} tasks of the pool, each reading its own
+     * input, typically a {@link BatchScan} over shared {@link Morsels}. The
+     * child is only read if the groups do not fit in memory.
+     */
+    public void setParallelism(ForkJoinPool pool, int workers, Supplier<BatchOperator> inputs) {
+        this.pool = pool;
+        this.workers = workers;
+        this.inputs = inputs;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        emitted = 0;
+        nextId = 1;
+        table = pool != null && workers > 1 ? consumeParallel() : null;
+        if (table == null) table = consume(child, 0);
+    }
+
+    @Override
+    public Row next() {
+        while (emitted == table.size()) {
+            Partition p = pending.poll();
+            if (p == null) return null;
+            try (SpillScan in = new SpillScan(p.file)) {
+                in.open();
+                table = consume(in, p.level + 1);
+            } finally {
+                p.file.delete();
+            }
+            emitted = 0;
+        }
+        int g = emitted++;
+        Row out = new Row(nextId++, schema);
+        for (int c = 0; c < keyCount; c++) out.set(ordinals[c], table.key(c, g));
+        for (int a = 0; a < functions.length; a++) out.set(ordinals[keyCount + a], table.result(a, g));
+        return out;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+        for (File f : files) f.delete();
+        files.clear();
+        pending.clear();
+    }
+
+    /** Temporary files and bytes written when the groups did not fit the budget. */
+    public int getSpillCount() {
+        return spillCount;
+    }
+
+    public long getSpillBytes() {
+        return spillBytes;
+    }
+
+    /** Most groups one table may hold at the given spill level. */
+    private int groupLimit(int level) {
+        if (spillDir == null || level >= MAX_LEVEL) return Integer.MAX_VALUE;
+        long groups = memoryBudget / GroupTable.bytesPerGroup(keyCount, functions.length);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, groups));
+    }
+
+    /** The workers' tables merged, or null if one of them ran out of room. */
+    private GroupTable consumeParallel() {
+        int share = Math.max(1, groupLimit(0) / workers);
+        AtomicBoolean full = new AtomicBoolean();
+        List<ForkJoinTask<GroupTable>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            tasks.add(pool.submit(() -> {
+                GroupTable t = new GroupTable(keyCount, aggColumns, functions, share);
+                int[] skipped = new int[Batch.CAPACITY];
+                try (BatchOperator in = inputs.get()) {
+                    in.open();
+                    Batch b;
+                    while (!full.get() && (b = in.nextBatch()) != null) {
+                        if (t.add(b, skipped) > 0) full.set(true);
+                    }
+                }
+                return t;
+            }));
+        }
+        GroupTable merged = null;
+        for (ForkJoinTask<GroupTable> task : tasks) {
+            GroupTable t = task.join();
+            if (merged == null) merged = t;
+            else if (!full.get()) merged.merge(t);
+        }
+        return full.get() ? null : merged;
+    }
+
+    /** Aggregates one input; rows that do not fit are partitioned on the level's hash bits. */
+    private GroupTable consume(BatchOperator in, int level) {
+        GroupTable t = new GroupTable(keyCount, aggColumns, functions, groupLimit(level));
+        Partitioner parts = null;
+        try {
+            Batch b;
+            while ((b = in.nextBatch()) != null) {
+                int r = t.add(b, rejected);
+                if (r == 0) continue;
+                if (parts == null) {
+                    if (types == null) {
+                        types = new DataType[b.columns.length];
+                        for (int c = 0; c < types.length; c++) types[c] = b.columns[c].type;
+                    }
+                    parts = new Partitioner(level);
+                }
+                for (int k = 0; k < r; k++) parts.write(b, rejected[k]);
+            }
+            if (parts != null) {
+                parts.close();
+                for (File f : parts.files) {
+                    if (f != null) pending.add(new Partition(f, level));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Group spill failed: " + e.getMessage(), e);
+        }
+        return t;
+    }
+
+    private static DataInputStream openSpill(File f) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16));
+    }
+
+    private static Schema positional(int n) {
+        Schema s = new Schema();
+        for (int c = 0; c < n; c++) s.add("c" + c);
+        return s;
+    }
+
+    /**
+     * One temp file per non-empty partition (null otherwise), each record
+     * written as length, encoded row of every batch column.
+     */
+    private final class Partitioner {
+        final File[] files = new File[FANOUT];
+        private final DataOutputStream[] outs = new DataOutputStream[FANOUT];
+        private final int level;
+        private final Row row;
+
+        Partitioner(int level) {
+            this.level = level;
+            this.row = new Row(0, positional(types.length));
+        }
+
+        void write(Batch b, int slot) throws IOException {
+            int h = 0;
+            for (int c = 0; c < types.length; c++) {
+                Object cell = b.columns[c].get(slot);
+                row.set(c, cell);
+                if (c < keyCount) h = 31 * h + Objects.hashCode(cell);
+            }
+            int p = partitionOf(h, level);
+            if (outs[p] == null) {
+                files[p] = File.createTempFile("group", ".spill", spillDir);
+                HashAggregate.this.files.add(files[p]);
+                spillCount++;
+                outs[p] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[p]), 8192));
+            }
+            byte[] bytes = RowCodec.encode(row);
+            outs[p].writeInt(bytes.length);
+            outs[p].write(bytes);
+            spillBytes += 4 + bytes.length;
+        }
+
+        void close() throws IOException {
+            IOException error = null;
+            for (DataOutputStream out : outs) {
+                if (out == null) continue;
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+            }
+            if (error != null) throw error;
+        }
+    }
+
+    /** Partition of a key hash at the given level, after mixing all of its bits. */
+    private static int partitionOf(int h, int level) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return (h >>> (level * BITS_PER_LEVEL)) & (FANOUT - 1);
+    }
+
+    /** Reads a partition file back as batches laid out like the child's. */
+    private final class SpillScan implements BatchOperator {
+        private final File file;
+        private final Schema layout = positional(types.length);
+        private final Batch batch = new Batch(types);
+        private final Row[] buffer = new Row[Batch.CAPACITY];
+        private DataInputStream in;
+
+        SpillScan(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void open() {
+            try {
+                in = openSpill(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Group spill failed: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public Batch nextBatch() {
+            int n = 0;
+            try {
+                while (n < Batch.CAPACITY) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    buffer[n++] = RowCodec.decode(ByteBuffer.wrap(bytes), layout);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Group spill failed: " + e.getMessage(), e);
+            }
+            if (n == 0) return null;
+            for (int c = 0; c < types.length; c++) {
+                batch.columns[c].reset();
+                batch.columns[c].gather(buffer, n, c);
+            }
+            batch.size = n;
+            batch.selectAll();
+            return batch;
+        }
+
+        @Override
+        public void close() {
+            Arrays.fill(buffer, null);
+            if (in == null) return;
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Only read from; the file is deleted next
+            }
+        }
+    }
+}
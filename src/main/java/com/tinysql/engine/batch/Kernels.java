@@ -0,0 +1,91 @@
+package com.tinysql.engine.batch;
+
+/**
+ * Primitive loops behind the batch operators, over dense slots 0..n-1 of a
+ * column batch. Null slots hold zero and are flagged in {@code nulls}.
+ *
+ * {@link ScalarKernels} is always available. Building with the
+ * {@code vector} profile adds {@code VectorKernels}, written against
+ * {@code jdk.incubator.vector}; it is loaded by name, so builds and JVMs
+ * without the module fall back to the scalar loops. Running with
+ * {@code -Dtinysql.simd=false} forces the scalar loops.
+ *
+ * Vector sums add lanes in a different order, so floating point sums may
+ * differ from the scalar ones in the last bits.
+ */
+public abstract class Kernels {
+    public static final int EQ = 0, GT = 1, LT = 2, GE = 3, LE = 4, NE = 5, NONE = 6;
+
+    private static final Kernels SCALAR = new ScalarKernels();
+    private static final Kernels DEFAULT = load();
+
+    /** The kernels the engine uses: vector ones when available and not switched off. */
+    public static Kernels get() {
+        return DEFAULT;
+    }
+
+    public static Kernels scalar() {
+        return SCALAR;
+    }
+
+    /** The Vector API kernels, or null if they were not built or the module is missing. */
+    public static Kernels vector() {
+        try {
+            return (Kernels) Class.forName("com.tinysql.engine.batch.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Kernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("tinysql.simd", "true"))) return SCALAR;
+        Kernels v = vector();
+        return v != null ? v : SCALAR;
+    }
+
+    public static int opCode(String operator) {
+        switch (operator) {
+            case "=": return EQ;
+            case ">": return GT;
+            case "<": return LT;
+            case ">=": return GE;
+            case "<=": return LE;
+            case "!=": return NE;
+            default: return NONE;
+        }
+    }
+
+    public abstract String name();
+
+    /**
+     * Writes the non-null slots below n whose value satisfies {@code op target}
+     * into sel, in ascending order, and returns how many there are. Float and
+     * double equality use the same epsilon as {@link com.tinysql.engine.ConditionEvaluator}.
+     */
+    public abstract int select(int[] v, boolean[] nulls, int n, int op, int target, int[] sel);
+
+    public abstract int select(float[] v, boolean[] nulls, int n, int op, float target, int[] sel);
+
+    public abstract int select(double[] v, boolean[] nulls, int n, int op, double target, int[] sel);
+
+    public abstract long sum(int[] v, int n);
+
+    /** acc plus the values of slots below n, each widened to double. */
+    public abstract double sum(float[] v, int n, double acc);
+
+    public abstract double sum(double[] v, int n, double acc);
+
+    /** Smallest non-null value below n, or Double.MAX_VALUE if all are null. */
+    public abstract double min(int[] v, boolean[] nulls, int n);
+
+    public abstract double min(float[] v, boolean[] nulls, int n);
+
+    public abstract double min(double[] v, boolean[] nulls, int n);
+
+    /** Largest non-null value below n, or -Double.MAX_VALUE if all are null. */
+    public abstract double max(int[] v, boolean[] nulls, int n);
+
+    public abstract double max(float[] v, boolean[] nulls, int n);
+
+    public abstract double max(double[] v, boolean[] nulls, int n);
+}
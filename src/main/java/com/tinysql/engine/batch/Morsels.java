@@ -0,0 +1,58 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.storage.ColumnarRowStore;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out a table one batch-sized slice (a morsel) at a time to the
+ * {@link BatchScan}s of parallel workers, so faster workers simply take more
+ * slices. Columnar tables are split by row position without locking; other
+ * tables share one row iterator, which workers drain under a lock while the
+ * gathering, filtering and aggregating of their slices runs concurrently.
+ * Like a scan, only rows present when the morsels were created are seen.
+ */
+public final class Morsels {
+    /** Tables with fewer rows are aggregated on the calling thread. */
+    public static final int PARALLEL_THRESHOLD = 64 * Batch.CAPACITY;
+
+    private final Table table;
+    private final int end;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Iterator<Row> rows;
+
+    public Morsels(Table table) {
+        this.table = table;
+        this.end = table.getRowStore().size();
+        this.rows = table.getRowStore() instanceof ColumnarRowStore ? null : table.getRowStore().scan();
+    }
+
+    Table table() {
+        return table;
+    }
+
+    /** Start position of the next slice of a columnar table, or -1 once all are taken. */
+    int claim() {
+        int from = next.getAndAdd(Batch.CAPACITY);
+        if (from >= end) {
+            // Keep the counter from overflowing however often it is polled
+            next.set(end);
+            return -1;
+        }
+        return from;
+    }
+
+    /** Number of rows in a columnar table when the morsels were created. */
+    int end() {
+        return end;
+    }
+
+    /** Copies the next slice of a row table into buffer; returns how many rows, 0 at the end. */
+    synchronized int fill(Row[] buffer) {
+        int n = 0;
+        while (n < Batch.CAPACITY && rows.hasNext()) buffer[n++] = rows.next();
+        return n;
+    }
+}
@@ -0,0 +1,194 @@
+package com.tinysql.engine.batch;
+
+/**
+ * Plain Java kernels. The selection loops work in place on a list of
+ * candidate slots, so they also serve batches a filter has already thinned.
+ * Each operator has its own loop and the comparison result is added to the
+ * output count instead of branched on, which leaves C2 free to unroll.
+ */
+final class ScalarKernels extends Kernels {
+    static final double EPSILON = 0.000001;
+    static final float FLOAT_EPSILON = 0.000001f;
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public int select(int[] v, boolean[] nulls, int n, int op, int target, int[] sel) {
+        identity(sel, n);
+        return selectInts(v, nulls, op, target, sel, n);
+    }
+
+    @Override
+    public int select(float[] v, boolean[] nulls, int n, int op, float target, int[] sel) {
+        identity(sel, n);
+        return selectFloats(v, nulls, op, target, sel, n);
+    }
+
+    @Override
+    public int select(double[] v, boolean[] nulls, int n, int op, double target, int[] sel) {
+        identity(sel, n);
+        return selectDoubles(v, nulls, op, target, sel, n);
+    }
+
+    private static void identity(int[] sel, int n) {
+        for (int i = 0; i < n; i++) sel[i] = i;
+    }
+
+    /** Keeps the candidates sel[0..n) whose value matches, compacting them to the front. */
+    static int selectInts(int[] v, boolean[] nulls, int op, int t, int[] sel, int n) {
+        int m = 0;
+        switch (op) {
+            case EQ: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] == t ? 1 : 0; } break;
+            case GT: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] > t ? 1 : 0; } break;
+            case LT: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] < t ? 1 : 0; } break;
+            case GE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] >= t ? 1 : 0; } break;
+            case LE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] <= t ? 1 : 0; } break;
+            case NE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] != t ? 1 : 0; } break;
+            default: break;
+        }
+        return m;
+    }
+
+    static int selectDoubles(double[] v, boolean[] nulls, int op, double t, int[] sel, int n) {
+        double eps = EPSILON;
+        int m = 0;
+        switch (op) {
+            case EQ: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & Math.abs(v[i] - t) < eps ? 1 : 0; } break;
+            case GT: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] > t ? 1 : 0; } break;
+            case LT: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] < t ? 1 : 0; } break;
+            case GE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] >= t ? 1 : 0; } break;
+            case LE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] <= t ? 1 : 0; } break;
+            case NE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & Math.abs(v[i] - t) > eps ? 1 : 0; } break;
+            default: break;
+        }
+        return m;
+    }
+
+    static int selectFloats(float[] v, boolean[] nulls, int op, float t, int[] sel, int n) {
+        float eps = FLOAT_EPSILON;
+        int m = 0;
+        switch (op) {
+            case EQ: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & Math.abs(v[i] - t) < eps ? 1 : 0; } break;
+            case GT: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] > t ? 1 : 0; } break;
+            case LT: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] < t ? 1 : 0; } break;
+            case GE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] >= t ? 1 : 0; } break;
+            case LE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & v[i] <= t ? 1 : 0; } break;
+            case NE: for (int k = 0; k < n; k++) { int i = sel[k]; sel[m] = i; m += !nulls[i] & Math.abs(v[i] - t) > eps ? 1 : 0; } break;
+            default: break;
+        }
+        return m;
+    }
+
+    @Override
+    public long sum(int[] v, int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) s += v[i];
+        return s;
+    }
+
+    @Override
+    public double sum(float[] v, int n, double acc) {
+        for (int i = 0; i < n; i++) acc += v[i];
+        return acc;
+    }
+
+    @Override
+    public double sum(double[] v, int n, double acc) {
+        for (int i = 0; i < n; i++) acc += v[i];
+        return acc;
+    }
+
+    @Override
+    public double min(int[] v, boolean[] nulls, int n) {
+        long lo = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i] && v[i] < lo) lo = v[i];
+        }
+        return lo == Long.MAX_VALUE ? Double.MAX_VALUE : lo;
+    }
+
+    @Override
+    public double min(float[] v, boolean[] nulls, int n) {
+        double lo = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i] && v[i] < lo) lo = v[i];
+        }
+        return lo;
+    }
+
+    @Override
+    public double min(double[] v, boolean[] nulls, int n) {
+        double lo = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i] && v[i] < lo) lo = v[i];
+        }
+        return lo;
+    }
+
+    @Override
+    public double max(int[] v, boolean[] nulls, int n) {
+        long hi = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i] && v[i] > hi) hi = v[i];
+        }
+        return hi == Long.MIN_VALUE ? -Double.MAX_VALUE : hi;
+    }
+
+    @Override
+    public double max(float[] v, boolean[] nulls, int n) {
+        double hi = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i] && v[i] > hi) hi = v[i];
+        }
+        return hi;
+    }
+
+    @Override
+    public double max(double[] v, boolean[] nulls, int n) {
+        double hi = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i] && v[i] > hi) hi = v[i];
+        }
+        return hi;
+    }
+
+    /** Single-value test, for the tails of vector loops. */
+    static boolean matches(int x, int op, int t) {
+        switch (op) {
+            case EQ: return x == t;
+            case GT: return x > t;
+            case LT: return x < t;
+            case GE: return x >= t;
+            case LE: return x <= t;
+            case NE: return x != t;
+            default: return false;
+        }
+    }
+
+    static boolean matches(double x, int op, double t) {
+        switch (op) {
+            case EQ: return Math.abs(x - t) < EPSILON;
+            case GT: return x > t;
+            case LT: return x < t;
+            case GE: return x >= t;
+            case LE: return x <= t;
+            case NE: return Math.abs(x - t) > EPSILON;
+            default: return false;
+        }
+    }
+
+    static boolean matches(float x, int op, float t) {
+        switch (op) {
+            case EQ: return Math.abs(x - t) < FLOAT_EPSILON;
+            case GT: return x > t;
+            case LT: return x < t;
+            case GE: return x >= t;
+            case LE: return x <= t;
+            case NE: return Math.abs(x - t) > FLOAT_EPSILON;
+            default: return false;
+        }
+    }
+}
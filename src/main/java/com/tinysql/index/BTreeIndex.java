@@ -0,0 +1,453 @@
+package com.tinysql.index;
+
+import com.tinysql.model.DataType;
+import com.tinysql.model.Index;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Ordered index: a B+tree of (value, row id) entries over an INTEGER, FLOAT,
+ * DOUBLE or STRING column, keyed by the column's Java type. The leaves are
+ * chained both ways, so a range is read by seeking its first entry and
+ * walking the chain, and MIN, MAX and COUNT can be answered from the keys
+ * without touching any row.
+ *
+ * Sorted input, from an index file or from the rows sorted once when the
+ * index is built, is packed into leaves bottom-up instead of being inserted
+ * entry by entry. Cells that do not order with the rest (a class other than
+ * the column's, or NaN) are kept aside and returned by every range lookup as
+ * candidates for the caller to recheck; nulls are not indexed.
+ */
+public class BTreeIndex implements Index {
+    /** Entries per node; a node splits when one more arrives. */
+    static final int CAPACITY = 64;
+
+    private final String name;
+    private final String column;
+    private final int ordinal;
+    private final DataType type;
+    private final RowIdSet unordered = new RowIdSet();
+    private Node root;
+    private Leaf first;
+    private Leaf last;
+    private int size;
+    // Lowest entry of the node a split just created, for its parent
+    private Object splitKey;
+    private long splitId;
+    // Position within the leaf seekLeaf returned
+    private int seekPos;
+
+    private abstract static class Node {
+        final Object[] keys = new Object[CAPACITY + 1];
+        final long[] ids = new long[CAPACITY + 1];
+        int size;
+    }
+
+    private static final class Leaf extends Node {
+        Leaf prev;
+        Leaf next;
+    }
+
+    /** keys[i] and ids[i] are the lowest entry under children[i + 1]. */
+    private static final class Inner extends Node {
+        final Node[] children = new Node[CAPACITY + 2];
+    }
+
+    /**
+     * @throws IllegalArgumentException if the table has no such column or it cannot be ordered
+     */
+    public BTreeIndex(String name, Table table, String column) {
+        if (table.getColumn(column) == null) throw new IllegalArgumentException("Unknown column: " + column);
+        this.name = name;
+        this.column = table.getColumn(column).getName();
+        this.ordinal = table.getSchema().indexOf(this.column);
+        this.type = table.getColumn(column).getType();
+        if (type == DataType.BOOLEAN) {
+            throw new IllegalArgumentException("BTREE index needs an INTEGER, FLOAT, DOUBLE or STRING column: " + this.column);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public synchronized void add(Row row) {
+        Object cell = row.get(ordinal);
+        if (cell == null) return;
+        Object key = key(cell);
+        if (key == null) {
+            unordered.add(row.getRowId());
+            return;
+        }
+        if (root == null) root = first = last = new Leaf();
+        Node right = insert(root, key, row.getRowId());
+        if (right != null) {
+            Inner top = new Inner();
+            top.children[0] = root;
+            top.children[1] = right;
+            top.keys[0] = splitKey;
+            top.ids[0] = splitId;
+            top.size = 1;
+            root = top;
+        }
+    }
+
+    /** Sorts the rows' entries together with those already held and packs them into a new tree. */
+    @Override
+    public synchronized void build(Iterable<Row> rows) {
+        List<Object[]> entries = new ArrayList<>(size);
+        for (Leaf l = first; l != null; l = l.next) {
+            for (int i = 0; i < l.size; i++) entries.add(new Object[] { l.keys[i], l.ids[i] });
+        }
+        for (Row r : rows) {
+            Object cell = r.get(ordinal);
+            if (cell == null) continue;
+            Object key = key(cell);
+            if (key == null) unordered.append(r.getRowId());
+            else entries.add(new Object[] { key, r.getRowId() });
+        }
+        unordered.sort();
+        entries.sort((a, b) -> compare(a[0], (Long) a[1], b[0], (Long) b[1]));
+
+        Object[] keys = new Object[entries.size()];
+        long[] ids = new long[entries.size()];
+        int n = 0;
+        for (Object[] e : entries) {
+            if (n > 0 && compare(keys[n - 1], ids[n - 1], e[0], (Long) e[1]) == 0) continue;
+            keys[n] = e[0];
+            ids[n++] = (Long) e[1];
+        }
+        load(keys, ids, n);
+    }
+
+    @Override
+    public synchronized void clear() {
+        root = first = last = null;
+        size = 0;
+        unordered.clear();
+    }
+
+    /** Number of ordered entries, not counting the cells kept aside. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Number of non-null cells that could not be ordered, which rule out key-only answers. */
+    public synchronized int unorderedCount() {
+        return unordered.size;
+    }
+
+    /**
+     * Ids of the rows whose key lies in the range, in key order, followed by
+     * the cells kept aside; null if there are more than {@code limit} of
+     * them. A null bound leaves that end open.
+     */
+    public synchronized long[] range(Object lo, boolean loInclusive, Object hi, boolean hiInclusive, int limit) {
+        long[] out = new long[16];
+        int n = 0;
+        Leaf leaf = seekLeaf(lo, loInclusive);
+        walk:
+        for (int i = seekPos; leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.size; i++) {
+                if (!below(leaf.keys[i], hi, hiInclusive)) break walk;
+                if (n == limit) return null;
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = leaf.ids[i];
+            }
+        }
+        if (n + unordered.size > limit) return null;
+        out = Arrays.copyOf(out, n + unordered.size);
+        System.arraycopy(unordered.ids, 0, out, n, unordered.size);
+        return out;
+    }
+
+    /** Number of keys in the range that pass {@code test}; the cells kept aside are not seen. */
+    public synchronized int count(Object lo, boolean loInclusive, Object hi, boolean hiInclusive, Predicate<Object> test) {
+        int n = 0;
+        Leaf leaf = seekLeaf(lo, loInclusive);
+        for (int i = seekPos; leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.size; i++) {
+                if (!below(leaf.keys[i], hi, hiInclusive)) return n;
+                if (test.test(leaf.keys[i])) n++;
+            }
+        }
+        return n;
+    }
+
+    /** Lowest key in the range that passes {@code test}, or null. */
+    public synchronized Object first(Object lo, boolean loInclusive, Object hi, boolean hiInclusive, Predicate<Object> test) {
+        Leaf leaf = seekLeaf(lo, loInclusive);
+        for (int i = seekPos; leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.size; i++) {
+                if (!below(leaf.keys[i], hi, hiInclusive)) return null;
+                if (test.test(leaf.keys[i])) return leaf.keys[i];
+            }
+        }
+        return null;
+    }
+
+    /** Highest key in the range that passes {@code test}, or null; walks the chain backwards. */
+    public synchronized Object last(Object lo, boolean loInclusive, Object hi, boolean hiInclusive, Predicate<Object> test) {
+        Leaf leaf;
+        int i;
+        if (root == null) return null;
+        if (hi == null) {
+            leaf = last;
+            i = last.size - 1;
+        } else {
+            leaf = descend(hi, hiInclusive ? Long.MAX_VALUE : Long.MIN_VALUE);
+            i = lowerBound(leaf, hi, hiInclusive ? Long.MAX_VALUE : Long.MIN_VALUE) - 1;
+        }
+        for (; leaf != null; leaf = leaf.prev, i = leaf == null ? 0 : leaf.size - 1) {
+            for (; i >= 0; i--) {
+                if (!above(leaf.keys[i], lo, loInclusive)) return null;
+                if (test.test(leaf.keys[i])) return leaf.keys[i];
+            }
+        }
+        return null;
+    }
+
+    /** Writes the entries in key order, then the cells kept aside; {@link #read} bulk-loads them. */
+    public synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (Leaf l = first; l != null; l = l.next) {
+            for (int i = 0; i < l.size; i++) {
+                writeKey(out, l.keys[i]);
+                out.writeLong(l.ids[i]);
+            }
+        }
+        unordered.write(out);
+    }
+
+    /** Restores an index over {@code column} written by {@link #write}. */
+    public static BTreeIndex read(String name, Table table, String column, DataInput in) throws IOException {
+        BTreeIndex index = new BTreeIndex(name, table, column);
+        int n = in.readInt();
+        Object[] keys = new Object[n];
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = index.readKey(in);
+            ids[i] = in.readLong();
+        }
+        index.unordered.load(in);
+        index.load(keys, ids, n);
+        return index;
+    }
+
+    /** Key of a cell of the column's type, or null for one that cannot be ordered with the rest. */
+    private Object key(Object cell) {
+        switch (type) {
+            case INTEGER: return cell instanceof Integer ? cell : null;
+            case FLOAT: return cell instanceof Float && !((Float) cell).isNaN() ? cell : null;
+            case DOUBLE: return cell instanceof Double && !((Double) cell).isNaN() ? cell : null;
+            default: return cell instanceof String ? cell : null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object key, long id, Object otherKey, long otherId) {
+        int c = ((Comparable<Object>) key).compareTo(otherKey);
+        return c != 0 ? c : Long.compare(id, otherId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean below(Object key, Object hi, boolean inclusive) {
+        if (hi == null) return true;
+        int c = ((Comparable<Object>) key).compareTo(hi);
+        return c < 0 || (c == 0 && inclusive);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean above(Object key, Object lo, boolean inclusive) {
+        if (lo == null) return true;
+        int c = ((Comparable<Object>) key).compareTo(lo);
+        return c > 0 || (c == 0 && inclusive);
+    }
+
+    /** Position in a node of the first entry at or after (key, id). */
+    private static int lowerBound(Node node, Object key, long id) {
+        int lo = 0, hi = node.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(node.keys[mid], node.ids[mid], key, id) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Child of an inner node whose subtree holds (key, id). */
+    private static int childFor(Inner node, Object key, long id) {
+        int lo = 0, hi = node.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(node.keys[mid], node.ids[mid], key, id) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private Leaf descend(Object key, long id) {
+        Node n = root;
+        while (n instanceof Inner) n = ((Inner) n).children[childFor((Inner) n, key, id)];
+        return (Leaf) n;
+    }
+
+    /** Leaf holding the first entry at or after the lower bound (seekPos within it), or null. */
+    private Leaf seekLeaf(Object lo, boolean inclusive) {
+        seekPos = 0;
+        if (root == null || lo == null) return first;
+        long id = inclusive ? Long.MIN_VALUE : Long.MAX_VALUE;
+        Leaf leaf = descend(lo, id);
+        seekPos = lowerBound(leaf, lo, id);
+        if (seekPos < leaf.size) return leaf;
+        seekPos = 0;
+        return leaf.next;
+    }
+
+    /** Inserts into the subtree; returns the node split off it, if any, with its lowest entry in splitKey/splitId. */
+    private Node insert(Node node, Object key, long id) {
+        if (node instanceof Leaf) {
+            int pos = lowerBound(node, key, id);
+            if (pos < node.size && compare(node.keys[pos], node.ids[pos], key, id) == 0) return null;
+            System.arraycopy(node.keys, pos, node.keys, pos + 1, node.size - pos);
+            System.arraycopy(node.ids, pos, node.ids, pos + 1, node.size - pos);
+            node.keys[pos] = key;
+            node.ids[pos] = id;
+            node.size++;
+            size++;
+            return node.size > CAPACITY ? splitLeaf((Leaf) node) : null;
+        }
+        Inner inner = (Inner) node;
+        int c = childFor(inner, key, id);
+        Node right = insert(inner.children[c], key, id);
+        if (right == null) return null;
+        System.arraycopy(inner.keys, c, inner.keys, c + 1, inner.size - c);
+        System.arraycopy(inner.ids, c, inner.ids, c + 1, inner.size - c);
+        System.arraycopy(inner.children, c + 1, inner.children, c + 2, inner.size - c);
+        inner.keys[c] = splitKey;
+        inner.ids[c] = splitId;
+        inner.children[c + 1] = right;
+        inner.size++;
+        return inner.size > CAPACITY ? splitInner(inner) : null;
+    }
+
+    private Leaf splitLeaf(Leaf left) {
+        Leaf right = new Leaf();
+        int mid = left.size / 2;
+        right.size = left.size - mid;
+        System.arraycopy(left.keys, mid, right.keys, 0, right.size);
+        System.arraycopy(left.ids, mid, right.ids, 0, right.size);
+        Arrays.fill(left.keys, mid, left.size, null);
+        left.size = mid;
+        right.prev = left;
+        right.next = left.next;
+        if (left.next != null) left.next.prev = right;
+        else last = right;
+        left.next = right;
+        splitKey = right.keys[0];
+        splitId = right.ids[0];
+        return right;
+    }
+
+    /** Moves the upper half to a new node; the middle separator goes up to the parent. */
+    private Inner splitInner(Inner left) {
+        Inner right = new Inner();
+        int mid = left.size / 2;
+        splitKey = left.keys[mid];
+        splitId = left.ids[mid];
+        right.size = left.size - mid - 1;
+        System.arraycopy(left.keys, mid + 1, right.keys, 0, right.size);
+        System.arraycopy(left.ids, mid + 1, right.ids, 0, right.size);
+        System.arraycopy(left.children, mid + 1, right.children, 0, right.size + 1);
+        Arrays.fill(left.keys, mid, left.size, null);
+        Arrays.fill(left.children, mid + 1, left.size + 1, null);
+        left.size = mid;
+        return right;
+    }
+
+    /** Replaces the tree with n entries sorted by key then row id, packing full leaves and building the levels above them. */
+    private void load(Object[] keys, long[] ids, int n) {
+        root = first = last = null;
+        size = n;
+        if (n == 0) return;
+        // Spread evenly, so no node ends up nearly empty
+        int leaves = (n + CAPACITY - 1) / CAPACITY;
+        List<Node> level = new ArrayList<>(leaves);
+        for (int l = 0, from = 0; l < leaves; l++) {
+            int to = (int) ((long) n * (l + 1) / leaves);
+            Leaf leaf = new Leaf();
+            leaf.size = to - from;
+            System.arraycopy(keys, from, leaf.keys, 0, leaf.size);
+            System.arraycopy(ids, from, leaf.ids, 0, leaf.size);
+            leaf.prev = last;
+            if (last != null) last.next = leaf;
+            else first = leaf;
+            last = leaf;
+            level.add(leaf);
+            from = to;
+        }
+        while (level.size() > 1) {
+            int count = level.size();
+            int groups = (count + CAPACITY) / (CAPACITY + 1);
+            List<Node> up = new ArrayList<>(groups);
+            for (int g = 0, from = 0; g < groups; g++) {
+                int to = (int) ((long) count * (g + 1) / groups);
+                Inner inner = new Inner();
+                for (int c = from; c < to; c++) {
+                    inner.children[c - from] = level.get(c);
+                    if (c == from) continue;
+                    Node low = level.get(c);
+                    while (low instanceof Inner) low = ((Inner) low).children[0];
+                    inner.keys[c - from - 1] = low.keys[0];
+                    inner.ids[c - from - 1] = low.ids[0];
+                }
+                inner.size = to - from - 1;
+                up.add(inner);
+                from = to;
+            }
+            level = up;
+        }
+        root = level.get(0);
+    }
+
+    private void writeKey(DataOutput out, Object key) throws IOException {
+        switch (type) {
+            case INTEGER: out.writeInt((Integer) key); break;
+            case FLOAT: out.writeFloat((Float) key); break;
+            case DOUBLE: out.writeDouble((Double) key); break;
+            default: {
+                byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private Object readKey(DataInput in) throws IOException {
+        switch (type) {
+            case INTEGER: return in.readInt();
+            case FLOAT: return in.readFloat();
+            case DOUBLE: return in.readDouble();
+            default: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.tinysql.index;
+
+import com.tinysql.model.DataType;
+import com.tinysql.model.Index;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * One compressed bitmap of row ids per distinct value, for BOOLEAN and
+ * low-cardinality INTEGER or STRING columns such as flags and statuses.
+ * Built by CREATE INDEX ... USING BITMAP and kept up to date on insert.
+ *
+ * A condition is answered by the union of the bitmaps of the values that
+ * satisfy it, so several conditions combine by intersection and union, and
+ * a count is the cardinality of the result. Cells whose class does not match
+ * the column type share one extra bitmap that every answer includes, since
+ * only the query's predicate can tell whether they match. Nulls never match
+ * and are not indexed.
+ */
+public class BitmapIndex implements Index {
+    private final String name;
+    private final String column;
+    private final int ordinal;
+    private final DataType type;
+    private final Map<Object, RoaringBitmap> bitmaps = new HashMap<>();
+    private RoaringBitmap mistyped = new RoaringBitmap();
+
+    /**
+     * @throws IllegalArgumentException if the table has no such column or it is FLOAT or DOUBLE
+     */
+    public BitmapIndex(String name, Table table, String column) {
+        if (table.getColumn(column) == null) throw new IllegalArgumentException("Unknown column: " + column);
+        this.name = name;
+        this.column = table.getColumn(column).getName();
+        this.ordinal = table.getSchema().indexOf(this.column);
+        this.type = table.getColumn(column).getType();
+        if (type == DataType.FLOAT || type == DataType.DOUBLE) {
+            throw new IllegalArgumentException("BITMAP index needs a BOOLEAN, INTEGER or STRING column: " + this.column);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public synchronized void add(Row row) {
+        RoaringBitmap bits = bitmapFor(row.get(ordinal));
+        if (bits != null) bits.add(row.getRowId());
+    }
+
+    @Override
+    public synchronized void build(Iterable<Row> rows) {
+        for (Row r : rows) add(r);
+    }
+
+    @Override
+    public synchronized void clear() {
+        bitmaps.clear();
+        mistyped.clear();
+    }
+
+    /**
+     * Ids of the rows whose value passes {@code test}, plus those holding
+     * mistyped cells; a new bitmap the caller may combine freely.
+     */
+    public synchronized RoaringBitmap matching(Predicate<Object> test) {
+        RoaringBitmap out = mistyped.copy();
+        for (Map.Entry<Object, RoaringBitmap> e : bitmaps.entrySet()) {
+            if (test.test(e.getKey())) out = out.or(e.getValue());
+        }
+        return out;
+    }
+
+    /** Number of distinct values indexed. */
+    public synchronized int keyCount() {
+        return bitmaps.size();
+    }
+
+    /** Number of mistyped cells, which make {@link #matching} answers candidates only. */
+    public synchronized long mistypedCount() {
+        return mistyped.cardinality();
+    }
+
+    /** Writes the value count, then each value and its bitmap, then the mistyped bitmap. */
+    public synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(bitmaps.size());
+        for (Map.Entry<Object, RoaringBitmap> e : bitmaps.entrySet()) {
+            writeKey(out, e.getKey());
+            e.getValue().write(out);
+        }
+        mistyped.write(out);
+    }
+
+    /** Restores an index over {@code column} written by {@link #write}. */
+    public static BitmapIndex read(String name, Table table, String column, DataInput in) throws IOException {
+        BitmapIndex index = new BitmapIndex(name, table, column);
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            Object key = index.readKey(in);
+            index.bitmaps.put(key, RoaringBitmap.read(in));
+        }
+        index.mistyped = RoaringBitmap.read(in);
+        return index;
+    }
+
+    private RoaringBitmap bitmapFor(Object cell) {
+        if (cell == null) return null;
+        if (!isKey(cell)) return mistyped;
+        return bitmaps.computeIfAbsent(cell, k -> new RoaringBitmap());
+    }
+
+    private boolean isKey(Object cell) {
+        switch (type) {
+            case INTEGER: return cell instanceof Integer;
+            case BOOLEAN: return cell instanceof Boolean;
+            default: return cell instanceof String;
+        }
+    }
+
+    private void writeKey(DataOutput out, Object key) throws IOException {
+        switch (type) {
+            case INTEGER:
+                out.writeInt((Integer) key);
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) key);
+                break;
+            default: {
+                byte[] b = ((String) key).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(b.length);
+                out.write(b);
+            }
+        }
+    }
+
+    private Object readKey(DataInput in) throws IOException {
+        switch (type) {
+            case INTEGER: return in.readInt();
+            case BOOLEAN: return in.readBoolean();
+            default: {
+                byte[] b = new byte[in.readInt()];
+                in.readFully(b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.tinysql.index;
+
+import com.tinysql.model.DataType;
+import com.tinysql.model.Index;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Equality index from a column's values to the sorted ids of the rows holding
+ * them, built by CREATE INDEX and kept up to date on insert.
+ *
+ * Lookups return candidates, to be rechecked with the query's predicate:
+ * FLOAT and DOUBLE values are bucketed by the epsilon '=' compares with, so
+ * the neighbouring buckets are returned too, and cells whose class does not
+ * match the column type (the engine does not type-check inserts) are kept in
+ * one extra list that every lookup includes. Nulls never match '=' and are
+ * not indexed. FLOAT and DOUBLE values too large for their bucket number to
+ * fit in a long, and NaN and the infinities, share one bucket that every
+ * lookup on the column includes.
+ */
+public class HashIndex implements Index {
+    /** Tolerance of '=' on FLOAT and DOUBLE, as in ConditionEvaluator. */
+    private static final double EPSILON = 0.000001;
+    /** Buckets lie in (-LIMIT, LIMIT), so a neighbour of one never overflows. */
+    private static final long LIMIT = 1L << 62;
+    /** Bucket of the values whose bucket number would be out of range. */
+    private static final long OUT_OF_RANGE = Long.MIN_VALUE;
+
+    private static final int KEY_INTEGER = 0;
+    private static final int KEY_BUCKET = 1;
+    private static final int KEY_STRING = 2;
+    private static final int KEY_BOOLEAN = 3;
+
+    private final String name;
+    private final String column;
+    private final int ordinal;
+    private final DataType type;
+    private final Map<Object, RowIdSet> postings = new HashMap<>();
+    private final RowIdSet mistyped = new RowIdSet();
+
+    /**
+     * @throws IllegalArgumentException if the table has no such column
+     */
+    public HashIndex(String name, Table table, String column) {
+        if (table.getColumn(column) == null) throw new IllegalArgumentException("Unknown column: " + column);
+        this.name = name;
+        this.column = table.getColumn(column).getName();
+        this.ordinal = table.getSchema().indexOf(this.column);
+        this.type = table.getColumn(column).getType();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public synchronized void add(Row row) {
+        RowIdSet p = postingsFor(row.get(ordinal));
+        if (p != null) p.add(row.getRowId());
+    }
+
+    @Override
+    public synchronized void build(Iterable<Row> rows) {
+        for (Row r : rows) {
+            RowIdSet p = postingsFor(r.get(ordinal));
+            if (p != null) p.append(r.getRowId());
+        }
+        for (RowIdSet p : postings.values()) p.sort();
+        mistyped.sort();
+    }
+
+    @Override
+    public synchronized void clear() {
+        postings.clear();
+        mistyped.clear();
+    }
+
+    /**
+     * Sorted ids of the rows that may equal {@code value}, a cell of the
+     * column's type; the caller rechecks each of them.
+     */
+    public synchronized long[] lookup(Object value) {
+        Object key = key(value);
+        if (key == null) throw new IllegalArgumentException("Not a " + type + " value: " + value);
+        long[] out = mistyped.copy();
+        if (key instanceof Long) {
+            out = concat(out, postings.get(OUT_OF_RANGE));
+            long b = (Long) key;
+            // '=' within epsilon can cross into the neighbouring buckets
+            if (b != OUT_OF_RANGE) {
+                for (int d = -2; d <= 2; d++) out = concat(out, postings.get(b + d));
+            }
+        } else {
+            out = concat(out, postings.get(key));
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    /** Number of distinct indexed keys (buckets for FLOAT and DOUBLE). */
+    public synchronized int keyCount() {
+        return postings.size();
+    }
+
+    /** Writes every key and its row ids; {@link #read} restores them. */
+    public synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(postings.size());
+        for (Map.Entry<Object, RowIdSet> e : postings.entrySet()) {
+            writeKey(out, e.getKey());
+            e.getValue().write(out);
+        }
+        mistyped.write(out);
+    }
+
+    /** Restores the entries of an index over {@code column} written by {@link #write}. */
+    public static HashIndex read(String name, Table table, String column, DataInput in) throws IOException {
+        HashIndex index = new HashIndex(name, table, column);
+        int keys = in.readInt();
+        for (int k = 0; k < keys; k++) {
+            Object key = readKey(in);
+            RowIdSet ids = RowIdSet.read(in);
+            // Files written before buckets were bounded may hold saturated ones
+            if (key instanceof Long && bucketOutOfRange((Long) key)) {
+                RowIdSet kept = index.postings.computeIfAbsent(OUT_OF_RANGE, b -> new RowIdSet());
+                for (int i = 0; i < ids.size; i++) kept.add(ids.ids[i]);
+            } else {
+                index.postings.put(key, ids);
+            }
+        }
+        index.mistyped.load(in);
+        return index;
+    }
+
+    /** Row ids of a cell, or null for a null cell. */
+    private RowIdSet postingsFor(Object cell) {
+        if (cell == null) return null;
+        Object key = key(cell);
+        return key == null ? mistyped : postings.computeIfAbsent(key, k -> new RowIdSet());
+    }
+
+    /** Hash key of a cell of the column's type, or null for a cell of another class. */
+    private Object key(Object cell) {
+        switch (type) {
+            case INTEGER: return cell instanceof Integer ? cell : null;
+            case BOOLEAN: return cell instanceof Boolean ? cell : null;
+            case DOUBLE: return cell instanceof Double ? bucket((Double) cell) : null;
+            case FLOAT: return cell instanceof Float ? bucket((Float) cell) : null;
+            default: return cell instanceof String ? cell : null;
+        }
+    }
+
+    private static Long bucket(double x) {
+        double b = Math.floor(x / EPSILON);
+        // Also false for NaN
+        if (!(Math.abs(b) < LIMIT)) return OUT_OF_RANGE;
+        return (long) b;
+    }
+
+    private static boolean bucketOutOfRange(long b) {
+        return b <= -LIMIT || b >= LIMIT;
+    }
+
+    private static long[] concat(long[] a, RowIdSet p) {
+        if (p == null || p.size == 0) return a;
+        long[] out = Arrays.copyOf(a, a.length + p.size);
+        System.arraycopy(p.ids, 0, out, a.length, p.size);
+        return out;
+    }
+
+    private static void writeKey(DataOutput out, Object key) throws IOException {
+        if (key instanceof Integer) {
+            out.writeByte(KEY_INTEGER);
+            out.writeInt((Integer) key);
+        } else if (key instanceof Long) {
+            out.writeByte(KEY_BUCKET);
+            out.writeLong((Long) key);
+        } else if (key instanceof Boolean) {
+            out.writeByte(KEY_BOOLEAN);
+            out.writeBoolean((Boolean) key);
+        } else {
+            byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(KEY_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Object readKey(DataInput in) throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case KEY_INTEGER: return in.readInt();
+            case KEY_BUCKET: return in.readLong();
+            case KEY_BOOLEAN: return in.readBoolean();
+            case KEY_STRING: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            default: throw new IOException("Unknown index key tag " + tag);
+        }
+    }
+}
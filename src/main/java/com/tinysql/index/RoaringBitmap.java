@@ -0,0 +1,386 @@
+package com.tinysql.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compressed set of row ids in the style of Roaring bitmaps. Ids are split
+ * into chunks of 65536 by their high bits; a chunk is a sorted array of its
+ * 16-bit low halves while it holds at most 4096 of them, and a 1024-word
+ * bitmap once it is denser. Intersection and union go chunk by chunk, word
+ * by word between two dense chunks. Not thread-safe.
+ */
+public final class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private int[] keys = new int[4];
+    private Container[] chunks = new Container[4];
+    private int size;
+
+    public void add(long id) {
+        int key = (int) (id >>> 16);
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new ArrayContainer());
+        }
+        chunks[i] = chunks[i].add((char) id);
+    }
+
+    public boolean contains(long id) {
+        int i = find((int) (id >>> 16));
+        return i >= 0 && chunks[i].contains((char) id);
+    }
+
+    public long cardinality() {
+        long n = 0;
+        for (int i = 0; i < size; i++) n += chunks[i].cardinality();
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Ids in both sets, as a new bitmap. */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) i++;
+            else if (keys[i] > other.keys[j]) j++;
+            else {
+                Container c = chunks[i].and(other.chunks[j]);
+                if (c.cardinality() > 0) out.appendChunk(keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /** Ids in either set, as a new bitmap. */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                out.appendChunk(keys[i], chunks[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                out.appendChunk(other.keys[j], other.chunks[j].copy());
+                j++;
+            } else {
+                out.appendChunk(keys[i], chunks[i].or(other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public RoaringBitmap copy() {
+        return or(new RoaringBitmap());
+    }
+
+    /** The ids in ascending order. */
+    public long[] toArray() {
+        long[] out = new long[(int) cardinality()];
+        int n = 0;
+        for (int i = 0; i < size; i++) n = chunks[i].fill(out, n, (long) keys[i] << 16);
+        return out;
+    }
+
+    public void clear() {
+        keys = new int[4];
+        chunks = new Container[4];
+        size = 0;
+    }
+
+    /** Writes the chunks as they are: int count, then key, kind and contents of each. */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(keys[i]);
+            chunks[i].write(out);
+        }
+    }
+
+    public static RoaringBitmap read(DataInput in) throws IOException {
+        RoaringBitmap bits = new RoaringBitmap();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            int key = in.readInt();
+            int kind = in.readByte();
+            Container c;
+            if (kind == ArrayContainer.KIND) c = ArrayContainer.read(in);
+            else if (kind == BitmapContainer.KIND) c = BitmapContainer.read(in);
+            else throw new IOException("Unknown bitmap chunk kind " + kind);
+            if (i > 0 && key <= bits.keys[i - 1]) throw new IOException("Bitmap chunks out of order");
+            bits.appendChunk(key, c);
+        }
+        return bits;
+    }
+
+    private int find(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int i, int key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(chunks, i, chunks, i + 1, size - i);
+        keys[i] = key;
+        chunks[i] = c;
+        size++;
+    }
+
+    private void appendChunk(int key, Container c) {
+        insertChunk(size, key, c);
+    }
+
+    /** The low 16 bits of the ids in one chunk. */
+    private abstract static class Container {
+        /** Adds a low half, returning the container now holding the chunk. */
+        abstract Container add(char low);
+
+        abstract boolean contains(char low);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        /** Writes base + each low half into out from position n; returns the next position. */
+        abstract int fill(long[] out, int n, long base);
+
+        abstract void write(DataOutput out) throws IOException;
+    }
+
+    private static final class ArrayContainer extends Container {
+        static final int KIND = 0;
+        char[] values;
+        int n;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int n) {
+            this.values = values;
+            this.n = n;
+        }
+
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(values, 0, n, low);
+            if (i >= 0) return this;
+            if (n == ARRAY_MAX) return toBitmap().add(low);
+            i = -i - 1;
+            if (n == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, n * 2));
+            System.arraycopy(values, i, values, i + 1, n - i);
+            values[i] = low;
+            n++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, n, low) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[n];
+            int k = 0;
+            if (other instanceof BitmapContainer) {
+                for (int i = 0; i < n; i++) {
+                    if (other.contains(values[i])) out[k++] = values[i];
+                }
+                return new ArrayContainer(out, k);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            int i = 0, j = 0;
+            while (i < n && j < o.n) {
+                if (values[i] < o.values[j]) i++;
+                else if (values[i] > o.values[j]) j++;
+                else {
+                    out[k++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, k);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) return other.or(this);
+            ArrayContainer o = (ArrayContainer) other;
+            char[] out = new char[n + o.n];
+            int i = 0, j = 0, k = 0;
+            while (i < n || j < o.n) {
+                if (j == o.n || (i < n && values[i] < o.values[j])) out[k++] = values[i++];
+                else if (i == n || values[i] > o.values[j]) out[k++] = o.values[j++];
+                else {
+                    out[k++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(out, k);
+            return k > ARRAY_MAX ? merged.toBitmap() : merged;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(n, 1)), n);
+        }
+
+        @Override
+        int fill(long[] out, int k, long base) {
+            for (int i = 0; i < n; i++) out[k++] = base | values[i];
+            return k;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            out.writeShort(n - 1);
+            for (int i = 0; i < n; i++) out.writeChar(values[i]);
+        }
+
+        static ArrayContainer read(DataInput in) throws IOException {
+            int n = in.readUnsignedShort() + 1;
+            if (n > ARRAY_MAX) throw new IOException("Bitmap array chunk of " + n + " values");
+            char[] values = new char[n];
+            for (int i = 0; i < n; i++) values[i] = in.readChar();
+            return new ArrayContainer(values, n);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer(new long[WORDS], 0);
+            for (int i = 0; i < n; i++) b.add(values[i]);
+            return b;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        static final int KIND = 1;
+        final long[] words;
+        int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char low) {
+            long bit = 1L << low;
+            int w = low >>> 6;
+            if ((words[w] & bit) == 0) {
+                words[w] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) return other.and(this);
+            long[] o = ((BitmapContainer) other).words;
+            long[] out = new long[WORDS];
+            int card = 0;
+            for (int w = 0; w < WORDS; w++) {
+                out[w] = words[w] & o[w];
+                card += Long.bitCount(out[w]);
+            }
+            BitmapContainer result = new BitmapContainer(out, card);
+            return card > ARRAY_MAX ? result : result.toArray();
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer out = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer a = (ArrayContainer) other;
+                for (int i = 0; i < a.n; i++) out.add(a.values[i]);
+                return out;
+            }
+            long[] o = ((BitmapContainer) other).words;
+            int card = 0;
+            for (int w = 0; w < WORDS; w++) {
+                out.words[w] |= o[w];
+                card += Long.bitCount(out.words[w]);
+            }
+            out.cardinality = card;
+            return out;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        int fill(long[] out, int k, long base) {
+            for (int w = 0; w < WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    out[k++] = base | ((long) w << 6) | Long.numberOfTrailingZeros(bits);
+                }
+            }
+            return k;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(KIND);
+            for (long w : words) out.writeLong(w);
+        }
+
+        static BitmapContainer read(DataInput in) throws IOException {
+            long[] words = new long[WORDS];
+            int card = 0;
+            for (int w = 0; w < WORDS; w++) {
+                words[w] = in.readLong();
+                card += Long.bitCount(words[w]);
+            }
+            return new BitmapContainer(words, card);
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int k = 0;
+            for (int w = 0; w < WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    values[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return new ArrayContainer(values, k);
+        }
+    }
+}
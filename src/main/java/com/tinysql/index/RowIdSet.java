@@ -0,0 +1,67 @@
+package com.tinysql.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/** Sorted, duplicate-free row ids, e.g. those of one index key. */
+final class RowIdSet {
+    long[] ids = new long[2];
+    int size;
+
+    /** Inserts in order; ids normally arrive ascending, replays may repeat one. */
+    void add(long id) {
+        if (size > 0 && id <= ids[size - 1]) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return;
+            append(id);
+            int pos = -at - 1;
+            System.arraycopy(ids, pos, ids, pos + 1, size - 1 - pos);
+            ids[pos] = id;
+            return;
+        }
+        append(id);
+    }
+
+    void append(long id) {
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        ids[size++] = id;
+    }
+
+    /** Restores order after unordered appends, dropping repeats. */
+    void sort() {
+        Arrays.sort(ids, 0, size);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (n == 0 || ids[i] != ids[n - 1]) ids[n++] = ids[i];
+        }
+        size = n;
+    }
+
+    long[] copy() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    void clear() {
+        ids = new long[2];
+        size = 0;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) out.writeLong(ids[i]);
+    }
+
+    void load(DataInput in) throws IOException {
+        size = in.readInt();
+        ids = new long[Math.max(2, size)];
+        for (int i = 0; i < size; i++) ids[i] = in.readLong();
+    }
+
+    static RowIdSet read(DataInput in) throws IOException {
+        RowIdSet p = new RowIdSet();
+        p.load(in);
+        return p;
+    }
+}
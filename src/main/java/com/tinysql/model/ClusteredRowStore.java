@@ -0,0 +1,83 @@
+package com.tinysql.model;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory row store that keeps rows in primary key order instead of the
+ * hash order of {@link HeapRowStore}, so scans come back sorted by key and a
+ * key range is read as one contiguous run. The table's primary key index
+ * makes the keys unique and of the column's type before rows get here.
+ */
+public class ClusteredRowStore implements RowStore {
+    private final int keyOrdinal;
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private final NavigableMap<Object, Row> byKey = new ConcurrentSkipListMap<>((a, b) -> ((Comparable) a).compareTo(b));
+    private final Map<Long, Row> byId = new ConcurrentHashMap<>();
+    private volatile long maxRowId;
+
+    /** @throws IllegalArgumentException if the table has no PRIMARY KEY column */
+    public ClusteredRowStore(Table table) {
+        PrimaryKeyIndex pk = table.getPrimaryKey();
+        if (pk == null) throw new IllegalArgumentException("CLUSTERED storage needs a PRIMARY KEY column: " + table.getName());
+        this.keyOrdinal = table.getSchema().indexOf(pk.getColumn());
+    }
+
+    @Override
+    public void put(Row row) {
+        Object key = row.get(keyOrdinal);
+        if (key == null) throw new IllegalArgumentException("Row " + row.getRowId() + " has no primary key");
+        Row old = byId.put(row.getRowId(), row);
+        if (old != null) byKey.remove(old.get(keyOrdinal));
+        byKey.put(key, row);
+        if (row.getRowId() > maxRowId) maxRowId = row.getRowId();
+    }
+
+    @Override
+    public Row get(long rowId) {
+        return byId.get(rowId);
+    }
+
+    /** All rows, in key order. */
+    @Override
+    public Iterator<Row> scan() {
+        return byKey.values().iterator();
+    }
+
+    /**
+     * Rows whose key lies in the range, in key order. A null bound leaves that
+     * end open; bounds must be of the key column's type.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public Iterator<Row> range(Object lo, boolean loInclusive, Object hi, boolean hiInclusive) {
+        if (lo != null && hi != null) {
+            int c = ((Comparable) lo).compareTo(hi);
+            if (c > 0 || (c == 0 && !(loInclusive && hiInclusive))) return Collections.emptyIterator();
+        }
+        NavigableMap<Object, Row> run = byKey;
+        if (lo != null) run = run.tailMap(lo, loInclusive);
+        if (hi != null) run = run.headMap(hi, hiInclusive);
+        return run.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public long maxRowId() {
+        return maxRowId;
+    }
+
+    @Override
+    public void clear() {
+        byKey.clear();
+        byId.clear();
+        maxRowId = 0;
+    }
+}
@@ -4,13 +4,25 @@ public class Column {
     private String name;
     private DataType type;
     private boolean isPrimaryKey;
+    private boolean declaredKey;
 
+    /**
+     * A column, marked as the key or not. The mark alone enforces nothing, as
+     * for a column named id imported from CSV; see {@link #primaryKey}.
+     */
     public Column(String name, DataType type, boolean isPrimaryKey) {
         this.name = name;
         this.type = type;
         this.isPrimaryKey = isPrimaryKey;
     }
 
+    /** A column declared PRIMARY KEY, whose table keeps its values unique and not NULL. */
+    public static Column primaryKey(String name, DataType type) {
+        Column col = new Column(name, type, true);
+        col.declaredKey = true;
+        return col;
+    }
+
     public String getName() {
         return name;
     }
@@ -22,6 +34,11 @@ public class Column {
     public boolean isPrimaryKey() {
         return isPrimaryKey;
     }
+
+    /** Whether the column was declared PRIMARY KEY, so that its table enforces the key. */
+    public boolean isDeclaredKey() {
+        return declaredKey;
+    }
     
     @Override
     public String toString() {
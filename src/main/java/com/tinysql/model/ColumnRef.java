@@ -0,0 +1,30 @@
+package com.tinysql.model;
+
+/**
+ * Reads one named column from rows, resolving the name to an ordinal only
+ * when a row with a different schema shows up. Rows of a single table share
+ * their schema, so a scan resolves the name once. Not thread-safe; create
+ * one per query (or per worker).
+ */
+public final class ColumnRef {
+    private final String name;
+    private Schema schema;
+    private int ordinal = -1;
+
+    public ColumnRef(String name) {
+        this.name = name;
+    }
+
+    public Object get(Row row) {
+        Schema s = row.getSchema();
+        if (s != schema) {
+            schema = s;
+            ordinal = s.indexOf(name);
+        }
+        return row.get(ordinal);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -8,5 +8,33 @@ public enum DataType {
     STRING,
     BOOLEAN,
     FLOAT,
-    DOUBLE
-}
\ No newline at end of file
+    DOUBLE;
+
+    /**
+     * Converts a cell to this type's Java class the same way a CSV round trip
+     * would, since the engine does not type-check inserted values. Null if
+     * the cell is null or does not parse.
+     */
+    public Object coerce(Object val) {
+        if (val == null) return null;
+        switch (this) {
+            case INTEGER: if (val instanceof Integer) return val; break;
+            case FLOAT: if (val instanceof Float) return val; break;
+            case DOUBLE: if (val instanceof Double) return val; break;
+            case BOOLEAN: if (val instanceof Boolean) return val; break;
+            case STRING: return val.toString();
+        }
+        String s = val.toString();
+        try {
+            switch (this) {
+                case INTEGER: return Integer.parseInt(s);
+                case FLOAT: return Float.parseFloat(s);
+                case DOUBLE: return Double.parseDouble(s);
+                case BOOLEAN: return Boolean.parseBoolean(s);
+                default: return s;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.tinysql.model;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default in-memory row store keyed by row id.
+ */
+public class HeapRowStore implements RowStore {
+    private final Map<Long, Row> rows = new ConcurrentHashMap<>();
+    private volatile long maxRowId;
+
+    @Override
+    public void put(Row row) {
+        rows.put(row.getRowId(), row);
+        if (row.getRowId() > maxRowId) maxRowId = row.getRowId();
+    }
+
+    @Override
+    public Row get(long rowId) {
+        return rows.get(rowId);
+    }
+
+    @Override
+    public Iterator<Row> scan() {
+        return rows.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public long maxRowId() {
+        return maxRowId;
+    }
+
+    @Override
+    public void clear() {
+        rows.clear();
+        maxRowId = 0;
+    }
+}
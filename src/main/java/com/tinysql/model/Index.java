@@ -0,0 +1,23 @@
+package com.tinysql.model;
+
+/**
+ * Secondary access path over one column of a {@link Table}. The table adds
+ * every inserted row to each of its indexes; lookups hand back candidate row
+ * ids, which callers recheck against their predicate.
+ */
+public interface Index {
+    String getName();
+
+    /** Name of the indexed column. */
+    String getColumn();
+
+    void add(Row row);
+
+    /**
+     * Indexes rows already in the table, e.g. right after the index is
+     * registered with it. Rows added concurrently are indexed once.
+     */
+    void build(Iterable<Row> rows);
+
+    void clear();
+}
@@ -0,0 +1,12 @@
+package com.tinysql.model;
+
+/**
+ * Kind of secondary index CREATE INDEX builds: HASH for equality lookups,
+ * BTREE for ordered keys and range predicates, BITMAP for low-cardinality
+ * columns combined by AND and OR.
+ */
+public enum IndexType {
+    HASH,
+    BTREE,
+    BITMAP
+}
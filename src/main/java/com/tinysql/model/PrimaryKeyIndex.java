@@ -0,0 +1,91 @@
+package com.tinysql.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unique index every table with a PRIMARY KEY column keeps, mapping each key
+ * to the id of the one row holding it. Keys are the cells converted to the
+ * column's type, so they compare the same before and after a snapshot;
+ * FLOAT and DOUBLE keys are unique by exact value.
+ */
+public class PrimaryKeyIndex implements Index {
+    private final String column;
+    private final int ordinal;
+    private final DataType type;
+    private final Map<Object, Long> keys = new ConcurrentHashMap<>();
+
+    PrimaryKeyIndex(Column column, int ordinal) {
+        this.column = column.getName();
+        this.ordinal = ordinal;
+        this.type = column.getType();
+    }
+
+    @Override
+    public String getName() {
+        return "PRIMARY";
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    /**
+     * Claims the row's key, first converting its key cell to the column type.
+     * Storing the same row again, e.g. when the insert log is replayed, is allowed.
+     * @throws IllegalArgumentException if the key is NULL, does not convert, or belongs to another row
+     */
+    @Override
+    public void add(Row row) {
+        Object cell = row.get(ordinal);
+        Object key = key(cell);
+        if (key != cell) row.set(ordinal, key);
+        claim(key, row.getRowId());
+    }
+
+    /** Indexes rows already in a store, leaving their cells as they are. */
+    @Override
+    public void build(Iterable<Row> rows) {
+        for (Row row : rows) claim(key(row.get(ordinal)), row.getRowId());
+    }
+
+    /** Gives up the key of a row that did not make it into the store. */
+    void remove(Row row) {
+        Object key = type.coerce(row.get(ordinal));
+        if (key != null) keys.remove(key, row.getRowId());
+    }
+
+    /** Id of the row with this key, already of the column's type, or -1. */
+    public long lookup(Object key) {
+        Long id = keys.get(key);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public void clear() {
+        keys.clear();
+    }
+
+    private Object key(Object cell) {
+        if (cell == null) throw new IllegalArgumentException("Primary key " + column + " cannot be NULL");
+        Object key = type.coerce(cell);
+        if (key == null) throw new IllegalArgumentException("Invalid " + type + " primary key for " + column + ": " + cell);
+        return key;
+    }
+
+    private void claim(Object key, long rowId) {
+        Long owner = keys.putIfAbsent(key, rowId);
+        if (owner != null && owner != rowId) {
+            throw new IllegalArgumentException("Duplicate primary key " + column + ": " + key);
+        }
+    }
+}
@@ -1,26 +1,86 @@
 package com.tinysql.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class Row {
-    private Map<String, Object> data;
+    private static final Object[] EMPTY = new Object[0];
+
     private long rowId;
+    private Schema schema;
+    private boolean ownsSchema;
+    private Object[] values;
 
+    /** A free-standing row whose columns are defined by the names it is given. */
     public Row(long rowId) {
         this.rowId = rowId;
-        this.data = new HashMap<>();
+        this.schema = new Schema();
+        this.ownsSchema = true;
+        this.values = EMPTY;
+    }
+
+    /** A row laid out by a shared schema; values are addressed by ordinal. */
+    public Row(long rowId, Schema schema) {
+        this.rowId = rowId;
+        this.schema = schema;
+        this.ownsSchema = false;
+        this.values = new Object[schema.size()];
     }
 
     public void set(String column, Object value) {
-        data.put(column, value);
+        int i = schema.indexOf(column);
+        if (i < 0) {
+            if (!ownsSchema) {
+                // Never grow a shared schema from a single row
+                schema = new Schema(schema);
+                ownsSchema = true;
+            }
+            i = schema.add(column);
+        }
+        set(i, value);
+    }
+
+    public void set(int ordinal, Object value) {
+        if (ordinal >= values.length) {
+            values = Arrays.copyOf(values, Math.max(ordinal + 1, schema.size()));
+        }
+        values[ordinal] = value;
     }
 
     public Object get(String column) {
-        return data.get(column);
+        return get(schema.indexOf(column));
+    }
+
+    public Object get(int ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Re-lays the row out by the given schema. Columns missing from the row
+     * become null and columns unknown to the schema are dropped.
+     */
+    public void bind(Schema target) {
+        if (target == schema && values.length == target.size()) return;
+        Object[] laidOut = new Object[target.size()];
+        for (int i = 0; i < laidOut.length; i++) {
+            laidOut[i] = get(target.name(i));
+        }
+        this.schema = target;
+        this.ownsSchema = false;
+        this.values = laidOut;
     }
 
+    /** Copy of the row's values keyed by column name, in schema order. */
     public Map<String, Object> getData() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < schema.size(); i++) {
+            data.put(schema.name(i), get(i));
+        }
         return data;
     }
     
@@ -30,6 +90,6 @@ public class Row {
 
     @Override
     public String toString() {
-        return "Row#" + rowId + " " + data.toString();
+        return "Row#" + rowId + " " + getData().toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.tinysql.model;
+
+import java.util.Iterator;
+
+/**
+ * Physical storage behind a {@link Table}. Rows are immutable once stored,
+ * so storing a row id that already exists replaces or keeps the same row.
+ */
+public interface RowStore {
+    void put(Row row);
+
+    /** Point read by row id, or null if absent. */
+    Row get(long rowId);
+
+    /** Iterates all rows without materializing them into one list. */
+    Iterator<Row> scan();
+
+    int size();
+
+    /** Highest row id stored so far, or 0 when empty. */
+    long maxRowId();
+
+    void clear();
+}
@@ -0,0 +1,62 @@
+package com.tinysql.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ordered column names and their ordinals. A table shares one Schema with all
+ * of its rows, so each row only carries an Object[] of values.
+ */
+public class Schema {
+    private static final int LINEAR_LIMIT = 8;
+
+    private String[] names;
+    private int size;
+    private Map<String, Integer> index;
+
+    public Schema() {
+        this.names = new String[4];
+    }
+
+    public Schema(Schema other) {
+        this.names = Arrays.copyOf(other.names, Math.max(4, other.size));
+        this.size = other.size;
+        if (other.index != null) this.index = new HashMap<>(other.index);
+    }
+
+    /** Ordinal of the column, or -1 if it is not part of the schema. */
+    public int indexOf(String name) {
+        if (index != null) {
+            Integer i = index.get(name);
+            return i == null ? -1 : i;
+        }
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /** Adds a column and returns its ordinal; existing names keep theirs. */
+    public int add(String name) {
+        int existing = indexOf(name);
+        if (existing >= 0) return existing;
+        if (size == names.length) names = Arrays.copyOf(names, size * 2);
+        names[size] = name;
+        if (index != null) {
+            index.put(name, size);
+        } else if (size + 1 > LINEAR_LIMIT) {
+            index = new HashMap<>();
+            for (int i = 0; i <= size; i++) index.put(names[i], i);
+        }
+        return size++;
+    }
+
+    public String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tinysql.model;
+
+/**
+ * How a table keeps its rows, chosen at CREATE TABLE time.
+ */
+public enum StorageMode {
+    /** All rows on the JVM heap. */
+    ROW,
+    /** Rows in fixed-size pages on disk, cached by a bounded buffer pool. */
+    PAGED,
+    /** One primitive array per column on the JVM heap, for scans and aggregates. */
+    COLUMNAR,
+    /** All rows on the JVM heap, kept in primary key order. */
+    CLUSTERED
+}
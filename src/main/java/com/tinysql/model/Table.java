@@ -1,44 +1,128 @@
 package com.tinysql.model;
 
+import com.tinysql.stats.TableStats;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Table {
     private String name;
     private List<Column> columns;
-    private Map<Long, Row> rows;
+    private Schema schema;
+    private RowStore rows;
+    private StorageMode storageMode;
     private long autoIncrementId;
+    private final List<Index> indexes = new CopyOnWriteArrayList<>();
+    private PrimaryKeyIndex primaryKey;
+    private final AtomicLong version = new AtomicLong();
+    private volatile TableStats stats;
 
     public Table(String name) {
         this.name = name;
         this.columns = new ArrayList<>();
-        this.rows = new ConcurrentHashMap<>();
+        this.schema = new Schema();
+        this.rows = new HeapRowStore();
+        this.storageMode = StorageMode.ROW;
         this.autoIncrementId = 1;
     }
 
+    /**
+     * Adds a column; a column declared PRIMARY KEY gets the table's unique key index.
+     * @throws IllegalArgumentException if the table already has a primary key
+     */
     public void addColumn(Column col) {
+        if (col.isDeclaredKey() && primaryKey != null) {
+            throw new IllegalArgumentException("Table " + name + " already has primary key " + primaryKey.getColumn());
+        }
         columns.add(col);
+        int ordinal = schema.add(col.getName());
+        if (col.isDeclaredKey()) primaryKey = new PrimaryKeyIndex(col, ordinal);
+        stats = null;
+    }
+
+    /** Column layout shared by every row stored in this table. */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Replaces the physical row store. Only valid while the table is still empty;
+     * the store itself may already hold rows, e.g. when opened from disk.
+     */
+    public void setRowStore(RowStore store, StorageMode mode) {
+        if (rows.size() > 0) throw new IllegalStateException("Cannot change storage of non-empty table " + name);
+        // Rows a store was opened with never pass through insert
+        if (primaryKey != null && store.size() > 0) primaryKey.build(store::scan);
+        this.rows = store;
+        this.storageMode = mode;
+        stats = null;
+        version.incrementAndGet();
+        if (store.maxRowId() >= autoIncrementId) {
+            autoIncrementId = store.maxRowId() + 1;
+        }
+    }
+
+    public RowStore getRowStore() {
+        return rows;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
     }
 
+    /**
+     * Stores a row and adds it to every index and to the statistics, if they
+     * have been gathered.
+     * @throws IllegalArgumentException if its primary key is NULL or already taken
+     */
     public void insert(Row row) {
-        // Ensure all columns exist in the row data, defaulting to null if missing
-        for (Column col : columns) {
-            if (!row.getData().containsKey(col.getName())) {
-               row.set(col.getName(), null);
+        // Lay the row out by the table schema; missing columns default to null
+        row.bind(schema);
+        if (primaryKey != null) {
+            primaryKey.add(row);
+            try {
+                rows.put(row);
+            } catch (RuntimeException e) {
+                primaryKey.remove(row);
+                throw e;
             }
+        } else {
+            rows.put(row);
         }
-        rows.put(row.getRowId(), row);
-        
+        for (Index index : indexes) index.add(row);
+        TableStats s = stats;
+        if (s != null) s.add(row);
+
         // Update Auto Increment to prevent ID collisions on reload
         if (row.getRowId() >= autoIncrementId) {
             autoIncrementId = row.getRowId() + 1;
         }
+        version.incrementAndGet();
     }
 
     public List<Row> selectAll() {
-        return new ArrayList<>(rows.values());
+        List<Row> result = new ArrayList<>(rows.size());
+        for (Iterator<Row> it = rows.scan(); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Streams the rows without copying them into a list first.
+     */
+    public Iterable<Row> scan() {
+        return rows::scan;
+    }
+
+    public Row getRow(long rowId) {
+        return rows.get(rowId);
+    }
+
+    public int size() {
+        return rows.size();
     }
 
     public synchronized long getNextId() {
@@ -60,8 +144,65 @@ public class Table {
         return null;
     }
     
+    /**
+     * Registers an index that every later insert maintains. The caller fills
+     * it with the rows already stored.
+     */
+    public void addIndex(Index index) {
+        if (getIndex(index.getName()) != null) throw new IllegalArgumentException("Index already exists: " + index.getName());
+        indexes.add(index);
+    }
+
+    public Index getIndex(String name) {
+        for (Index i : indexes) {
+            if (i.getName().equalsIgnoreCase(name)) return i;
+        }
+        return null;
+    }
+
+    public List<Index> getIndexes() {
+        return indexes;
+    }
+
+    /** Unique index on the PRIMARY KEY column, or null if the table has none. */
+    public PrimaryKeyIndex getPrimaryKey() {
+        return primaryKey;
+    }
+
     public void clear() {
         rows.clear();
+        if (primaryKey != null) primaryKey.clear();
+        for (Index index : indexes) index.clear();
         autoIncrementId = 1;
+        stats = null;
+        version.incrementAndGet();
+    }
+
+    /** Statistics of the rows, gathered by a scan the first time they are asked for. */
+    public synchronized TableStats getStats() {
+        TableStats s = stats;
+        if (s == null) {
+            s = TableStats.build(this, false);
+            stats = s;
+        }
+        return s;
+    }
+
+    /** The statistics if they have been gathered or loaded, otherwise null. */
+    public TableStats peekStats() {
+        return stats;
+    }
+
+    /** Replaces the statistics, e.g. with those gathered by ANALYZE. */
+    public void setStats(TableStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Bumped by every insert, clear and row store swap once the rows are in
+     * place, so a result read at one version may be stale at any other.
+     */
+    public long getVersion() {
+        return version.get();
     }
-}
\ No newline at end of file
+}
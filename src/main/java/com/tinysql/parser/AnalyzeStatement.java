@@ -0,0 +1,14 @@
+package com.tinysql.parser;
+
+/** ANALYZE table. */
+public final class AnalyzeStatement implements Statement {
+    private final String table;
+
+    AnalyzeStatement(String table) {
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
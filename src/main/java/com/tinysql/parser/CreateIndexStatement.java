@@ -0,0 +1,35 @@
+package com.tinysql.parser;
+
+import com.tinysql.model.IndexType;
+
+/** CREATE INDEX name ON table(column) [USING type]. */
+public final class CreateIndexStatement implements Statement {
+    private final String name;
+    private final String table;
+    private final String column;
+    private final IndexType type;
+
+    CreateIndexStatement(String name, String table, String column, IndexType type) {
+        this.name = name;
+        this.table = table;
+        this.column = column;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /** HASH unless a USING clause names another. */
+    public IndexType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tinysql.parser;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.StorageMode;
+import java.util.List;
+
+/** CREATE TABLE table (columns) [USING mode]. */
+public final class CreateTableStatement implements Statement {
+    private final String table;
+    private final List<Column> columns;
+    private final StorageMode mode;
+
+    CreateTableStatement(String table, List<Column> columns, StorageMode mode) {
+        this.table = table;
+        this.columns = List.copyOf(columns);
+        this.mode = mode;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /** ROW unless a USING clause names another. */
+    public StorageMode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tinysql.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/** INSERT INTO table VALUES ..., with the values already typed. */
+public final class InsertStatement implements Statement {
+    private final String table;
+    private final List<Object> values;
+    private final int parameterCount;
+
+    InsertStatement(String table, List<Object> values, int parameterCount) {
+        this.table = table;
+        this.values = Collections.unmodifiableList(values);
+        this.parameterCount = parameterCount;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /** One cell per column: Integer, Double, Boolean, String, or a {@link Parameter} to bind. */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    @Override
+    public int getParameterCount() {
+        return parameterCount;
+    }
+}
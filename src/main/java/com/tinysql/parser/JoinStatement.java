@@ -0,0 +1,32 @@
+package com.tinysql.parser;
+
+/** JOIN left right ON leftColumn rightColumn: an equi-join of two tables. */
+public final class JoinStatement implements Statement {
+    private final String left;
+    private final String right;
+    private final String leftColumn;
+    private final String rightColumn;
+
+    JoinStatement(String left, String right, String leftColumn, String rightColumn) {
+        this.left = left;
+        this.right = right;
+        this.leftColumn = leftColumn;
+        this.rightColumn = rightColumn;
+    }
+
+    public String getLeft() {
+        return left;
+    }
+
+    public String getRight() {
+        return right;
+    }
+
+    public String getLeftColumn() {
+        return leftColumn;
+    }
+
+    public String getRightColumn() {
+        return rightColumn;
+    }
+}
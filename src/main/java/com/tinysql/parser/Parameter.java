@@ -0,0 +1,20 @@
+package com.tinysql.parser;
+
+/** A {@code ?} among INSERT values, filled in when a prepared statement runs. */
+public final class Parameter {
+    private final int index;
+
+    Parameter(int index) {
+        this.index = index;
+    }
+
+    /** Zero-based position among the statement's placeholders. */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "?";
+    }
+}
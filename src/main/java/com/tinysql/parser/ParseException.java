@@ -0,0 +1,8 @@
+package com.tinysql.parser;
+
+/** A statement the parser rejects; the message is the line the CLI prints for it. */
+public class ParseException extends RuntimeException {
+    public ParseException(String message) {
+        super(message);
+    }
+}
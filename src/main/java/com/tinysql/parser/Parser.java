@@ -0,0 +1,364 @@
+package com.tinysql.parser;
+
+import com.tinysql.engine.Condition;
+import com.tinysql.engine.WhereExpr;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.IndexType;
+import com.tinysql.model.StorageMode;
+import com.tinysql.tokenizer.Token;
+import com.tinysql.tokenizer.Tokenizer;
+import com.tinysql.tokenizer.TokenType;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recursive-descent parser from {@link Tokenizer} tokens to a {@link Statement}.
+ * Keywords are case-insensitive and a trailing ';' is allowed:
+ * <pre>
+ *   SELECT [SQL_NO_CACHE] &lt;item&gt; [, &lt;item&gt;]... FROM &lt;table&gt; [WHERE &lt;or&gt;] [GROUP BY &lt;col&gt; [, &lt;col&gt;]...]
+ *     &lt;item&gt; := * | &lt;col&gt; | &lt;func&gt;( &lt;col&gt; | * )
+ *     &lt;or&gt;   := &lt;and&gt; [OR &lt;and&gt;]...
+ *     &lt;and&gt;  := &lt;term&gt; [AND &lt;term&gt;]...
+ *     &lt;term&gt; := ( &lt;or&gt; ) | &lt;col&gt; &lt;op&gt; &lt;value&gt;
+ *   INSERT INTO &lt;table&gt; VALUES [(] &lt;value&gt; [[,] &lt;value&gt;]... [)]
+ *   CREATE TABLE &lt;table&gt; (&lt;col&gt; &lt;type&gt; [PRIMARY KEY], ...) [USING ROW|PAGED|COLUMNAR|CLUSTERED]
+ *   CREATE INDEX &lt;name&gt; ON &lt;table&gt;(&lt;col&gt;) [USING HASH|BTREE|BITMAP]
+ *   JOIN &lt;table&gt; &lt;table&gt; ON &lt;col&gt; &lt;col&gt;
+ *   ANALYZE &lt;table&gt;
+ *   SHOW STATS &lt;table&gt;
+ * </pre>
+ * INSERT values are typed here, once, from their tokens: numbers become
+ * Integer or Double, true and false Boolean, anything else String. WHERE
+ * literals stay text, since their type is the column's, which only the
+ * executor knows. A {@code ?} may stand for any WHERE or INSERT value, to be
+ * bound when the statement runs prepared. Aggregate and type keywords also serve as plain names
+ * where one is expected, e.g. a column called "count".
+ */
+public final class Parser {
+    private static final Set<TokenType> WORDS = EnumSet.of(TokenType.IDENTIFIER,
+            TokenType.COUNT, TokenType.SUM, TokenType.AVG, TokenType.MIN, TokenType.MAX,
+            TokenType.INT_TYPE, TokenType.TEXT_TYPE, TokenType.BOOL_TYPE, TokenType.FLOAT_TYPE, TokenType.DOUBLE_TYPE,
+            TokenType.SET);
+    private static final Set<TokenType> OPERATORS = EnumSet.of(TokenType.EQUALS, TokenType.NOT_EQUALS,
+            TokenType.GT, TokenType.GTE, TokenType.LT, TokenType.LTE);
+
+    private static final String CREATE_TABLE = "Syntax Error: Expected CREATE TABLE <name> (<cols>)";
+    private static final String CREATE_INDEX = "Syntax Error: Expected CREATE INDEX <name> ON <table>(<col>) [USING HASH|BTREE|BITMAP]";
+    private static final String JOIN = "Syntax: JOIN <t1> <t2> ON <col1> <col2>";
+    private static final String ANALYZE = "Syntax Error: Expected ANALYZE <table>";
+    private static final String SHOW_STATS = "Syntax Error: Expected SHOW STATS <table>";
+
+    private final List<Token> tokens;
+    private final List<Condition> parameters = new ArrayList<>();
+    private int pos;
+
+    private Parser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /** @throws ParseException if the statement is malformed or not one of the supported kinds */
+    public static Statement parse(String sql) {
+        List<Token> tokens;
+        try {
+            tokens = new Tokenizer(sql).tokenize();
+        } catch (RuntimeException | AssertionError e) {
+            // The tokenizer asserts on malformed literals when assertions are enabled
+            throw new ParseException("Syntax Error: " + e.getMessage());
+        }
+        return new Parser(tokens).statement();
+    }
+
+    private Statement statement() {
+        Token first = peek();
+        switch (first.type) {
+            case SELECT: return select();
+            case INSERT: return insert();
+            case CREATE: return create();
+            case JOIN: return join();
+            case EOF: throw new ParseException("Syntax Error: Empty statement");
+            default:
+                if (isKeyword(first, "ANALYZE")) return analyze();
+                if (isKeyword(first, "SHOW")) return showStats();
+                throw new ParseException("Unknown command: " + first.value.toUpperCase());
+        }
+    }
+
+    private SelectStatement select() {
+        pos++;
+        // A hint unless it is itself the only item, a column named so
+        Token after = peek(1);
+        boolean cacheable = !(isKeyword(peek(), "SQL_NO_CACHE")
+                && after.type != TokenType.FROM && after.type != TokenType.COMMA && after.type != TokenType.LPAREN);
+        if (!cacheable) pos++;
+        List<SelectItem> items = new ArrayList<>();
+        do {
+            items.add(selectItem());
+        } while (accept(TokenType.COMMA));
+        if (!accept(TokenType.FROM)) throw new ParseException("Syntax Error: Missing FROM");
+        if (!isWord(peek())) throw new ParseException("Syntax Error: Expected a table name after FROM");
+        String table = next().value;
+
+        WhereExpr where = null;
+        if (accept(TokenType.WHERE)) {
+            where = or();
+            if (!atEnd() && !isKeyword(peek(), "GROUP")) throw new ParseException("Syntax Error: Unexpected '" + peek().value + "' in WHERE");
+        }
+        List<String> groupBy = new ArrayList<>();
+        if (acceptKeyword("GROUP")) {
+            if (!acceptKeyword("BY") || !isWord(peek())) throw new ParseException("Syntax Error: GROUP BY <col>[, <col>]");
+            do {
+                if (!isWord(peek())) throw new ParseException("Syntax Error: GROUP BY <col>[, <col>]");
+                groupBy.add(next().value);
+            } while (accept(TokenType.COMMA));
+            if (where != null && where.getKind() != WhereExpr.Kind.CONDITION) {
+                throw new ParseException("Syntax Error: GROUP BY takes a single WHERE condition");
+            }
+        }
+        end();
+
+        boolean aggregate = false;
+        for (SelectItem item : items) aggregate |= item.isAggregate();
+        for (SelectItem item : items) {
+            if (item.isAggregate()) continue;
+            // Plain columns must be keys; the result always lists the keys, then the aggregates
+            if (!groupBy.isEmpty() && !groupBy.contains(item.getColumn())) {
+                throw new ParseException("Syntax Error: " + item + " is not in GROUP BY");
+            }
+            if (groupBy.isEmpty() && aggregate) throw new ParseException("Syntax Error: Expected FUNC(col) but got " + item);
+        }
+        return new SelectStatement(items, table, where, groupBy, parameters, cacheable);
+    }
+
+    private SelectItem selectItem() {
+        if (accept(TokenType.ASTERISK)) return new SelectItem(null, "*");
+        Token t = peek();
+        if (!isWord(t)) throw new ParseException("Syntax Error: Expected a column, * or FUNC(col) but got '" + t.value + "'");
+        pos++;
+        if (!accept(TokenType.LPAREN)) return new SelectItem(null, t.value);
+        String column;
+        if (accept(TokenType.ASTERISK)) column = "*";
+        else if (isWord(peek())) column = next().value;
+        else throw new ParseException("Syntax Error: Expected FUNC(col) but got " + t.value + "(" + peek().value);
+        if (!accept(TokenType.RPAREN)) throw new ParseException("Syntax Error: Expected FUNC(col) but got " + t.value + "(" + column);
+        return new SelectItem(t.value, column);
+    }
+
+    private WhereExpr or() {
+        List<WhereExpr> terms = new ArrayList<>();
+        terms.add(and());
+        while (accept(TokenType.OR)) terms.add(and());
+        return WhereExpr.or(terms);
+    }
+
+    private WhereExpr and() {
+        List<WhereExpr> terms = new ArrayList<>();
+        terms.add(term());
+        while (accept(TokenType.AND)) terms.add(term());
+        return WhereExpr.and(terms);
+    }
+
+    private WhereExpr term() {
+        if (accept(TokenType.LPAREN)) {
+            WhereExpr inner = or();
+            if (!accept(TokenType.RPAREN)) throw new ParseException("Syntax Error: Missing ')' in WHERE");
+            return inner;
+        }
+        if (!isWord(peek()) || !OPERATORS.contains(peek(1).type) || !(isValue(peek(2)) || peek(2).type == TokenType.PARAMETER)) {
+            throw new ParseException("Syntax Error: Expected <column> <operator> <value> in WHERE");
+        }
+        Condition c = new Condition(next().value, next().value, next().value);
+        if (peek(-1).type == TokenType.PARAMETER) parameters.add(c);
+        return WhereExpr.of(c);
+    }
+
+    private InsertStatement insert() {
+        pos++;
+        if (!accept(TokenType.INTO) || !isWord(peek())) throw new ParseException("Syntax Error: Expected INSERT INTO <table> VALUES <values>");
+        String table = next().value;
+        if (!accept(TokenType.VALUES)) throw new ParseException("Syntax Error: Missing VALUES clause");
+        boolean parenthesised = accept(TokenType.LPAREN);
+        List<Object> values = new ArrayList<>();
+        int parameterCount = 0;
+        while (isValue(peek()) || peek().type == TokenType.PARAMETER) {
+            values.add(accept(TokenType.PARAMETER) ? new Parameter(parameterCount++) : cell(next()));
+            accept(TokenType.COMMA);
+        }
+        if (parenthesised && !accept(TokenType.RPAREN)) throw new ParseException("Syntax Error: Missing ')' after VALUES");
+        end();
+        return new InsertStatement(table, values, parameterCount);
+    }
+
+    /** An INSERT value as the cell it stores. */
+    private static Object cell(Token t) {
+        if (t.type == TokenType.NUMBER_LITERAL) {
+            try {
+                return t.value.indexOf('.') >= 0 ? (Object) Double.parseDouble(t.value) : (Object) Integer.parseInt(t.value);
+            } catch (NumberFormatException e) {
+                throw new ParseException("Syntax Error: Invalid number '" + t.value + "'");
+            }
+        }
+        if (t.type != TokenType.STRING_LITERAL && (t.value.equalsIgnoreCase("true") || t.value.equalsIgnoreCase("false"))) {
+            return Boolean.parseBoolean(t.value);
+        }
+        return t.value;
+    }
+
+    private Statement create() {
+        pos++;
+        if (acceptKeyword("INDEX")) return createIndex();
+        if (!accept(TokenType.TABLE) || !isWord(peek()) || peek(1).type == TokenType.EOF) throw new ParseException(CREATE_TABLE);
+        String table = next().value;
+        if (!accept(TokenType.LPAREN)) throw new ParseException("Syntax Error: Missing parenthesis '(' or ')'");
+
+        List<Column> columns = new ArrayList<>();
+        while (!accept(TokenType.RPAREN)) {
+            if (atEnd()) throw new ParseException("Syntax Error: Missing parenthesis '(' or ')'");
+            if (accept(TokenType.COMMA)) continue;
+            columns.add(column());
+            if (peek().type != TokenType.RPAREN && !accept(TokenType.COMMA)) {
+                throw new ParseException(atEnd() ? "Syntax Error: Missing parenthesis '(' or ')'" : "Syntax Error: Unexpected '" + peek().value + "' in column list");
+            }
+        }
+        if (columns.isEmpty()) throw new ParseException("Syntax Error: No columns defined");
+
+        StorageMode mode = StorageMode.ROW;
+        if (acceptKeyword("USING")) {
+            Token t = next();
+            try {
+                mode = StorageMode.valueOf(t.value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ParseException("Syntax Error: Unknown storage mode '" + t.value + "'");
+            }
+        }
+        end();
+        return new CreateTableStatement(table, columns, mode);
+    }
+
+    private Column column() {
+        Token name = next();
+        Token type = peek();
+        if (!isWord(name) || !isWord(type)) {
+            throw new ParseException("Syntax Error: Invalid column definition '" + name.value + "'. Expected <name> <type>");
+        }
+        pos++;
+        String typeStr = type.value.toUpperCase();
+        DataType dataType;
+        if (typeStr.startsWith("INT")) dataType = DataType.INTEGER;
+        else if (typeStr.startsWith("TEXT")) dataType = DataType.STRING;
+        else if (typeStr.startsWith("FLOAT")) dataType = DataType.FLOAT;
+        else if (typeStr.startsWith("DOUBLE")) dataType = DataType.DOUBLE;
+        else if (typeStr.startsWith("BOOL")) dataType = DataType.BOOLEAN;
+        else throw new ParseException("Syntax Error: Unknown type '" + typeStr + "' for column " + name.value);
+
+        if (acceptKeyword("PRIMARY")) {
+            if (!acceptKeyword("KEY")) throw new ParseException("Syntax Error: Expected PRIMARY KEY for column " + name.value);
+            return Column.primaryKey(name.value, dataType);
+        }
+        return new Column(name.value, dataType, false);
+    }
+
+    private CreateIndexStatement createIndex() {
+        if (!isWord(peek()) || peek(1).type != TokenType.ON || !isWord(peek(2)) || peek(3).type != TokenType.LPAREN
+                || !isWord(peek(4)) || peek(5).type != TokenType.RPAREN) {
+            throw new ParseException(CREATE_INDEX);
+        }
+        String name = next().value;
+        pos++;
+        String table = next().value;
+        pos++;
+        String column = next().value;
+        pos++;
+        IndexType type = IndexType.HASH;
+        if (acceptKeyword("USING")) {
+            Token t = next();
+            try {
+                type = IndexType.valueOf(t.value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ParseException("Syntax Error: Unknown index type '" + t.value + "'");
+            }
+        }
+        end();
+        return new CreateIndexStatement(name, table, column, type);
+    }
+
+    private JoinStatement join() {
+        pos++;
+        if (!isWord(peek()) || !isWord(peek(1)) || peek(2).type != TokenType.ON || !isWord(peek(3)) || !isWord(peek(4))) {
+            throw new ParseException(JOIN);
+        }
+        String left = next().value;
+        String right = next().value;
+        pos++;
+        JoinStatement join = new JoinStatement(left, right, next().value, next().value);
+        end();
+        return join;
+    }
+
+    private AnalyzeStatement analyze() {
+        pos++;
+        if (!isWord(peek())) throw new ParseException(ANALYZE);
+        AnalyzeStatement analyze = new AnalyzeStatement(next().value);
+        end();
+        return analyze;
+    }
+
+    private ShowStatsStatement showStats() {
+        pos++;
+        if (!acceptKeyword("STATS") || !isWord(peek())) throw new ParseException(SHOW_STATS);
+        ShowStatsStatement show = new ShowStatsStatement(next().value);
+        end();
+        return show;
+    }
+
+    private void end() {
+        accept(TokenType.SEMICOLON);
+        if (!atEnd()) throw new ParseException("Syntax Error: Unexpected '" + peek().value + "'");
+    }
+
+    private boolean atEnd() {
+        return peek().type == TokenType.EOF || peek().type == TokenType.SEMICOLON;
+    }
+
+    private Token peek() {
+        return peek(0);
+    }
+
+    /** The token {@code ahead} places on, or back when negative; EOF past the end. */
+    private Token peek(int ahead) {
+        return tokens.get(Math.min(pos + ahead, tokens.size() - 1));
+    }
+
+    private Token next() {
+        Token t = peek();
+        if (t.type != TokenType.EOF) pos++;
+        return t;
+    }
+
+    private boolean accept(TokenType type) {
+        if (peek().type != type) return false;
+        pos++;
+        return true;
+    }
+
+    /** Accepts a word the tokenizer has no keyword for, such as GROUP or USING. */
+    private boolean acceptKeyword(String word) {
+        if (!isKeyword(peek(), word)) return false;
+        pos++;
+        return true;
+    }
+
+    private static boolean isKeyword(Token t, String word) {
+        return t.type == TokenType.IDENTIFIER && t.value.equalsIgnoreCase(word);
+    }
+
+    private static boolean isWord(Token t) {
+        return WORDS.contains(t.type);
+    }
+
+    private static boolean isValue(Token t) {
+        return isWord(t) || t.type == TokenType.NUMBER_LITERAL || t.type == TokenType.STRING_LITERAL;
+    }
+}
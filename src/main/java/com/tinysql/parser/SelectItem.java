@@ -0,0 +1,31 @@
+package com.tinysql.parser;
+
+/** One entry of a SELECT list: {@code *}, a column, or an aggregate such as {@code SUM(a)} or {@code COUNT(*)}. */
+public final class SelectItem {
+    private final String function;
+    private final String column;
+
+    SelectItem(String function, String column) {
+        this.function = function;
+        this.column = column;
+    }
+
+    /** The aggregate function as written, e.g. "SUM"; null for a plain column or {@code *}. */
+    public String getFunction() {
+        return function;
+    }
+
+    /** The column, or "*" for {@code *} and {@code COUNT(*)}. */
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isAggregate() {
+        return function != null;
+    }
+
+    @Override
+    public String toString() {
+        return function == null ? column : function + "(" + column + ")";
+    }
+}
@@ -0,0 +1,69 @@
+package com.tinysql.parser;
+
+import com.tinysql.engine.Condition;
+import com.tinysql.engine.WhereExpr;
+import java.util.List;
+
+/** SELECT [SQL_NO_CACHE] items FROM table [WHERE ...] [GROUP BY ...]. */
+public final class SelectStatement implements Statement {
+    private final List<SelectItem> items;
+    private final String table;
+    private final WhereExpr where;
+    private final List<String> groupBy;
+    private final List<Condition> parameters;
+    private final boolean cacheable;
+
+    SelectStatement(List<SelectItem> items, String table, WhereExpr where, List<String> groupBy, List<Condition> parameters,
+                    boolean cacheable) {
+        this.items = List.copyOf(items);
+        this.table = table;
+        this.where = where;
+        this.groupBy = List.copyOf(groupBy);
+        this.parameters = List.copyOf(parameters);
+        this.cacheable = cacheable;
+    }
+
+    public List<SelectItem> getItems() {
+        return items;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /** The WHERE clause; null if there is none. */
+    public WhereExpr getWhere() {
+        return where;
+    }
+
+    /** The GROUP BY columns; empty if there is none. */
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * The WHERE conditions whose value is a {@code ?} placeholder, in the
+     * order they are bound. They are the very instances in {@link #getWhere()}.
+     */
+    public List<Condition> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public int getParameterCount() {
+        return parameters.size();
+    }
+
+    /** False if the query carries the SQL_NO_CACHE hint, so its result is never cached. */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /** Whether any item is an aggregate. */
+    public boolean isAggregate() {
+        for (SelectItem item : items) {
+            if (item.isAggregate()) return true;
+        }
+        return false;
+    }
+}
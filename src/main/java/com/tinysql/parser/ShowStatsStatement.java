@@ -0,0 +1,14 @@
+package com.tinysql.parser;
+
+/** SHOW STATS table. */
+public final class ShowStatsStatement implements Statement {
+    private final String table;
+
+    ShowStatsStatement(String table) {
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,14 @@
+package com.tinysql.parser;
+
+/**
+ * A parsed SQL statement, one of {@link SelectStatement},
+ * {@link InsertStatement}, {@link CreateTableStatement},
+ * {@link CreateIndexStatement}, {@link JoinStatement},
+ * {@link AnalyzeStatement} and {@link ShowStatsStatement}.
+ */
+public interface Statement {
+    /** How many {@code ?} placeholders must be bound to run it. */
+    default int getParameterCount() {
+        return 0;
+    }
+}
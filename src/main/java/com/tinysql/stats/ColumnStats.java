@@ -0,0 +1,104 @@
+package com.tinysql.stats;
+
+import com.tinysql.model.DataType;
+
+/**
+ * Statistics of one column: how many cells are null, the range and an
+ * estimated count of distinct values of the others, and a histogram once
+ * the table has been analyzed. A cell that does not convert to the column's
+ * type (the engine does not type-check inserts) counts as null.
+ */
+public final class ColumnStats {
+    private final String column;
+    private final DataType type;
+    private long nulls;
+    private long values;
+    private Object min;
+    private Object max;
+    private final HyperLogLog distinct;
+    private Histogram histogram;
+
+    ColumnStats(String column, DataType type) {
+        this(column, type, 0, 0, null, null, new HyperLogLog(), null);
+    }
+
+    ColumnStats(String column, DataType type, long nulls, long values, Object min, Object max, HyperLogLog distinct, Histogram histogram) {
+        this.column = column;
+        this.type = type;
+        this.nulls = nulls;
+        this.values = values;
+        this.min = min;
+        this.max = max;
+        this.distinct = distinct;
+        this.histogram = histogram;
+    }
+
+    void add(Object cell) {
+        Object v = type.coerce(cell);
+        if (v == null) {
+            nulls++;
+            return;
+        }
+        values++;
+        if (min == null || Histogram.compare(v, min) < 0) min = v;
+        if (max == null || Histogram.compare(v, max) > 0) max = v;
+        distinct.add(v);
+        if (histogram != null) histogram.add(v);
+    }
+
+    void setHistogram(Histogram histogram) {
+        this.histogram = histogram;
+    }
+
+    ColumnStats copy() {
+        HyperLogLog sketch = new HyperLogLog(distinct.getPrecision());
+        sketch.merge(distinct);
+        return new ColumnStats(column, type, nulls, values, min, max, sketch, histogram == null ? null : histogram.copy());
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    public long getNullCount() {
+        return nulls;
+    }
+
+    /** Null cells over all cells; 0 for an empty table. */
+    public double getNullFraction() {
+        long cells = nulls + values;
+        return cells == 0 ? 0 : (double) nulls / cells;
+    }
+
+    /** Smallest non-null value, or null if there is none. */
+    public Object getMin() {
+        return min;
+    }
+
+    /** Largest non-null value, or null if there is none. */
+    public Object getMax() {
+        return max;
+    }
+
+    /** Estimated number of distinct non-null values. */
+    public long getDistinct() {
+        return Math.min(distinct.estimate(), values);
+    }
+
+    HyperLogLog getSketch() {
+        return distinct;
+    }
+
+    long getValueCount() {
+        return values;
+    }
+
+    /** The histogram built by the last ANALYZE, kept up to date since; null if never analyzed. */
+    public Histogram getHistogram() {
+        return histogram;
+    }
+}
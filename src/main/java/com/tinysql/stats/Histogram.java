@@ -0,0 +1,138 @@
+package com.tinysql.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Equi-depth histogram of a column's non-null values: bucket i holds the
+ * values in (bound i, bound i+1], the first also bound 0, the minimum. Built
+ * from every value so each bucket holds about as many rows; later values only
+ * raise the count of the bucket they fall in, widening the end buckets if
+ * they fall outside, so the buckets drift from equal depth until the next
+ * ANALYZE. Bounds are the column's Java values (Integer, Float, Double,
+ * Boolean or String), compared in their natural order.
+ */
+public final class Histogram {
+    public static final int DEFAULT_BUCKETS = 32;
+
+    private final Object[] bounds;
+    private final long[] counts;
+
+    Histogram(Object[] bounds, long[] counts) {
+        if (bounds.length != counts.length + 1 || counts.length == 0) throw new IllegalArgumentException("A histogram needs one bound more than buckets");
+        this.bounds = bounds;
+        this.counts = counts;
+    }
+
+    /**
+     * Splits values sorted ascending into at most {@code buckets} buckets of
+     * about equal count; a value repeated across a split stays in one bucket.
+     * Null if there are no values.
+     */
+    public static Histogram equiDepth(List<?> sorted, int buckets) {
+        int n = sorted.size();
+        if (n == 0) return null;
+        int b = Math.min(buckets, n);
+        List<Object> upper = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < b; i++) {
+            int end = (int) ((long) (i + 1) * n / b);
+            if (end <= start) continue;
+            Object bound = sorted.get(end - 1);
+            if (!upper.isEmpty() && compare(upper.get(upper.size() - 1), bound) == 0) {
+                sizes.set(sizes.size() - 1, sizes.get(sizes.size() - 1) + (end - start));
+            } else {
+                upper.add(bound);
+                sizes.add((long) (end - start));
+            }
+            start = end;
+        }
+        Object[] bounds = new Object[upper.size() + 1];
+        bounds[0] = sorted.get(0);
+        long[] counts = new long[sizes.size()];
+        for (int i = 0; i < counts.length; i++) {
+            bounds[i + 1] = upper.get(i);
+            counts[i] = sizes.get(i);
+        }
+        return new Histogram(bounds, counts);
+    }
+
+    void add(Object value) {
+        int last = counts.length - 1;
+        if (compare(value, bounds[0]) < 0) bounds[0] = value;
+        if (compare(value, bounds[last + 1]) > 0) bounds[last + 1] = value;
+        counts[bucketOf(value)]++;
+    }
+
+    /** The first bucket whose upper bound is at least the value. */
+    private int bucketOf(Object value) {
+        int lo = 0, hi = counts.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(bounds[mid + 1], value) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Estimated number of values at most the given one: whole buckets below
+     * it, plus the part of its bucket below it, interpolated linearly for
+     * numbers and taken as half otherwise.
+     */
+    public double estimateAtMost(Object value) {
+        if (compare(value, bounds[0]) < 0) return 0;
+        int b = bucketOf(value);
+        double rows = 0;
+        for (int i = 0; i < b; i++) rows += counts[i];
+        if (compare(value, bounds[b + 1]) >= 0) return rows + counts[b];
+        Object lo = bounds[b], hi = bounds[b + 1];
+        double part = 0.5;
+        if (lo instanceof Number && hi instanceof Number && value instanceof Number) {
+            double l = ((Number) lo).doubleValue(), h = ((Number) hi).doubleValue();
+            if (h > l) part = (((Number) value).doubleValue() - l) / (h - l);
+        }
+        return rows + part * counts[b];
+    }
+
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /** The minimum followed by each bucket's upper bound. */
+    public List<Object> getBounds() {
+        return Collections.unmodifiableList(Arrays.asList(bounds));
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long c : counts) total += c;
+        return total;
+    }
+
+    Histogram copy() {
+        return new Histogram(bounds.clone(), counts.clone());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static int compare(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(i == 0 ? "[" : "(").append(bounds[i]).append(", ").append(bounds[i + 1]).append("]:").append(counts[i]);
+        }
+        return sb.toString();
+    }
+}
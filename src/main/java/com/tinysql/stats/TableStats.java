@@ -0,0 +1,210 @@
+package com.tinysql.stats;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import com.tinysql.model.Table;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row count and per-column {@link ColumnStats} of a table, gathered by one
+ * pass over its rows and then kept up to date by every insert. ANALYZE
+ * gathers them again and adds an equi-depth histogram per column; inserts
+ * after it are counted so a caller can tell how far the histograms may
+ * have drifted.
+ */
+public final class TableStats {
+    private final Schema schema;
+    private final int[] ordinals;
+    private final ColumnStats[] columns;
+    private long rowCount;
+    private long maxRowId;
+    private boolean analyzed;
+    private long insertsSinceAnalyze;
+
+    private TableStats(Table table, ColumnStats[] columns) {
+        this.schema = table.getSchema();
+        this.columns = columns;
+        this.ordinals = new int[columns.length];
+        for (int c = 0; c < columns.length; c++) ordinals[c] = schema.indexOf(columns[c].getColumn());
+    }
+
+    /** Statistics of the table's current rows; with histograms, as ANALYZE gathers them. */
+    public static TableStats build(Table table, boolean histograms) {
+        List<Column> cols = table.getColumns();
+        ColumnStats[] columns = new ColumnStats[cols.size()];
+        for (int c = 0; c < columns.length; c++) columns[c] = new ColumnStats(cols.get(c).getName(), cols.get(c).getType());
+        TableStats stats = new TableStats(table, columns);
+
+        List<List<Object>> values = new ArrayList<>();
+        for (int c = 0; histograms && c < columns.length; c++) values.add(new ArrayList<>());
+        for (Row row : table.scan()) {
+            stats.add(row);
+            for (int c = 0; histograms && c < columns.length; c++) {
+                Object v = columns[c].getType().coerce(stats.cell(row, c));
+                if (v != null) values.get(c).add(v);
+            }
+        }
+        if (histograms) {
+            for (int c = 0; c < columns.length; c++) {
+                List<Object> sorted = values.get(c);
+                sorted.sort(Histogram::compare);
+                columns[c].setHistogram(Histogram.equiDepth(sorted, Histogram.DEFAULT_BUCKETS));
+            }
+            stats.analyzed = true;
+            stats.insertsSinceAnalyze = 0;
+        }
+        return stats;
+    }
+
+    /** Counts a row laid out by the table's schema. */
+    public synchronized void add(Row row) {
+        rowCount++;
+        if (row.getRowId() > maxRowId) maxRowId = row.getRowId();
+        if (analyzed) insertsSinceAnalyze++;
+        for (int c = 0; c < columns.length; c++) columns[c].add(cell(row, c));
+    }
+
+    private Object cell(Row row, int c) {
+        return row.getSchema() == schema ? row.get(ordinals[c]) : row.get(columns[c].getColumn());
+    }
+
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    /** Highest row id counted, which tells whether persisted statistics cover a table's rows. */
+    public synchronized long getMaxRowId() {
+        return maxRowId;
+    }
+
+    /** Whether the statistics come from ANALYZE, and so have histograms. */
+    public synchronized boolean isAnalyzed() {
+        return analyzed;
+    }
+
+    public synchronized long getInsertsSinceAnalyze() {
+        return insertsSinceAnalyze;
+    }
+
+    /** A snapshot of each column's statistics, in table order. */
+    public synchronized List<ColumnStats> getColumns() {
+        List<ColumnStats> copies = new ArrayList<>(columns.length);
+        for (ColumnStats c : columns) copies.add(c.copy());
+        return copies;
+    }
+
+    /** A snapshot of the column's statistics, or null if the table has no such column. */
+    public synchronized ColumnStats getColumn(String name) {
+        for (ColumnStats c : columns) {
+            if (c.getColumn().equalsIgnoreCase(name)) return c.copy();
+        }
+        return null;
+    }
+
+    /**
+     * Layout (big endian): long row count, long highest row id, boolean
+     * analyzed, long inserts since, int columns; per column its name and
+     * type, long nulls, long values, min and max if there are values, the
+     * HyperLogLog registers, and the histogram's bounds and counts if any.
+     */
+    public synchronized void write(DataOutput out) throws IOException {
+        out.writeLong(rowCount);
+        out.writeLong(maxRowId);
+        out.writeBoolean(analyzed);
+        out.writeLong(insertsSinceAnalyze);
+        out.writeInt(columns.length);
+        for (ColumnStats c : columns) {
+            DataType type = c.getType();
+            out.writeUTF(c.getColumn());
+            out.writeByte(type.ordinal());
+            out.writeLong(c.getNullCount());
+            out.writeLong(c.getValueCount());
+            if (c.getValueCount() > 0) {
+                writeValue(out, type, c.getMin());
+                writeValue(out, type, c.getMax());
+            }
+            c.getSketch().write(out);
+            Histogram h = c.getHistogram();
+            out.writeInt(h == null ? 0 : h.getBucketCount());
+            if (h == null) continue;
+            for (Object bound : h.getBounds()) writeValue(out, type, bound);
+            for (int b = 0; b < h.getBucketCount(); b++) out.writeLong(h.getCount(b));
+        }
+    }
+
+    /** @throws IOException if the data is malformed or its columns are not the table's */
+    public static TableStats read(Table table, DataInput in) throws IOException {
+        long rowCount = in.readLong();
+        long maxRowId = in.readLong();
+        boolean analyzed = in.readBoolean();
+        long insertsSinceAnalyze = in.readLong();
+        List<Column> cols = table.getColumns();
+        int n = in.readInt();
+        if (n != cols.size()) throw new IOException("Statistics of " + n + " columns for a table of " + cols.size());
+        ColumnStats[] columns = new ColumnStats[n];
+        for (int c = 0; c < n; c++) {
+            String name = in.readUTF();
+            int ordinal = in.readUnsignedByte();
+            DataType type = cols.get(c).getType();
+            if (!name.equals(cols.get(c).getName()) || ordinal != type.ordinal()) {
+                throw new IOException("Statistics of column " + name + " do not match " + cols.get(c).getName() + " " + type);
+            }
+            long nulls = in.readLong();
+            long values = in.readLong();
+            Object min = values > 0 ? readValue(in, type) : null;
+            Object max = values > 0 ? readValue(in, type) : null;
+            HyperLogLog sketch = HyperLogLog.read(in);
+            int buckets = in.readInt();
+            Histogram histogram = null;
+            if (buckets > 0) {
+                Object[] bounds = new Object[buckets + 1];
+                for (int b = 0; b <= buckets; b++) bounds[b] = readValue(in, type);
+                long[] counts = new long[buckets];
+                for (int b = 0; b < buckets; b++) counts[b] = in.readLong();
+                histogram = new Histogram(bounds, counts);
+            }
+            columns[c] = new ColumnStats(name, type, nulls, values, min, max, sketch, histogram);
+        }
+        TableStats stats = new TableStats(table, columns);
+        stats.rowCount = rowCount;
+        stats.maxRowId = maxRowId;
+        stats.analyzed = analyzed;
+        stats.insertsSinceAnalyze = insertsSinceAnalyze;
+        return stats;
+    }
+
+    private static void writeValue(DataOutput out, DataType type, Object v) throws IOException {
+        switch (type) {
+            case INTEGER: out.writeInt((Integer) v); break;
+            case FLOAT: out.writeFloat((Float) v); break;
+            case DOUBLE: out.writeDouble((Double) v); break;
+            case BOOLEAN: out.writeBoolean((Boolean) v); break;
+            default:
+                byte[] bytes = ((String) v).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+        }
+    }
+
+    private static Object readValue(DataInput in, DataType type) throws IOException {
+        switch (type) {
+            case INTEGER: return in.readInt();
+            case FLOAT: return in.readFloat();
+            case DOUBLE: return in.readDouble();
+            case BOOLEAN: return in.readBoolean();
+            default:
+                int length = in.readInt();
+                if (length < 0) throw new IOException("Bad string length " + length);
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.tinysql.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of {@link PageFile} pages with clock (second chance) eviction.
+ *
+ * Callers pin a page while they read or write its buffer and unpin it when done;
+ * pinned frames are never evicted. Dirty frames are written back on eviction
+ * or {@link #flush(PageFile)}.
+ */
+public class BufferPool {
+    private final ByteBuffer[] frames;
+    private final PageKey[] owners;
+    private final int[] pinCounts;
+    private final boolean[] referenced;
+    private final boolean[] dirty;
+    private final Map<PageKey, Integer> pageTable = new HashMap<>();
+    private int clockHand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+
+    public BufferPool(int capacityPages) {
+        if (capacityPages < 1) throw new IllegalArgumentException("Buffer pool needs at least one frame");
+        this.frames = new ByteBuffer[capacityPages];
+        this.owners = new PageKey[capacityPages];
+        this.pinCounts = new int[capacityPages];
+        this.referenced = new boolean[capacityPages];
+        this.dirty = new boolean[capacityPages];
+    }
+
+    /**
+     * Pins an existing page, reading it from disk on a miss.
+     */
+    public synchronized ByteBuffer pin(PageFile file, int pageNo) {
+        return pin(file, pageNo, true);
+    }
+
+    /**
+     * Pins a freshly allocated page without reading it; the buffer starts zeroed.
+     */
+    public synchronized ByteBuffer pinNew(PageFile file, int pageNo) {
+        return pin(file, pageNo, false);
+    }
+
+    public synchronized void unpin(PageFile file, int pageNo, boolean modified) {
+        Integer frame = pageTable.get(new PageKey(file, pageNo));
+        if (frame == null || pinCounts[frame] == 0) {
+            throw new IllegalStateException("Page " + pageNo + " is not pinned");
+        }
+        pinCounts[frame]--;
+        if (modified) dirty[frame] = true;
+    }
+
+    /** Writes back every dirty page of the file. */
+    public synchronized void flush(PageFile file) throws IOException {
+        for (int i = 0; i < frames.length; i++) {
+            if (owners[i] != null && owners[i].file == file && dirty[i]) {
+                file.writePage(owners[i].pageNo, frames[i]);
+                dirty[i] = false;
+                writeBacks++;
+            }
+        }
+    }
+
+    /** Forgets every page of the file without writing it back. */
+    public synchronized void discard(PageFile file) {
+        for (int i = 0; i < frames.length; i++) {
+            if (owners[i] != null && owners[i].file == file) {
+                pageTable.remove(owners[i]);
+                owners[i] = null;
+                pinCounts[i] = 0;
+                dirty[i] = false;
+                referenced[i] = false;
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getWriteBacks() {
+        return writeBacks;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BufferPool{capacity=" + frames.length + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", writeBacks=" + writeBacks + "}";
+    }
+
+    private ByteBuffer pin(PageFile file, int pageNo, boolean read) {
+        PageKey key = new PageKey(file, pageNo);
+        Integer cached = pageTable.get(key);
+        if (cached != null) {
+            hits++;
+            pinCounts[cached]++;
+            referenced[cached] = true;
+            return frames[cached];
+        }
+
+        misses++;
+        int frame = victim();
+        try {
+            if (owners[frame] != null) {
+                if (dirty[frame]) {
+                    owners[frame].file.writePage(owners[frame].pageNo, frames[frame]);
+                    writeBacks++;
+                }
+                pageTable.remove(owners[frame]);
+                evictions++;
+            }
+            if (frames[frame] == null) frames[frame] = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+            if (read) {
+                file.readPage(pageNo, frames[frame]);
+            } else {
+                Arrays.fill(frames[frame].array(), (byte) 0);
+            }
+        } catch (IOException e) {
+            owners[frame] = null;
+            dirty[frame] = false;
+            throw new UncheckedIOException(e);
+        }
+
+        owners[frame] = key;
+        pageTable.put(key, frame);
+        pinCounts[frame] = 1;
+        referenced[frame] = true;
+        dirty[frame] = !read;
+        return frames[frame];
+    }
+
+    private int victim() {
+        // Two full sweeps: the first may only clear reference bits
+        for (int step = 0; step < frames.length * 2; step++) {
+            int i = clockHand;
+            clockHand = (clockHand + 1) % frames.length;
+            if (owners[i] == null) return i;
+            if (pinCounts[i] > 0) continue;
+            if (referenced[i]) {
+                referenced[i] = false;
+                continue;
+            }
+            return i;
+        }
+        throw new IllegalStateException("Buffer pool exhausted: all " + frames.length + " frames are pinned");
+    }
+
+    private static final class PageKey {
+        final PageFile file;
+        final int pageNo;
+
+        PageKey(PageFile file, int pageNo) {
+            this.file = file;
+            this.pageNo = pageNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PageKey)) return false;
+            PageKey k = (PageKey) o;
+            return k.file == file && k.pageNo == pageNo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(file), pageNo);
+        }
+    }
+}
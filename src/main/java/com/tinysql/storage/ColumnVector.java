@@ -0,0 +1,290 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.DataType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable primitive array holding one column of a {@link ColumnarRowStore}.
+ * Nulls are tracked in a separate validity bitmap so the value arrays stay
+ * dense; a null slot holds the type's zero value.
+ */
+public abstract class ColumnVector {
+    private long[] validity = new long[1];
+    protected int size;
+
+    public static ColumnVector create(DataType type) {
+        switch (type) {
+            case INTEGER: return new Ints();
+            case FLOAT: return new Floats();
+            case DOUBLE: return new Doubles();
+            case BOOLEAN: return new Booleans();
+            default: return new Strings();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int i) {
+        return (validity[i >>> 6] & (1L << i)) == 0;
+    }
+
+    /** Copies the null flags of positions [from, from + len) into dst[0..len). */
+    public void copyNulls(int from, int len, boolean[] dst) {
+        for (int i = 0; i < len; i++) dst[i] = isNull(from + i);
+    }
+
+    /** Boxed value at position i, or null. */
+    public Object get(int i) {
+        return isNull(i) ? null : getValue(i);
+    }
+
+    public abstract DataType getType();
+
+    /** Appends a value already coerced to the column's Java type. */
+    void append(Object value) {
+        ensureCapacity(size + 1);
+        size++;
+        set(size - 1, value);
+    }
+
+    /** Overwrites position i with a value already coerced to the column's Java type. */
+    void set(int i, Object value) {
+        if (value == null) {
+            validity[i >>> 6] &= ~(1L << i);
+            setValue(i, null);
+        } else {
+            validity[i >>> 6] |= 1L << i;
+            setValue(i, value);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(validity, 0L);
+        size = 0;
+    }
+
+    private void ensureCapacity(int n) {
+        int words = (n + 63) >>> 6;
+        if (words > validity.length) validity = Arrays.copyOf(validity, Math.max(words, validity.length * 2));
+        grow(n);
+    }
+
+    protected abstract Object getValue(int i);
+
+    protected abstract void setValue(int i, Object value);
+
+    /** Makes room for at least n values. */
+    protected abstract void grow(int n);
+
+    static int newCapacity(int current, int n) {
+        return Math.max(n, Math.max(16, current * 2));
+    }
+
+    public static final class Ints extends ColumnVector {
+        private int[] values = new int[16];
+
+        public int getInt(int i) {
+            return values[i];
+        }
+
+        public void copyTo(int from, int len, int[] dst) {
+            System.arraycopy(values, from, dst, 0, len);
+        }
+
+        @Override
+        public DataType getType() {
+            return DataType.INTEGER;
+        }
+
+        @Override
+        protected Object getValue(int i) {
+            return values[i];
+        }
+
+        @Override
+        protected void setValue(int i, Object value) {
+            values[i] = value == null ? 0 : (Integer) value;
+        }
+
+        @Override
+        protected void grow(int n) {
+            if (n > values.length) values = Arrays.copyOf(values, newCapacity(values.length, n));
+        }
+    }
+
+    public static final class Floats extends ColumnVector {
+        private float[] values = new float[16];
+
+        public float getFloat(int i) {
+            return values[i];
+        }
+
+        public void copyTo(int from, int len, float[] dst) {
+            System.arraycopy(values, from, dst, 0, len);
+        }
+
+        @Override
+        public DataType getType() {
+            return DataType.FLOAT;
+        }
+
+        @Override
+        protected Object getValue(int i) {
+            return values[i];
+        }
+
+        @Override
+        protected void setValue(int i, Object value) {
+            values[i] = value == null ? 0f : (Float) value;
+        }
+
+        @Override
+        protected void grow(int n) {
+            if (n > values.length) values = Arrays.copyOf(values, newCapacity(values.length, n));
+        }
+    }
+
+    public static final class Doubles extends ColumnVector {
+        private double[] values = new double[16];
+
+        public double getDouble(int i) {
+            return values[i];
+        }
+
+        public void copyTo(int from, int len, double[] dst) {
+            System.arraycopy(values, from, dst, 0, len);
+        }
+
+        @Override
+        public DataType getType() {
+            return DataType.DOUBLE;
+        }
+
+        @Override
+        protected Object getValue(int i) {
+            return values[i];
+        }
+
+        @Override
+        protected void setValue(int i, Object value) {
+            values[i] = value == null ? 0d : (Double) value;
+        }
+
+        @Override
+        protected void grow(int n) {
+            if (n > values.length) values = Arrays.copyOf(values, newCapacity(values.length, n));
+        }
+    }
+
+    /** Booleans packed 64 to a word. */
+    public static final class Booleans extends ColumnVector {
+        private long[] bits = new long[1];
+
+        public boolean getBoolean(int i) {
+            return (bits[i >>> 6] & (1L << i)) != 0;
+        }
+
+        public void copyTo(int from, int len, boolean[] dst) {
+            for (int i = 0; i < len; i++) dst[i] = getBoolean(from + i);
+        }
+
+        @Override
+        public DataType getType() {
+            return DataType.BOOLEAN;
+        }
+
+        @Override
+        protected Object getValue(int i) {
+            return getBoolean(i);
+        }
+
+        @Override
+        protected void setValue(int i, Object value) {
+            if (Boolean.TRUE.equals(value)) bits[i >>> 6] |= 1L << i;
+            else bits[i >>> 6] &= ~(1L << i);
+        }
+
+        @Override
+        protected void grow(int n) {
+            int words = (n + 63) >>> 6;
+            if (words > bits.length) bits = Arrays.copyOf(bits, Math.max(words, bits.length * 2));
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings: each row stores an int code into a list of
+     * distinct values, so equality filters compare codes instead of strings.
+     */
+    public static final class Strings extends ColumnVector {
+        private int[] codes = new int[16];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> lookup = new HashMap<>();
+
+        public int getCode(int i) {
+            return codes[i];
+        }
+
+        /** Code of the value, or -1 if no row holds it. */
+        public int codeOf(String value) {
+            Integer code = lookup.get(value);
+            return code == null ? -1 : code;
+        }
+
+        public String decode(int code) {
+            return dictionary.get(code);
+        }
+
+        /** Decoded values of positions [from, from + len); null slots get null. */
+        public void copyTo(int from, int len, String[] dst) {
+            for (int i = 0; i < len; i++) dst[i] = isNull(from + i) ? null : dictionary.get(codes[from + i]);
+        }
+
+        public int dictionarySize() {
+            return dictionary.size();
+        }
+
+        @Override
+        public DataType getType() {
+            return DataType.STRING;
+        }
+
+        @Override
+        protected Object getValue(int i) {
+            return dictionary.get(codes[i]);
+        }
+
+        @Override
+        protected void setValue(int i, Object value) {
+            if (value == null) {
+                codes[i] = 0;
+                return;
+            }
+            String s = (String) value;
+            Integer code = lookup.get(s);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(s);
+                lookup.put(s, code);
+            }
+            codes[i] = code;
+        }
+
+        @Override
+        protected void grow(int n) {
+            if (n > codes.length) codes = Arrays.copyOf(codes, newCapacity(codes.length, n));
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            dictionary.clear();
+            lookup.clear();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Versioned binary table snapshot that stores one region per column.
+ *
+ * Layout (big endian):
+ * <pre>
+ *   magic "TSQL", int version, byte storage mode (version 2 and later)
+ *   int columnCount, then per column: short length + UTF-8 name, byte type, byte flags
+ *   int rowCount, long[rowCount] row ids
+ *   per column: null bitmap ((rowCount + 7) / 8 bytes), then values
+ *     INTEGER int[rowCount], FLOAT float[rowCount], DOUBLE double[rowCount],
+ *     BOOLEAN bitmap ((rowCount + 7) / 8 bytes),
+ *     STRING int[rowCount + 1] offsets followed by the UTF-8 bytes
+ * </pre>
+ * Files are read through {@link FileChannel#map}, so fixed-width columns are
+ * bulk-copied out of the page cache without any text parsing.
+ */
+public class ColumnarFile {
+    static final int MAGIC = 0x5453514C; // "TSQL"
+    static final int VERSION = 2;
+    private static final int FLAG_PRIMARY_KEY = 1;
+    /** Set with FLAG_PRIMARY_KEY on a declared key, which the table enforces. */
+    private static final int FLAG_DECLARED_KEY = 2;
+
+    public static void write(Table table, File file) throws IOException {
+        List<Column> columns = table.getColumns();
+        List<Row> rows = table.selectAll();
+        rows.sort(Comparator.comparingLong(Row::getRowId));
+        int n = rows.size();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            // 1. Header and schema
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(table.getStorageMode().ordinal());
+            out.writeInt(columns.size());
+            for (Column col : columns) {
+                byte[] name = col.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeByte(col.getType().ordinal());
+                out.writeByte((col.isPrimaryKey() ? FLAG_PRIMARY_KEY : 0) | (col.isDeclaredKey() ? FLAG_DECLARED_KEY : 0));
+            }
+
+            // 2. Row ids
+            out.writeInt(n);
+            for (Row r : rows) out.writeLong(r.getRowId());
+
+            // 3. One region per column
+            for (int c = 0; c < columns.size(); c++) {
+                Column col = columns.get(c);
+                Object[] values = new Object[n];
+                byte[] nulls = new byte[bitmapBytes(n)];
+                for (int i = 0; i < n; i++) {
+                    values[i] = col.getType().coerce(rows.get(i).get(c));
+                    if (values[i] == null) nulls[i >> 3] |= 1 << (i & 7);
+                }
+                out.write(nulls);
+                writeValues(out, col.getType(), values);
+            }
+        }
+    }
+
+    public static Table read(String tableName, File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+
+            // 1. Header and schema
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+                throw new IOException("Not a TinySQL table file: " + file.getName());
+            }
+            int version = buf.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported table file version " + version);
+            StorageMode mode = version >= 2 ? StorageMode.values()[buf.get()] : StorageMode.ROW;
+
+            Table table = new Table(tableName);
+            int columnCount = buf.getInt();
+            for (int c = 0; c < columnCount; c++) {
+                String name = readUTF(buf);
+                DataType type = DataType.values()[buf.get()];
+                int flags = buf.get();
+                table.addColumn((flags & FLAG_DECLARED_KEY) != 0 ? Column.primaryKey(name, type)
+                        : new Column(name, type, (flags & FLAG_PRIMARY_KEY) != 0));
+            }
+            if (mode == StorageMode.COLUMNAR) ColumnarRowStore.attach(table);
+            else if (mode == StorageMode.CLUSTERED) table.setRowStore(new ClusteredRowStore(table), mode);
+
+            // 2. Row ids
+            int n = buf.getInt();
+            long[] ids = new long[n];
+            buf.asLongBuffer().get(ids);
+            buf.position(buf.position() + n * 8);
+
+            Row[] rows = new Row[n];
+            Schema schema = table.getSchema();
+            for (int i = 0; i < n; i++) rows[i] = new Row(ids[i], schema);
+
+            // 3. Column regions
+            List<Column> columns = table.getColumns();
+            for (int c = 0; c < columns.size(); c++) {
+                byte[] nulls = new byte[bitmapBytes(n)];
+                buf.get(nulls);
+                readValues(buf, columns.get(c), c, nulls, rows);
+            }
+
+            for (Row r : rows) table.insert(r);
+            return table;
+        }
+    }
+
+    private static void writeValues(DataOutputStream out, DataType type, Object[] values) throws IOException {
+        int n = values.length;
+        switch (type) {
+            case INTEGER:
+                for (Object v : values) out.writeInt(v == null ? 0 : (Integer) v);
+                break;
+            case FLOAT:
+                for (Object v : values) out.writeFloat(v == null ? 0f : (Float) v);
+                break;
+            case DOUBLE:
+                for (Object v : values) out.writeDouble(v == null ? 0d : (Double) v);
+                break;
+            case BOOLEAN: {
+                byte[] bits = new byte[bitmapBytes(n)];
+                for (int i = 0; i < n; i++) {
+                    if (Boolean.TRUE.equals(values[i])) bits[i >> 3] |= 1 << (i & 7);
+                }
+                out.write(bits);
+                break;
+            }
+            case STRING: {
+                byte[][] encoded = new byte[n][];
+                int offset = 0;
+                out.writeInt(0);
+                for (int i = 0; i < n; i++) {
+                    encoded[i] = values[i] == null ? new byte[0] : ((String) values[i]).getBytes(StandardCharsets.UTF_8);
+                    offset += encoded[i].length;
+                    out.writeInt(offset);
+                }
+                for (byte[] b : encoded) out.write(b);
+                break;
+            }
+        }
+    }
+
+    private static void readValues(ByteBuffer buf, Column col, int ordinal, byte[] nulls, Row[] rows) {
+        int n = rows.length;
+        switch (col.getType()) {
+            case INTEGER: {
+                int[] vals = new int[n];
+                buf.asIntBuffer().get(vals);
+                buf.position(buf.position() + n * 4);
+                for (int i = 0; i < n; i++) rows[i].set(ordinal, isSet(nulls, i) ? null : vals[i]);
+                break;
+            }
+            case FLOAT: {
+                float[] vals = new float[n];
+                buf.asFloatBuffer().get(vals);
+                buf.position(buf.position() + n * 4);
+                for (int i = 0; i < n; i++) rows[i].set(ordinal, isSet(nulls, i) ? null : vals[i]);
+                break;
+            }
+            case DOUBLE: {
+                double[] vals = new double[n];
+                buf.asDoubleBuffer().get(vals);
+                buf.position(buf.position() + n * 8);
+                for (int i = 0; i < n; i++) rows[i].set(ordinal, isSet(nulls, i) ? null : vals[i]);
+                break;
+            }
+            case BOOLEAN: {
+                byte[] bits = new byte[bitmapBytes(n)];
+                buf.get(bits);
+                for (int i = 0; i < n; i++) rows[i].set(ordinal, isSet(nulls, i) ? null : isSet(bits, i));
+                break;
+            }
+            case STRING: {
+                int[] offsets = new int[n + 1];
+                buf.asIntBuffer().get(offsets);
+                buf.position(buf.position() + (n + 1) * 4);
+                byte[] bytes = new byte[offsets[n]];
+                buf.get(bytes);
+                for (int i = 0; i < n; i++) {
+                    rows[i].set(ordinal, isSet(nulls, i) ? null
+                            : new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+                }
+                break;
+            }
+        }
+    }
+
+    private static boolean isSet(byte[] bitmap, int i) {
+        return (bitmap[i >> 3] & (1 << (i & 7))) != 0;
+    }
+
+    private static int bitmapBytes(int n) {
+        return (n + 7) / 8;
+    }
+
+    private static String readUTF(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.Column;
+import com.tinysql.model.Row;
+import com.tinysql.model.RowStore;
+import com.tinysql.model.Schema;
+import com.tinysql.model.StorageMode;
+import com.tinysql.model.Table;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * In-memory store that keeps each column in its own primitive {@link ColumnVector}.
+ * Rows handed out by {@link #get} and {@link #scan} are materialized copies;
+ * analytic code reads the vectors directly through {@link #getColumn}.
+ *
+ * Values are converted to the declared column type on the way in, the same
+ * way a snapshot round trip converts them, so a cell that does not parse as
+ * its column's type is stored as null.
+ */
+public class ColumnarRowStore implements RowStore {
+    private final Schema schema;
+    private final List<Column> columns;
+    private final ColumnVector[] vectors;
+    private final LongLongMap positions = new LongLongMap();
+    private long[] rowIds = new long[16];
+    private volatile int size;
+    private long maxRowId;
+
+    public ColumnarRowStore(Table table) {
+        this.schema = table.getSchema();
+        this.columns = table.getColumns();
+        this.vectors = new ColumnVector[columns.size()];
+        for (int c = 0; c < vectors.length; c++) {
+            vectors[c] = ColumnVector.create(columns.get(c).getType());
+        }
+    }
+
+    /** Switches an empty table to columnar storage. */
+    public static void attach(Table table) {
+        table.setRowStore(new ColumnarRowStore(table), StorageMode.COLUMNAR);
+    }
+
+    @Override
+    public synchronized void put(Row row) {
+        long existing = positions.get(row.getRowId(), -1);
+        int pos;
+        if (existing >= 0) {
+            pos = (int) existing;
+        } else {
+            pos = size;
+            if (pos == rowIds.length) rowIds = Arrays.copyOf(rowIds, pos * 2);
+            rowIds[pos] = row.getRowId();
+            positions.put(row.getRowId(), pos);
+        }
+        for (int c = 0; c < vectors.length; c++) {
+            Object v = columns.get(c).getType().coerce(row.get(c));
+            if (existing >= 0) vectors[c].set(pos, v);
+            else vectors[c].append(v);
+        }
+        if (existing < 0) size = pos + 1;
+        if (row.getRowId() > maxRowId) maxRowId = row.getRowId();
+    }
+
+    @Override
+    public synchronized Row get(long rowId) {
+        long pos = positions.get(rowId, -1);
+        return pos < 0 ? null : materialize((int) pos);
+    }
+
+    /** Builds a row from the values at the given position. */
+    public Row materialize(int pos) {
+        Row row = new Row(rowIds[pos], schema);
+        for (int c = 0; c < vectors.length; c++) {
+            row.set(c, vectors[c].get(pos));
+        }
+        return row;
+    }
+
+    @Override
+    public Iterator<Row> scan() {
+        final int end = size;
+        return new Iterator<Row>() {
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                return pos < end;
+            }
+
+            @Override
+            public Row next() {
+                if (pos >= end) throw new NoSuchElementException();
+                return materialize(pos++);
+            }
+        };
+    }
+
+    /** Vector holding the named column, or null if the table has no such column. */
+    public ColumnVector getColumn(String name) {
+        int c = schema.indexOf(name);
+        return c < 0 || c >= vectors.length ? null : vectors[c];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized long maxRowId() {
+        return maxRowId;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (ColumnVector v : vectors) v.clear();
+        positions.clear();
+        size = 0;
+        maxRowId = 0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.Table;
+import com.tinysql.util.TinySQLException;
+import java.io.File;
+
+/**
+ * Command line tool that migrates data/*.csv tables to the binary format,
+ * or exports binary tables back to CSV.
+ *
+ * Usage: CsvConverter [import|export]
+ */
+public class CsvConverter {
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0].toLowerCase() : "import";
+        StorageManager storage = new StorageManager();
+        try {
+            if (mode.equals("import")) {
+                int converted = storage.convertCsvFiles();
+                System.out.println("Converted " + converted + " CSV table(s) to binary.");
+            } else if (mode.equals("export")) {
+                File[] files = new File("data").listFiles((d, name) -> name.endsWith(".tbl"));
+                int exported = 0;
+                if (files != null) {
+                    for (File f : files) {
+                        Table t = storage.loadTable(f.getName().substring(0, f.getName().length() - ".tbl".length()));
+                        if (t == null) continue;
+                        storage.exportCsv(t);
+                        exported++;
+                    }
+                }
+                System.out.println("Exported " + exported + " table(s) to CSV.");
+            } else {
+                System.out.println("Usage: CsvConverter [import|export]");
+            }
+        } catch (TinySQLException e) {
+            System.err.println("Conversion Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.tinysql.storage;
+
+/**
+ * Controls when the write-ahead log forces appended records to disk.
+ */
+public enum FsyncPolicy {
+    /** Every commit waits for a FileChannel.force covering its record. */
+    EVERY_COMMIT,
+    /** Commits return once written; a background task forces every N ms. */
+    INTERVAL,
+    /** Commits return once written; the OS decides when to flush. */
+    OS_MANAGED
+}
@@ -0,0 +1,89 @@
+package com.tinysql.storage;
+
+import com.tinysql.index.BTreeIndex;
+import com.tinysql.index.BitmapIndex;
+import com.tinysql.index.HashIndex;
+import com.tinysql.model.Index;
+import com.tinysql.model.Table;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Persisted secondary index, stored next to the table as
+ * {@code <table>.<index>.idx} so it is not rebuilt on every start.
+ *
+ * Layout (big endian):
+ * <pre>
+ *   magic "TIDX", int version, byte kind (0 hash, 1 B+tree, 2 bitmap)
+ *   short length + UTF-8 column name, long highest row id of the table when written
+ *   entries written by the index itself
+ * </pre>
+ * B+tree entries are written in key order and bulk-loaded back. An index
+ * older than the rows it is loaded with (the table's highest row id is past
+ * the one recorded) is rebuilt from them instead. Rows replayed from the
+ * insert log afterwards reach it through {@link Table#insert}.
+ */
+public class IndexFile {
+    static final int MAGIC = 0x54494458; // "TIDX"
+    static final int VERSION = 1;
+    private static final int KIND_HASH = 0;
+    private static final int KIND_BTREE = 1;
+    private static final int KIND_BITMAP = 2;
+
+    public static void write(Table table, Index index, File file) throws IOException {
+        int kind;
+        if (index instanceof HashIndex) kind = KIND_HASH;
+        else if (index instanceof BTreeIndex) kind = KIND_BTREE;
+        else if (index instanceof BitmapIndex) kind = KIND_BITMAP;
+        else throw new IOException("Cannot persist index " + index.getName());
+        // Taken first: every row up to here is in the entries written below
+        long maxRowId = table.getRowStore().maxRowId();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(kind);
+            byte[] column = index.getColumn().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(column.length);
+            out.write(column);
+            out.writeLong(maxRowId);
+            if (kind == KIND_HASH) ((HashIndex) index).write(out);
+            else if (kind == KIND_BTREE) ((BTreeIndex) index).write(out);
+            else ((BitmapIndex) index).write(out);
+        }
+    }
+
+    /** Reads an index over the table's current rows, rebuilding it if the file predates them. */
+    public static Index read(Table table, String name, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a TinySQL index file: " + file.getName());
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported index file version " + version);
+            int kind = in.readByte();
+            if (kind != KIND_HASH && kind != KIND_BTREE && kind != KIND_BITMAP) throw new IOException("Unknown index kind " + kind);
+            byte[] column = new byte[in.readUnsignedShort()];
+            in.readFully(column);
+            String col = new String(column, StandardCharsets.UTF_8);
+            if (table.getColumn(col) == null) throw new IOException("Index " + name + " is on unknown column " + col);
+
+            long maxRowId = in.readLong();
+            if (maxRowId < table.getRowStore().maxRowId()) {
+                Index rebuilt = create(kind, name, table, col);
+                rebuilt.build(table.scan());
+                return rebuilt;
+            }
+            switch (kind) {
+                case KIND_HASH: return HashIndex.read(name, table, col, in);
+                case KIND_BTREE: return BTreeIndex.read(name, table, col, in);
+                default: return BitmapIndex.read(name, table, col, in);
+            }
+        }
+    }
+
+    private static Index create(int kind, String name, Table table, String col) {
+        switch (kind) {
+            case KIND_HASH: return new HashIndex(name, table, col);
+            case KIND_BTREE: return new BTreeIndex(name, table, col);
+            default: return new BitmapIndex(name, table, col);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tinysql.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of fixed-size pages addressed by page number.
+ */
+public class PageFile implements Closeable {
+    public static final int PAGE_SIZE = 8192;
+
+    private final File file;
+    private final FileChannel channel;
+    private int pageCount;
+
+    public PageFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.pageCount = (int) (channel.size() / PAGE_SIZE);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized int getPageCount() {
+        return pageCount;
+    }
+
+    /** Reserves a new page number at the end of the file. */
+    public synchronized int allocatePage() {
+        return pageCount++;
+    }
+
+    public void readPage(int pageNo, ByteBuffer dst) throws IOException {
+        dst.clear();
+        long pos = (long) pageNo * PAGE_SIZE;
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, pos + dst.position());
+            if (n < 0) break; // allocated but never written: the rest stays zero
+        }
+        while (dst.hasRemaining()) dst.put((byte) 0);
+        dst.clear();
+    }
+
+    public void writePage(int pageNo, ByteBuffer src) throws IOException {
+        ByteBuffer b = src.duplicate();
+        b.clear();
+        long pos = (long) pageNo * PAGE_SIZE;
+        while (b.hasRemaining()) {
+            channel.write(b, pos + b.position());
+        }
+    }
+
+    /** Drops every page from {@code pages} onwards. */
+    public synchronized void truncate(int pages) throws IOException {
+        channel.truncate((long) pages * PAGE_SIZE);
+        pageCount = pages;
+    }
+
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
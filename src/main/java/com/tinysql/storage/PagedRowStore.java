@@ -0,0 +1,274 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.*;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Row store that keeps rows in 8 KB pages on disk and reads them through a
+ * shared {@link BufferPool}, so a table is not limited by the JVM heap.
+ *
+ * Page 0 holds the schema. Every other page starts with a record count and
+ * the offset of its free space, followed by length-prefixed rows encoded with
+ * {@link RowCodec}. Only a row id to (page, offset) directory stays on heap.
+ */
+public class PagedRowStore implements RowStore, Closeable {
+    private static final int MAGIC = 0x54535047; // "TSPG"
+    private static final int VERSION = 1;
+    private static final int PAGE_HEADER = 8;
+    private static final int FLAG_PRIMARY_KEY = 1;
+    /** Set with FLAG_PRIMARY_KEY on a declared key, which the table enforces. */
+    private static final int FLAG_DECLARED_KEY = 2;
+
+    private final PageFile file;
+    private final BufferPool pool;
+    private final List<Column> columns;
+    private final Schema schema;
+    private final LongLongMap directory = new LongLongMap();
+    private int tailPage = -1;
+    private long maxRowId;
+
+    private PagedRowStore(PageFile file, BufferPool pool, Table table) {
+        this.file = file;
+        this.pool = pool;
+        this.columns = table.getColumns();
+        this.schema = table.getSchema();
+    }
+
+    /**
+     * Creates an empty page file for the table's schema and attaches it as the row store.
+     */
+    public static PagedRowStore create(Table table, File f, BufferPool pool) throws IOException {
+        f.delete();
+        PageFile file = new PageFile(f);
+        PagedRowStore store = new PagedRowStore(file, pool, table);
+        store.writeHeader();
+        table.setRowStore(store, StorageMode.PAGED);
+        return store;
+    }
+
+    /**
+     * Opens an existing page file, reading the schema into a new Table and
+     * rebuilding the row directory from the data pages.
+     */
+    public static Table open(String tableName, File f, BufferPool pool) throws IOException {
+        PageFile file = new PageFile(f);
+        Table table = new Table(tableName);
+        try {
+            ByteBuffer header = pool.pin(file, 0).duplicate();
+            try {
+                if (header.getInt() != MAGIC) throw new IOException("Not a TinySQL page file: " + f.getName());
+                int version = header.getInt();
+                if (version != VERSION) throw new IOException("Unsupported page file version " + version);
+                int columnCount = header.getInt();
+                for (int c = 0; c < columnCount; c++) {
+                    byte[] name = new byte[header.getShort()];
+                    header.get(name);
+                    DataType type = DataType.values()[header.get()];
+                    int flags = header.get();
+                    String col = new String(name, StandardCharsets.UTF_8);
+                    table.addColumn((flags & FLAG_DECLARED_KEY) != 0 ? Column.primaryKey(col, type)
+                            : new Column(col, type, (flags & FLAG_PRIMARY_KEY) != 0));
+                }
+            } finally {
+                pool.unpin(file, 0, false);
+            }
+
+            PagedRowStore store = new PagedRowStore(file, pool, table);
+            store.rebuildDirectory();
+            table.setRowStore(store, StorageMode.PAGED);
+            return table;
+        } catch (IOException | RuntimeException e) {
+            pool.discard(file);
+            file.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void put(Row row) {
+        if (directory.containsKey(row.getRowId())) return; // rows are immutable
+        byte[] record = RowCodec.encode(row);
+        if (record.length + 4 > PageFile.PAGE_SIZE - PAGE_HEADER) {
+            throw new IllegalArgumentException("Row " + row.getRowId() + " is too large for a page");
+        }
+
+        ByteBuffer page;
+        if (tailPage < 1) {
+            page = newDataPage();
+        } else {
+            page = pool.pin(file, tailPage);
+            if (page.getInt(4) + 4 + record.length > PageFile.PAGE_SIZE) {
+                pool.unpin(file, tailPage, false);
+                page = newDataPage();
+            }
+        }
+
+        int count = page.getInt(0);
+        int free = page.getInt(4);
+        ByteBuffer view = page.duplicate();
+        view.position(free);
+        view.putInt(record.length).put(record);
+        page.putInt(0, count + 1);
+        page.putInt(4, free + 4 + record.length);
+        pool.unpin(file, tailPage, true);
+
+        directory.put(row.getRowId(), ((long) tailPage << 32) | free);
+        if (row.getRowId() > maxRowId) maxRowId = row.getRowId();
+    }
+
+    @Override
+    public synchronized Row get(long rowId) {
+        long loc = directory.get(rowId, -1);
+        if (loc < 0) return null;
+        int pageNo = (int) (loc >>> 32);
+        int offset = (int) loc;
+        ByteBuffer view = pool.pin(file, pageNo).duplicate();
+        try {
+            view.position(offset + 4);
+            return RowCodec.decode(view, schema);
+        } finally {
+            pool.unpin(file, pageNo, false);
+        }
+    }
+
+    /**
+     * Scans page by page; each page is pinned only while its rows are decoded.
+     */
+    @Override
+    public Iterator<Row> scan() {
+        return new Iterator<Row>() {
+            private int nextPage = 1;
+            private Iterator<Row> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (nextPage >= file.getPageCount()) return false;
+                    current = readPage(nextPage++).iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public synchronized int size() {
+        return directory.size();
+    }
+
+    @Override
+    public synchronized long maxRowId() {
+        return maxRowId;
+    }
+
+    @Override
+    public synchronized void clear() {
+        pool.discard(file);
+        try {
+            file.truncate(1);
+            writeHeader();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to clear page file: " + e.getMessage(), e);
+        }
+        directory.clear();
+        tailPage = -1;
+        maxRowId = 0;
+    }
+
+    /** Writes every dirty page back and forces the file. */
+    public void checkpoint() throws IOException {
+        pool.flush(file);
+        file.sync();
+    }
+
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            pool.discard(file);
+            file.close();
+        }
+    }
+
+    private synchronized List<Row> readPage(int pageNo) {
+        ByteBuffer view = pool.pin(file, pageNo).duplicate();
+        try {
+            int count = view.getInt(0);
+            List<Row> rows = new ArrayList<>(count);
+            view.position(PAGE_HEADER);
+            for (int i = 0; i < count; i++) {
+                int len = view.getInt();
+                int start = view.position();
+                rows.add(RowCodec.decode(view, schema));
+                view.position(start + len);
+            }
+            return rows;
+        } finally {
+            pool.unpin(file, pageNo, false);
+        }
+    }
+
+    private void rebuildDirectory() {
+        int pages = file.getPageCount();
+        for (int p = 1; p < pages; p++) {
+            ByteBuffer view = pool.pin(file, p).duplicate();
+            try {
+                int count = view.getInt(0);
+                int offset = PAGE_HEADER;
+                for (int i = 0; i < count; i++) {
+                    int len = view.getInt(offset);
+                    long rowId = view.getLong(offset + 4);
+                    directory.put(rowId, ((long) p << 32) | offset);
+                    if (rowId > maxRowId) maxRowId = rowId;
+                    offset += 4 + len;
+                }
+            } finally {
+                pool.unpin(file, p, false);
+            }
+        }
+        tailPage = pages > 1 ? pages - 1 : -1;
+    }
+
+    private ByteBuffer newDataPage() {
+        tailPage = file.allocatePage();
+        ByteBuffer page = pool.pinNew(file, tailPage);
+        page.putInt(0, 0);
+        page.putInt(4, PAGE_HEADER);
+        return page;
+    }
+
+    private void writeHeader() throws IOException {
+        int pageNo = file.getPageCount() == 0 ? file.allocatePage() : 0;
+        ByteBuffer page = pool.pinNew(file, pageNo);
+        ByteBuffer view = page.duplicate();
+        view.putInt(MAGIC).putInt(VERSION).putInt(columns.size());
+        for (Column col : columns) {
+            byte[] name = col.getName().getBytes(StandardCharsets.UTF_8);
+            view.putShort((short) name.length).put(name);
+            view.put((byte) col.getType().ordinal());
+            view.put((byte) ((col.isPrimaryKey() ? FLAG_PRIMARY_KEY : 0) | (col.isDeclaredKey() ? FLAG_DECLARED_KEY : 0)));
+        }
+        pool.unpin(file, pageNo, true);
+        checkpoint();
+    }
+}
@@ -0,0 +1,88 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of a single row: the row id, a value count and one
+ * type-tagged value per column. Tags keep the cell's own Java type, since
+ * the engine does not coerce inserted values to the declared column type.
+ */
+public final class RowCodec {
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte FLOAT = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOL = 4;
+    private static final byte STRING = 5;
+    private static final byte LONG = 6;
+
+    private RowCodec() {
+    }
+
+    /** Encodes every value of the row in the order of its schema. */
+    public static byte[] encode(Row row) {
+        int count = row.getSchema().size();
+        int size = 8 + 2;
+        byte[][] strings = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            Object v = row.get(i);
+            size += 1;
+            if (v == null) continue;
+            if (v instanceof Integer || v instanceof Float) size += 4;
+            else if (v instanceof Double || v instanceof Long) size += 8;
+            else if (v instanceof Boolean) size += 1;
+            else {
+                strings[i] = v.toString().getBytes(StandardCharsets.UTF_8);
+                size += 4 + strings[i].length;
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putLong(row.getRowId());
+        buf.putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            Object v = row.get(i);
+            if (v == null) buf.put(NULL);
+            else if (v instanceof Integer) buf.put(INT).putInt((Integer) v);
+            else if (v instanceof Float) buf.put(FLOAT).putFloat((Float) v);
+            else if (v instanceof Double) buf.put(DOUBLE).putDouble((Double) v);
+            else if (v instanceof Long) buf.put(LONG).putLong((Long) v);
+            else if (v instanceof Boolean) buf.put(BOOL).put((byte) ((Boolean) v ? 1 : 0));
+            else buf.put(STRING).putInt(strings[i].length).put(strings[i]);
+        }
+        return buf.array();
+    }
+
+    /**
+     * Decodes a row starting at the buffer's position, advancing past it.
+     * The row is laid out by the given schema.
+     */
+    public static Row decode(ByteBuffer buf, Schema schema) {
+        Row row = new Row(buf.getLong(), schema);
+        int count = buf.getShort();
+        for (int i = 0; i < count; i++) {
+            byte tag = buf.get();
+            Object v;
+            switch (tag) {
+                case NULL: v = null; break;
+                case INT: v = buf.getInt(); break;
+                case FLOAT: v = buf.getFloat(); break;
+                case DOUBLE: v = buf.getDouble(); break;
+                case LONG: v = buf.getLong(); break;
+                case BOOL: v = buf.get() != 0; break;
+                case STRING: {
+                    byte[] b = new byte[buf.getInt()];
+                    buf.get(b);
+                    v = new String(b, StandardCharsets.UTF_8);
+                    break;
+                }
+                default: throw new IllegalStateException("Corrupt row encoding, tag " + tag);
+            }
+            if (i < schema.size()) row.set(i, v);
+        }
+        return row;
+    }
+}
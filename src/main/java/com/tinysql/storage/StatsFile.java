@@ -0,0 +1,46 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.RowStore;
+import com.tinysql.model.Table;
+import com.tinysql.stats.TableStats;
+import java.io.*;
+
+/**
+ * Persisted table statistics, stored next to the table as
+ * {@code <table>.stats} so ANALYZE's histograms survive a restart.
+ *
+ * Layout (big endian):
+ * <pre>
+ *   magic "TSTA", int version
+ *   the statistics as written by {@link TableStats#write}
+ * </pre>
+ * Statistics that do not cover exactly the rows they are loaded with (row
+ * count or highest row id differ) are dropped and gathered again when next
+ * asked for. Rows replayed from the insert log afterwards reach them through
+ * {@link Table#insert}.
+ */
+public class StatsFile {
+    static final int MAGIC = 0x54535441; // "TSTA"
+    static final int VERSION = 1;
+
+    public static void write(TableStats stats, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            stats.write(out);
+        }
+    }
+
+    /** Reads the table's statistics, or null if they do not cover its current rows. */
+    public static TableStats read(Table table, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a TinySQL stats file: " + file.getName());
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported stats file version " + version);
+            TableStats stats = TableStats.read(table, in);
+            RowStore store = table.getRowStore();
+            if (stats.getRowCount() != store.size() || stats.getMaxRowId() != store.maxRowId()) return null;
+            return stats;
+        }
+    }
+}
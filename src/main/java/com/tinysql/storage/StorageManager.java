@@ -1,13 +1,42 @@
 package com.tinysql.storage;
 
 import com.tinysql.model.*;
+import com.tinysql.stats.TableStats;
 import com.tinysql.util.TinySQLException;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class StorageManager {
     private static final String DATA_DIR = "data/";
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    private static final int DEFAULT_POOL_PAGES = 1024;
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "tinysql-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, ReentrantReadWriteLock> tableLocks = new ConcurrentHashMap<>();
+    private final Map<String, Object> snapshotLocks = new ConcurrentHashMap<>();
+    private final Map<String, WriteAheadLog> logs = new ConcurrentHashMap<>();
+    private final Map<String, PagedRowStore> pagedStores = new ConcurrentHashMap<>();
+    private volatile BufferPool bufferPool = new BufferPool(DEFAULT_POOL_PAGES);
+    private final Set<String> pendingCompactions = ConcurrentHashMap.newKeySet();
+    private volatile long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.EVERY_COMMIT;
+    private volatile long fsyncIntervalMs = 100;
 
     public StorageManager() {
         File dir = new File(DATA_DIR);
@@ -16,13 +45,203 @@ public class StorageManager {
         }
     }
 
+    /** Directory holding table files; operators also put their temporary spill files here. */
+    public File getDataDir() {
+        return new File(DATA_DIR);
+    }
+
+    /**
+     * Sets the size in bytes a table's insert log may reach before it is
+     * folded back into the snapshot by the background compactor.
+     */
+    public void setCompactionThreshold(long bytes) {
+        this.compactionThreshold = bytes;
+    }
+
+    /**
+     * Sets when insert logs are forced to disk. The interval only applies to
+     * {@link FsyncPolicy#INTERVAL}; logs already open keep their old policy
+     * until the next snapshot rotates them.
+     */
+    public void setFsyncPolicy(FsyncPolicy policy, long intervalMs) {
+        this.fsyncPolicy = policy;
+        this.fsyncIntervalMs = intervalMs;
+    }
+
+    /**
+     * Resizes the buffer pool used by paged tables. Tables opened afterwards use the new pool.
+     */
+    public void setBufferPoolPages(int pages) {
+        this.bufferPool = new BufferPool(pages);
+    }
+
+    /** Buffer pool shared by paged tables; exposes hit/miss/eviction counters. */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Builds an empty table with the given schema and storage mode. Paged
+     * tables get a fresh page file in the data directory; clustered tables
+     * need a PRIMARY KEY column to order their rows by.
+     */
+    public Table createTable(String tableName, List<Column> columns, StorageMode mode) throws TinySQLException {
+        Table t = new Table(tableName);
+        try {
+            for (Column c : columns) t.addColumn(c);
+            if (mode == StorageMode.CLUSTERED) t.setRowStore(new ClusteredRowStore(t), mode);
+        } catch (IllegalArgumentException e) {
+            throw new TinySQLException("Failed to create table " + tableName + ": " + e.getMessage());
+        }
+        if (mode == StorageMode.PAGED) {
+            closePagedStore(tableName);
+            try {
+                pagedStores.put(tableName, PagedRowStore.create(t, pagesFile(tableName), bufferPool));
+            } catch (IOException e) {
+                throw new TinySQLException("Failed to create table " + tableName + ": " + e.getMessage());
+            }
+        } else if (mode == StorageMode.COLUMNAR) {
+            ColumnarRowStore.attach(t);
+        }
+        return t;
+    }
+
     /**
-     * Saves a Table to a CSV file.
-     * Format: Header on line 1, Data on subsequent lines.
+     * Saves a Table as a binary columnar snapshot (see {@link ColumnarFile}),
+     * or checkpoints the page file of a paged table.
+     * The snapshot covers every row in the table, so any pending insert log is discarded.
      */
     public void saveTable(Table table) throws TinySQLException {
-        String filename = DATA_DIR + table.getName() + ".csv";
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+        synchronized (snapshotLocks.computeIfAbsent(table.getName(), k -> new Object())) {
+            writeSnapshot(table);
+        }
+    }
+
+    private void writeSnapshot(Table table) throws TinySQLException {
+        File log = logFile(table.getName());
+        File compacting = compactingFile(table.getName());
+
+        // Rotate the live log out of the way first; inserts arriving from here on
+        // start a fresh log, while everything in the rotated one is already in memory.
+        ReentrantReadWriteLock lock = lockFor(table.getName());
+        lock.writeLock().lock();
+        try {
+            WriteAheadLog wal = logs.remove(table.getName());
+            if (wal != null) wal.close();
+            if (log.exists() && !compacting.exists() && !log.renameTo(compacting)) {
+                throw new TinySQLException("Failed to rotate insert log for " + table.getName());
+            }
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to rotate insert log for " + table.getName() + ": " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (table.getRowStore() instanceof PagedRowStore) {
+            try {
+                ((PagedRowStore) table.getRowStore()).checkpoint();
+            } catch (IOException e) {
+                throw new TinySQLException("Failed to save table " + table.getName() + ": " + e.getMessage());
+            }
+            compacting.delete();
+            writeIndexes(table);
+            writeStats(table);
+            return;
+        }
+
+        File target = snapshotFile(table.getName());
+        File tmp = new File(target.getPath() + ".tmp");
+        try {
+            ColumnarFile.write(table, tmp);
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to save table " + table.getName() + ": " + e.getMessage());
+        }
+        compacting.delete();
+        writeIndexes(table);
+        writeStats(table);
+    }
+
+    /** Rewrites every index after a snapshot, so each covers at least the rows the snapshot holds. */
+    private void writeIndexes(Table table) throws TinySQLException {
+        for (Index index : table.getIndexes()) saveIndex(table, index);
+    }
+
+    /**
+     * Persists one index of the table next to its data files. Inserts made
+     * afterwards are in the insert log, which adds them back on load.
+     */
+    public void saveIndex(Table table, Index index) throws TinySQLException {
+        File target = indexFile(table.getName(), index.getName());
+        File tmp = new File(target.getPath() + ".tmp");
+        try {
+            IndexFile.write(table, index, tmp);
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to save index " + index.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /** Rewrites the statistics after a snapshot if they have been gathered; otherwise they are gathered on demand after a load. */
+    private void writeStats(Table table) throws TinySQLException {
+        if (table.peekStats() != null) saveStats(table);
+    }
+
+    /**
+     * Persists the table's statistics next to its data files. Loading drops
+     * them unless they cover exactly the rows loaded before the insert log.
+     */
+    public void saveStats(Table table) throws TinySQLException {
+        File target = statsFile(table.getName());
+        File tmp = new File(target.getPath() + ".tmp");
+        try {
+            StatsFile.write(table.getStats(), tmp);
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to save stats of " + table.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /** Attaches the table's persisted statistics if they are current; stale or unreadable ones are gathered again on demand. */
+    private void loadStats(Table table) {
+        File f = statsFile(table.getName());
+        if (!f.exists()) return;
+        try {
+            TableStats stats = StatsFile.read(table, f);
+            if (stats != null) table.setStats(stats);
+        } catch (IOException | RuntimeException e) {
+            // Statistics are only an estimate; a fresh scan replaces them
+        }
+    }
+
+    /** Attaches the table's persisted indexes, before its insert log is replayed into them. */
+    private void loadIndexes(Table table) throws TinySQLException {
+        String prefix = table.getName() + ".";
+        File[] files = new File(DATA_DIR).listFiles((d, name) -> name.startsWith(prefix) && name.endsWith(".idx"));
+        if (files == null) return;
+        for (File f : files) {
+            String indexName = f.getName().substring(prefix.length(), f.getName().length() - ".idx".length());
+            if (indexName.contains(".")) continue;
+            try {
+                table.addIndex(IndexFile.read(table, indexName, f));
+            } catch (IOException | RuntimeException e) {
+                throw new TinySQLException("Failed to load index " + indexName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Exports a Table to a CSV file.
+     * Format: Header on line 1, Data on subsequent lines. Strings that hold a
+     * comma, quote or line break, are empty or read NULL go in double quotes.
+     */
+    public void exportCsv(Table table) throws TinySQLException {
+        File target = csvFile(table.getName());
+        File tmp = new File(target.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
             // 1. Write Header: name:TYPE|name:TYPE
             StringBuilder header = new StringBuilder();
             for (int i = 0; i < table.getColumns().size(); i++) {
@@ -37,35 +256,26 @@ public class StorageManager {
 
             // 2. Write Rows: id,val1,val2,val3...
             for (Row row : table.selectAll()) {
-                StringBuilder line = new StringBuilder();
-                line.append(row.getRowId()).append(","); 
-                
-                for (int i = 0; i < table.getColumns().size(); i++) {
-                    Column col = table.getColumns().get(i);
-                    Object val = row.get(col.getName());
-                    if (val == null) {
-                        line.append("NULL");
-                    } else {
-                        line.append(val.toString());
-                    }
-                    if (i < table.getColumns().size() - 1) {
-                        line.append(",");
-                    }
-                }
-                writer.write(line.toString());
+                writer.write(formatRow(table, row));
                 writer.newLine();
             }
         } catch (IOException e) {
-            throw new TinySQLException("Failed to save table " + table.getName() + ": " + e.getMessage());
+            throw new TinySQLException("Failed to export table " + table.getName() + ": " + e.getMessage());
+        }
+
+        try {
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to export table " + table.getName() + ": " + e.getMessage());
         }
     }
 
     /**
-     * Loads a Table from a CSV file.
+     * Imports a Table from a CSV file, without replaying any insert log.
      */
-    public Table loadTable(String tableName) throws TinySQLException {
-        String filename = DATA_DIR + tableName + ".csv";
-        File f = new File(filename);
+    public Table importCsv(String tableName) throws TinySQLException {
+        File f = csvFile(tableName);
         if (!f.exists()) return null;
 
         try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
@@ -80,40 +290,359 @@ public class StorageManager {
                 String[] parts = colDef.split(":");
                 String name = parts[0];
                 DataType type = DataType.valueOf(parts[1]);
+                // Marked as the key, as before keys were enforced; not declared, so not enforced on old data
                 table.addColumn(new Column(name, type, name.equalsIgnoreCase("id")));
             }
 
             // 2. Parse Rows
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                String[] values = line.split(",");
-                
-                if (values.length < 1) continue;
-
-                // First value is always ID
-                long id = Long.parseLong(values[0]);
-                Row row = new Row(id);
-                
-                List<Column> columns = table.getColumns();
-                // Data values start at index 1 in CSV
-                for (int i = 0; i < columns.size(); i++) {
-                    if (i + 1 >= values.length) break;
-                    String valStr = values[i + 1];
-                    Column col = columns.get(i);
-                    Object val = parseValue(valStr, col.getType());
-                    row.set(col.getName(), val);
-                }
-                table.insert(row);
-            }
+            readRows(reader, table);
             return table;
         } catch (IOException | IllegalArgumentException e) {
             throw new TinySQLException("Failed to load table " + tableName + ": " + e.getMessage());
         }
     }
 
+    /**
+     * Migrates every CSV table in the data directory that has no binary
+     * snapshot yet. The CSV files are left in place.
+     * @return the number of tables converted
+     */
+    public int convertCsvFiles() throws TinySQLException {
+        File[] files = new File(DATA_DIR).listFiles((d, name) -> name.endsWith(".csv"));
+        if (files == null) return 0;
+
+        int converted = 0;
+        for (File f : files) {
+            String tableName = f.getName().substring(0, f.getName().length() - ".csv".length());
+            if (snapshotFile(tableName).exists()) continue;
+            Table table = loadTable(tableName);
+            if (table == null) continue;
+            saveTable(table);
+            converted++;
+        }
+        return converted;
+    }
+
+    /**
+     * Appends a single inserted row, encoded by {@link RowCodec}, to the table's
+     * write-ahead log instead of rewriting the whole snapshot. Concurrent appends to the same table share
+     * one group commit. Once the log grows past the compaction threshold a
+     * background snapshot is scheduled.
+     */
+    public void appendRow(Table table, Row row) throws TinySQLException {
+        row.bind(table.getSchema());
+        byte[] record = RowCodec.encode(row);
+        long logSize;
+        ReentrantReadWriteLock lock = lockFor(table.getName());
+        lock.readLock().lock();
+        try {
+            WriteAheadLog wal = openLog(table.getName());
+            wal.append(record);
+            logSize = wal.size();
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to append to table " + table.getName() + ": " + e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (logSize >= compactionThreshold && pendingCompactions.add(table.getName())) {
+            COMPACTOR.execute(() -> {
+                try {
+                    saveTable(table);
+                } catch (TinySQLException e) {
+                    System.err.println("Compaction failed: " + e.getMessage());
+                } finally {
+                    pendingCompactions.remove(table.getName());
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads a Table from its page file or binary snapshot, falling back to a
+     * legacy CSV file, and replays any insert log on top.
+     */
+    public Table loadTable(String tableName) throws TinySQLException {
+        Table table;
+        File snapshot = snapshotFile(tableName);
+        File pages = pagesFile(tableName);
+        if (pages.exists()) {
+            closePagedStore(tableName);
+            try {
+                table = PagedRowStore.open(tableName, pages, bufferPool);
+                pagedStores.put(tableName, (PagedRowStore) table.getRowStore());
+            } catch (IOException | RuntimeException e) {
+                throw new TinySQLException("Failed to load table " + tableName + ": " + e.getMessage());
+            }
+        } else if (snapshot.exists()) {
+            try {
+                table = ColumnarFile.read(tableName, snapshot);
+            } catch (IOException | RuntimeException e) {
+                throw new TinySQLException("Failed to load table " + tableName + ": " + e.getMessage());
+            }
+        } else {
+            table = importCsv(tableName);
+        }
+        if (table == null) return null;
+        loadIndexes(table);
+        loadStats(table);
+
+        // Replay insert logs (an interrupted compaction may have left a rotated one)
+        boolean textLogs = false;
+        try {
+            for (File log : new File[] { compactingFile(tableName), logFile(tableName) }) {
+                if (!log.exists()) continue;
+                if (WriteAheadLog.isTextLog(log)) {
+                    textLogs = true;
+                    for (String record : WriteAheadLog.readTextRecords(log)) {
+                        Row row = parseRow(record, table);
+                        if (row != null) table.insert(row);
+                    }
+                    continue;
+                }
+                for (byte[] record : WriteAheadLog.readRecords(log)) {
+                    table.insert(RowCodec.decode(ByteBuffer.wrap(record), table.getSchema()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new TinySQLException("Failed to load table " + tableName + ": " + e.getMessage());
+        }
+
+        // Logs in the older text format are folded into a snapshot, so no binary record follows them
+        if (textLogs) {
+            saveTable(table);
+            compactingFile(tableName).delete();
+            logFile(tableName).delete();
+        }
+        return table;
+    }
+
+    /**
+     * Replays insert logs left behind by a crash: torn tails are cut off and every
+     * table with a log is loaded and checkpointed into a fresh snapshot.
+     * @return the number of log records recovered
+     */
+    public int recover() throws TinySQLException {
+        File[] files = new File(DATA_DIR).listFiles();
+        if (files == null) return 0;
+
+        Set<String> tables = new TreeSet<>();
+        int records = 0;
+        for (File f : files) {
+            String name = f.getName();
+            String tableName;
+            if (name.endsWith(".log.compacting")) tableName = name.substring(0, name.length() - ".log.compacting".length());
+            else if (name.endsWith(".log")) tableName = name.substring(0, name.length() - ".log".length());
+            else continue;
+
+            try {
+                records += WriteAheadLog.truncateTorn(f);
+            } catch (IOException e) {
+                throw new TinySQLException("Failed to recover log " + name + ": " + e.getMessage());
+            }
+            tables.add(tableName);
+        }
+
+        for (String tableName : tables) {
+            Table table = loadTable(tableName);
+            if (table != null) saveTable(table);
+        }
+        return records;
+    }
+
+    /**
+     * Closes all open logs and page files, forcing whatever they hold to disk.
+     */
+    public void close() throws TinySQLException {
+        for (String tableName : pagedStores.keySet()) {
+            closePagedStore(tableName);
+        }
+        for (String tableName : logs.keySet()) {
+            WriteAheadLog wal = logs.remove(tableName);
+            if (wal == null) continue;
+            try {
+                wal.close();
+            } catch (IOException e) {
+                throw new TinySQLException("Failed to close log for " + tableName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void readRows(BufferedReader reader, Table table) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) continue;
+            // A quoted value may hold line breaks; read on until its quotes balance
+            StringBuilder record = new StringBuilder(line);
+            while (quotesOpen(record) && (line = reader.readLine()) != null) {
+                record.append('\n').append(line);
+            }
+            Row row = parseRow(record.toString(), table);
+            if (row != null) table.insert(row);
+        }
+    }
+
+    private static boolean quotesOpen(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') quotes++;
+        }
+        return quotes % 2 != 0;
+    }
+
+    private Row parseRow(String line, Table table) {
+        List<String> values = splitFields(line);
+
+        // First value is always ID
+        long id = Long.parseLong(values.get(0));
+        Row row = new Row(id, table.getSchema());
+
+        List<Column> columns = table.getColumns();
+        // Data values start at index 1 in CSV
+        for (int i = 0; i < columns.size(); i++) {
+            if (i + 1 >= values.size()) break;
+            String valStr = values.get(i + 1);
+            Column col = columns.get(i);
+            row.set(i, parseValue(valStr, col.getType()));
+        }
+        return row;
+    }
+
+    /**
+     * Splits a row line into its values. A value in double quotes may hold
+     * commas, line breaks and doubled quotes; an unquoted NULL is null.
+     */
+    private static List<String> splitFields(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                values.add(field(value, wasQuoted));
+                value.setLength(0);
+                wasQuoted = false;
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(field(value, wasQuoted));
+        return values;
+    }
+
+    private static String field(StringBuilder value, boolean quoted) {
+        String s = value.toString();
+        return !quoted && s.equals("NULL") ? null : s;
+    }
+
+    private String formatRow(Table table, Row row) {
+        StringBuilder line = new StringBuilder();
+        line.append(row.getRowId()).append(",");
+
+        for (int i = 0; i < table.getColumns().size(); i++) {
+            Object val = row.get(i);
+            if (val == null) {
+                line.append("NULL");
+            } else {
+                appendValue(line, val.toString());
+            }
+            if (i < table.getColumns().size() - 1) {
+                line.append(",");
+            }
+        }
+        return line.toString();
+    }
+
+    /** Quotes a value that would otherwise read back as something else: empty, NULL, or holding separators. */
+    private static void appendValue(StringBuilder line, String s) {
+        boolean quote = s.isEmpty() || s.equals("NULL");
+        for (int i = 0; !quote && i < s.length(); i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(s);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void closePagedStore(String tableName) throws TinySQLException {
+        PagedRowStore store = pagedStores.remove(tableName);
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException e) {
+            throw new TinySQLException("Failed to close table " + tableName + ": " + e.getMessage());
+        }
+    }
+
+    private File pagesFile(String tableName) {
+        return new File(DATA_DIR + tableName + ".pages");
+    }
+
+    private File snapshotFile(String tableName) {
+        return new File(DATA_DIR + tableName + ".tbl");
+    }
+
+    private File indexFile(String tableName, String indexName) {
+        return new File(DATA_DIR + tableName + "." + indexName + ".idx");
+    }
+
+    private File statsFile(String tableName) {
+        return new File(DATA_DIR + tableName + ".stats");
+    }
+
+    private File csvFile(String tableName) {
+        return new File(DATA_DIR + tableName + ".csv");
+    }
+
+    private File logFile(String tableName) {
+        return new File(DATA_DIR + tableName + ".log");
+    }
+
+    private File compactingFile(String tableName) {
+        return new File(DATA_DIR + tableName + ".log.compacting");
+    }
+
+    private ReentrantReadWriteLock lockFor(String tableName) {
+        return tableLocks.computeIfAbsent(tableName, k -> new ReentrantReadWriteLock());
+    }
+
+    private WriteAheadLog openLog(String tableName) throws IOException {
+        WriteAheadLog wal = logs.get(tableName);
+        if (wal != null) return wal;
+        synchronized (logs) {
+            wal = logs.get(tableName);
+            if (wal == null) {
+                wal = new WriteAheadLog(logFile(tableName), fsyncPolicy, fsyncIntervalMs);
+                logs.put(tableName, wal);
+            }
+            return wal;
+        }
+    }
+
     private Object parseValue(String val, DataType type) {
-        if (val.equals("NULL")) return null;
+        if (val == null) return null;
         try {
             switch (type) {
                 case INTEGER: return Integer.parseInt(val);
@@ -124,7 +653,7 @@ public class StorageManager {
                 default: return val;
             }
         } catch (Exception e) {
-            return null; 
+            return null;
         }
     }
-}
\ No newline at end of file
+}
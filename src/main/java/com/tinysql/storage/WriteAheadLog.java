@@ -0,0 +1,359 @@
+package com.tinysql.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log file with group commit.
+ *
+ * Layout (big endian): magic "TWAL", int version, then per record an int
+ * payload length, the payload's CRC32 as an int, and the payload bytes.
+ * Records are framed by their length, so a payload may hold any bytes.
+ * Concurrent callers of {@link #append(byte[])} queue their records; the first
+ * one to find no write in progress becomes the leader and writes (and, under
+ * {@link FsyncPolicy#EVERY_COMMIT}, forces) everything queued so far, so all
+ * commits that arrive while a force is running share the next one.
+ */
+public class WriteAheadLog implements Closeable {
+    static final int MAGIC = 0x5457414C; // "TWAL"
+    static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+
+    private static final ScheduledExecutorService SYNCER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tinysql-wal-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final ScheduledFuture<?> syncTask;
+
+    private final Object lock = new Object();
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long appendedSeq;
+    private long writtenSeq;
+    private boolean writing;
+    private boolean closed;
+    private IOException failure;
+    private long size;
+    private long syncCount;
+
+    public WriteAheadLog(File file, FsyncPolicy policy, long syncIntervalMs) throws IOException {
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.policy = policy;
+        try {
+            writeOrCheckHeader(file);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.size = channel.size();
+        if (policy == FsyncPolicy.INTERVAL) {
+            this.syncTask = SYNCER.scheduleAtFixedRate(this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.syncTask = null;
+        }
+    }
+
+    /**
+     * Appends one record and returns once it is durable according to the policy.
+     * An interrupt does not cut the wait for the leader short, as the record is
+     * already queued; the thread's interrupt status is restored on return.
+     */
+    public void append(byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.wrap(encode(payload));
+        ByteBuffer[] batch;
+        long batchEnd;
+        boolean interrupted = false;
+
+        try {
+            synchronized (lock) {
+                if (closed) throw new IOException("Log is closed");
+                if (failure != null) throw new IOException("Log failed earlier: " + failure.getMessage());
+
+                pending.add(record);
+                long seq = ++appendedSeq;
+                while (writing && writtenSeq < seq && failure == null) {
+                    interrupted |= awaitWriter();
+                }
+                if (failure != null) throw new IOException("Log write failed: " + failure.getMessage());
+                if (writtenSeq >= seq) return;
+
+                // Leader: take everything queued so far, including records of waiting followers
+                writing = true;
+                batch = pending.toArray(new ByteBuffer[0]);
+                pending = new ArrayList<>();
+                batchEnd = appendedSeq;
+            }
+
+            IOException error = null;
+            long written = 0;
+            try {
+                for (ByteBuffer b : batch) written += b.remaining();
+                long remaining = written;
+                while (remaining > 0) {
+                    remaining -= channel.write(batch);
+                }
+                if (policy == FsyncPolicy.EVERY_COMMIT) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (lock) {
+                writing = false;
+                if (error == null) {
+                    writtenSeq = batchEnd;
+                    size += written;
+                    if (policy == FsyncPolicy.EVERY_COMMIT) syncCount++;
+                } else {
+                    failure = error;
+                }
+                lock.notifyAll();
+            }
+            if (error != null) throw error;
+        } finally {
+            // Only now: with the status set, the channel write above would close the log
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Forces everything written so far to disk.
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            syncCount++;
+        }
+        channel.force(false);
+    }
+
+    public long size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /** Number of FileChannel.force calls issued, useful to observe group commit. */
+    public long getSyncCount() {
+        synchronized (lock) {
+            return syncCount;
+        }
+    }
+
+    /**
+     * Waits for a write in progress, then forces the log (unless the OS manages
+     * syncing) and closes it. As in {@link #append}, an interrupt during the
+     * wait is restored only once the log is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean interrupted = false;
+        try {
+            synchronized (lock) {
+                while (writing) interrupted |= awaitWriter();
+                if (closed) return;
+                closed = true;
+            }
+            if (syncTask != null) syncTask.cancel(false);
+            try {
+                if (policy != FsyncPolicy.OS_MANAGED) {
+                    channel.force(false);
+                    synchronized (lock) {
+                        syncCount++;
+                    }
+                }
+            } finally {
+                channel.close();
+            }
+        } finally {
+            // Only now: with the status set, the force above would close the log unsynced
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the payloads of all intact records. Reading stops at the first torn
+     * or corrupt record, which is what a crash in the middle of a write leaves behind.
+     * @throws IOException if the file is not a log of this format
+     */
+    public static List<byte[]> readRecords(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (isTextLog(bytes)) throw new IOException("Not a binary TinySQL log: " + file.getName());
+        List<byte[]> records = new ArrayList<>();
+        scan(bytes, records);
+        return records;
+    }
+
+    /**
+     * Whether the file is a log of the older text format, one CRC-prefixed
+     * line per record, which {@link #readTextRecords} reads.
+     */
+    public static boolean isTextLog(File file) throws IOException {
+        return isTextLog(Files.readAllBytes(file.toPath()));
+    }
+
+    /** Reads the intact lines of a log of the older text format. */
+    public static List<String> readTextRecords(File file) throws IOException {
+        List<String> records = new ArrayList<>();
+        scanText(Files.readAllBytes(file.toPath()), records);
+        return records;
+    }
+
+    /**
+     * Cuts a torn or corrupt tail off the log so new records are not appended after garbage.
+     * @return the number of intact records kept
+     */
+    public static int truncateTorn(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int valid;
+        int records;
+        if (isTextLog(bytes)) {
+            List<String> lines = new ArrayList<>();
+            valid = scanText(bytes, lines);
+            records = lines.size();
+        } else {
+            List<byte[]> payloads = new ArrayList<>();
+            valid = scan(bytes, payloads);
+            records = payloads.size();
+        }
+        if (valid < bytes.length) {
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                ch.truncate(valid);
+                ch.force(false);
+            }
+        }
+        return records;
+    }
+
+    /** A text log starts with a hex digit; an empty file, or one torn inside the header, is not one. */
+    private static boolean isTextLog(byte[] bytes) {
+        for (int i = 0; i < Math.min(bytes.length, 4); i++) {
+            if (bytes[i] != (byte) (MAGIC >>> (24 - 8 * i))) return true;
+        }
+        return false;
+    }
+
+    private static int scan(byte[] bytes, List<byte[]> out) throws IOException {
+        if (bytes.length < HEADER) return 0; // torn inside the header
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        int version = buf.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported log version " + version);
+
+        int pos = HEADER;
+        while (bytes.length - pos >= RECORD_HEADER) {
+            int length = buf.getInt(pos);
+            int expected = buf.getInt(pos + 4);
+            int start = pos + RECORD_HEADER;
+            if (length < 0 || length > bytes.length - start) break; // torn write
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes, start, length);
+            if ((int) crc.getValue() != expected) break;
+
+            out.add(Arrays.copyOfRange(bytes, start, start + length));
+            pos = start + length;
+        }
+        return pos;
+    }
+
+    private static int scanText(byte[] bytes, List<String> out) {
+        int pos = 0;
+        while (pos < bytes.length) {
+            int end = pos;
+            while (end < bytes.length && bytes[end] != '\n') end++;
+            if (end == bytes.length) break; // no newline: torn write
+            if (end - pos < 9 || bytes[pos + 8] != ' ') break;
+
+            long expected;
+            try {
+                expected = Long.parseLong(new String(bytes, pos, 8, StandardCharsets.US_ASCII), 16);
+            } catch (NumberFormatException e) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes, pos + 9, end - pos - 9);
+            if (crc.getValue() != expected) break;
+
+            out.add(new String(bytes, pos + 9, end - pos - 9, StandardCharsets.UTF_8));
+            pos = end + 1;
+        }
+        return pos;
+    }
+
+    private static byte[] encode(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        return record.array();
+    }
+
+    /**
+     * Starts an empty log (or one torn inside its header) with the header, and
+     * checks an existing one has it, so records never follow text lines.
+     */
+    private void writeOrCheckHeader(File file) throws IOException {
+        byte[] head = new byte[(int) Math.min(channel.size(), HEADER)];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.readFully(head);
+        }
+        if (isTextLog(head)) throw new IOException("Log " + file.getName() + " is in the older text format; load the table to convert it");
+        if (head.length == HEADER) {
+            int version = ByteBuffer.wrap(head, 4, 4).getInt();
+            if (version != VERSION) throw new IOException("Unsupported log version " + version);
+            return;
+        }
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (ClosedChannelException e) {
+            // closed between the check and the force; close() already synced
+        } catch (IOException e) {
+            System.err.println("WAL sync failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the leader to finish a write; true if interrupted meanwhile.
+     * Callers keep waiting and restore the interrupt status once done, as
+     * setting it here would make the next wait throw at once.
+     */
+    private boolean awaitWriter() {
+        try {
+            lock.wait();
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+}
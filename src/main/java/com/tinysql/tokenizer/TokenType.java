@@ -13,6 +13,9 @@ public enum TokenType {
     // Symbols
     ASTERISK, COMMA, SEMICOLON, LPAREN, RPAREN, EQUALS, GT, LT, GTE, LTE, NOT_EQUALS,
     
+    // Placeholder bound by a prepared statement
+    PARAMETER,
+    
     // Literals
     IDENTIFIER, STRING_LITERAL, NUMBER_LITERAL,
     
@@ -31,6 +31,7 @@ public class Tokenizer {
             else if (current == ';') { tokens.add(new Token(TokenType.SEMICOLON, ";")); pos++; }
             else if (current == '(') { tokens.add(new Token(TokenType.LPAREN, "(")); pos++; }
             else if (current == ')') { tokens.add(new Token(TokenType.RPAREN, ")")); pos++; }
+            else if (current == '?') { tokens.add(new Token(TokenType.PARAMETER, "?")); pos++; }
             else if (current == '=') { tokens.add(new Token(TokenType.EQUALS, "=")); pos++; }
             else if (current == '>') {
                 if (peek() == '=') { tokens.add(new Token(TokenType.GTE, ">=")); pos+=2; }
@@ -0,0 +1,91 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveFilterTest
+{
+
+    private Table table;
+    private final List<Row> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        table = new Table("adaptive");
+        table.addColumn(new Column("id", DataType.INTEGER, false));
+        table.addColumn(new Column("name", DataType.STRING, false));
+        table.addColumn(new Column("ok", DataType.BOOLEAN, false));
+        Random rnd = new Random(5);
+        for (long i = 1; i <= 5000; i++)
+        {
+            Row r = new Row(i, table.getSchema());
+            r.set(0, i % 97 == 0 ? null : (int) i);
+            r.set(1, i % 89 == 0 ? null : "n" + rnd.nextInt(20));
+            // Not type-checked: every 101st flag is a string
+            r.set(2, i % 101 == 0 ? (Object) "true" : (Object) rnd.nextBoolean());
+            table.insert(r);
+            rows.add(r);
+        }
+    }
+
+    private AdaptiveFilter filter(WhereExpr where)
+    {
+        return (AdaptiveFilter) AdaptiveFilter.compile(table, where);
+    }
+
+    @Test
+    void test_and_moves_the_selective_operand_first()
+    {
+        // Operand 0 passes nearly every row, operand 1 almost none
+        AdaptiveFilter f = filter(WhereExpr.and(List.of(WhereExpr.of("name", "!=", "zzz"), WhereExpr.of("id", "=", "7"))));
+        assertArrayEquals(new int[] { 0, 1 }, f.order());
+        for (Row r : rows) f.test(r);
+        assertArrayEquals(new int[] { 1, 0 }, f.order());
+    }
+
+    @Test
+    void test_or_moves_the_likely_operand_first()
+    {
+        AdaptiveFilter f = filter(WhereExpr.or(List.of(WhereExpr.of("id", "=", "7"), WhereExpr.of("name", "!=", "zzz"))));
+        for (Row r : rows) f.test(r);
+        assertArrayEquals(new int[] { 1, 0 }, f.order());
+    }
+
+    @Test
+    void test_random_trees_match_row_by_row_evaluation()
+    {
+        Random rnd = new Random(17);
+        for (int round = 0; round < 200; round++)
+        {
+            WhereExpr where = randomTree(rnd, 3);
+            Predicate<Row> compiled = AdaptiveFilter.compile(table, where);
+            for (Row r : rows)
+            {
+                assertEquals(ConditionEvaluator.evaluate(r, where), compiled.test(r), where + " on row " + r.getRowId());
+            }
+        }
+    }
+
+    private static WhereExpr randomTree(Random rnd, int depth)
+    {
+        if (depth == 0 || rnd.nextInt(3) == 0)
+        {
+            String[] ops = { "=", "!=", "<", ">", "<=", ">=" };
+            switch (rnd.nextInt(3))
+            {
+                case 0: return WhereExpr.of("id", ops[rnd.nextInt(ops.length)], String.valueOf(rnd.nextInt(5000)));
+                case 1: return WhereExpr.of("name", rnd.nextBoolean() ? "=" : "!=", "n" + rnd.nextInt(20));
+                default: return WhereExpr.of("ok", rnd.nextBoolean() ? "=" : "!=", String.valueOf(rnd.nextBoolean()));
+            }
+        }
+        List<WhereExpr> children = new ArrayList<>();
+        for (int i = 2 + rnd.nextInt(3); i > 0; i--) children.add(randomTree(rnd, depth - 1));
+        return rnd.nextBoolean() ? WhereExpr.and(children) : WhereExpr.or(children);
+    }
+}
@@ -0,0 +1,196 @@
+package com.tinysql.index;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BTreeIndexTest
+{
+
+    // Deep enough for three levels of 64-entry nodes
+    private static final int ROWS = 20000;
+
+    private Table table;
+
+    @BeforeEach
+    void setUp()
+    {
+        table = new Table("ordered");
+        table.addColumn(new Column("id", DataType.INTEGER, true));
+        table.addColumn(new Column("k", DataType.INTEGER, false));
+        table.addColumn(new Column("d", DataType.DOUBLE, false));
+        table.addColumn(new Column("s", DataType.STRING, false));
+        table.addColumn(new Column("flag", DataType.BOOLEAN, false));
+    }
+
+    private Row row(long id, Object k)
+    {
+        Row r = new Row(id);
+        r.set("id", (int) id);
+        r.set("k", k);
+        r.set("d", k instanceof Integer ? (Object) ((Integer) k / 8.0) : null);
+        r.set("s", k == null ? null : "s" + k);
+        return r;
+    }
+
+    /** Keys of 0..999 in random order, every 50th row null. */
+    private NavigableMap<Integer, List<Long>> fill(Random rnd)
+    {
+        NavigableMap<Integer, List<Long>> expected = new TreeMap<>();
+        for (long i = 1; i <= ROWS; i++)
+        {
+            Integer k = i % 50 == 0 ? null : rnd.nextInt(1000);
+            table.insert(row(i, k));
+            if (k != null) expected.computeIfAbsent(k, x -> new ArrayList<>()).add(i);
+        }
+        return expected;
+    }
+
+    private static long[] ids(Map<Integer, List<Long>> range)
+    {
+        return range.values().stream().flatMap(List::stream).mapToLong(Long::longValue).toArray();
+    }
+
+    private static void assertRanges(BTreeIndex index, NavigableMap<Integer, List<Long>> expected)
+    {
+        assertArrayEquals(ids(expected), index.range(null, false, null, false, Integer.MAX_VALUE));
+        assertArrayEquals(ids(expected.subMap(100, true, 200, false)), index.range(100, true, 200, false, Integer.MAX_VALUE));
+        assertArrayEquals(ids(expected.subMap(100, false, 200, true)), index.range(100, false, 200, true, Integer.MAX_VALUE));
+        assertArrayEquals(ids(expected.tailMap(990, false)), index.range(990, false, null, false, Integer.MAX_VALUE));
+        assertArrayEquals(ids(expected.headMap(3, true)), index.range(null, false, 3, true, Integer.MAX_VALUE));
+        assertArrayEquals(ids(expected.subMap(500, true, 500, true)), index.range(500, true, 500, true, Integer.MAX_VALUE));
+        assertEquals(0, index.range(2000, true, null, false, Integer.MAX_VALUE).length);
+        assertEquals(0, index.range(700, true, 600, true, Integer.MAX_VALUE).length);
+    }
+
+    @Test
+    void test_incremental_inserts_match_sorted_map()
+    {
+        BTreeIndex index = new BTreeIndex("by_k", table, "k");
+        table.addIndex(index);
+        NavigableMap<Integer, List<Long>> expected = fill(new Random(7));
+        assertEquals(ROWS - ROWS / 50, index.size());
+        assertRanges(index, expected);
+    }
+
+    @Test
+    void test_bulk_load_matches_incremental()
+    {
+        NavigableMap<Integer, List<Long>> expected = fill(new Random(11));
+        BTreeIndex index = new BTreeIndex("by_k", table, "k");
+        table.addIndex(index);
+        index.build(table.scan());
+        assertRanges(index, expected);
+
+        // Inserts keep working on a packed tree
+        for (long i = ROWS + 1; i <= ROWS + 3000; i++)
+        {
+            int k = (int) (i % 1000);
+            table.insert(row(i, k));
+            expected.computeIfAbsent(k, x -> new ArrayList<>()).add(i);
+        }
+        assertRanges(index, expected);
+    }
+
+    @Test
+    void test_range_limit()
+    {
+        BTreeIndex index = new BTreeIndex("by_k", table, "k");
+        table.addIndex(index);
+        for (long i = 1; i <= 100; i++) table.insert(row(i, (int) i));
+        assertEquals(10, index.range(1, true, 10, true, 10).length);
+        assertNull(index.range(1, true, 11, true, 10));
+    }
+
+    @Test
+    void test_first_last_and_count_from_keys()
+    {
+        BTreeIndex index = new BTreeIndex("by_k", table, "k");
+        table.addIndex(index);
+        assertNull(index.first(null, false, null, false, k -> true));
+        assertNull(index.last(null, false, null, false, k -> true));
+        NavigableMap<Integer, List<Long>> expected = fill(new Random(3));
+
+        assertEquals(expected.firstKey(), index.first(null, false, null, false, k -> true));
+        assertEquals(expected.lastKey(), index.last(null, false, null, false, k -> true));
+        assertEquals(expected.ceilingKey(250), index.first(250, true, null, false, k -> true));
+        assertEquals(expected.lowerKey(250), index.last(null, false, 250, false, k -> true));
+        assertEquals(expected.floorKey(250), index.last(null, false, 250, true, k -> true));
+        // The test applies after the bounds, walking in either direction
+        assertEquals(expected.subMap(0, true, 500, true).keySet().stream().filter(k -> k % 7 == 0).max(Integer::compare).get(),
+                index.last(0, true, 500, true, k -> (Integer) k % 7 == 0));
+        assertEquals(ids(expected.subMap(10, false, 20, false)).length, index.count(10, false, 20, false, k -> true));
+        assertEquals(ids(expected.subMap(10, false, 20, false)).length - expected.get(15).size(),
+                index.count(10, false, 20, false, k -> !k.equals(15)));
+    }
+
+    @Test
+    void test_unordered_cells_kept_aside()
+    {
+        BTreeIndex ints = new BTreeIndex("by_k", table, "k");
+        BTreeIndex doubles = new BTreeIndex("by_d", table, "d");
+        table.addIndex(ints);
+        table.addIndex(doubles);
+        table.insert(row(1, 5));
+        table.insert(row(2, "five"));
+        Row nan = row(3, 6);
+        nan.set("d", Double.NaN);
+        table.insert(nan);
+
+        assertEquals(1, ints.unorderedCount());
+        assertEquals(1, doubles.unorderedCount());
+        assertArrayEquals(new long[] { 1, 3, 2 }, ints.range(0, true, 9, true, 10));
+        assertArrayEquals(new long[] { 2 }, ints.range(7, true, 9, true, 10));
+        assertArrayEquals(new long[] { 1, 3 }, doubles.range(null, false, null, false, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BTreeIndex("by_flag", table, "flag"));
+    }
+
+    @Test
+    void test_repeated_rows_and_strings()
+    {
+        BTreeIndex index = new BTreeIndex("by_s", table, "s");
+        table.addIndex(index);
+        List<Long> order = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) order.add(i);
+        Collections.shuffle(order, new Random(5));
+        for (long i : order) table.insert(row(i, (int) (i % 20)));
+        // Replayed log records store rows again
+        for (long i = 1; i <= 500; i += 3) table.insert(row(i, (int) (i % 20)));
+
+        assertEquals(500, index.size());
+        assertEquals(25, index.range("s3", true, "s3", true, 1000).length);
+        assertEquals("s0", index.first(null, false, null, false, k -> true));
+        assertEquals("s9", index.last(null, false, null, false, k -> true));
+    }
+
+    @Test
+    void test_write_and_read_bulk_loads() throws IOException
+    {
+        BTreeIndex index = new BTreeIndex("by_d", table, "d");
+        table.addIndex(index);
+        fill(new Random(13));
+        table.insert(row(ROWS + 1, "x"));
+        Row odd = row(ROWS + 2, 1);
+        odd.set("d", 3);
+        table.insert(odd);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        BTreeIndex copy = BTreeIndex.read("by_d", table, "d", new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.size(), copy.size());
+        assertEquals(1, copy.unorderedCount());
+        assertArrayEquals(index.range(null, false, null, false, Integer.MAX_VALUE), copy.range(null, false, null, false, Integer.MAX_VALUE));
+        assertArrayEquals(index.range(12.5, true, 40.0, false, Integer.MAX_VALUE), copy.range(12.5, true, 40.0, false, Integer.MAX_VALUE));
+        table.clear();
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,221 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.engine.Aggregator;
+import com.tinysql.engine.PredicateCompiler;
+import com.tinysql.model.*;
+import com.tinysql.storage.ColumnarRowStore;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTest
+{
+
+    private static final int ROWS = 2500;
+
+    private Table heap;
+    private Table columnar;
+
+    @BeforeEach
+    void setUp()
+    {
+        heap = newTable("batch_heap");
+        columnar = newTable("batch_columnar");
+        ColumnarRowStore.attach(columnar);
+        for (long i = 1; i <= ROWS; i++)
+        {
+            heap.insert(newRow(i, true));
+            columnar.insert(newRow(i, false));
+        }
+    }
+
+    private static Table newTable(String name)
+    {
+        Table t = new Table(name);
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        t.addColumn(new Column("score", DataType.DOUBLE, false));
+        t.addColumn(new Column("ratio", DataType.FLOAT, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        return t;
+    }
+
+    /** Every 97th row of the heap table holds cells of the wrong class. */
+    private static Row newRow(long i, boolean mistyped)
+    {
+        Row r = new Row(i);
+        boolean odd = mistyped && i % 97 == 0;
+        r.set("id", odd ? (Object) String.valueOf(i) : (Object) (int) (i % 1000));
+        r.set("name", odd ? (Object) Boolean.TRUE : "n" + (i % 7));
+        r.set("score", i % 10 == 0 ? null : odd ? (Object) (float) i : (Object) (i * 1.5));
+        r.set("ratio", odd ? (Object) (i * 0.25) : (Object) (i / 4f));
+        r.set("active", i % 11 == 0 ? null : (Object) (i % 3 == 0));
+        return r;
+    }
+
+    private static List<Row> rowPath(Table t, String col, String op, String val)
+    {
+        Predicate<Row> p = col == null ? r -> true : PredicateCompiler.compile(t, col, op, val);
+        List<Row> out = new ArrayList<>();
+        for (Row r : t.scan())
+        {
+            if (p.test(r)) out.add(r);
+        }
+        return out;
+    }
+
+    private static List<Object> drain(BatchOperator op, int column)
+    {
+        List<Object> out = new ArrayList<>();
+        try (BatchOperator o = op)
+        {
+            o.open();
+            Batch b;
+            while ((b = o.nextBatch()) != null)
+            {
+                for (int k = 0; k < b.selected; k++) out.add(b.columns[column].get(b.selection[k]));
+            }
+        }
+        return out;
+    }
+
+    private static double aggregate(Table t, String col, String fn, String whereCol, String op, String val)
+    {
+        BatchOperator input = whereCol == null
+                ? new BatchScan(t, col)
+                : new BatchFilter(new BatchScan(t, col, whereCol), 1, t, whereCol, op, val);
+        try (BatchOperator agg = new BatchAggregate(input, 0, fn))
+        {
+            agg.open();
+            Batch b = agg.nextBatch();
+            assertNull(agg.nextBatch());
+            return b.columns[0].doubles[0];
+        }
+    }
+
+    @Test
+    void test_scan_returns_every_cell()
+    {
+        for (Table t : List.of(heap, columnar))
+        {
+            List<Object> ids = drain(new BatchScan(t, "score"), 0);
+            assertEquals(ROWS, ids.size());
+            int i = 0;
+            for (Row r : t.scan())
+            {
+                assertEquals(r.get("score"), ids.get(i++), t.getName());
+            }
+        }
+        List<Object> missing = drain(new BatchScan(heap, "nope"), 0);
+        assertEquals(ROWS, missing.size());
+        assertTrue(missing.stream().allMatch(o -> o == null));
+    }
+
+    @Test
+    void test_filters_match_compiled_predicates()
+    {
+        String[][] cases = {
+            { "id", ">", "400" }, { "id", "=", "7" }, { "id", "!=", "7" }, { "id", "<=", "3" }, { "id", "<", "50" },
+            { "score", ">=", "300" }, { "score", "=", "4.5" }, { "score", "!=", "4.5" }, { "score", "<", "20" },
+            { "ratio", "<", "250" }, { "ratio", "=", "0.25" }, { "ratio", ">", "100" },
+            { "active", "=", "true" }, { "active", "!=", "true" }, { "active", ">", "true" },
+            { "name", "=", "n3" }, { "name", "!=", "n3" }, { "name", "=", "true" }, { "name", "<", "n3" },
+            { "nope", "=", "1" }, { "id", "~", "1" }
+        };
+        for (Table t : List.of(heap, columnar))
+        {
+            for (String[] c : cases)
+            {
+                List<Row> expected = rowPath(t, c[0], c[1], c[2]);
+                BatchOperator plan = new BatchFilter(new BatchScan(t, "id", c[0]), 1, t, c[0], c[1], c[2]);
+                List<Object> ids = drain(plan, 0);
+                assertEquals(expected.size(), ids.size(), t.getName() + " " + String.join(" ", c));
+                for (int i = 0; i < ids.size(); i++)
+                {
+                    assertEquals(expected.get(i).get("id"), ids.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_aggregates_match_aggregator()
+    {
+        String[] functions = { "COUNT", "SUM", "AVG", "MIN", "MAX" };
+        String[] columns = { "id", "score", "ratio", "active", "name", "nope" };
+        for (Table t : List.of(heap, columnar))
+        {
+            for (String col : columns)
+            {
+                for (String fn : functions)
+                {
+                    assertEquals(Aggregator.calculate(rowPath(t, null, null, null), col, fn),
+                            aggregate(t, col, fn, null, null, null), 1e-9, t.getName() + " " + fn + "(" + col + ")");
+                    assertEquals(Aggregator.calculate(rowPath(t, "ratio", ">", "100"), col, fn),
+                            aggregate(t, col, fn, "ratio", ">", "100"), 1e-9, t.getName() + " " + fn + "(" + col + ") filtered");
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_empty_input_aggregates_to_zero()
+    {
+        assertEquals(0.0, aggregate(heap, "score", "MIN", "id", ">", "100000"));
+        assertEquals(0.0, aggregate(new Table("empty"), "score", "SUM", null, null, null));
+    }
+
+    @Test
+    void test_malformed_literal_rejected()
+    {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new BatchFilter(new BatchScan(heap, "id"), 0, heap, "id", ">", "abc"));
+        assertTrue(e.getMessage().contains("Invalid INTEGER literal"));
+    }
+
+    @Test
+    void test_parallel_partials_merge_to_serial_result()
+    {
+        String[] functions = { "COUNT", "SUM", "AVG", "MIN", "MAX" };
+        int[] columns = { 0, 1, 2, 0, 1 };
+        for (Table t : List.of(heap, columnar))
+        {
+            for (String[] where : new String[][] { { null, null }, { ">", "100" } })
+            {
+                double[] serial = runAggregates(t, columns, functions, where, null);
+                Morsels morsels = new Morsels(t);
+                double[] parallel = runAggregates(t, columns, functions, where,
+                        () -> filteredScan(new BatchScan(morsels, "id", "score", "ratio"), t, where));
+                assertArrayEquals(serial, parallel, 1e-6, t.getName());
+            }
+        }
+    }
+
+    private static BatchOperator filteredScan(BatchScan scan, Table t, String[] where)
+    {
+        return where[0] == null ? scan : new BatchFilter(scan, 2, t, "ratio", where[0], where[1]);
+    }
+
+    private static double[] runAggregates(Table t, int[] columns, String[] functions, String[] where, Supplier<BatchOperator> morsels)
+    {
+        BatchAggregate agg = new BatchAggregate(filteredScan(new BatchScan(t, "id", "score", "ratio"), t, where), columns, functions);
+        ForkJoinPool pool = morsels == null ? null : new ForkJoinPool(4);
+        if (pool != null) agg.setParallelism(pool, 4, morsels);
+        try (BatchOperator p = agg)
+        {
+            p.open();
+            Batch b = p.nextBatch();
+            double[] out = new double[functions.length];
+            for (int a = 0; a < out.length; a++) out[a] = b.columns[a].doubles[0];
+            return out;
+        }
+        finally
+        {
+            if (pool != null) pool.shutdown();
+        }
+    }
+}
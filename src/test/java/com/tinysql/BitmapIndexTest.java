@@ -0,0 +1,106 @@
+package com.tinysql.index;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapIndexTest
+{
+
+    private Table table;
+
+    @BeforeEach
+    void setUp()
+    {
+        table = new Table("flags");
+        table.addColumn(new Column("id", DataType.INTEGER, false));
+        table.addColumn(new Column("status", DataType.STRING, false));
+        table.addColumn(new Column("active", DataType.BOOLEAN, false));
+        table.addColumn(new Column("score", DataType.DOUBLE, false));
+        for (long i = 1; i <= 10; i++)
+        {
+            Row r = new Row(i);
+            r.set("id", (int) i);
+            r.set("status", i % 3 == 0 ? "closed" : "open");
+            r.set("active", i % 5 == 0 ? null : i % 2 == 0);
+            r.set("score", i / 2.0);
+            table.insert(r);
+        }
+    }
+
+    @Test
+    void test_matching_unions_the_passing_values()
+    {
+        BitmapIndex status = new BitmapIndex("by_status", table, "status");
+        status.build(table.scan());
+
+        assertEquals(2, status.keyCount());
+        assertArrayEquals(new long[] { 3, 6, 9 }, status.matching("closed"::equals).toArray());
+        assertArrayEquals(new long[] { 1, 2, 4, 5, 7, 8, 10 }, status.matching(k -> !"closed".equals(k)).toArray());
+        assertEquals(10, status.matching(k -> true).cardinality());
+        assertTrue(status.matching(k -> false).isEmpty());
+    }
+
+    @Test
+    void test_nulls_skipped_and_inserts_indexed()
+    {
+        BitmapIndex active = new BitmapIndex("by_active", table, "active");
+        table.addIndex(active);
+        active.build(table.scan());
+
+        assertArrayEquals(new long[] { 2, 4, 6, 8 }, active.matching(Boolean.TRUE::equals).toArray());
+        assertEquals(8, active.matching(k -> true).cardinality());
+
+        Row r = new Row(11);
+        r.set("active", true);
+        table.insert(r);
+        assertTrue(active.matching(Boolean.TRUE::equals).contains(11));
+    }
+
+    @Test
+    void test_mistyped_cells_in_every_answer()
+    {
+        BitmapIndex ids = new BitmapIndex("by_id", table, "id");
+        Row r = new Row(11);
+        r.set("id", "eleven");
+        table.insert(r);
+        ids.build(table.scan());
+
+        assertEquals(1, ids.mistypedCount());
+        assertArrayEquals(new long[] { 2, 11 }, ids.matching(k -> k.equals(2)).toArray());
+        assertArrayEquals(new long[] { 11 }, ids.matching(k -> false).toArray());
+
+        ids.clear();
+        assertEquals(0, ids.mistypedCount());
+        assertEquals(0, ids.keyCount());
+    }
+
+    @Test
+    void test_rejects_floating_point_and_unknown_columns()
+    {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new BitmapIndex("by_score", table, "score"));
+        assertTrue(e.getMessage().contains("BITMAP index needs a BOOLEAN, INTEGER or STRING column"));
+        assertThrows(IllegalArgumentException.class, () -> new BitmapIndex("by_x", table, "x"));
+    }
+
+    @Test
+    void test_write_and_read() throws IOException
+    {
+        for (String col : new String[] { "id", "status", "active" })
+        {
+            BitmapIndex index = new BitmapIndex("by_" + col, table, col);
+            index.build(table.scan());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            index.write(new DataOutputStream(bytes));
+            BitmapIndex back = BitmapIndex.read("by_" + col, table, col, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertEquals(index.keyCount(), back.keyCount());
+            assertArrayEquals(index.matching(k -> true).toArray(), back.matching(k -> true).toArray());
+            assertArrayEquals(index.matching("open"::equals).toArray(), back.matching("open"::equals).toArray());
+            assertArrayEquals(index.matching(Integer.valueOf(4)::equals).toArray(), back.matching(Integer.valueOf(4)::equals).toArray());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tinysql.storage;
+
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferPoolTest
+{
+
+    private File f;
+    private PageFile file;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        new File("data").mkdirs();
+        f = new File("data/pool_test.pages");
+        f.delete();
+        file = new PageFile(f);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        file.close();
+        f.delete();
+    }
+
+    private void writePage(BufferPool pool, int value)
+    {
+        int pageNo = file.allocatePage();
+        ByteBuffer b = pool.pinNew(file, pageNo);
+        b.putInt(0, value);
+        pool.unpin(file, pageNo, true);
+    }
+
+    @Test
+    void test_hits_and_misses()
+    {
+        BufferPool pool = new BufferPool(4);
+        writePage(pool, 7);
+
+        pool.pin(file, 0);
+        pool.unpin(file, 0, false);
+
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(0, pool.getEvictions());
+    }
+
+    @Test
+    void test_eviction_writes_back_dirty_pages()
+    {
+        BufferPool pool = new BufferPool(2);
+        for (int i = 0; i < 5; i++) writePage(pool, i * 10);
+
+        assertEquals(3, pool.getEvictions());
+        assertTrue(pool.getWriteBacks() >= 3);
+
+        for (int i = 0; i < 5; i++)
+        {
+            ByteBuffer b = pool.pin(file, i);
+            assertEquals(i * 10, b.getInt(0));
+            pool.unpin(file, i, false);
+        }
+    }
+
+    @Test
+    void test_pinned_pages_not_evicted()
+    {
+        BufferPool pool = new BufferPool(2);
+        writePage(pool, 1);
+        writePage(pool, 2);
+
+        pool.pin(file, 0);
+        pool.pin(file, 1);
+
+        int pageNo = file.allocatePage();
+        assertThrows(IllegalStateException.class, () -> pool.pinNew(file, pageNo));
+
+        pool.unpin(file, 1, false);
+        ByteBuffer b = pool.pinNew(file, pageNo);
+        assertNotNull(b);
+        assertEquals(1, pool.pin(file, 0).getInt(0));
+    }
+
+    @Test
+    void test_flush_persists_pages() throws IOException
+    {
+        BufferPool pool = new BufferPool(4);
+        writePage(pool, 42);
+        pool.flush(file);
+
+        BufferPool fresh = new BufferPool(4);
+        assertEquals(42, fresh.pin(file, 0).getInt(0));
+    }
+
+    @Test
+    void test_unpin_unknown_page()
+    {
+        BufferPool pool = new BufferPool(1);
+        assertThrows(IllegalStateException.class, () -> pool.unpin(file, 3, false));
+    }
+}
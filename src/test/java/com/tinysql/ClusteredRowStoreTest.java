@@ -0,0 +1,78 @@
+package com.tinysql.model;
+
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusteredRowStoreTest
+{
+
+    private Table table;
+    private ClusteredRowStore store;
+
+    @BeforeEach
+    void setUp()
+    {
+        table = new Table("clustered");
+        table.addColumn(new Column("name", DataType.STRING, false));
+        table.addColumn(Column.primaryKey("k", DataType.DOUBLE));
+        store = new ClusteredRowStore(table);
+        table.setRowStore(store, StorageMode.CLUSTERED);
+        // Inserted out of key order
+        double[] keys = { 5.5, -1.0, 3.0, 10.25, 0.0, 7.0 };
+        for (int i = 0; i < keys.length; i++)
+        {
+            Row r = new Row(i + 1);
+            r.set("name", "n" + i);
+            r.set("k", keys[i]);
+            table.insert(r);
+        }
+    }
+
+    private static List<Object> keys(Iterator<Row> rows)
+    {
+        List<Object> out = new ArrayList<>();
+        while (rows.hasNext()) out.add(rows.next().get("k"));
+        return out;
+    }
+
+    @Test
+    void test_scan_in_key_order()
+    {
+        assertEquals(List.of(-1.0, 0.0, 3.0, 5.5, 7.0, 10.25), keys(store.scan()));
+        assertEquals(6, store.size());
+        assertEquals(6, store.maxRowId());
+        assertEquals(3.0, store.get(3).get("k"));
+        assertNull(store.get(99));
+    }
+
+    @Test
+    void test_key_ranges()
+    {
+        assertEquals(List.of(3.0, 5.5, 7.0), keys(store.range(3.0, true, 7.0, true)));
+        assertEquals(List.of(5.5), keys(store.range(3.0, false, 7.0, false)));
+        assertEquals(List.of(-1.0, 0.0), keys(store.range(null, false, 3.0, false)));
+        assertEquals(List.of(7.0, 10.25), keys(store.range(5.5, false, null, false)));
+        assertEquals(List.of(3.0), keys(store.range(3.0, true, 3.0, true)));
+        assertFalse(store.range(3.0, true, 3.0, false).hasNext());
+        assertFalse(store.range(8.0, true, 4.0, true).hasNext());
+    }
+
+    @Test
+    void test_same_row_stored_again_and_clear()
+    {
+        Row again = new Row(3, table.getSchema());
+        again.set(0, "n2");
+        again.set(1, 3.0);
+        table.insert(again);
+        assertEquals(6, store.size());
+        assertEquals(6, keys(store.scan()).size());
+
+        table.clear();
+        assertEquals(0, store.size());
+        assertFalse(store.scan().hasNext());
+        assertThrows(IllegalArgumentException.class, () -> new ClusteredRowStore(new Table("no_key")));
+    }
+}
@@ -0,0 +1,109 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarFileTest
+{
+
+    private File file;
+
+    @BeforeEach
+    void setUp()
+    {
+        new File("data").mkdirs();
+        file = new File("data/columnar_test.tbl");
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        file.delete();
+    }
+
+    private Table createTable()
+    {
+        Table t = new Table("columnar_test");
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        t.addColumn(new Column("score", DataType.FLOAT, false));
+        t.addColumn(new Column("balance", DataType.DOUBLE, false));
+        return t;
+    }
+
+    @Test
+    void test_round_trip_all_types() throws IOException
+    {
+        Table t = createTable();
+        for (int i = 1; i <= 20; i++)
+        {
+            Row r = new Row(i);
+            r.set("id", i);
+            r.set("name", "user,é" + i);
+            r.set("active", i % 2 == 0);
+            r.set("score", i * 1.5f);
+            r.set("balance", i * 10.25);
+            t.insert(r);
+        }
+
+        ColumnarFile.write(t, file);
+        Table loaded = ColumnarFile.read("columnar_test", file);
+
+        assertEquals(5, loaded.getColumns().size());
+        assertTrue(loaded.getColumn("id").isPrimaryKey());
+        assertFalse(loaded.getColumn("name").isPrimaryKey());
+        assertEquals(20, loaded.selectAll().size());
+        assertEquals(21, loaded.getNextId());
+
+        for (Row r : loaded.selectAll())
+        {
+            int i = (Integer) r.get("id");
+            assertEquals(r.getRowId(), i);
+            assertEquals("user,é" + i, r.get("name"));
+            assertEquals(i % 2 == 0, r.get("active"));
+            assertEquals(i * 1.5f, r.get("score"));
+            assertEquals(i * 10.25, r.get("balance"));
+        }
+    }
+
+    @Test
+    void test_nulls_and_coercion() throws IOException
+    {
+        Table t = createTable();
+        Row r = new Row(1);
+        r.set("id", 1);
+        r.set("balance", 7);
+        r.set("score", "not a number");
+        t.insert(r);
+
+        ColumnarFile.write(t, file);
+        Row loaded = ColumnarFile.read("columnar_test", file).selectAll().get(0);
+
+        assertNull(loaded.get("name"));
+        assertNull(loaded.get("active"));
+        assertNull(loaded.get("score"));
+        assertEquals(7.0, loaded.get("balance"));
+    }
+
+    @Test
+    void test_empty_table() throws IOException
+    {
+        ColumnarFile.write(createTable(), file);
+        Table loaded = ColumnarFile.read("columnar_test", file);
+
+        assertEquals(5, loaded.getColumns().size());
+        assertTrue(loaded.selectAll().isEmpty());
+    }
+
+    @Test
+    void test_rejects_foreign_file() throws IOException
+    {
+        Files.write(file.toPath(), "id:INTEGER\n".getBytes());
+        assertThrows(IOException.class, () -> ColumnarFile.read("columnar_test", file));
+    }
+}
@@ -0,0 +1,109 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarRowStoreTest
+{
+
+    private Table createTable()
+    {
+        Table t = new Table("col_test");
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        t.addColumn(new Column("score", DataType.DOUBLE, false));
+        t.addColumn(new Column("ratio", DataType.FLOAT, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        ColumnarRowStore.attach(t);
+        return t;
+    }
+
+    private Row createRow(long id)
+    {
+        Row r = new Row(id);
+        r.set("id", (int) id);
+        r.set("name", id % 2 == 0 ? "even" : "odd");
+        r.set("score", id * 0.5);
+        r.set("ratio", (float) id);
+        r.set("active", id % 3 == 0);
+        return r;
+    }
+
+    @Test
+    void test_insert_scan_and_point_read()
+    {
+        Table t = createTable();
+        assertEquals(StorageMode.COLUMNAR, t.getStorageMode());
+        for (long i = 1; i <= 200; i++)
+        {
+            t.insert(createRow(i));
+        }
+
+        assertEquals(200, t.size());
+        assertEquals(201, t.getNextId());
+        Row r = t.getRow(77);
+        assertEquals(77, r.get("id"));
+        assertEquals("odd", r.get("name"));
+        assertEquals(38.5, r.get("score"));
+        assertEquals(77f, r.get("ratio"));
+        assertEquals(false, r.get("active"));
+        assertNull(t.getRow(500));
+
+        List<Row> all = t.selectAll();
+        assertEquals(200, all.size());
+        assertEquals(1L, all.get(0).getRowId());
+    }
+
+    @Test
+    void test_nulls_and_dictionary()
+    {
+        Table t = createTable();
+        Row r = new Row(1);
+        r.set("name", "x");
+        t.insert(r);
+        t.insert(createRow(2));
+        t.insert(createRow(4));
+
+        Row back = t.getRow(1);
+        assertNull(back.get("id"));
+        assertNull(back.get("active"));
+        assertEquals("x", back.get("name"));
+
+        ColumnVector.Strings names = (ColumnVector.Strings) ((ColumnarRowStore) t.getRowStore()).getColumn("name");
+        assertEquals(2, names.dictionarySize());
+        assertEquals(names.getCode(1), names.getCode(2));
+        assertFalse(names.isNull(1));
+    }
+
+    @Test
+    void test_values_coerced_to_column_type()
+    {
+        Table t = createTable();
+        Row r = createRow(1);
+        r.set("id", "12");
+        r.set("score", 3);
+        t.insert(r);
+
+        assertEquals(12, t.getRow(1).get("id"));
+        assertEquals(3.0, t.getRow(1).get("score"));
+    }
+
+    @Test
+    void test_duplicate_id_replaces_and_clear()
+    {
+        Table t = createTable();
+        t.insert(createRow(1));
+        Row r = createRow(1);
+        r.set("name", "changed");
+        t.insert(r);
+
+        assertEquals(1, t.size());
+        assertEquals("changed", t.getRow(1).get("name"));
+
+        t.clear();
+        assertEquals(0, t.size());
+        assertNull(t.getRow(1));
+    }
+}
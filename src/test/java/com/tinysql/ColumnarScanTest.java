@@ -0,0 +1,98 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.*;
+import com.tinysql.storage.ColumnarRowStore;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarScanTest
+{
+
+    private ColumnarRowStore store;
+    private List<Row> rows;
+
+    @BeforeEach
+    void setUp()
+    {
+        Table t = new Table("scan_test");
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        t.addColumn(new Column("score", DataType.DOUBLE, false));
+        t.addColumn(new Column("ratio", DataType.FLOAT, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        ColumnarRowStore.attach(t);
+        for (long i = 1; i <= 100; i++)
+        {
+            Row r = new Row(i);
+            r.set("id", (int) i);
+            r.set("name", "n" + (i % 7));
+            r.set("score", i % 10 == 0 ? null : i * 1.5);
+            r.set("ratio", i / 4f);
+            r.set("active", i % 3 == 0);
+            t.insert(r);
+        }
+        store = (ColumnarRowStore) t.getRowStore();
+        rows = t.selectAll();
+    }
+
+    private int rowCount(String col, String op, String val)
+    {
+        int n = 0;
+        for (Row r : rows)
+        {
+            if (ConditionEvaluator.evaluate(r, col, op, val)) n++;
+        }
+        return n;
+    }
+
+    private List<Row> selected(int[] sel)
+    {
+        List<Row> out = new ArrayList<>();
+        for (int pos : sel) out.add(store.materialize(pos));
+        return out;
+    }
+
+    @Test
+    void test_filters_match_row_evaluator()
+    {
+        String[][] cases = {
+            { "id", ">", "40" }, { "id", "=", "7" }, { "id", "!=", "7" }, { "id", "<=", "3" },
+            { "score", ">=", "30" }, { "score", "=", "4.5" }, { "score", "!=", "4.5" },
+            { "ratio", "<", "2.5" }, { "ratio", "=", "0.25" },
+            { "active", "=", "true" }, { "active", "!=", "true" }, { "active", ">", "true" },
+            { "name", "=", "n3" }, { "name", "!=", "n3" }, { "name", "=", "missing" }, { "name", "<", "n3" },
+            { "nope", "=", "1" }
+        };
+        for (String[] c : cases)
+        {
+            int[] sel = ColumnarScan.filter(store, c[0], c[1], c[2]);
+            assertEquals(rowCount(c[0], c[1], c[2]), sel.length, String.join(" ", c));
+        }
+        assertEquals(100, ColumnarScan.filter(store, null, null, null).length);
+    }
+
+    @Test
+    void test_aggregates_match_aggregator()
+    {
+        int[] sel = ColumnarScan.filter(store, "id", ">", "20");
+        List<Row> expected = selected(sel);
+        for (String col : new String[] { "id", "score", "ratio", "name" })
+        {
+            for (String fn : new String[] { "COUNT", "SUM", "AVG", "MIN", "MAX" })
+            {
+                assertEquals(Aggregator.calculate(expected, col, fn),
+                        ColumnarScan.aggregate(store, sel, col, fn), 0.0001, fn + "(" + col + ")");
+            }
+        }
+    }
+
+    @Test
+    void test_empty_selection_and_unknown_function()
+    {
+        assertEquals(0.0, ColumnarScan.aggregate(store, new int[0], "id", "SUM"));
+        int[] all = ColumnarScan.filter(store, null, null, null);
+        assertThrows(IllegalArgumentException.class, () -> ColumnarScan.aggregate(store, all, "id", "MEDIAN"));
+    }
+}
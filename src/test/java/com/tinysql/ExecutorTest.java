@@ -1,13 +1,20 @@
 package com.tinysql.engine;
 
+import com.tinysql.engine.batch.Morsels;
 import com.tinysql.model.*;
+import com.tinysql.storage.RowCodec;
 import com.tinysql.storage.StorageManager;
+import com.tinysql.storage.WriteAheadLog;
 import org.junit.jupiter.api.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +51,15 @@ class ExecutorTest
         return cols;
     }
 
+    /** As createCols, with id declared PRIMARY KEY, as CLUSTERED storage needs. */
+    private List<Column> keyedCols()
+    {
+        List<Column> cols = new ArrayList<>();
+        cols.add(Column.primaryKey("id", DataType.INTEGER));
+        cols.add(new Column("val", DataType.STRING, false));
+        return cols;
+    }
+
     @Test
     void test_create_exists_on_disk() throws IOException
     {
@@ -78,16 +94,17 @@ class ExecutorTest
         Row r = t.selectAll().get(0);
         assertEquals("DataValue", r.get("val"));
 
-        File f = new File("data/" + tableName + ".csv");
+        File f = new File("data/" + tableName + ".log");
         try
         {
-            List<String> lines = Files.readAllLines(f.toPath());
-            assertTrue(lines.size() >= 2);
-            assertTrue(lines.get(1).contains("DataValue"));
+            List<byte[]> records = WriteAheadLog.readRecords(f);
+            assertEquals(1, records.size());
+            Row logged = RowCodec.decode(ByteBuffer.wrap(records.get(0)), t.getSchema());
+            assertEquals("DataValue", logged.get("val"));
         }
         catch (IOException e)
         {
-            fail("Could not read table file");
+            fail("Could not read insert log");
         }
     }
 
@@ -145,4 +162,521 @@ class ExecutorTest
         ExecutionResult res = executor.executeJoin("t1", "t2", "id", "id");
         assertNotNull(res);
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_malformed_literal_fails_once()
+    {
+        executor.executeCreate("typed", createCols());
+        List<Object> vals = new ArrayList<>();
+        vals.add(1);
+        vals.add("x");
+        executor.executeInsert("typed", vals);
+
+        ExecutionResult res = executor.executeSelect("typed", "id", ">", "abc");
+        assertFalse(res.isSuccess());
+        assertTrue(res.getMessage().contains("Invalid INTEGER literal"));
+
+        ExecutionResult ok = executor.executeSelect("typed", "id", ">", "0");
+        assertTrue(ok.isSuccess());
+        assertEquals(1, ok.getData().size());
+    }
+
+    @Test
+    void test_open_select_streams()
+    {
+        executor.executeCreate("stream", createCols());
+        for (int i = 1; i <= 3; i++)
+        {
+            List<Object> vals = new ArrayList<>();
+            vals.add(i);
+            vals.add("v" + i);
+            executor.executeInsert("stream", vals);
+        }
+
+        ExecutionResult res = executor.openSelect("stream", "id", ">=", "2");
+        assertTrue(res.isSuccess());
+        Cursor cursor = res.getCursor();
+        assertNotNull(cursor);
+        int count = 0;
+        while (cursor.hasNext())
+        {
+            assertTrue((Integer) cursor.next().get("id") >= 2);
+            count++;
+        }
+        assertEquals(2, count);
+
+        ExecutionResult agg = executor.executeAggregate("stream", "id", "SUM", "id", ">", "1");
+        assertEquals(5.0, agg.getAggregateResult());
+    }
+
+    @Test
+    void test_multiple_aggregates_in_one_scan()
+    {
+        for (StorageMode mode : new StorageMode[] { StorageMode.ROW, StorageMode.COLUMNAR })
+        {
+            String name = "multi_" + mode.name().toLowerCase();
+            List<Column> cols = createCols();
+            cols.add(new Column("score", DataType.DOUBLE, false));
+            executor.executeCreate(name, cols, mode);
+            for (int i = 1; i <= 50; i++)
+            {
+                List<Object> vals = new ArrayList<>();
+                vals.add(i);
+                vals.add(i % 2 == 0 ? "even" : "odd");
+                vals.add(i * 1.5);
+                executor.executeInsert(name, vals);
+            }
+
+            List<String> funcs = List.of("SUM", "min", "MAX", "COUNT", "AVG");
+            List<String> colNames = List.of("id", "id", "score", "*", "score");
+            String[][] wheres = { { null, null, null }, { "id", ">", "10" }, { "val", "=", "even" }, { "id", ">", "99" } };
+            for (String[] w : wheres)
+            {
+                ExecutionResult res = executor.executeAggregates(name, funcs, colNames, w[0], w[1], w[2]);
+                assertTrue(res.isSuccess(), res.getMessage());
+                Row row = res.getData().get(0);
+                assertEquals(funcs.size(), row.getSchema().size());
+                assertEquals("MIN(id)", row.getSchema().name(1));
+                for (int a = 0; a < funcs.size(); a++)
+                {
+                    String col = colNames.get(a).equals("*") ? "id" : colNames.get(a);
+                    Double single = executor.executeAggregate(name, col, funcs.get(a), w[0], w[1], w[2]).getAggregateResult();
+                    assertEquals(single, row.get(a), name + " " + funcs.get(a) + " where " + w[0]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_multiple_aggregates_errors()
+    {
+        executor.executeCreate("multi_err", createCols());
+        assertFalse(executor.executeAggregates("missing", List.of("SUM"), List.of("id"), null, null, null).isSuccess());
+        ExecutionResult bad = executor.executeAggregates("multi_err", List.of("SUM", "COUNT"), List.of("id", "id"), "id", ">", "x");
+        assertFalse(bad.isSuccess());
+        assertTrue(bad.getMessage().contains("Invalid INTEGER literal"));
+    }
+
+    @Test
+    void test_group_by()
+    {
+        List<Column> cols = createCols();
+        cols.add(new Column("score", DataType.DOUBLE, false));
+        executor.executeCreate("grouped", cols);
+        for (int i = 1; i <= 30; i++)
+        {
+            List<Object> vals = new ArrayList<>();
+            vals.add(i);
+            vals.add("g" + (i % 3));
+            vals.add(i * 2.0);
+            executor.executeInsert("grouped", vals);
+        }
+
+        ExecutionResult res = executor.executeGroupBy("grouped", List.of("val"), List.of("COUNT", "SUM"), List.of("*", "score"), "id", ">", "3");
+        assertTrue(res.isSuccess(), res.getMessage());
+        assertEquals("3 groups found.", res.getMessage());
+        List<Row> rows = res.getData();
+        // First-seen order: id 4 is g1
+        assertEquals("g1", rows.get(0).get("val"));
+        assertEquals(9.0, rows.get(0).get("COUNT(*)"));
+        assertEquals(2.0 * (4 + 7 + 10 + 13 + 16 + 19 + 22 + 25 + 28), rows.get(0).get("SUM(score)"));
+
+        assertFalse(executor.executeGroupBy("grouped", List.of("nope"), List.of(), List.of(), null, null, null).isSuccess());
+        assertFalse(executor.executeGroupBy("grouped", List.of("val"), List.of("MEDIAN"), List.of("id"), null, null, null).isSuccess());
+        assertFalse(executor.executeGroupBy("ghost", List.of("val"), List.of(), List.of(), null, null, null).isSuccess());
+    }
+
+    @Test
+    void test_group_by_spills_over_budget()
+    {
+        executor.executeCreate("many_groups", createCols());
+        for (int i = 1; i <= 500; i++)
+        {
+            List<Object> vals = new ArrayList<>();
+            vals.add(i);
+            vals.add("v" + (i % 200));
+            executor.executeInsert("many_groups", vals);
+        }
+        executor.setGroupMemoryBudget(4096);
+        ExecutionResult res = executor.executeGroupBy("many_groups", List.of("val"), List.of("COUNT"), List.of("id"), null, null, null);
+        assertTrue(res.isSuccess());
+        assertEquals(200, res.getData().size());
+        assertTrue(res.getSpillCount() > 0);
+        assertTrue(res.getMessage().contains("spilled"));
+        assertEquals(500.0, res.getData().stream().mapToDouble(r -> (Double) r.get("COUNT(id)")).sum());
+    }
+
+    @Test
+    void test_parallel_aggregation_matches_serial()
+    {
+        assertThrows(IllegalArgumentException.class, () -> executor.setAggregateParallelism(0));
+        // Built in memory: big enough to run on several threads
+        Table big = new Table("big");
+        big.addColumn(new Column("id", DataType.INTEGER, true));
+        big.addColumn(new Column("val", DataType.STRING, false));
+        for (int i = 1; i <= Morsels.PARALLEL_THRESHOLD + 5000; i++)
+        {
+            Row r = new Row(i);
+            r.set("id", i);
+            r.set("val", "k" + (i % 37));
+            big.insert(r);
+        }
+        db.addTable(big);
+
+        List<String> funcs = List.of("COUNT", "SUM", "MIN", "MAX", "AVG");
+        List<String> cols = List.of("id", "id", "id", "id", "id");
+        executor.setAggregateParallelism(1);
+        Row serial = executor.executeAggregates("big", funcs, cols, "id", ">", "100").getData().get(0);
+        List<Row> serialGroups = executor.executeGroupBy("big", List.of("val"), funcs, cols, null, null, null).getData();
+        executor.setAggregateParallelism(4);
+        Row parallel = executor.executeAggregates("big", funcs, cols, "id", ">", "100").getData().get(0);
+        List<Row> parallelGroups = executor.executeGroupBy("big", List.of("val"), funcs, cols, null, null, null).getData();
+
+        for (int a = 0; a < funcs.size(); a++) assertEquals(serial.get(a), parallel.get(a));
+        assertEquals(37, parallelGroups.size());
+        Map<Object, Object> sums = new HashMap<>();
+        for (Row r : serialGroups) sums.put(r.get("val"), r.get("SUM(id)"));
+        for (Row r : parallelGroups) assertEquals(sums.get(r.get("val")), r.get("SUM(id)"));
+    }
+
+    @Test
+    void test_create_index_serves_equality_selects() throws Exception
+    {
+        for (StorageMode mode : StorageMode.values())
+        {
+            String table = "indexed_" + mode.name().toLowerCase();
+            executor.executeCreate(table, keyedCols(), mode);
+            for (int i = 1; i <= 300; i++)
+            {
+                List<Object> vals = new ArrayList<>();
+                vals.add(i);
+                vals.add("v" + (i % 30));
+                executor.executeInsert(table, vals);
+            }
+            ExecutionResult created = executor.executeCreateIndex("by_val", table, "val");
+            assertTrue(created.isSuccess(), created.getMessage());
+            assertTrue(new File("data/" + table + ".by_val.idx").exists());
+
+            // Rows inserted after the index is built are found through it too
+            executor.executeInsert(table, List.of(301, "v7"));
+            ExecutionResult res = executor.executeSelect(table, "val", "=", "v7");
+            assertEquals(11, res.getData().size(), mode.name());
+            for (Row r : res.getData()) assertEquals("v7", r.get("val"));
+            assertEquals(0, executor.executeSelect(table, "val", "=", "nope").getData().size());
+            assertEquals(290, executor.executeSelect(table, "val", "!=", "v7").getData().size());
+        }
+        storage.close();
+    }
+
+    @Test
+    void test_create_index_errors()
+    {
+        executor.executeCreate("idx_errors", createCols());
+        executor.executeInsert("idx_errors", List.of(1, "a"));
+        assertTrue(executor.executeCreateIndex("by_id", "idx_errors", "id").isSuccess());
+        assertEquals("Index already exists: BY_ID", executor.executeCreateIndex("BY_ID", "idx_errors", "val").getMessage());
+        assertEquals("Unknown column: nope", executor.executeCreateIndex("x", "idx_errors", "nope").getMessage());
+        assertEquals("Table not found: missing", executor.executeCreateIndex("x", "missing", "id").getMessage());
+        assertFalse(executor.executeCreateIndex("../x", "idx_errors", "id").isSuccess());
+
+        // The literal is still validated, and the index survives a reload
+        assertFalse(executor.executeSelect("idx_errors", "id", "=", "abc").isSuccess());
+        Executor fresh = new Executor(new Database(), storage);
+        assertEquals(1, fresh.executeSelect("idx_errors", "id", "=", "1").getData().size());
+        assertNotNull(fresh.getOrLoadTable("idx_errors").getIndex("by_id"));
+    }
+
+    private static List<Long> ids(ExecutionResult res)
+    {
+        List<Long> ids = new ArrayList<>();
+        for (Row r : res.getData()) ids.add(r.getRowId());
+        ids.sort(null);
+        return ids;
+    }
+
+    @Test
+    void test_btree_index_serves_ranges_and_aggregates_like_a_scan() throws Exception
+    {
+        for (StorageMode mode : StorageMode.values())
+        {
+            String indexed = "ranged_" + mode.name().toLowerCase();
+            String plain = "unindexed_" + mode.name().toLowerCase();
+            for (String table : new String[] { indexed, plain })
+            {
+                List<Column> cols = new ArrayList<>();
+                cols.add(Column.primaryKey("id", DataType.INTEGER));
+                cols.add(new Column("score", DataType.DOUBLE, false));
+                cols.add(new Column("ratio", DataType.FLOAT, false));
+                executor.executeCreate(table, cols, mode);
+                for (int i = 1; i <= 400; i++) executor.executeInsert(table, List.of(i, (i * 37 % 400) / 4.0, i / 8f));
+            }
+            for (String col : new String[] { "id", "score", "ratio" })
+            {
+                ExecutionResult created = executor.executeCreateIndex("by_" + col, indexed, col, IndexType.BTREE);
+                assertTrue(created.isSuccess(), created.getMessage());
+            }
+            // Maintained on insert, including a row that sorts between existing keys
+            for (String table : new String[] { indexed, plain }) executor.executeInsert(table, List.of(401, 12.25, 0.375f));
+
+            String[][] conditions = {
+                { "id", "<", "20" }, { "id", "<=", "20" }, { "id", ">", "390" }, { "id", ">=", "390" }, { "id", "=", "77" },
+                { "id", "!=", "77" }, { "id", ">", "50" }, { "score", "<", "3.5" }, { "score", ">=", "99.5" },
+                { "score", "=", "12.25" }, { "ratio", "<=", "0.375" }, { "ratio", "=", "0.375" }, { "ratio", ">", "49.9" },
+            };
+            for (String[] c : conditions)
+            {
+                String what = mode + " " + String.join(" ", c);
+                assertEquals(ids(executor.executeSelect(plain, c[0], c[1], c[2])),
+                        ids(executor.executeSelect(indexed, c[0], c[1], c[2])), what);
+                List<String> fns = List.of("MIN", "MAX", "COUNT");
+                List<String> on = List.of(c[0], c[0], c[0]);
+                assertEquals(executor.executeAggregates(plain, fns, on, c[0], c[1], c[2]).getData().get(0).getData(),
+                        executor.executeAggregates(indexed, fns, on, c[0], c[1], c[2]).getData().get(0).getData(), what);
+            }
+            List<String> fns = List.of("MIN", "MAX", "COUNT");
+            List<String> on = List.of("score", "score", "score");
+            assertEquals(executor.executeAggregates(plain, fns, on, null, null, null).getData().get(0).getData(),
+                    executor.executeAggregates(indexed, fns, on, null, null, null).getData().get(0).getData());
+            // An empty range aggregates to 0, as a scan does
+            assertEquals(Map.of("MIN(score)", 0.0, "MAX(score)", 0.0, "COUNT(score)", 0.0),
+                    executor.executeAggregates(indexed, fns, on, "score", ">", "1000").getData().get(0).getData());
+        }
+        storage.close();
+    }
+
+    @Test
+    void test_btree_index_errors()
+    {
+        List<Column> cols = new ArrayList<>();
+        cols.add(new Column("id", DataType.INTEGER, true));
+        cols.add(new Column("ok", DataType.BOOLEAN, false));
+        executor.executeCreate("btree_errors", cols);
+        assertEquals("BTREE index needs an INTEGER, FLOAT, DOUBLE or STRING column: ok",
+                executor.executeCreateIndex("by_ok", "btree_errors", "ok", IndexType.BTREE).getMessage());
+        assertNull(executor.getOrLoadTable("btree_errors").getIndex("by_ok"));
+        assertTrue(executor.executeCreateIndex("by_ok", "btree_errors", "ok", IndexType.HASH).isSuccess());
+        assertFalse(executor.executeSelect("btree_errors", "id", "<", "x").isSuccess());
+    }
+
+    @Test
+    void test_primary_key_enforced_and_served_in_every_storage_mode() throws Exception
+    {
+        for (StorageMode mode : StorageMode.values())
+        {
+            String table = "keyed_" + mode.name().toLowerCase();
+            assertTrue(executor.executeCreate(table, keyedCols(), mode).isSuccess());
+            // Keys arrive out of order
+            for (int i = 1; i <= 200; i++) executor.executeInsert(table, List.of(i * 37 % 200, "v" + i));
+
+            ExecutionResult dup = executor.executeInsert(table, List.of(74, "again"));
+            assertFalse(dup.isSuccess());
+            assertEquals("Duplicate primary key id: 74", dup.getMessage());
+            assertEquals("Primary key id cannot be NULL", executor.executeInsert(table, Arrays.asList(null, "x")).getMessage());
+
+            ExecutionResult hit = executor.executeSelect(table, "id", "=", "74");
+            assertEquals(1, hit.getData().size(), mode.name());
+            assertEquals(74, hit.getData().get(0).get("id"));
+            assertEquals(0, executor.executeSelect(table, "id", "=", "200").getData().size());
+
+            List<Object> range = new ArrayList<>();
+            for (Row r : executor.executeSelect(table, "id", "<", "5").getData()) range.add(r.get("id"));
+            if (mode == StorageMode.CLUSTERED) assertEquals(List.of(0, 1, 2, 3, 4), range);
+            else assertEquals(5, range.size());
+            assertEquals(195, executor.executeSelect(table, "id", ">=", "5").getData().size());
+            assertEquals(199, executor.executeSelect(table, "id", "!=", "5").getData().size());
+
+            // The key survives a snapshot and a reload of the table
+            storage.saveTable(executor.getOrLoadTable(table));
+            executor.executeInsert(table, List.of(500, "logged"));
+            Executor fresh = new Executor(new Database(), storage);
+            assertFalse(fresh.executeInsert(table, List.of(500, "twice")).isSuccess(), mode.name());
+            assertFalse(fresh.executeInsert(table, List.of(74, "twice")).isSuccess(), mode.name());
+            assertEquals(1, fresh.executeSelect(table, "id", "=", "500").getData().size());
+            assertEquals(mode, fresh.getOrLoadTable(table).getStorageMode());
+        }
+        storage.close();
+    }
+
+    @Test
+    void test_clustered_table_needs_primary_key()
+    {
+        List<Column> cols = new ArrayList<>();
+        cols.add(new Column("id", DataType.INTEGER, false));
+        ExecutionResult res = executor.executeCreate("unkeyed", cols, StorageMode.CLUSTERED);
+        assertFalse(res.isSuccess());
+        assertEquals("Failed to create table unkeyed: CLUSTERED storage needs a PRIMARY KEY column: unkeyed", res.getMessage());
+
+        cols.add(Column.primaryKey("a", DataType.INTEGER));
+        cols.add(Column.primaryKey("b", DataType.INTEGER));
+        assertEquals("Failed to create table two_keys: Table two_keys already has primary key a",
+                executor.executeCreate("two_keys", cols.subList(1, 3)).getMessage());
+    }
+
+    @Test
+    void test_bitmap_indexes_serve_and_or_like_a_scan() throws Exception
+    {
+        for (StorageMode mode : StorageMode.values())
+        {
+            String indexed = "flagged_" + mode.name().toLowerCase();
+            String plain = "unflagged_" + mode.name().toLowerCase();
+            for (String table : new String[] { indexed, plain })
+            {
+                List<Column> cols = new ArrayList<>();
+                cols.add(Column.primaryKey("id", DataType.INTEGER));
+                cols.add(new Column("status", DataType.STRING, false));
+                cols.add(new Column("active", DataType.BOOLEAN, false));
+                cols.add(new Column("region", DataType.INTEGER, false));
+                executor.executeCreate(table, cols, mode);
+                for (int i = 1; i <= 400; i++)
+                {
+                    executor.executeInsert(table, List.of(i, i % 7 == 0 ? "closed" : "open", i % 3 == 0, i % 10));
+                }
+            }
+            for (String col : new String[] { "status", "active", "region" })
+            {
+                ExecutionResult created = executor.executeCreateIndex("by_" + col, indexed, col, IndexType.BITMAP);
+                assertTrue(created.isSuccess(), created.getMessage());
+            }
+            for (String table : new String[] { indexed, plain }) executor.executeInsert(table, List.of(401, "closed", true, 3));
+
+            Condition closed = new Condition("status", "=", "closed");
+            Condition active = new Condition("active", "=", "true");
+            Condition region = new Condition("region", ">", "7");
+            Condition early = new Condition("id", "<", "100");
+            List<List<Condition>> clauses = List.of(
+                List.of(closed, active), List.of(closed, active, region), List.of(closed, early),
+                List.of(active, new Condition("region", "!=", "3")), List.of(new Condition("status", "<", "z"), active));
+            for (List<Condition> where : clauses)
+            {
+                for (boolean any : new boolean[] { false, true })
+                {
+                    String what = mode + " " + where + (any ? " OR" : " AND");
+                    assertEquals(ids(executor.executeSelect(plain, where, any)), ids(executor.executeSelect(indexed, where, any)), what);
+                    List<String> fns = List.of("COUNT", "SUM", "MIN");
+                    List<String> on = List.of("*", "id", "region");
+                    assertEquals(executor.executeAggregates(plain, fns, on, where, any).getData().get(0).getData(),
+                            executor.executeAggregates(indexed, fns, on, where, any).getData().get(0).getData(), what);
+                    assertEquals(executor.executeAggregate(plain, "*", "COUNT", where, any).getAggregateResult(),
+                            executor.executeAggregate(indexed, "*", "COUNT", where, any).getAggregateResult(), what);
+                }
+            }
+            // Checked against the rows themselves, not just the unindexed table
+            List<Long> expected = new ArrayList<>();
+            for (long i = 1; i <= 400; i++) if (i % 7 == 0 && i % 3 == 0) expected.add(i);
+            expected.add(401L);
+            assertEquals(expected, ids(executor.executeSelect(indexed, List.of(closed, active), false)));
+            assertEquals(20.0, executor.executeAggregate(indexed, "*", "COUNT", List.of(closed, active), false).getAggregateResult());
+            assertEquals(41.0, executor.executeAggregate(indexed, "*", "COUNT", "region", "=", "3").getAggregateResult());
+            assertEquals(41, executor.executeSelect(indexed, "region", "=", "3").getData().size());
+
+            // Persisted, and still maintained by inserts after a reload
+            Executor fresh = new Executor(new Database(), storage);
+            assertTrue(fresh.executeInsert(indexed, List.of(402, "closed", true, 9)).isSuccess());
+            assertNotNull(fresh.getOrLoadTable(indexed).getIndex("by_status"));
+            expected.add(402L);
+            assertEquals(expected, ids(fresh.executeSelect(indexed, List.of(closed, active), false)), mode.name());
+            assertEquals(21.0, fresh.executeAggregate(indexed, "*", "COUNT", List.of(closed, active), false).getAggregateResult());
+        }
+        storage.close();
+    }
+
+    @Test
+    void test_bitmap_count_with_mistyped_cells_matches_a_scan()
+    {
+        for (String table : new String[] { "typed", "untyped" })
+        {
+            List<Column> cols = new ArrayList<>();
+            cols.add(new Column("id", DataType.INTEGER, false));
+            cols.add(new Column("level", DataType.INTEGER, false));
+            executor.executeCreate(table, cols);
+            for (int i = 1; i <= 100; i++) executor.executeInsert(table, List.of(i, i % 4));
+            // Not type-checked: a string in an INTEGER column matches only by its text
+            executor.executeInsert(table, List.of(101, "2"));
+        }
+        executor.executeCreateIndex("by_level", "typed", "level", IndexType.BITMAP);
+        for (String op : new String[] { "=", "!=", "<", ">=" })
+        {
+            List<Condition> where = List.of(new Condition("level", op, "2"), new Condition("id", ">", "10"));
+            assertEquals(executor.executeAggregate("untyped", "*", "COUNT", where, false).getAggregateResult(),
+                    executor.executeAggregate("typed", "*", "COUNT", where, false).getAggregateResult(), op);
+            assertEquals(executor.executeAggregate("untyped", "*", "COUNT", "level", op, "2").getAggregateResult(),
+                    executor.executeAggregate("typed", "*", "COUNT", "level", op, "2").getAggregateResult(), op);
+        }
+    }
+
+    @Test
+    void test_multiple_conditions_errors()
+    {
+        executor.executeCreate("conds", createCols());
+        executor.executeInsert("conds", List.of(1, "a"));
+        List<Condition> bad = List.of(new Condition("val", "=", "a"), new Condition("id", "<", "x"));
+        assertFalse(executor.executeSelect("conds", bad, false).isSuccess());
+        assertFalse(executor.executeAggregates("conds", List.of("COUNT"), List.of("*"), bad, true).isSuccess());
+        List<Condition> ok = List.of(new Condition("val", "=", "a"), new Condition("id", "<", "5"));
+        assertEquals("Unknown aggregation function: MEDIAN",
+                executor.executeAggregates("conds", List.of("MEDIAN"), List.of("id"), ok, false).getMessage());
+        assertEquals(1, executor.executeSelect("conds", ok, false).getData().size());
+        // Unknown columns never match
+        assertEquals(1, executor.executeSelect("conds", List.of(ok.get(0), new Condition("nope", "=", "1")), true).getData().size());
+
+        ExecutionResult res = executor.executeCreateIndex("by_val", "conds", "val", IndexType.BITMAP);
+        assertTrue(res.isSuccess(), res.getMessage());
+        executor.executeCreate("scored", List.of(new Column("score", DataType.DOUBLE, false)));
+        assertEquals("BITMAP index needs a BOOLEAN, INTEGER or STRING column: score",
+                executor.executeCreateIndex("by_score", "scored", "score", IndexType.BITMAP).getMessage());
+    }
+
+    @Test
+    void test_where_trees_use_indexes_and_match_row_by_row_evaluation() throws Exception
+    {
+        List<WhereExpr> trees = List.of(
+            WhereExpr.and(List.of(WhereExpr.of("id", "<", "150"), WhereExpr.of("tier", "=", "gold"), WhereExpr.of("region", "=", "4"))),
+            WhereExpr.and(List.of(WhereExpr.of("score", ">=", "90"),
+                WhereExpr.or(List.of(WhereExpr.of("tier", "=", "gold"), WhereExpr.of("active", "=", "false"))))),
+            WhereExpr.or(List.of(WhereExpr.of("id", "=", "17"), WhereExpr.of("region", "=", "9"),
+                WhereExpr.and(List.of(WhereExpr.of("tier", "!=", "gold"), WhereExpr.of("id", ">", "390"))))),
+            WhereExpr.or(List.of(WhereExpr.of("score", "<", "2"), WhereExpr.of("active", "=", "true"))),
+            WhereExpr.and(List.of(WhereExpr.of("id", ">", "100"), WhereExpr.of("id", "<=", "120"),
+                WhereExpr.or(List.of(WhereExpr.of("region", "<", "3"), WhereExpr.of("region", ">", "7"))))));
+        for (StorageMode mode : StorageMode.values())
+        {
+            String table = "tree_" + mode.name().toLowerCase();
+            List<Column> cols = new ArrayList<>();
+            cols.add(Column.primaryKey("id", DataType.INTEGER));
+            cols.add(new Column("tier", DataType.STRING, false));
+            cols.add(new Column("region", DataType.INTEGER, false));
+            cols.add(new Column("score", DataType.DOUBLE, false));
+            cols.add(new Column("active", DataType.BOOLEAN, false));
+            executor.executeCreate(table, cols, mode);
+            for (int i = 1; i <= 400; i++)
+            {
+                executor.executeInsert(table, List.of(i, i % 6 == 0 ? "gold" : "basic", i % 10, (i * 31 % 400) / 4.0, i % 4 != 0));
+            }
+            assertTrue(executor.executeCreateIndex("by_tier", table, "tier", IndexType.HASH).isSuccess());
+            assertTrue(executor.executeCreateIndex("by_region", table, "region", IndexType.BITMAP).isSuccess());
+            assertTrue(executor.executeCreateIndex("by_score", table, "score", IndexType.BTREE).isSuccess());
+            assertTrue(executor.executeCreateIndex("by_active", table, "active", IndexType.BITMAP).isSuccess());
+
+            List<Row> all = executor.executeSelect(table, (WhereExpr) null).getData();
+            assertEquals(400, all.size());
+            for (WhereExpr where : trees)
+            {
+                String what = mode + " " + where;
+                List<Long> expected = new ArrayList<>();
+                double sum = 0;
+                for (Row r : all)
+                {
+                    if (!ConditionEvaluator.evaluate(r, where)) continue;
+                    expected.add(r.getRowId());
+                    sum += (Integer) r.get("id");
+                }
+                expected.sort(null);
+                assertEquals(expected, ids(executor.executeSelect(table, where)), what);
+                Row agg = executor.executeAggregates(table, List.of("COUNT", "SUM"), List.of("*", "id"), where).getData().get(0);
+                assertEquals((double) expected.size(), agg.get("COUNT(*)"), what);
+                assertEquals(sum, agg.get("SUM(id)"), what);
+            }
+        }
+        storage.close();
+    }
+}
@@ -0,0 +1,294 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.engine.Aggregator;
+import com.tinysql.engine.Cursor;
+import com.tinysql.model.*;
+import com.tinysql.storage.ColumnarRowStore;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashAggregateTest
+{
+
+    private static final int ROWS = 5000;
+    private static final String[] FUNCTIONS = { "COUNT", "SUM", "AVG", "MIN", "MAX", "avg" };
+    private static final String[] AGG_COLUMNS = { "id", "score", "ratio", "id", "score", "id" };
+
+    @TempDir
+    File spillDir;
+
+    private Table heap;
+    private Table columnar;
+
+    @BeforeEach
+    void setUp()
+    {
+        heap = newTable("group_heap");
+        columnar = newTable("group_columnar");
+        ColumnarRowStore.attach(columnar);
+        for (long i = 1; i <= ROWS; i++)
+        {
+            heap.insert(newRow(i, true));
+            columnar.insert(newRow(i, false));
+        }
+    }
+
+    private static Table newTable(String name)
+    {
+        Table t = new Table(name);
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("dept", DataType.STRING, false));
+        t.addColumn(new Column("bucket", DataType.INTEGER, false));
+        t.addColumn(new Column("score", DataType.DOUBLE, false));
+        t.addColumn(new Column("ratio", DataType.FLOAT, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        return t;
+    }
+
+    /** Every 97th row of the heap table holds cells of the wrong class. */
+    private static Row newRow(long i, boolean mistyped)
+    {
+        Row r = new Row(i);
+        boolean odd = mistyped && i % 97 == 0;
+        r.set("id", (int) i);
+        r.set("dept", i % 13 == 0 ? null : odd ? (Object) 7 : (Object) ("d" + (i % 5)));
+        r.set("bucket", i % 17 == 0 ? null : odd ? (Object) String.valueOf(i % 300) : (Object) (int) (i % 300));
+        r.set("score", i % 10 == 0 ? null : odd ? (Object) (float) i : (Object) (i * 1.5));
+        r.set("ratio", i / 4f);
+        r.set("active", i % 11 == 0 ? null : (Object) (i % 3 == 0));
+        return r;
+    }
+
+    /** Groups in first-seen order, each aggregated by Aggregator over its rows. */
+    private static Map<List<Object>, List<Double>> reference(Table t, String... keys)
+    {
+        Map<List<Object>, List<Row>> groups = new LinkedHashMap<>();
+        for (Row r : t.scan())
+        {
+            List<Object> key = new ArrayList<>();
+            for (String k : keys) key.add(r.get(k));
+            groups.computeIfAbsent(key, x -> new ArrayList<>()).add(r);
+        }
+        Map<List<Object>, List<Double>> out = new LinkedHashMap<>();
+        for (Map.Entry<List<Object>, List<Row>> e : groups.entrySet())
+        {
+            List<Double> values = new ArrayList<>();
+            for (int a = 0; a < FUNCTIONS.length; a++) values.add(Aggregator.calculate(e.getValue(), AGG_COLUMNS[a], FUNCTIONS[a]));
+            out.put(e.getKey(), values);
+        }
+        return out;
+    }
+
+    private static HashAggregate plan(Table t, String... keys)
+    {
+        List<String> scanned = new ArrayList<>(Arrays.asList(keys));
+        int[] columns = new int[AGG_COLUMNS.length];
+        for (int a = 0; a < AGG_COLUMNS.length; a++)
+        {
+            if (!scanned.contains(AGG_COLUMNS[a])) scanned.add(AGG_COLUMNS[a]);
+            columns[a] = scanned.indexOf(AGG_COLUMNS[a]);
+        }
+        return new HashAggregate(new BatchScan(t, scanned.toArray(new String[0])), keys, columns, FUNCTIONS, AGG_COLUMNS);
+    }
+
+    private static Map<List<Object>, List<Double>> run(HashAggregate plan, int keys)
+    {
+        Map<List<Object>, List<Double>> out = new LinkedHashMap<>();
+        try (Cursor c = new Cursor(plan))
+        {
+            while (c.hasNext())
+            {
+                Row r = c.next();
+                List<Object> key = new ArrayList<>();
+                for (int k = 0; k < keys; k++) key.add(r.get(k));
+                List<Double> values = new ArrayList<>();
+                for (int a = 0; a < FUNCTIONS.length; a++) values.add((Double) r.get(keys + a));
+                assertNull(out.put(key, values), "duplicate group " + key);
+            }
+        }
+        return out;
+    }
+
+    private static void assertGroups(Map<List<Object>, List<Double>> expected, Map<List<Object>, List<Double>> actual, String label)
+    {
+        assertEquals(expected.keySet(), actual.keySet(), label);
+        for (List<Object> key : expected.keySet())
+        {
+            List<Double> e = expected.get(key);
+            List<Double> a = actual.get(key);
+            for (int i = 0; i < e.size(); i++) assertEquals(e.get(i), a.get(i), 1e-6, label + " " + key + " " + FUNCTIONS[i]);
+        }
+    }
+
+    @Test
+    void test_single_keys_match_aggregator_in_first_seen_order()
+    {
+        for (Table t : new Table[] { heap, columnar })
+        {
+            for (String key : new String[] { "dept", "bucket", "active", "score" })
+            {
+                Map<List<Object>, List<Double>> expected = reference(t, key);
+                Map<List<Object>, List<Double>> actual = run(plan(t, key), 1);
+                assertGroups(expected, actual, t.getName() + " by " + key);
+                assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+            }
+        }
+    }
+
+    @Test
+    void test_composite_keys()
+    {
+        for (Table t : new Table[] { heap, columnar })
+        {
+            Map<List<Object>, List<Double>> expected = reference(t, "dept", "active", "bucket");
+            Map<List<Object>, List<Double>> actual = run(plan(t, "dept", "active", "bucket"), 3);
+            assertGroups(expected, actual, t.getName());
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        }
+    }
+
+    @Test
+    void test_output_schema()
+    {
+        try (Cursor c = new Cursor(plan(heap, "dept")))
+        {
+            Schema s = c.next().getSchema();
+            assertEquals("dept", s.name(0));
+            assertEquals("COUNT(id)", s.name(1));
+            assertEquals("AVG(id)", s.name(6));
+            assertEquals(7, s.size());
+        }
+        // A repeated expression is one column
+        HashAggregate twice = new HashAggregate(new BatchScan(heap, "dept", "id"), new String[] { "dept" },
+                new int[] { 1, 1 }, new String[] { "SUM", "sum" }, new String[] { "id", "id" });
+        try (Cursor c = new Cursor(twice))
+        {
+            assertEquals(2, c.next().getSchema().size());
+        }
+    }
+
+    @Test
+    void test_spills_when_groups_exceed_budget()
+    {
+        for (Table t : new Table[] { heap, columnar })
+        {
+            for (String[] keys : new String[][] { { "bucket" }, { "dept", "bucket" }, { "id" } })
+            {
+                HashAggregate p = plan(t, keys);
+                // Room for about 20 groups at a time
+                p.setMemoryBudget(20 * GroupTable.bytesPerGroup(keys.length, FUNCTIONS.length), spillDir);
+                Map<List<Object>, List<Double>> actual = run(p, keys.length);
+                assertGroups(reference(t, keys), actual, t.getName() + " by " + Arrays.toString(keys));
+                assertTrue(p.getSpillCount() > 0);
+                assertTrue(p.getSpillBytes() > 0);
+                assertEquals(0, spillDir.listFiles().length, "spill files left behind");
+            }
+        }
+    }
+
+    @Test
+    void test_closing_early_deletes_spill_files()
+    {
+        HashAggregate p = plan(heap, "id");
+        p.setMemoryBudget(1, spillDir);
+        try (Cursor c = new Cursor(p))
+        {
+            assertTrue(c.hasNext());
+            assertTrue(spillDir.listFiles().length > 0);
+        }
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    @Test
+    void test_filtered_and_empty_input()
+    {
+        BatchOperator filtered = new BatchFilter(new BatchScan(columnar, "dept", "id"), 1, columnar, "id", ">", "4990");
+        HashAggregate p = new HashAggregate(filtered, new String[] { "dept" }, new int[] { 1 }, new String[] { "COUNT" }, new String[] { "id" });
+        Map<Object, Double> counts = new HashMap<>();
+        try (Cursor c = new Cursor(p))
+        {
+            while (c.hasNext())
+            {
+                Row r = c.next();
+                counts.put(r.get(0), (Double) r.get(1));
+            }
+        }
+        // d0..d4, and null for id 4992
+        assertEquals(6, counts.size());
+        assertEquals(1.0, counts.get(null));
+        assertEquals(10.0, counts.values().stream().mapToDouble(Double::doubleValue).sum());
+
+        BatchOperator none = new BatchFilter(new BatchScan(columnar, "dept", "id"), 1, columnar, "id", ">", "99999");
+        try (Cursor c = new Cursor(new HashAggregate(none, new String[] { "dept" }, new int[] { 1 }, new String[] { "MAX" }, new String[] { "id" })))
+        {
+            assertFalse(c.hasNext());
+        }
+    }
+
+    @Test
+    void test_unknown_function()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new HashAggregate(new BatchScan(heap, "dept", "id"),
+                new String[] { "dept" }, new int[] { 1 }, new String[] { "MEDIAN" }, new String[] { "id" }));
+    }
+
+    private static HashAggregate parallel(Table t, ForkJoinPool pool, String... keys)
+    {
+        HashAggregate p = plan(t, keys);
+        Morsels morsels = new Morsels(t);
+        List<String> scanned = new ArrayList<>(Arrays.asList(keys));
+        for (String c : AGG_COLUMNS)
+        {
+            if (!scanned.contains(c)) scanned.add(c);
+        }
+        p.setParallelism(pool, 4, () -> new BatchScan(morsels, scanned.toArray(new String[0])));
+        return p;
+    }
+
+    @Test
+    void test_parallel_partial_tables_merge()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (Table t : new Table[] { heap, columnar })
+            {
+                for (String[] keys : new String[][] { { "dept" }, { "bucket" }, { "dept", "active" } })
+                {
+                    assertGroups(reference(t, keys), run(parallel(t, pool, keys), keys.length), t.getName() + " " + Arrays.toString(keys));
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void test_parallel_falls_back_to_serial_spilling()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            HashAggregate p = parallel(heap, pool, "bucket");
+            p.setMemoryBudget(40 * GroupTable.bytesPerGroup(1, FUNCTIONS.length), spillDir);
+            assertGroups(reference(heap, "bucket"), run(p, 1), "spilled");
+            assertTrue(p.getSpillCount() > 0);
+            assertEquals(0, spillDir.listFiles().length);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
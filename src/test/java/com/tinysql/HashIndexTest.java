@@ -0,0 +1,155 @@
+package com.tinysql.index;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashIndexTest
+{
+
+    private Table table;
+
+    @BeforeEach
+    void setUp()
+    {
+        table = new Table("people");
+        table.addColumn(new Column("id", DataType.INTEGER, true));
+        table.addColumn(new Column("name", DataType.STRING, false));
+        table.addColumn(new Column("score", DataType.DOUBLE, false));
+        table.addColumn(new Column("ratio", DataType.FLOAT, false));
+    }
+
+    private Row row(long id, Object name, Object score)
+    {
+        Row r = new Row(id);
+        r.set("id", (int) id);
+        r.set("name", name);
+        r.set("score", score);
+        r.set("ratio", id / 4f);
+        return r;
+    }
+
+    @Test
+    void test_build_then_maintained_on_insert()
+    {
+        for (long i = 1; i <= 100; i++) table.insert(row(i, "n" + (i % 10), i * 1.5));
+        HashIndex index = new HashIndex("by_name", table, "name");
+        table.addIndex(index);
+        index.build(table.scan());
+        assertEquals(10, index.keyCount());
+        assertArrayEquals(new long[] { 3, 13, 23, 33, 43, 53, 63, 73, 83, 93 }, index.lookup("n3"));
+
+        table.insert(row(101, "n3", 0.0));
+        table.insert(row(102, "fresh", 0.0));
+        assertEquals(11, index.lookup("n3").length);
+        assertArrayEquals(new long[] { 102 }, index.lookup("fresh"));
+        assertEquals(0, index.lookup("missing").length);
+    }
+
+    @Test
+    void test_repeated_and_out_of_order_ids_kept_once()
+    {
+        HashIndex index = new HashIndex("by_id", table, "id");
+        table.addIndex(index);
+        table.insert(row(5, "a", 1.0));
+        Row late = row(2, "a", 1.0);
+        late.set("id", 5);
+        table.insert(late);
+        // A replayed log record stores the same row again
+        table.insert(row(5, "a", 1.0));
+        assertArrayEquals(new long[] { 2, 5 }, index.lookup(5));
+    }
+
+    @Test
+    void test_nulls_skipped_and_mistyped_cells_always_candidates()
+    {
+        HashIndex index = new HashIndex("by_name", table, "name");
+        table.addIndex(index);
+        table.insert(row(1, "a", 1.0));
+        table.insert(row(2, null, 1.0));
+        table.insert(row(3, 42, 1.0));
+        assertArrayEquals(new long[] { 1, 3 }, index.lookup("a"));
+        assertArrayEquals(new long[] { 3 }, index.lookup("b"));
+        assertThrows(IllegalArgumentException.class, () -> index.lookup(7));
+    }
+
+    @Test
+    void test_floating_point_keys_within_epsilon()
+    {
+        HashIndex scores = new HashIndex("by_score", table, "score");
+        HashIndex ratios = new HashIndex("by_ratio", table, "ratio");
+        table.addIndex(scores);
+        table.addIndex(ratios);
+        table.insert(row(1, "a", 0.1 + 0.2));
+        table.insert(row(2, "a", 7.0));
+        table.insert(row(3, "a", 7.0000004));
+        table.insert(row(4, "a", -2.5));
+
+        assertArrayEquals(new long[] { 1 }, scores.lookup(0.3));
+        assertArrayEquals(new long[] { 2, 3 }, scores.lookup(7.0));
+        assertArrayEquals(new long[] { 4 }, scores.lookup(-2.5));
+        assertArrayEquals(new long[] { 2 }, ratios.lookup(0.5f));
+    }
+
+    @Test
+    void test_large_and_non_finite_floating_point_keys()
+    {
+        HashIndex scores = new HashIndex("by_score", table, "score");
+        HashIndex ratios = new HashIndex("by_ratio", table, "ratio");
+        table.addIndex(scores);
+        table.addIndex(ratios);
+        table.insert(row(1, "a", 1e13));
+        table.insert(row(2, "a", -1e13));
+        table.insert(row(3, "a", 1e300));
+        table.insert(row(4, "a", Double.NaN));
+        table.insert(row(5, "a", Double.NEGATIVE_INFINITY));
+        table.insert(row(6, "a", 4e12));
+        Row huge = row(7, "a", 0.0);
+        huge.set("ratio", Float.MAX_VALUE);
+        table.insert(huge);
+
+        // Out-of-range values share one bucket, so each is a candidate of the others
+        long[] outOfRange = { 1, 2, 3, 4, 5 };
+        assertArrayEquals(outOfRange, scores.lookup(1e13));
+        assertArrayEquals(outOfRange, scores.lookup(-1e13));
+        assertArrayEquals(outOfRange, scores.lookup(1e300));
+        assertArrayEquals(outOfRange, scores.lookup(Double.POSITIVE_INFINITY));
+        assertArrayEquals(new long[] { 1, 2, 3, 4, 5, 6 }, scores.lookup(4e12));
+        assertArrayEquals(new long[] { 1, 2, 3, 4, 5, 7 }, scores.lookup(0.0));
+        assertArrayEquals(new long[] { 7 }, ratios.lookup(Float.MAX_VALUE));
+    }
+
+    @Test
+    void test_write_and_read_round_trip() throws IOException
+    {
+        HashIndex index = new HashIndex("by_name", table, "name");
+        table.addIndex(index);
+        for (long i = 1; i <= 50; i++) table.insert(row(i, i % 7 == 0 ? (Object) 1 : "n" + (i % 5), 0.0));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        HashIndex copy = HashIndex.read("by_name", table, "name", new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.keyCount(), copy.keyCount());
+        for (String key : new String[] { "n0", "n1", "n4", "none" })
+        {
+            assertArrayEquals(index.lookup(key), copy.lookup(key));
+        }
+        copy.add(row(51, "n1", 0.0));
+        assertEquals(index.lookup("n1").length + 1, copy.lookup("n1").length);
+    }
+
+    @Test
+    void test_clear_and_unknown_column()
+    {
+        HashIndex index = new HashIndex("by_id", table, "ID");
+        table.addIndex(index);
+        assertEquals("id", index.getColumn());
+        table.insert(row(1, "a", 1.0));
+        table.clear();
+        assertEquals(0, index.lookup(1).length);
+        assertThrows(IllegalArgumentException.class, () -> table.addIndex(new HashIndex("BY_ID", table, "name")));
+        assertThrows(IllegalArgumentException.class, () -> new HashIndex("x", table, "nope"));
+    }
+}
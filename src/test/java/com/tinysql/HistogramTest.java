@@ -0,0 +1,68 @@
+package com.tinysql.stats;
+
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest
+{
+
+    private static List<Integer> range(int from, int to)
+    {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i <= to; i++) values.add(i);
+        return values;
+    }
+
+    @Test
+    void test_equi_depth_buckets()
+    {
+        Histogram h = Histogram.equiDepth(range(1, 100), 4);
+        assertEquals(4, h.getBucketCount());
+        assertEquals(Arrays.asList(1, 25, 50, 75, 100), h.getBounds());
+        for (int b = 0; b < 4; b++) assertEquals(25, h.getCount(b));
+        assertEquals("[1, 25]:25 (25, 50]:25 (50, 75]:25 (75, 100]:25", h.toString());
+
+        assertNull(Histogram.equiDepth(Collections.emptyList(), 4));
+        assertEquals(3, Histogram.equiDepth(range(1, 3), 32).getBucketCount());
+    }
+
+    @Test
+    void test_repeated_value_stays_in_one_bucket()
+    {
+        List<Integer> values = new ArrayList<>(Collections.nCopies(80, 7));
+        values.addAll(range(8, 27));
+        Histogram h = Histogram.equiDepth(values, 10);
+        assertEquals(100, h.getTotal());
+        assertEquals(7, h.getBounds().get(1));
+        assertEquals(80, h.getCount(0));
+        assertEquals(80, h.estimateAtMost(7), 0.001);
+    }
+
+    @Test
+    void test_estimates_and_later_values()
+    {
+        Histogram h = Histogram.equiDepth(range(1, 100), 4);
+        assertEquals(0, h.estimateAtMost(0), 0.001);
+        assertEquals(50, h.estimateAtMost(50), 0.001);
+        assertEquals(62, h.estimateAtMost(62), 0.001);
+        assertEquals(100, h.estimateAtMost(1000), 0.001);
+
+        h.add(500);
+        h.add(-5);
+        h.add(30);
+        assertEquals(-5, h.getBounds().get(0));
+        assertEquals(500, h.getBounds().get(4));
+        assertEquals(26, h.getCount(0));
+        assertEquals(26, h.getCount(1));
+        assertEquals(26, h.getCount(3));
+        assertEquals(103, h.getTotal());
+
+        Histogram words = Histogram.equiDepth(Arrays.asList("apple", "kiwi", "pear", "plum"), 2);
+        assertEquals(Arrays.asList("apple", "kiwi", "plum"), words.getBounds());
+        assertEquals(3, words.estimateAtMost("peach"), 0.001);
+    }
+}
@@ -0,0 +1,58 @@
+package com.tinysql.stats;
+
+import org.junit.jupiter.api.*;
+import java.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest
+{
+
+    private static void assertWithin(long expected, long actual, double fraction)
+    {
+        assertTrue(Math.abs(actual - expected) <= expected * fraction, "estimated " + actual + " for " + expected);
+    }
+
+    @Test
+    void test_estimates_large_and_small_counts()
+    {
+        HyperLogLog hll = new HyperLogLog();
+        assertEquals(0, hll.estimate());
+        for (int i = 0; i < 100_000; i++) hll.add(i);
+        // Repeats change nothing
+        for (int i = 0; i < 100_000; i++) hll.add(i);
+        assertWithin(100_000, hll.estimate(), 0.05);
+
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 50; i++) small.add("v" + (i % 10));
+        assertEquals(10, small.estimate());
+
+        HyperLogLog strings = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) strings.add("user" + i + "@example.com");
+        assertWithin(20_000, strings.estimate(), 0.05);
+    }
+
+    @Test
+    void test_merge_counts_the_union()
+    {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) a.add(i);
+        for (int i = 20_000; i < 50_000; i++) b.add(i);
+        a.merge(b);
+        assertWithin(50_000, a.estimate(), 0.05);
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new HyperLogLog(10)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    }
+
+    @Test
+    void test_round_trip() throws IOException
+    {
+        HyperLogLog hll = new HyperLogLog(8);
+        for (int i = 0; i < 1000; i++) hll.add(i * 1.5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hll.write(new DataOutputStream(bytes));
+        HyperLogLog read = HyperLogLog.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(8, read.getPrecision());
+        assertEquals(hll.estimate(), read.estimate());
+    }
+}
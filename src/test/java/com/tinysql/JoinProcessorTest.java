@@ -2,7 +2,9 @@ package com.tinysql.engine;
 
 import com.tinysql.model.*;
 import org.junit.jupiter.api.*;
+import java.io.File;
 import java.util.List;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 class JoinProcessorTest
@@ -118,4 +120,141 @@ class JoinProcessorTest
         assertTrue(res.isSuccess());
         assertEquals(0, res.getData().size());
     }
-}
\ No newline at end of file
+
+    private void assertSameAsNestedLoop(String col1, String col2)
+    {
+        List<Row> expected = JoinProcessor.executeNestedLoopJoin(t1, t2, col1, col2).getData();
+        List<Row> actual = JoinProcessor.executeJoin(t1, t2, col1, col2).getData();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(expected.get(i).getRowId(), actual.get(i).getRowId());
+            assertEquals(expected.get(i).getData(), actual.get(i).getData());
+        }
+    }
+
+    @Test
+    void test_hash_join_matches_nested_loop()
+    {
+        Random rnd = new Random(7);
+        for (long i = 1; i <= 300; i++)
+        {
+            Row u = new Row(i); u.set("id", rnd.nextInt(50)); u.set("name", "u" + i);
+            t1.insert(u);
+        }
+        for (long i = 1; i <= 40; i++)
+        {
+            Row o = new Row(i); o.set("user_id", i % 9 == 0 ? null : rnd.nextInt(50)); o.set("total", i * 1.0);
+            t2.insert(o);
+        }
+
+        // Right side smaller, then left side smaller
+        assertSameAsNestedLoop("id", "user_id");
+        assertSameAsNestedLoop("id", "id");
+        Table tmp = t1; t1 = t2; t2 = tmp;
+        assertSameAsNestedLoop("user_id", "id");
+    }
+
+    @Test
+    void test_mixed_key_types_compare_as_text()
+    {
+        Row u1 = new Row(1); u1.set("id", 1); u1.set("name", "1");
+        Row u2 = new Row(2); u2.set("id", 2L); u2.set("name", "1.0");
+        t1.insert(u1);
+        t1.insert(u2);
+
+        Row o1 = new Row(1); o1.set("user_id", "1"); o1.set("total", 1.0);
+        Row o2 = new Row(2); o2.set("user_id", 2); o2.set("total", 1.0f);
+        t2.insert(o1);
+        t2.insert(o2);
+
+        // "1" = 1 and 2L = 2 by string form
+        assertEquals(2, JoinProcessor.executeJoin(t1, t2, "id", "user_id").getData().size());
+        // 1.0 (Double) and 1.0f (Float) print alike
+        assertEquals(2, JoinProcessor.executeJoin(t1, t2, "name", "total").getData().size());
+        assertSameAsNestedLoop("id", "user_id");
+        assertSameAsNestedLoop("name", "total");
+    }
+
+    @Test
+    void test_parallel_join_matches_serial()
+    {
+        Random rnd = new Random(11);
+        int n = JoinProcessor.PARALLEL_THRESHOLD;
+        for (long i = 1; i <= n; i++)
+        {
+            Row u = new Row(i); u.set("id", rnd.nextInt(n)); u.set("name", "u" + (i % 100));
+            t1.insert(u);
+        }
+        for (long i = 1; i <= n / 2; i++)
+        {
+            Row o = new Row(i); o.set("user_id", i % 13 == 0 ? null : rnd.nextInt(n)); o.set("total", i * 1.0);
+            t2.insert(o);
+        }
+
+        for (String[] cols : new String[][] { { "id", "user_id" }, { "name", "user_id" } })
+        {
+            List<Row> serial = JoinProcessor.executeJoin(t1, t2, cols[0], cols[1], 1).getData();
+            List<Row> parallel = JoinProcessor.executeJoin(t1, t2, cols[0], cols[1], 4).getData();
+            assertEquals(serial.size(), parallel.size());
+            for (int i = 0; i < serial.size(); i++)
+            {
+                assertEquals(serial.get(i).getRowId(), parallel.get(i).getRowId());
+                assertEquals(serial.get(i).getData(), parallel.get(i).getData());
+            }
+        }
+        assertTrue(JoinProcessor.executeJoin(t1, t2, "id", "user_id", 4).getData().size() > 0);
+    }
+
+    @Test
+    void test_grace_join_spills_and_cleans_up()
+    {
+        Random rnd = new Random(3);
+        for (long i = 1; i <= 2000; i++)
+        {
+            Row u = new Row(i); u.set("id", rnd.nextInt(500)); u.set("name", "user-" + i);
+            t1.insert(u);
+        }
+        for (long i = 1; i <= 1500; i++)
+        {
+            Row o = new Row(i); o.set("user_id", i % 11 == 0 ? String.valueOf(i % 500) : rnd.nextInt(500)); o.set("total", i * 0.5);
+            t2.insert(o);
+        }
+
+        File dir = new File("data/join_spill_test");
+        dir.mkdirs();
+        try
+        {
+            ExecutionResult spilled = JoinProcessor.executeJoin(t1, t2, "id", "user_id", 1, 4096, dir);
+            ExecutionResult memory = JoinProcessor.executeJoin(t1, t2, "id", "user_id");
+
+            assertTrue(spilled.isSuccess());
+            assertTrue(spilled.getSpillCount() > 2);
+            assertTrue(spilled.getSpillBytes() > 0);
+            assertTrue(spilled.getMessage().contains("spilled"));
+            assertEquals(0, memory.getSpillCount());
+
+            List<Row> expected = memory.getData();
+            List<Row> actual = spilled.getData();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++)
+            {
+                assertEquals(expected.get(i).getRowId(), actual.get(i).getRowId());
+                assertEquals(expected.get(i).getData(), actual.get(i).getData());
+            }
+            assertEquals(0, dir.list().length);
+
+            // A tiny budget forces partitions to be split again
+            ExecutionResult recursive = JoinProcessor.executeJoin(t1, t2, "id", "user_id", 1, 64, dir);
+            assertTrue(recursive.getSpillCount() > spilled.getSpillCount());
+            assertEquals(expected.size(), recursive.getData().size());
+            assertEquals(expected.get(expected.size() - 1).getData(), recursive.getData().get(expected.size() - 1).getData());
+            assertEquals(0, dir.list().length);
+        }
+        finally
+        {
+            for (File f : dir.listFiles()) f.delete();
+            dir.delete();
+        }
+    }
+}
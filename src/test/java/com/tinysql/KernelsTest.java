@@ -0,0 +1,153 @@
+package com.tinysql.engine.batch;
+
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class KernelsTest
+{
+
+    private static final String[] OPS = { "=", ">", "<", ">=", "<=", "!=", "~" };
+    // Lengths around common lane counts, plus a full batch
+    private static final int[] LENGTHS = { 0, 1, 7, 8, 15, 16, 17, 63, 64, 65, 1000, Batch.CAPACITY };
+
+    private int[] ints;
+    private float[] floats;
+    private double[] doubles;
+    private boolean[] nulls;
+
+    @BeforeEach
+    void setUp()
+    {
+        Random rnd = new Random(42);
+        int n = Batch.CAPACITY;
+        ints = new int[n];
+        floats = new float[n];
+        doubles = new double[n];
+        nulls = new boolean[n];
+        for (int i = 0; i < n; i++)
+        {
+            nulls[i] = rnd.nextInt(8) == 0;
+            if (nulls[i]) continue;
+            ints[i] = rnd.nextInt(21) - 10 + (i % 3 == 0 ? Integer.MAX_VALUE - 10 : 0);
+            floats[i] = (rnd.nextInt(41) - 20) / 4f;
+            doubles[i] = (rnd.nextInt(41) - 20) / 4.0;
+        }
+    }
+
+    private static List<Kernels> implementations()
+    {
+        List<Kernels> all = new ArrayList<>();
+        all.add(Kernels.scalar());
+        Kernels vector = Kernels.vector();
+        if (vector != null) all.add(vector);
+        return all;
+    }
+
+    private static int[] slots(int[] sel, int count)
+    {
+        int[] out = new int[count];
+        System.arraycopy(sel, 0, out, 0, count);
+        return out;
+    }
+
+    private int[] expected(int n, java.util.function.IntPredicate test)
+    {
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+        {
+            if (!nulls[i] && test.test(i)) hits.add(i);
+        }
+        return hits.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void test_selection_matches_scalar_comparisons()
+    {
+        for (Kernels k : implementations())
+        {
+            for (String operator : OPS)
+            {
+                int op = Kernels.opCode(operator);
+                for (int n : LENGTHS)
+                {
+                    int[] sel = new int[Batch.CAPACITY];
+                    String label = k.name() + " " + operator + " n=" + n;
+                    assertArrayEquals(expected(n, i -> ScalarKernels.matches(ints[i], op, 3)),
+                            slots(sel, k.select(ints, nulls, n, op, 3, sel)), label);
+                    assertArrayEquals(expected(n, i -> ScalarKernels.matches(floats[i], op, 1.25f)),
+                            slots(sel, k.select(floats, nulls, n, op, 1.25f, sel)), label);
+                    assertArrayEquals(expected(n, i -> ScalarKernels.matches(doubles[i], op, -2.5)),
+                            slots(sel, k.select(doubles, nulls, n, op, -2.5, sel)), label);
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_reductions_match_sequential_loops()
+    {
+        for (Kernels k : implementations())
+        {
+            for (int n : LENGTHS)
+            {
+                String label = k.name() + " n=" + n;
+                long isum = 0;
+                double fsum = 0, dsum = 0;
+                double imin = Double.MAX_VALUE, fmin = Double.MAX_VALUE, dmin = Double.MAX_VALUE;
+                double imax = -Double.MAX_VALUE, fmax = -Double.MAX_VALUE, dmax = -Double.MAX_VALUE;
+                for (int i = 0; i < n; i++)
+                {
+                    isum += ints[i];
+                    fsum += floats[i];
+                    dsum += doubles[i];
+                    if (nulls[i]) continue;
+                    imin = Math.min(imin, ints[i]);
+                    imax = Math.max(imax, ints[i]);
+                    fmin = Math.min(fmin, floats[i]);
+                    fmax = Math.max(fmax, floats[i]);
+                    dmin = Math.min(dmin, doubles[i]);
+                    dmax = Math.max(dmax, doubles[i]);
+                }
+                assertEquals(isum, k.sum(ints, n), label);
+                assertEquals(fsum + 1, k.sum(floats, n, 1), 1e-9, label);
+                assertEquals(dsum + 1, k.sum(doubles, n, 1), 1e-9, label);
+                assertEquals(imin, k.min(ints, nulls, n), label);
+                assertEquals(imax, k.max(ints, nulls, n), label);
+                assertEquals(fmin, k.min(floats, nulls, n), label);
+                assertEquals(fmax, k.max(floats, nulls, n), label);
+                assertEquals(dmin, k.min(doubles, nulls, n), label);
+                assertEquals(dmax, k.max(doubles, nulls, n), label);
+            }
+        }
+    }
+
+    @Test
+    void test_all_null_extremes_are_sentinels()
+    {
+        boolean[] allNull = new boolean[100];
+        java.util.Arrays.fill(allNull, true);
+        for (Kernels k : implementations())
+        {
+            assertEquals(Double.MAX_VALUE, k.min(new int[100], allNull, 100));
+            assertEquals(-Double.MAX_VALUE, k.max(new double[100], allNull, 100));
+            assertEquals(-Double.MAX_VALUE, k.max(new float[100], allNull, 100));
+        }
+    }
+
+    @Test
+    void test_scalar_switch()
+    {
+        // Without -Dtinysql.simd=false the engine uses the vector kernels whenever they load
+        if (Boolean.parseBoolean(System.getProperty("tinysql.simd", "true")) && Kernels.vector() != null)
+        {
+            assertNotSame(Kernels.scalar(), Kernels.get());
+        }
+        else
+        {
+            assertSame(Kernels.scalar(), Kernels.get());
+        }
+    }
+}
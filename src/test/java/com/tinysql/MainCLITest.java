@@ -129,6 +129,140 @@ class MainCLITest
         assertTrue(output.contains("RESULT:"));
     }
 
+    @Test
+    void test_group_by()
+    {
+        String create = "CREATE TABLE staff (dept TEXT, pay INT)";
+        String insert1 = "INSERT INTO staff VALUES a 10";
+        String insert2 = "INSERT INTO staff VALUES b 20";
+        String insert3 = "INSERT INTO staff VALUES a 30";
+
+        String group = "SELECT dept, SUM(pay), COUNT(*) FROM staff WHERE pay > 5 GROUP BY dept";
+        String notKey = "SELECT pay, SUM(pay) FROM staff GROUP BY dept";
+        String noBy = "SELECT SUM(pay) FROM staff GROUP dept";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + insert3 + "\n" + group + "\n" + notKey + "\n" + noBy);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("2 groups found"));
+        assertTrue(output.contains("SUM(pay)=40.0"));
+        assertTrue(output.contains("Syntax Error: pay is not in GROUP BY"));
+        assertTrue(output.contains("Syntax Error: GROUP BY"));
+    }
+
+    @Test
+    void test_multi_agg()
+    {
+        String create = "CREATE TABLE scores (a INTEGER, b DOUBLE)";
+        String insert1 = "INSERT INTO scores VALUES 1 2.5";
+        String insert2 = "INSERT INTO scores VALUES 3 0.5";
+
+        String agg = "SELECT SUM(a), MIN(a), MAX(b), COUNT(*) FROM scores";
+        String bad = "SELECT SUM(a), b FROM scores";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + agg + "\n" + bad);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("AGGREGATE RESULT: SUM(a)=4.0, MIN(a)=1.0, MAX(b)=2.5, COUNT(*)=2.0"));
+        assertTrue(output.contains("Syntax Error"));
+    }
+
+    @Test
+    void test_create_index()
+    {
+        String create = "CREATE TABLE tagged (id INT, tag TEXT)";
+        String insert1 = "INSERT INTO tagged VALUES 1 red";
+        String insert2 = "INSERT INTO tagged VALUES 2 blue";
+        String index = "CREATE INDEX by_tag ON tagged(tag)";
+        String select = "SELECT * FROM tagged WHERE tag = red";
+        String invalid = "CREATE INDEX by_id tagged id";
+        String ordered = "CREATE INDEX by_id ON tagged(id) USING BTREE";
+        String range = "SELECT * FROM tagged WHERE id > 1";
+        String unknownType = "CREATE INDEX by_id2 ON tagged(id) USING TRIE";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + index + "\n" + select + "\n" + invalid
+                + "\n" + ordered + "\n" + range + "\n" + unknownType);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("Created index by_tag on tagged(tag)"));
+        assertTrue(output.contains("1 rows found"));
+        assertTrue(output.contains("Syntax Error: Expected CREATE INDEX"));
+        assertTrue(output.contains("Created index by_id on tagged(id)"));
+        assertTrue(output.contains("Syntax Error: Unknown index type 'TRIE'"));
+    }
+
+    @Test
+    void test_analyze_and_show_stats()
+    {
+        String create = "CREATE TABLE measured (id INT, tag TEXT)";
+        String insert1 = "INSERT INTO measured VALUES 1 red";
+        String insert2 = "INSERT INTO measured VALUES 2 blue";
+        String insert3 = "INSERT INTO measured VALUES 3 red";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + "SHOW STATS measured" + "\n" + "ANALYZE measured"
+                + "\n" + insert3 + "\n" + "SHOW STATS measured" + "\n" + "ANALYZE nowhere" + "\n" + "SHOW measured");
+
+        String output = outContent.toString();
+        assertTrue(output.contains("Stats for measured: 2 rows, not analyzed"));
+        assertTrue(output.contains("Analyzed measured: 2 rows"));
+        assertTrue(output.contains("Stats for measured: 3 rows, analyzed, 1 inserts since"));
+        assertTrue(output.contains("histogram=[blue, blue]:1 (blue, red]:2"));
+        assertTrue(output.contains("Table not found: nowhere"));
+        assertTrue(output.contains("Syntax Error: Expected SHOW STATS <table>"));
+    }
+
+    @Test
+    void test_where_and_or()
+    {
+        String create = "CREATE TABLE tickets (id INT, status TEXT, urgent BOOLEAN)";
+        String insert1 = "INSERT INTO tickets VALUES 1 open true";
+        String insert2 = "INSERT INTO tickets VALUES 2 open false";
+        String insert3 = "INSERT INTO tickets VALUES 3 closed true";
+        String index = "CREATE INDEX by_status ON tickets(status) USING BITMAP";
+        String both = "SELECT * FROM tickets WHERE status = open AND urgent = true";
+        String either = "SELECT COUNT(*) FROM tickets WHERE status = closed OR id = 2";
+        String mixed = "SELECT SUM(id) FROM tickets WHERE id = 2 AND urgent = false OR id = 3";
+        String nested = "SELECT SUM(id) FROM tickets WHERE (id = 1 OR id = 2) AND (urgent = true OR status = closed)";
+        String unclosed = "SELECT * FROM tickets WHERE (id = 1 OR id = 2";
+        String incomplete = "SELECT * FROM tickets WHERE id =";
+        String unknownJoin = "SELECT * FROM tickets WHERE id = 1 XOR id = 2";
+        String grouped = "SELECT status, COUNT(*) FROM tickets WHERE id > 0 AND id < 3 GROUP BY status";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + insert3 + "\n" + index + "\n" + both
+                + "\n" + either + "\n" + mixed + "\n" + nested + "\n" + unclosed + "\n" + incomplete
+                + "\n" + unknownJoin + "\n" + grouped);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("Created index by_status on tickets(status)"));
+        assertTrue(output.contains("1 rows found"));
+        assertTrue(output.contains("AGGREGATE RESULT: 2.0"));
+        assertTrue(output.contains("AGGREGATE RESULT: 5.0"));
+        assertTrue(output.contains("AGGREGATE RESULT: 1.0"));
+        assertTrue(output.contains("Syntax Error: Missing ')' in WHERE"));
+        assertTrue(output.contains("Syntax Error: Expected <column> <operator> <value> in WHERE"));
+        assertTrue(output.contains("Syntax Error: Unexpected 'XOR' in WHERE"));
+        assertTrue(output.contains("Syntax Error: GROUP BY takes a single WHERE condition"));
+    }
+
+    @Test
+    void test_primary_key()
+    {
+        String create = "CREATE TABLE accounts (id INT PRIMARY KEY, owner TEXT) USING CLUSTERED";
+        String insert1 = "INSERT INTO accounts VALUES 2 bob";
+        String insert2 = "INSERT INTO accounts VALUES 1 alice";
+        String duplicate = "INSERT INTO accounts VALUES 2 carol";
+        String select = "SELECT * FROM accounts WHERE id = 2";
+        String unkeyed = "CREATE TABLE loose (id INT, owner TEXT) USING CLUSTERED";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + duplicate + "\n" + select + "\n" + unkeyed);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("Created accounts"));
+        assertTrue(output.contains("Duplicate primary key id: 2"));
+        assertTrue(output.contains("1 rows found"));
+        assertTrue(output.contains("CLUSTERED storage needs a PRIMARY KEY column"));
+    }
+
     @Test
     void test_join()
     {
@@ -142,6 +276,37 @@ class MainCLITest
         assertTrue(output.contains("Syntax: JOIN")); 
     }
     
+    @Test
+    void test_paged_table()
+    {
+        String create = "CREATE TABLE paged_users (id INT, age INT) USING PAGED";
+        String insert = "INSERT INTO paged_users VALUES 1 25";
+        String select = "SELECT * FROM paged_users WHERE age > 20";
+        String badMode = "CREATE TABLE bad_mode (id INT) USING SIDEWAYS";
+
+        run(create + "\n" + insert + "\n" + select + "\n" + badMode);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("Created paged_users"));
+        assertTrue(output.contains("1 rows found"));
+        assertTrue(output.contains("Unknown storage mode"));
+    }
+
+    @Test
+    void test_columnar_table()
+    {
+        String create = "CREATE TABLE col_users (id INT, age INT) USING COLUMNAR";
+        String insert1 = "INSERT INTO col_users VALUES 1 25";
+        String insert2 = "INSERT INTO col_users VALUES 2 15";
+        String select = "SELECT * FROM col_users WHERE age > 20";
+
+        run(create + "\n" + insert1 + "\n" + insert2 + "\n" + select);
+
+        String output = outContent.toString();
+        assertTrue(output.contains("Created col_users"));
+        assertTrue(output.contains("1 rows found"));
+    }
+
     @Test
     void test_empty()
     {
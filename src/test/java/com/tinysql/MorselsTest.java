@@ -0,0 +1,99 @@
+package com.tinysql.engine.batch;
+
+import com.tinysql.model.*;
+import com.tinysql.storage.ColumnarRowStore;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MorselsTest
+{
+
+    private static Table newTable(String name, boolean columnar, int rows)
+    {
+        Table t = new Table(name);
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        if (columnar) ColumnarRowStore.attach(t);
+        for (int i = 1; i <= rows; i++)
+        {
+            Row r = new Row(i);
+            r.set("id", i);
+            t.insert(r);
+        }
+        return t;
+    }
+
+    /** Ids read by each of several scans sharing one set of morsels. */
+    private static List<List<Integer>> readConcurrently(Table t, int workers)
+    {
+        Morsels morsels = new Morsels(t);
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try
+        {
+            List<ForkJoinTask<List<Integer>>> tasks = new ArrayList<>();
+            for (int w = 0; w < workers; w++)
+            {
+                tasks.add(pool.submit(() ->
+                {
+                    List<Integer> ids = new ArrayList<>();
+                    try (BatchScan scan = new BatchScan(morsels, "id"))
+                    {
+                        scan.open();
+                        Batch b;
+                        while ((b = scan.nextBatch()) != null)
+                        {
+                            for (int k = 0; k < b.selected; k++) ids.add((Integer) b.columns[0].get(b.selection[k]));
+                        }
+                    }
+                    return ids;
+                }));
+            }
+            List<List<Integer>> out = new ArrayList<>();
+            for (ForkJoinTask<List<Integer>> task : tasks) out.add(task.join());
+            return out;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void test_every_row_read_exactly_once()
+    {
+        for (boolean columnar : new boolean[] { false, true })
+        {
+            for (int rows : new int[] { 0, 1, Batch.CAPACITY, 10 * Batch.CAPACITY + 17 })
+            {
+                Table t = newTable("morsels", columnar, rows);
+                ConcurrentHashMap<Integer, Integer> seen = new ConcurrentHashMap<>();
+                for (List<Integer> ids : readConcurrently(t, 4))
+                {
+                    for (Integer id : ids) assertNull(seen.put(id, id), "read twice: " + id);
+                }
+                assertEquals(rows, seen.size(), (columnar ? "columnar " : "heap ") + rows);
+            }
+        }
+    }
+
+    @Test
+    void test_rows_added_later_are_not_seen()
+    {
+        Table t = newTable("morsels_later", true, 100);
+        Morsels morsels = new Morsels(t);
+        Row r = new Row(101);
+        r.set("id", 101);
+        t.insert(r);
+        try (BatchScan scan = new BatchScan(morsels, "id"))
+        {
+            scan.open();
+            assertEquals(100, scan.nextBatch().size);
+            assertNull(scan.nextBatch());
+            assertNull(scan.nextBatch());
+        }
+    }
+}
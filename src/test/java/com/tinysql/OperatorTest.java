@@ -0,0 +1,107 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperatorTest
+{
+
+    private Table users;
+    private Table orders;
+
+    @BeforeEach
+    void setUp()
+    {
+        users = new Table("users");
+        users.addColumn(new Column("id", DataType.INTEGER, true));
+        users.addColumn(new Column("name", DataType.STRING, false));
+        for (int i = 1; i <= 5; i++)
+        {
+            Row r = new Row(i); r.set("id", i); r.set("name", "u" + i);
+            users.insert(r);
+        }
+
+        orders = new Table("orders");
+        orders.addColumn(new Column("user_id", DataType.INTEGER, false));
+        orders.addColumn(new Column("total", DataType.DOUBLE, false));
+        Object[] owners = { 1, 1, 3, "3", null, 9 };
+        for (int i = 0; i < owners.length; i++)
+        {
+            Row r = new Row(i + 1); r.set("user_id", owners[i]); r.set("total", (i + 1) * 10.0);
+            orders.insert(r);
+        }
+    }
+
+    @Test
+    void test_scan_filter_project()
+    {
+        Operator plan = new ProjectOperator(
+                new FilterOperator(new ScanOperator(users), PredicateCompiler.compile(users, "id", ">", "3")),
+                List.of("name"));
+        List<Row> rows = new Cursor(plan).toList();
+
+        assertEquals(2, rows.size());
+        for (Row r : rows)
+        {
+            assertEquals(1, r.getData().size());
+            assertTrue(r.get("name").toString().startsWith("u"));
+            assertNull(r.get("id"));
+        }
+    }
+
+    @Test
+    void test_hash_join_matches_join_processor()
+    {
+        Operator plan = new HashJoinOperator(new ScanOperator(users), users, new ScanOperator(orders), orders, "id", "user_id");
+        List<Row> streamed = new Cursor(plan).toList();
+        List<Row> batch = JoinProcessor.executeJoin(users, orders, "id", "user_id").getData();
+
+        // 1 twice, 3 as Integer and as "3"
+        assertEquals(4, streamed.size());
+        assertEquals(batch.size(), streamed.size());
+        for (int i = 0; i < batch.size(); i++)
+        {
+            assertEquals(batch.get(i).getRowId(), streamed.get(i).getRowId());
+            assertEquals(batch.get(i).getData(), streamed.get(i).getData());
+        }
+    }
+
+    @Test
+    void test_aggregate()
+    {
+        Operator plan = new AggregateOperator(new ScanOperator(orders), "total", "sum");
+        List<Row> rows = new Cursor(plan).toList();
+
+        assertEquals(1, rows.size());
+        assertEquals(210.0, rows.get(0).get("SUM(total)"));
+        assertEquals(Aggregator.calculate(orders.selectAll(), "total", "AVG"),
+                new Cursor(new AggregateOperator(new ScanOperator(orders), "total", "AVG")).next().get(0));
+    }
+
+    @Test
+    void test_cursor_closes_pipeline()
+    {
+        int[] closed = { 0 };
+        Operator counting = new Operator()
+        {
+            private int n;
+            public void open() { n = 0; }
+            public Row next() { return n < 3 ? new Row(++n) : null; }
+            public void close() { closed[0]++; }
+        };
+
+        Cursor c = new Cursor(counting);
+        assertTrue(c.hasNext());
+        c.next();
+        c.close();
+        c.close();
+        assertEquals(1, closed[0]);
+        assertFalse(c.hasNext());
+
+        Cursor drained = new Cursor(counting);
+        assertEquals(3, drained.toList().size());
+        assertEquals(2, closed[0]);
+    }
+}
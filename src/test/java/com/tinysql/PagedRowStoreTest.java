@@ -0,0 +1,114 @@
+package com.tinysql.storage;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.io.IOException;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedRowStoreTest
+{
+
+    private File f;
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp()
+    {
+        new File("data").mkdirs();
+        f = new File("data/paged_test.pages");
+        f.delete();
+        pool = new BufferPool(4);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        f.delete();
+    }
+
+    private Table createTable() throws IOException
+    {
+        Table t = new Table("paged_test");
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        t.addColumn(new Column("score", DataType.DOUBLE, false));
+        PagedRowStore.create(t, f, pool);
+        return t;
+    }
+
+    private Row createRow(long id)
+    {
+        Row r = new Row(id);
+        r.set("id", (int) id);
+        r.set("name", "user-" + id + "-padding-padding-padding");
+        r.set("score", id * 0.5);
+        return r;
+    }
+
+    @Test
+    void test_insert_scan_and_point_read() throws IOException
+    {
+        Table t = createTable();
+        assertEquals(StorageMode.PAGED, t.getStorageMode());
+
+        for (int i = 1; i <= 2000; i++) t.insert(createRow(i));
+
+        assertEquals(2000, t.size());
+        assertEquals(2000, t.selectAll().size());
+        assertTrue(pool.getEvictions() > 0);
+
+        Row r = t.getRow(1234);
+        assertEquals(1234, r.get("id"));
+        assertEquals(617.0, r.get("score"));
+        assertNull(t.getRow(5000));
+    }
+
+    @Test
+    void test_reopen_after_checkpoint() throws IOException
+    {
+        Table t = createTable();
+        for (int i = 1; i <= 500; i++) t.insert(createRow(i));
+        PagedRowStore store = (PagedRowStore) t.getRowStore();
+        store.close();
+
+        Table reopened = PagedRowStore.open("paged_test", f, new BufferPool(2));
+        assertEquals(3, reopened.getColumns().size());
+        assertTrue(reopened.getColumn("id").isPrimaryKey());
+        assertEquals(500, reopened.size());
+        assertEquals(501, reopened.getNextId());
+        assertEquals("user-42-padding-padding-padding", reopened.getRow(42).get("name"));
+        ((PagedRowStore) reopened.getRowStore()).close();
+    }
+
+    @Test
+    void test_duplicate_row_id_ignored() throws IOException
+    {
+        Table t = createTable();
+        t.insert(createRow(1));
+        t.insert(createRow(1));
+        assertEquals(1, t.size());
+    }
+
+    @Test
+    void test_clear() throws IOException
+    {
+        Table t = createTable();
+        for (int i = 1; i <= 300; i++) t.insert(createRow(i));
+        t.clear();
+
+        assertEquals(0, t.size());
+        assertTrue(t.selectAll().isEmpty());
+        t.insert(createRow(1));
+        assertEquals(1, t.selectAll().size());
+    }
+
+    @Test
+    void test_row_too_large() throws IOException
+    {
+        Table t = createTable();
+        Row r = createRow(1);
+        r.set("name", "x".repeat(PageFile.PAGE_SIZE));
+        assertThrows(IllegalArgumentException.class, () -> t.insert(r));
+    }
+}
@@ -0,0 +1,156 @@
+package com.tinysql.parser;
+
+import com.tinysql.engine.WhereExpr;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.IndexType;
+import com.tinysql.model.StorageMode;
+import org.junit.jupiter.api.*;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserTest
+{
+
+    private static String error(String sql)
+    {
+        return assertThrows(ParseException.class, () -> Parser.parse(sql)).getMessage();
+    }
+
+    @Test
+    void test_select_items_where_and_group_by()
+    {
+        SelectStatement s = (SelectStatement) Parser.parse("select dept, SUM(pay), count(*) FROM staff WHERE pay > 10 GROUP BY dept;");
+        assertEquals("staff", s.getTable());
+        assertEquals(3, s.getItems().size());
+        assertFalse(s.getItems().get(0).isAggregate());
+        assertEquals("SUM", s.getItems().get(1).getFunction());
+        assertEquals("pay", s.getItems().get(1).getColumn());
+        assertEquals("count(*)", s.getItems().get(2).toString());
+        assertEquals("pay > 10", s.getWhere().toString());
+        assertEquals(List.of("dept"), s.getGroupBy());
+        assertTrue(s.isAggregate());
+
+        SelectStatement star = (SelectStatement) Parser.parse("SELECT * FROM users");
+        assertEquals("*", star.getItems().get(0).getColumn());
+        assertNull(star.getWhere());
+        assertTrue(star.getGroupBy().isEmpty());
+        assertFalse(star.isAggregate());
+        assertTrue(star.isCacheable());
+
+        SelectStatement hinted = (SelectStatement) Parser.parse("SELECT SQL_NO_CACHE COUNT(*) FROM users");
+        assertFalse(hinted.isCacheable());
+        assertTrue(hinted.isAggregate());
+        // A column of that name is still a column
+        SelectStatement column = (SelectStatement) Parser.parse("SELECT sql_no_cache FROM users");
+        assertTrue(column.isCacheable());
+        assertEquals("sql_no_cache", column.getItems().get(0).getColumn());
+    }
+
+    @Test
+    void test_where_precedence_and_literals()
+    {
+        SelectStatement s = (SelectStatement) Parser.parse("SELECT * FROM t WHERE a = 1 OR b = 'x y' AND (c >= -2.5 OR d != true)");
+        WhereExpr where = s.getWhere();
+        assertEquals(WhereExpr.Kind.OR, where.getKind());
+        assertEquals("(a = 1 OR (b = x y AND (c >= -2.5 OR d != true)))", where.toString());
+        assertEquals("x y", where.getChildren().get(1).getChildren().get(0).getCondition().getValue());
+    }
+
+    @Test
+    void test_insert_values_are_typed_once()
+    {
+        InsertStatement s = (InsertStatement) Parser.parse("INSERT INTO users VALUES (1, 'Ann Lee', -2.5, TRUE, Bob)");
+        assertEquals("users", s.getTable());
+        assertEquals(List.of(1, "Ann Lee", -2.5, true, "Bob"), s.getValues());
+
+        InsertStatement bare = (InsertStatement) Parser.parse("insert into users values 2 '7' false");
+        assertEquals(List.of(2, "7", false), bare.getValues());
+    }
+
+    @Test
+    void test_create_table_and_index()
+    {
+        CreateTableStatement t = (CreateTableStatement) Parser.parse("CREATE TABLE users (id INT PRIMARY KEY, name TEXT, score INTEGER, ok BOOLEAN) USING columnar");
+        assertEquals("users", t.getTable());
+        assertEquals(StorageMode.COLUMNAR, t.getMode());
+        List<Column> cols = t.getColumns();
+        assertEquals(4, cols.size());
+        assertTrue(cols.get(0).isPrimaryKey());
+        assertEquals(DataType.STRING, cols.get(1).getType());
+        assertEquals(DataType.INTEGER, cols.get(2).getType());
+        assertEquals(DataType.BOOLEAN, cols.get(3).getType());
+        assertFalse(cols.get(3).isPrimaryKey());
+        assertEquals(StorageMode.ROW, ((CreateTableStatement) Parser.parse("CREATE TABLE t (a DOUBLE)")).getMode());
+
+        CreateIndexStatement i = (CreateIndexStatement) Parser.parse("CREATE INDEX by_name ON users(name) USING BTREE");
+        assertEquals("by_name", i.getName());
+        assertEquals("users", i.getTable());
+        assertEquals("name", i.getColumn());
+        assertEquals(IndexType.BTREE, i.getType());
+        assertEquals(IndexType.HASH, ((CreateIndexStatement) Parser.parse("CREATE INDEX x ON users ( id )")).getType());
+    }
+
+    @Test
+    void test_placeholders()
+    {
+        SelectStatement s = (SelectStatement) Parser.parse("SELECT * FROM t WHERE a = ? OR (b > 1 AND c != ?)");
+        assertEquals(2, s.getParameterCount());
+        assertEquals("a", s.getParameters().get(0).getColumn());
+        assertEquals("c", s.getParameters().get(1).getColumn());
+        assertSame(s.getParameters().get(0), s.getWhere().getChildren().get(0).getCondition());
+
+        InsertStatement i = (InsertStatement) Parser.parse("INSERT INTO t VALUES (?, 'x', ?)");
+        assertEquals(2, i.getParameterCount());
+        assertEquals(1, ((Parameter) i.getValues().get(2)).getIndex());
+        assertEquals(0, Parser.parse("JOIN a b ON x y").getParameterCount());
+        assertTrue(error("CREATE TABLE ? (a INT)").startsWith("Syntax Error"));
+    }
+
+    @Test
+    void test_join()
+    {
+        JoinStatement j = (JoinStatement) Parser.parse("JOIN users orders ON id user_id");
+        assertEquals("users", j.getLeft());
+        assertEquals("orders", j.getRight());
+        assertEquals("id", j.getLeftColumn());
+        assertEquals("user_id", j.getRightColumn());
+    }
+
+    @Test
+    void test_analyze_and_show_stats()
+    {
+        assertEquals("users", ((AnalyzeStatement) Parser.parse("analyze users;")).getTable());
+        assertEquals("users", ((ShowStatsStatement) Parser.parse("SHOW STATS users")).getTable());
+        assertEquals(0, Parser.parse("ANALYZE users").getParameterCount());
+        assertEquals("Syntax Error: Expected ANALYZE <table>", error("ANALYZE"));
+        assertEquals("Syntax Error: Unexpected 'orders'", error("ANALYZE users orders"));
+        assertEquals("Syntax Error: Expected SHOW STATS <table>", error("SHOW users"));
+        assertEquals("Syntax Error: Expected SHOW STATS <table>", error("SHOW STATS"));
+    }
+
+    @Test
+    void test_errors_carry_the_cli_message()
+    {
+        assertEquals("Unknown command: DELETE", error("delete from users"));
+        assertEquals("Syntax Error: Missing FROM", error("SELECT * users"));
+        assertEquals("Syntax Error: Missing ')' in WHERE", error("SELECT * FROM t WHERE (a = 1"));
+        assertEquals("Syntax Error: Expected <column> <operator> <value> in WHERE", error("SELECT * FROM t WHERE a ="));
+        assertEquals("Syntax Error: Unexpected 'XOR' in WHERE", error("SELECT * FROM t WHERE a = 1 XOR b = 2"));
+        assertEquals("Syntax Error: pay is not in GROUP BY", error("SELECT pay, COUNT(*) FROM t GROUP BY dept"));
+        assertEquals("Syntax Error: GROUP BY <col>[, <col>]", error("SELECT COUNT(*) FROM t GROUP dept"));
+        assertEquals("Syntax Error: GROUP BY takes a single WHERE condition", error("SELECT COUNT(*) FROM t WHERE a = 1 OR a = 2 GROUP BY a"));
+        assertEquals("Syntax Error: Expected FUNC(col) but got b", error("SELECT SUM(a), b FROM t"));
+        assertEquals("Syntax Error: Missing VALUES clause", error("INSERT INTO t 1 2"));
+        assertEquals("Syntax Error: Unknown type 'BLOB' for column a", error("CREATE TABLE t (a BLOB)"));
+        assertEquals("Syntax Error: No columns defined", error("CREATE TABLE t ()"));
+        assertEquals("Syntax Error: Missing parenthesis '(' or ')'", error("CREATE TABLE t (a INT"));
+        assertEquals("Syntax Error: Unknown storage mode 'HEAP'", error("CREATE TABLE t (a INT) USING HEAP"));
+        assertEquals("Syntax Error: Unknown index type 'TRIE'", error("CREATE INDEX i ON t(a) USING TRIE"));
+        assertTrue(error("CREATE INDEX i ON t a").startsWith("Syntax Error: Expected CREATE INDEX"));
+        assertEquals("Syntax: JOIN <t1> <t2> ON <col1> <col2>", error("JOIN a b id id"));
+        assertEquals("Syntax Error: Unexpected 'extra'", error("JOIN a b ON x y extra"));
+        assertTrue(error("SELECT * FROM t WHERE a = 'open").startsWith("Syntax Error"));
+        assertTrue(error("SELECT * FROM t WHERE a # 1").startsWith("Syntax Error: Unexpected character"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.*;
+import com.tinysql.storage.StorageManager;
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.util.List;
+import java.util.function.Predicate;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredicateCompilerTest
+{
+
+    private Table table;
+
+    @BeforeEach
+    void setUp()
+    {
+        table = new Table("pred");
+        table.addColumn(new Column("i", DataType.INTEGER, false));
+        table.addColumn(new Column("d", DataType.DOUBLE, false));
+        table.addColumn(new Column("f", DataType.FLOAT, false));
+        table.addColumn(new Column("b", DataType.BOOLEAN, false));
+        table.addColumn(new Column("s", DataType.STRING, false));
+    }
+
+    private Row row(Object i, Object d, Object f, Object b, Object s)
+    {
+        Row r = new Row(table.getNextId());
+        r.set("i", i);
+        r.set("d", d);
+        r.set("f", f);
+        r.set("b", b);
+        r.set("s", s);
+        table.insert(r);
+        return r;
+    }
+
+    @Test
+    void test_matches_condition_evaluator()
+    {
+        Row[] rows = {
+            row(10, 10.5, 1.5f, true, "alice"),
+            row(-3, 0.0, 0.25f, false, "bob"),
+            row(null, null, null, null, null),
+            // Mistyped cells take the per-row fallback
+            row("7", 3, 2.0, "true", 42)
+        };
+        String[][] conditions = {
+            { "i", "=", "10" }, { "i", ">", "0" }, { "i", "<=", "7" }, { "i", "!=", "10" },
+            { "d", "=", "10.5" }, { "d", "<", "5" }, { "f", ">=", "0.25" }, { "f", "!=", "1.5" },
+            { "b", "=", "true" }, { "b", "!=", "true" }, { "b", ">", "true" },
+            { "s", "=", "bob" }, { "s", "!=", "bob" }, { "s", "<", "bob" }
+        };
+        for (String[] c : conditions)
+        {
+            Predicate<Row> p = PredicateCompiler.compile(table, c[0], c[1], c[2]);
+            for (Row r : rows)
+            {
+                boolean expected;
+                try
+                {
+                    expected = ConditionEvaluator.evaluate(r, c[0], c[1], c[2]);
+                }
+                catch (NumberFormatException e)
+                {
+                    assertThrows(NumberFormatException.class, () -> p.test(r));
+                    continue;
+                }
+                assertEquals(expected, p.test(r), String.join(" ", c) + " on " + r);
+            }
+        }
+    }
+
+    @Test
+    void test_float_column_filled_by_insert_compiles() throws Exception
+    {
+        File[] files = { new File("data/pred_float.tbl"), new File("data/pred_float.log") };
+        for (File f : files) f.delete();
+        Database db = new Database();
+        StorageManager storage = new StorageManager();
+        Executor executor = new Executor(db, storage);
+        try
+        {
+            assertTrue(executor.executeCreate("pred_float", List.of(new Column("f", DataType.FLOAT, false))).isSuccess());
+            for (double v : new double[] { 0.25, 1.5, 2.75 })
+            {
+                // As the parser hands it over: a Double, not coerced to Float
+                assertTrue(executor.executeInsert("pred_float", List.of(v)).isSuccess());
+            }
+            Table t = db.getTable("pred_float");
+
+            for (String[] c : new String[][] { { ">", "1" }, { "=", "1.5" }, { "!=", "1.5" }, { "<=", "2.75" } })
+            {
+                Predicate<Row> p = PredicateCompiler.compile(t, "f", c[0], c[1]);
+                long before = PredicateCompiler.FALLBACKS.sum();
+                for (Row r : t.selectAll())
+                {
+                    assertInstanceOf(Double.class, r.get("f"));
+                    assertEquals(ConditionEvaluator.evaluate(r, "f", c[0], c[1]), p.test(r), c[0] + " " + c[1] + " on " + r);
+                }
+                assertEquals(before, PredicateCompiler.FALLBACKS.sum());
+            }
+        }
+        finally
+        {
+            storage.close();
+            for (File f : files) f.delete();
+        }
+    }
+
+    @Test
+    void test_malformed_literal_rejected_at_compile()
+    {
+        assertThrows(IllegalArgumentException.class, () -> PredicateCompiler.compile(table, "i", "=", "ten"));
+        assertThrows(IllegalArgumentException.class, () -> PredicateCompiler.compile(table, "d", ">", "1.2.3"));
+        assertNotNull(PredicateCompiler.compile(table, "s", "=", "anything"));
+    }
+
+    @Test
+    void test_unknown_column_never_matches()
+    {
+        Row r = row(1, 1.0, 1f, true, "x");
+        assertFalse(PredicateCompiler.compile(table, "missing", "=", "1").test(r));
+    }
+}
@@ -0,0 +1,153 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.*;
+import com.tinysql.parser.ParseException;
+import com.tinysql.storage.StorageManager;
+import org.junit.jupiter.api.*;
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreparedQueryTest
+{
+
+    private Executor executor;
+
+    @BeforeEach
+    void setUp()
+    {
+        File dir = new File("data");
+        if (dir.exists())
+        {
+            for (File f : dir.listFiles()) f.delete();
+        }
+        else
+        {
+            dir.mkdirs();
+        }
+        executor = new Executor(new Database(), new StorageManager());
+        assertTrue(executor.prepare("CREATE TABLE people (id INT PRIMARY KEY, name TEXT, score DOUBLE, ok BOOL)").execute().isSuccess());
+    }
+
+    @Test
+    void test_insert_and_select_with_bound_parameters()
+    {
+        PreparedQuery insert = executor.prepare("INSERT INTO people VALUES (?, ?, ?, true)");
+        assertEquals(3, insert.getParameterCount());
+        for (int i = 1; i <= 10; i++)
+        {
+            assertTrue(insert.execute(i, "p" + i, i * 1.5f).isSuccess());
+        }
+        PreparedQuery select = executor.prepare("SELECT * FROM people WHERE id > ? AND (name = ? OR score >= ?)");
+        ExecutionResult res = select.execute(5, "p2", 13.5);
+        assertTrue(res.isSuccess());
+        assertEquals(2, res.getData().size());
+        // Bound FLOAT-typed values are stored as the column's DOUBLE
+        assertEquals(13.5, res.getData().get(0).get("score"));
+
+        PreparedQuery count = executor.prepare("SELECT COUNT(*) FROM people WHERE score < ?");
+        assertEquals(3.0, count.execute(6).getAggregateResult());
+        assertEquals(10.0, count.execute(100L).getAggregateResult());
+    }
+
+    @Test
+    void test_bad_parameters_are_errors()
+    {
+        PreparedQuery select = executor.prepare("SELECT * FROM people WHERE id = ?");
+        ExecutionResult res = select.execute();
+        assertFalse(res.isSuccess());
+        assertEquals("Expected 1 parameters but got 0", res.getMessage());
+
+        res = select.execute("1");
+        assertFalse(res.isSuccess());
+        assertEquals("Parameter 1 for id must be INTEGER but got String 1", res.getMessage());
+        assertFalse(select.execute(1L << 40).isSuccess());
+        assertFalse(select.execute((Object) null).isSuccess());
+
+        PreparedQuery insert = executor.prepare("INSERT INTO people VALUES ?, ?, ?, ?");
+        assertFalse(insert.execute(1, "a", 1.0, "yes").isSuccess());
+        assertTrue(insert.execute(1, null, 1.0, true).isSuccess());
+
+        assertThrows(ParseException.class, () -> executor.prepare("SELECT * FROM people WHERE ? = 1"));
+    }
+
+    @Test
+    void test_plans_are_cached_by_normalized_text()
+    {
+        PreparedQuery q = executor.prepare("SELECT * FROM people WHERE name = ?");
+        assertSame(q, executor.prepare("  SELECT *   FROM people\tWHERE name = ? ;"));
+        assertNotSame(q, executor.prepare("SELECT * FROM people WHERE name != ?"));
+        // Whitespace inside a quoted literal is part of the statement
+        assertNotSame(executor.prepare("SELECT * FROM people WHERE name = 'a  b'"), executor.prepare("SELECT * FROM people WHERE name = 'a b'"));
+        assertEquals("SELECT * FROM t WHERE a = 'x  y'", Executor.normalize(" SELECT  *\nFROM t WHERE a = 'x  y' ; "));
+
+        for (int i = 0; i < Executor.PLAN_CACHE_SIZE + 10; i++)
+        {
+            executor.prepare("SELECT * FROM people WHERE id = " + i);
+        }
+        assertEquals(Executor.PLAN_CACHE_SIZE, executor.cachedPlans());
+    }
+
+    @Test
+    void test_schema_changes_invalidate_plans()
+    {
+        PreparedQuery q = executor.prepare("SELECT * FROM later WHERE v = ?");
+        // Unknown table: the parameter is passed through and the executor reports it
+        assertEquals("Table not found", q.execute("x").getMessage());
+
+        executor.executeCreate("later", java.util.List.of(new Column("v", DataType.INTEGER, false)));
+        assertEquals(0, executor.cachedPlans());
+        assertNotSame(q, executor.prepare("SELECT * FROM later WHERE v = ?"));
+        // The held handle now checks against the new column type
+        assertFalse(q.execute("x").isSuccess());
+        assertTrue(q.execute(1).isSuccess());
+
+        executor.prepare("SELECT * FROM later");
+        assertTrue(executor.executeCreateIndex("by_v", "later", "v").isSuccess());
+        assertEquals(0, executor.cachedPlans());
+    }
+
+    @Test
+    void test_result_cache_hits_until_the_table_changes()
+    {
+        PreparedQuery insert = executor.prepare("INSERT INTO people VALUES (?, ?, 1.0, true)");
+        for (int i = 1; i <= 5; i++) insert.execute(i, "p" + i);
+        executor.setResultCacheBudget(1 << 20);
+        ResultCache cache = executor.getResultCache();
+
+        PreparedQuery select = executor.prepare("SELECT * FROM people WHERE id <= ?");
+        assertEquals(3, select.execute(3).getData().size());
+        assertEquals(3, select.execute(3).getData().size());
+        assertEquals(4, select.execute(4).getData().size());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        PreparedQuery count = executor.prepare("SELECT COUNT(*), SUM(id) FROM people");
+        count.execute();
+        insert.execute(6, "p6");
+        assertEquals(6.0, count.execute().getData().get(0).get("COUNT(*)"));
+        assertEquals(1, cache.getInvalidations());
+
+        // The insert made the earlier result stale; cached again, then streamed from the cache
+        for (int i = 0; i < 2; i++)
+        {
+            try (Cursor cursor = select.open(3).getCursor())
+            {
+                assertEquals(3, cursor.toList().size());
+            }
+        }
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getInvalidations());
+
+        long hits = cache.getHits(), misses = cache.getMisses();
+        PreparedQuery bypass = executor.prepare("SELECT SQL_NO_CACHE * FROM people WHERE id <= ?");
+        assertEquals(3, bypass.execute(3).getData().size());
+        assertEquals(3, bypass.execute(3).getData().size());
+        assertEquals(hits, cache.getHits());
+        assertEquals(misses, cache.getMisses());
+
+        executor.setResultCacheBudget(0);
+        assertNull(executor.getResultCache());
+        assertEquals(3, select.execute(3).getData().size());
+    }
+}
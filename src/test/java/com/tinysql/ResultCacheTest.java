@@ -0,0 +1,86 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest
+{
+
+    private static ExecutionResult rows(int n)
+    {
+        Schema schema = new Schema();
+        schema.add("id");
+        schema.add("name");
+        List<Row> data = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+        {
+            Row r = new Row(i, schema);
+            r.set(0, i);
+            r.set(1, "name" + i);
+            data.add(r);
+        }
+        return new ExecutionResult(true, n + " rows found.", data);
+    }
+
+    @Test
+    void test_hit_and_version_invalidation()
+    {
+        Table t = new Table("t");
+        ResultCache cache = new ResultCache(1 << 20);
+        assertNull(cache.get("q", t, 0));
+        cache.put("q", t, 0, rows(3));
+
+        ExecutionResult hit = cache.get("q", t, 0);
+        assertEquals(3, hit.getData().size());
+        assertEquals("3 rows found.", hit.getMessage());
+        assertThrows(UnsupportedOperationException.class, () -> hit.getData().clear());
+
+        // Another version, or another table of the same name, is stale
+        assertNull(cache.get("q", t, 1));
+        assertEquals(0, cache.size());
+        cache.put("q", t, 1, rows(3));
+        assertNull(cache.get("q", new Table("t"), 1));
+
+        cache.put("agg", t, 1, new ExecutionResult(true, "SUM result", 6.0));
+        assertEquals(6.0, cache.get("agg", t, 1).getAggregateResult());
+        cache.put("failed", t, 1, new ExecutionResult(false, "Table not found"));
+        assertNull(cache.get("failed", t, 1));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void test_evicts_least_recently_used_by_weight()
+    {
+        Table t = new Table("t");
+        long one = ResultCache.weigh("a", rows(100));
+        ResultCache cache = new ResultCache(one * 3 + one / 2);
+        cache.put("a", t, 0, rows(100));
+        cache.put("b", t, 0, rows(100));
+        cache.put("c", t, 0, rows(100));
+        assertNotNull(cache.get("a", t, 0));
+        cache.put("d", t, 0, rows(100));
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("b", t, 0));
+        assertNotNull(cache.get("a", t, 0));
+        assertTrue(cache.getWeight() <= cache.getBudget());
+
+        // One heavier than the whole budget is not kept, and evicts nothing
+        cache.put("huge", t, 0, rows(1000));
+        assertNull(cache.get("huge", t, 0));
+        assertEquals(3, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(0));
+    }
+}
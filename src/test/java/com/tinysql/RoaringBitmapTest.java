@@ -0,0 +1,116 @@
+package com.tinysql.index;
+
+import org.junit.jupiter.api.*;
+import java.io.*;
+import java.util.Random;
+import java.util.TreeSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest
+{
+
+    private static long[] toArray(TreeSet<Long> set)
+    {
+        return set.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** Sparse ids in some chunks, dense (bitmap) runs in others. */
+    private static TreeSet<Long> ids(Random rnd, int dense, int sparse)
+    {
+        TreeSet<Long> set = new TreeSet<>();
+        for (int i = 0; i < dense; i++) set.add(65536L * 2 + rnd.nextInt(65536));
+        for (int i = 0; i < sparse; i++) set.add((long) rnd.nextInt(65536 * 8));
+        return set;
+    }
+
+    private static RoaringBitmap bitmap(TreeSet<Long> set)
+    {
+        RoaringBitmap bits = new RoaringBitmap();
+        // Out of order, with repeats
+        for (long id : set.descendingSet()) bits.add(id);
+        for (long id : set) bits.add(id);
+        return bits;
+    }
+
+    @Test
+    void test_add_contains_and_order_match_sorted_set()
+    {
+        Random rnd = new Random(7);
+        TreeSet<Long> expected = ids(rnd, 20000, 3000);
+        RoaringBitmap bits = bitmap(expected);
+
+        assertEquals(expected.size(), bits.cardinality());
+        assertArrayEquals(toArray(expected), bits.toArray());
+        for (int i = 0; i < 2000; i++)
+        {
+            long id = rnd.nextInt(65536 * 9);
+            assertEquals(expected.contains(id), bits.contains(id));
+        }
+    }
+
+    @Test
+    void test_and_or_across_array_and_bitmap_chunks()
+    {
+        Random rnd = new Random(11);
+        TreeSet<Long> a = ids(rnd, 30000, 2000);
+        TreeSet<Long> b = ids(rnd, 3000, 40000);
+        RoaringBitmap x = bitmap(a), y = bitmap(b);
+
+        TreeSet<Long> both = new TreeSet<>(a);
+        both.retainAll(b);
+        TreeSet<Long> either = new TreeSet<>(a);
+        either.addAll(b);
+
+        assertArrayEquals(toArray(both), x.and(y).toArray());
+        assertArrayEquals(toArray(both), y.and(x).toArray());
+        assertArrayEquals(toArray(either), x.or(y).toArray());
+        assertArrayEquals(toArray(either), y.or(x).toArray());
+        assertEquals(both.size(), x.and(y).cardinality());
+        // Inputs untouched
+        assertArrayEquals(toArray(a), x.toArray());
+        assertArrayEquals(toArray(b), y.toArray());
+    }
+
+    @Test
+    void test_empty_and_clear()
+    {
+        RoaringBitmap bits = new RoaringBitmap();
+        assertTrue(bits.isEmpty());
+        assertEquals(0, bits.toArray().length);
+
+        bits.add(5);
+        bits.add(1L << 33);
+        assertTrue(bits.contains(1L << 33));
+        assertTrue(bits.and(new RoaringBitmap()).isEmpty());
+        assertArrayEquals(new long[] { 5, 1L << 33 }, bits.or(new RoaringBitmap()).toArray());
+
+        bits.clear();
+        assertTrue(bits.isEmpty());
+        assertFalse(bits.contains(5));
+    }
+
+    @Test
+    void test_copy_is_independent()
+    {
+        RoaringBitmap bits = new RoaringBitmap();
+        for (long i = 0; i < 5000; i++) bits.add(i * 3);
+        RoaringBitmap copy = bits.copy();
+        copy.add(1);
+        assertFalse(bits.contains(1));
+        assertEquals(5001, copy.cardinality());
+    }
+
+    @Test
+    void test_write_and_read() throws IOException
+    {
+        TreeSet<Long> expected = ids(new Random(3), 10000, 500);
+        RoaringBitmap bits = bitmap(expected);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bits.write(new DataOutputStream(bytes));
+        RoaringBitmap back = RoaringBitmap.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertArrayEquals(toArray(expected), back.toArray());
+        assertEquals(expected.size(), back.cardinality());
+    }
+}
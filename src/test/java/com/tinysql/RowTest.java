@@ -30,4 +30,52 @@ class RowTest
         assertNotNull(row.getData());
         assertEquals(1, row.getData().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_shared_schema_ordinals()
+    {
+        Schema schema = new Schema();
+        schema.add("id");
+        schema.add("name");
+        Row row = new Row(1, schema);
+        row.set(1, "Alice");
+
+        assertEquals("Alice", row.get("name"));
+        assertEquals("Alice", row.get(1));
+        assertNull(row.get("id"));
+        assertNull(row.get(5));
+        assertSame(schema, row.getSchema());
+    }
+
+    @Test
+    void test_unknown_column_copies_shared_schema()
+    {
+        Schema schema = new Schema();
+        schema.add("id");
+        Row row = new Row(1, schema);
+        row.set("extra", 42);
+
+        assertEquals(42, row.get("extra"));
+        assertEquals(1, schema.size());
+        assertNotSame(schema, row.getSchema());
+    }
+
+    @Test
+    void test_bind_relays_values()
+    {
+        Row row = new Row(9);
+        row.set("name", "Bob");
+        row.set("junk", 1);
+
+        Schema schema = new Schema();
+        schema.add("id");
+        schema.add("name");
+        row.bind(schema);
+
+        assertSame(schema, row.getSchema());
+        assertNull(row.get(0));
+        assertEquals("Bob", row.get(1));
+        assertNull(row.get("junk"));
+        assertEquals(2, row.getData().size());
+    }
+}
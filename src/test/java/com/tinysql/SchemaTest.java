@@ -0,0 +1,70 @@
+package com.tinysql.model;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaTest
+{
+
+    @Test
+    void test_add_and_lookup()
+    {
+        Schema schema = new Schema();
+        assertEquals(0, schema.add("id"));
+        assertEquals(1, schema.add("name"));
+        assertEquals(0, schema.add("id"));
+
+        assertEquals(2, schema.size());
+        assertEquals(1, schema.indexOf("name"));
+        assertEquals(-1, schema.indexOf("missing"));
+        assertEquals("id", schema.name(0));
+    }
+
+    @Test
+    void test_wide_schema_lookup()
+    {
+        Schema schema = new Schema();
+        for (int i = 0; i < 50; i++)
+        {
+            assertEquals(i, schema.add("c" + i));
+        }
+        for (int i = 0; i < 50; i++)
+        {
+            assertEquals(i, schema.indexOf("c" + i));
+        }
+        assertEquals(-1, schema.indexOf("c50"));
+    }
+
+    @Test
+    void test_copy_is_independent()
+    {
+        Schema schema = new Schema();
+        schema.add("id");
+        Schema copy = new Schema(schema);
+        copy.add("name");
+
+        assertEquals(1, schema.size());
+        assertEquals(2, copy.size());
+        assertEquals(-1, schema.indexOf("name"));
+    }
+
+    @Test
+    void test_column_ref_follows_schema()
+    {
+        Schema a = new Schema();
+        a.add("x");
+        a.add("y");
+        Schema b = new Schema();
+        b.add("y");
+
+        Row r1 = new Row(1, a);
+        r1.set(1, "from-a");
+        Row r2 = new Row(2, b);
+        r2.set(0, "from-b");
+
+        ColumnRef ref = new ColumnRef("y");
+        assertEquals("from-a", ref.get(r1));
+        assertEquals("from-b", ref.get(r2));
+        assertEquals("from-a", ref.get(r1));
+    }
+}
@@ -1,6 +1,9 @@
 package com.tinysql.storage;
 
+import com.tinysql.index.BTreeIndex;
+import com.tinysql.index.HashIndex;
 import com.tinysql.model.*;
+import com.tinysql.stats.TableStats;
 import com.tinysql.util.TinySQLException;
 import org.junit.jupiter.api.*;
 import java.io.*;
@@ -24,8 +27,27 @@ class StorageManagerTest
     @AfterEach
     void tearDown()
     {
-        File f = new File("data/" + TABLE_NAME + ".csv");
-        if (f.exists()) f.delete();
+        for (String ext : new String[] { ".csv", ".tbl", ".pages", ".log", ".log.compacting", ".by_name.idx", ".by_id.idx", ".stats" })
+        {
+            File f = new File("data/" + TABLE_NAME + ext);
+            if (f.exists()) f.delete();
+        }
+    }
+
+    private Table createTable()
+    {
+        Table t = new Table(TABLE_NAME);
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        return t;
+    }
+
+    private Row createRow(long id, String name)
+    {
+        Row r = new Row(id);
+        r.set("id", (int) id);
+        r.set("name", name);
+        return r;
     }
 
     @Test
@@ -42,7 +64,7 @@ class StorageManagerTest
         r1.set("score", 95.5);
         t.insert(r1);
 
-        storage.saveTable(t);
+        storage.exportCsv(t);
 
         File file = new File("data/" + TABLE_NAME + ".csv");
         assertTrue(file.exists());
@@ -126,4 +148,381 @@ class StorageManagerTest
         
         assertNull(r.get("name"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_legacy_csv_with_repeated_and_missing_ids_loads() throws TinySQLException, IOException
+    {
+        File file = new File("data/" + TABLE_NAME + ".csv");
+        Files.write(file.toPath(), "id:INTEGER|name:STRING\n1,7,a\n2,7,b\n3\n4,x,c".getBytes());
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertEquals(4, loaded.size());
+        assertNull(loaded.getPrimaryKey());
+
+        // Nor is a key imposed once the table has been through a snapshot
+        storage.saveTable(loaded);
+        Table reloaded = storage.loadTable(TABLE_NAME);
+        assertNull(reloaded.getPrimaryKey());
+        Row another = createRow(5, "d");
+        another.set("id", 7);
+        reloaded.insert(another);
+        assertEquals(5, reloaded.size());
+    }
+
+    @Test
+    void test_append_replayed_on_load() throws TinySQLException, IOException
+    {
+        Table t = createTable();
+        storage.saveTable(t);
+
+        Row r1 = createRow(1, "Alice");
+        t.insert(r1);
+        storage.appendRow(t, r1);
+        Row r2 = createRow(2, "Bob");
+        t.insert(r2);
+        storage.appendRow(t, r2);
+
+        assertEquals(0, ColumnarFile.read(TABLE_NAME, new File("data/" + TABLE_NAME + ".tbl")).selectAll().size());
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertEquals(2, loaded.selectAll().size());
+        assertEquals(3, loaded.getNextId());
+    }
+
+    @Test
+    void test_save_folds_log_into_snapshot() throws TinySQLException, IOException
+    {
+        Table t = createTable();
+        storage.saveTable(t);
+
+        Row r1 = createRow(1, "Alice");
+        t.insert(r1);
+        storage.appendRow(t, r1);
+
+        storage.saveTable(t);
+
+        assertFalse(new File("data/" + TABLE_NAME + ".log").exists());
+        assertEquals(1, ColumnarFile.read(TABLE_NAME, new File("data/" + TABLE_NAME + ".tbl")).selectAll().size());
+    }
+
+    @Test
+    void test_background_compaction() throws Exception
+    {
+        storage.setCompactionThreshold(1);
+        Table t = createTable();
+        storage.saveTable(t);
+
+        Row r1 = createRow(1, "Alice");
+        t.insert(r1);
+        storage.appendRow(t, r1);
+
+        File log = new File("data/" + TABLE_NAME + ".log");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (log.exists() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+
+        assertFalse(log.exists());
+        assertEquals(1, storage.loadTable(TABLE_NAME).selectAll().size());
+    }
+
+    @Test
+    void test_replay_interrupted_compaction() throws TinySQLException, IOException
+    {
+        File file = new File("data/" + TABLE_NAME + ".csv");
+        Files.write(file.toPath(), "id:INTEGER|name:STRING\n1,1,Alice\n".getBytes());
+        File rotated = new File("data/" + TABLE_NAME + ".log.compacting");
+        try (WriteAheadLog wal = new WriteAheadLog(rotated, FsyncPolicy.OS_MANAGED, 0))
+        {
+            wal.append(RowCodec.encode(createRow(1, "Alice")));
+            wal.append(RowCodec.encode(createRow(2, "Bob")));
+        }
+        File log = new File("data/" + TABLE_NAME + ".log");
+        try (WriteAheadLog wal = new WriteAheadLog(log, FsyncPolicy.OS_MANAGED, 0))
+        {
+            wal.append(RowCodec.encode(createRow(3, "Carol")));
+        }
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+
+        assertEquals(3, loaded.selectAll().size());
+    }
+
+    @Test
+    void test_recover_checkpoints_logs() throws TinySQLException, IOException
+    {
+        File file = new File("data/" + TABLE_NAME + ".csv");
+        Files.write(file.toPath(), "id:INTEGER|name:STRING\n".getBytes());
+        File log = new File("data/" + TABLE_NAME + ".log");
+        try (WriteAheadLog wal = new WriteAheadLog(log, FsyncPolicy.EVERY_COMMIT, 0))
+        {
+            wal.append(RowCodec.encode(createRow(1, "Alice")));
+            wal.append(RowCodec.encode(createRow(2, "Bob")));
+        }
+        byte[] torn = RowCodec.encode(createRow(3, "Tor"));
+        Files.write(log.toPath(), java.util.Arrays.copyOf(torn, torn.length - 2), java.nio.file.StandardOpenOption.APPEND);
+
+        int recovered = storage.recover();
+
+        assertEquals(2, recovered);
+        assertFalse(log.exists());
+        assertTrue(new File("data/" + TABLE_NAME + ".tbl").exists());
+        assertEquals(2, storage.loadTable(TABLE_NAME).selectAll().size());
+    }
+
+    @Test
+    void test_awkward_strings_survive_crash_and_recovery() throws TinySQLException, IOException
+    {
+        String[] names = { "Smith, John", "NULL", "two\nlines", "", "say \"hi\"", null, "last" };
+        Table t = createTable();
+        storage.saveTable(t);
+        for (int i = 0; i < names.length; i++)
+        {
+            Row r = createRow(i + 1, names[i]);
+            t.insert(r);
+            storage.appendRow(t, r);
+        }
+
+        // Crash: the log is never closed, and a later record is torn mid-write
+        File log = new File("data/" + TABLE_NAME + ".log");
+        byte[] torn = new byte[] { 0, 0, 0, 40, 1, 2 };
+        Files.write(log.toPath(), torn, java.nio.file.StandardOpenOption.APPEND);
+
+        StorageManager restarted = new StorageManager();
+        assertEquals(names.length, restarted.recover());
+        List<Row> rows = restarted.loadTable(TABLE_NAME).selectAll();
+        assertEquals(names.length, rows.size());
+        for (int i = 0; i < names.length; i++)
+        {
+            assertEquals(i + 1, rows.get(i).get("id"));
+            assertEquals(names[i], rows.get(i).get("name"));
+        }
+        storage.close();
+    }
+
+    @Test
+    void test_text_log_replayed_and_folded_into_snapshot() throws TinySQLException, IOException
+    {
+        Table t = createTable();
+        storage.saveTable(t);
+        File log = new File("data/" + TABLE_NAME + ".log");
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update("1,1,Alice".getBytes());
+        Files.write(log.toPath(), (String.format("%08x ", crc.getValue()) + "1,1,Alice\n").getBytes());
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertEquals("Alice", loaded.selectAll().get(0).get("name"));
+        assertFalse(log.exists());
+
+        Row r2 = createRow(2, "Bob");
+        loaded.insert(r2);
+        storage.appendRow(loaded, r2);
+        assertEquals(2, storage.loadTable(TABLE_NAME).selectAll().size());
+    }
+
+    @Test
+    void test_binary_snapshot_preferred_over_csv() throws TinySQLException, IOException
+    {
+        Table t = createTable();
+        Row r1 = createRow(1, "Alice");
+        t.insert(r1);
+        storage.saveTable(t);
+
+        File csv = new File("data/" + TABLE_NAME + ".csv");
+        Files.write(csv.toPath(), "id:INTEGER|name:STRING\n".getBytes());
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertEquals(1, loaded.selectAll().size());
+        assertEquals("Alice", loaded.selectAll().get(0).get("name"));
+    }
+
+    @Test
+    void test_convert_csv_files() throws TinySQLException, IOException
+    {
+        File csv = new File("data/" + TABLE_NAME + ".csv");
+        Files.write(csv.toPath(), "id:INTEGER|name:STRING\n1,1,Alice\n2,2,Bob\n".getBytes());
+
+        assertTrue(storage.convertCsvFiles() >= 1);
+
+        File tbl = new File("data/" + TABLE_NAME + ".tbl");
+        assertTrue(tbl.exists());
+        Table loaded = ColumnarFile.read(TABLE_NAME, tbl);
+        assertEquals(2, loaded.selectAll().size());
+        assertTrue(loaded.getColumn("id").isPrimaryKey());
+    }
+
+    @Test
+    void test_import_export_round_trip() throws TinySQLException
+    {
+        Table t = createTable();
+        t.insert(createRow(1, "Alice"));
+        storage.exportCsv(t);
+
+        Table imported = storage.importCsv(TABLE_NAME);
+        assertEquals(1, imported.selectAll().size());
+        assertEquals("Alice", imported.selectAll().get(0).get("name"));
+    }
+
+    @Test
+    void test_import_export_round_trip_awkward_strings() throws TinySQLException
+    {
+        String[] names = { "Smith, John", "NULL", "two\nlines", "", "say \"hi\"", null, "\"" };
+        Table t = createTable();
+        for (int i = 0; i < names.length; i++) t.insert(createRow(i + 1, names[i]));
+        storage.exportCsv(t);
+
+        Table imported = storage.importCsv(TABLE_NAME);
+        List<Row> rows = imported.selectAll();
+        assertEquals(names.length, rows.size());
+        for (int i = 0; i < names.length; i++)
+        {
+            assertEquals(i + 1, rows.get(i).get("id"));
+            assertEquals(names[i], rows.get(i).get("name"));
+        }
+    }
+
+    @Test
+    void test_paged_table_persists() throws TinySQLException
+    {
+        List<Column> cols = createTable().getColumns();
+        Table t = storage.createTable(TABLE_NAME, cols, StorageMode.PAGED);
+        storage.saveTable(t);
+
+        Row r1 = createRow(1, "Alice");
+        t.insert(r1);
+        storage.appendRow(t, r1);
+        storage.saveTable(t);
+        Row r2 = createRow(2, "Bob");
+        t.insert(r2);
+        storage.appendRow(t, r2);
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertEquals(StorageMode.PAGED, loaded.getStorageMode());
+        assertEquals(2, loaded.size());
+        assertEquals("Bob", loaded.getRow(2).get("name"));
+        storage.close();
+    }
+
+    @Test
+    void test_columnar_table_persists() throws TinySQLException
+    {
+        List<Column> cols = createTable().getColumns();
+        Table t = storage.createTable(TABLE_NAME, cols, StorageMode.COLUMNAR);
+        Row r1 = createRow(1, "Alice");
+        t.insert(r1);
+        storage.saveTable(t);
+        Row r2 = createRow(2, "Bob");
+        t.insert(r2);
+        storage.appendRow(t, r2);
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertEquals(StorageMode.COLUMNAR, loaded.getStorageMode());
+        assertEquals(2, loaded.size());
+        assertEquals("Bob", loaded.getRow(2).get("name"));
+    }
+
+    @Test
+    void test_index_persisted_and_log_replayed_into_it() throws TinySQLException
+    {
+        Table t = createTable();
+        t.insert(createRow(1, "Alice"));
+        t.insert(createRow(2, "Bob"));
+        storage.saveTable(t);
+        HashIndex index = new HashIndex("by_name", t, "name");
+        t.addIndex(index);
+        index.build(t.scan());
+        storage.saveIndex(t, index);
+        assertTrue(new File("data/" + TABLE_NAME + ".by_name.idx").exists());
+
+        Row r3 = createRow(3, "Alice");
+        t.insert(r3);
+        storage.appendRow(t, r3);
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        HashIndex reloaded = (HashIndex) loaded.getIndex("by_name");
+        assertNotNull(reloaded);
+        assertArrayEquals(new long[] { 1, 3 }, reloaded.lookup("Alice"));
+        assertArrayEquals(new long[] { 2 }, reloaded.lookup("Bob"));
+    }
+
+    @Test
+    void test_stale_index_rebuilt_from_snapshot() throws TinySQLException
+    {
+        Table t = createTable();
+        t.insert(createRow(1, "Alice"));
+        HashIndex index = new HashIndex("by_name", t, "name");
+        t.addIndex(index);
+        index.build(t.scan());
+        storage.saveIndex(t, index);
+
+        // A snapshot written without the index, e.g. by a process that crashed before saving it
+        Table other = createTable();
+        other.insert(createRow(1, "Alice"));
+        other.insert(createRow(2, "Alice"));
+        storage.saveTable(other);
+
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertArrayEquals(new long[] { 1, 2 }, ((HashIndex) loaded.getIndex("by_name")).lookup("Alice"));
+
+        // Saving the table rewrites its indexes with it
+        loaded.insert(createRow(3, "Alice"));
+        storage.saveTable(loaded);
+        assertEquals(3, ((HashIndex) storage.loadTable(TABLE_NAME).getIndex("by_name")).lookup("Alice").length);
+    }
+
+    @Test
+    void test_btree_index_persisted_in_key_order() throws TinySQLException
+    {
+        Table t = createTable();
+        for (long i = 1; i <= 500; i++) t.insert(createRow(i, "n" + i));
+        storage.saveTable(t);
+        BTreeIndex index = new BTreeIndex("by_id", t, "id");
+        t.addIndex(index);
+        index.build(t.scan());
+        storage.saveIndex(t, index);
+
+        Row late = createRow(501, "late");
+        late.set("id", 0);
+        t.insert(late);
+        storage.appendRow(t, late);
+
+        BTreeIndex reloaded = (BTreeIndex) storage.loadTable(TABLE_NAME).getIndex("by_id");
+        assertEquals(501, reloaded.size());
+        assertArrayEquals(new long[] { 501, 1, 2 }, reloaded.range(null, false, 2, true, 10));
+        assertEquals(500, reloaded.last(null, false, null, false, k -> true));
+    }
+
+    @Test
+    void test_stats_persisted_and_log_replayed_into_them() throws TinySQLException
+    {
+        Table t = createTable();
+        for (long i = 1; i <= 100; i++) t.insert(createRow(i, i % 10 == 0 ? null : "n" + (i % 7)));
+        storage.saveTable(t);
+        t.setStats(TableStats.build(t, true));
+        storage.saveStats(t);
+        assertTrue(new File("data/" + TABLE_NAME + ".stats").exists());
+
+        Row late = createRow(101, "late");
+        t.insert(late);
+        storage.appendRow(t, late);
+
+        TableStats stats = storage.loadTable(TABLE_NAME).peekStats();
+        assertNotNull(stats);
+        assertTrue(stats.isAnalyzed());
+        assertEquals(101, stats.getRowCount());
+        assertEquals(1, stats.getInsertsSinceAnalyze());
+        assertEquals(0.1, stats.getColumn("name").getNullFraction(), 0.01);
+        assertEquals(8, stats.getColumn("name").getDistinct());
+        assertEquals(101, stats.getColumn("id").getHistogram().getTotal());
+
+        // Statistics of other rows than the snapshot's are dropped, and gathered again on demand
+        Table other = createTable();
+        other.insert(createRow(1, "Alice"));
+        storage.saveTable(other);
+        Table loaded = storage.loadTable(TABLE_NAME);
+        assertNull(loaded.peekStats());
+        assertEquals(1, loaded.getStats().getRowCount());
+        assertFalse(loaded.getStats().isAnalyzed());
+    }
+}
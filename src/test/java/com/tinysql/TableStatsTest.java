@@ -0,0 +1,113 @@
+package com.tinysql.stats;
+
+import com.tinysql.model.*;
+import org.junit.jupiter.api.*;
+import java.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableStatsTest
+{
+
+    private static Table table()
+    {
+        Table t = new Table("people");
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("city", DataType.STRING, false));
+        t.addColumn(new Column("score", DataType.DOUBLE, false));
+        return t;
+    }
+
+    private static void insert(Table t, int id, String city, Object score)
+    {
+        Row r = new Row(id);
+        r.set("id", id);
+        r.set("city", city);
+        r.set("score", score);
+        t.insert(r);
+    }
+
+    @Test
+    void test_inserts_keep_stats_current()
+    {
+        Table t = table();
+        for (int i = 1; i <= 1000; i++) insert(t, i, i % 4 == 0 ? null : "city" + (i % 50), i / 10.0);
+        TableStats stats = t.getStats();
+        assertSame(stats, t.getStats());
+        assertFalse(stats.isAnalyzed());
+        assertEquals(1000, stats.getRowCount());
+
+        ColumnStats city = stats.getColumn("city");
+        assertEquals(0.25, city.getNullFraction(), 0.001);
+        assertEquals(50, city.getDistinct());
+        assertEquals("city0", city.getMin());
+        assertEquals("city9", city.getMax());
+        assertNull(city.getHistogram());
+
+        // Counted as inserted, including a value that is no number for a DOUBLE column
+        insert(t, 1001, "elsewhere", "n/a");
+        ColumnStats score = t.getStats().getColumn("score");
+        assertEquals(1001, t.getStats().getRowCount());
+        assertEquals(1, score.getNullCount());
+        assertEquals(0.1, score.getMin());
+        assertEquals(100.0, score.getMax());
+        assertEquals(1000, score.getDistinct(), 30);
+
+        t.clear();
+        assertNull(t.peekStats());
+        assertEquals(0, t.getStats().getRowCount());
+    }
+
+    @Test
+    void test_analyze_builds_histograms()
+    {
+        Table t = table();
+        for (int i = 1; i <= 3200; i++) insert(t, i, "c" + (i % 3), (double) i);
+        TableStats stats = TableStats.build(t, true);
+        t.setStats(stats);
+        assertTrue(stats.isAnalyzed());
+
+        Histogram id = stats.getColumn("id").getHistogram();
+        assertEquals(Histogram.DEFAULT_BUCKETS, id.getBucketCount());
+        for (int b = 0; b < id.getBucketCount(); b++) assertEquals(100, id.getCount(b));
+        assertEquals(800, id.estimateAtMost(800), 1);
+        assertEquals(3, stats.getColumn("city").getHistogram().getBucketCount());
+
+        insert(t, 3201, "c0", 3201.0);
+        assertEquals(1, t.getStats().getInsertsSinceAnalyze());
+        assertEquals(3201, t.getStats().getColumn("id").getHistogram().getTotal());
+        assertEquals(3201, t.getStats().getColumn("id").getMax());
+        // Snapshots do not move with later inserts
+        assertEquals(3200, id.getTotal());
+    }
+
+    @Test
+    void test_round_trip_checks_columns() throws IOException
+    {
+        Table t = table();
+        for (int i = 1; i <= 100; i++) insert(t, i, i % 2 == 0 ? "even" : null, i * 0.5);
+        TableStats stats = TableStats.build(t, true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        stats.write(new DataOutputStream(bytes));
+
+        TableStats read = TableStats.read(t, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(100, read.getRowCount());
+        assertEquals(100, read.getMaxRowId());
+        assertTrue(read.isAnalyzed());
+        for (String col : new String[] { "id", "city", "score" })
+        {
+            ColumnStats a = stats.getColumn(col), b = read.getColumn(col);
+            assertEquals(a.getNullCount(), b.getNullCount());
+            assertEquals(a.getMin(), b.getMin());
+            assertEquals(a.getMax(), b.getMax());
+            assertEquals(a.getDistinct(), b.getDistinct());
+            assertEquals(a.getHistogram().toString(), b.getHistogram().toString());
+        }
+
+        Table other = new Table("people");
+        other.addColumn(new Column("id", DataType.INTEGER, true));
+        other.addColumn(new Column("city", DataType.INTEGER, false));
+        other.addColumn(new Column("score", DataType.DOUBLE, false));
+        assertThrows(IOException.class,
+                () -> TableStats.read(other, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+}
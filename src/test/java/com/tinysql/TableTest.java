@@ -58,4 +58,137 @@ class TableTest
         
         assertEquals(1, table.getNextId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_version_bumped_by_insert_and_clear()
+    {
+        Table table = keyedTable("versioned");
+        long v = table.getVersion();
+        Row r = new Row(1);
+        r.set("id", 1);
+        table.insert(r);
+        assertEquals(v + 1, table.getVersion());
+
+        Row duplicate = new Row(2);
+        duplicate.set("id", 1);
+        assertThrows(IllegalArgumentException.class, () -> table.insert(duplicate));
+        assertEquals(v + 1, table.getVersion());
+
+        table.clear();
+        assertEquals(v + 2, table.getVersion());
+    }
+
+    @Test
+    void test_point_read_and_scan()
+    {
+        Row r = new Row(7);
+        r.set("id", 7);
+        table.insert(r);
+
+        assertSame(r, table.getRow(7));
+        assertNull(table.getRow(8));
+        assertEquals(1, table.size());
+
+        int count = 0;
+        for (Row row : table.scan()) count++;
+        assertEquals(1, count);
+    }
+
+    private static Table keyedTable(String name)
+    {
+        Table t = new Table(name);
+        t.addColumn(Column.primaryKey("id", DataType.INTEGER));
+        return t;
+    }
+
+    private Row keyed(long rowId, Object id)
+    {
+        Row r = new Row(rowId);
+        r.set("id", id);
+        return r;
+    }
+
+    @Test
+    void test_primary_key_rejects_duplicates_and_nulls()
+    {
+        Table table = keyedTable("keyed");
+        table.insert(keyed(1, 10));
+        IllegalArgumentException dup = assertThrows(IllegalArgumentException.class, () -> table.insert(keyed(2, 10)));
+        assertEquals("Duplicate primary key id: 10", dup.getMessage());
+        assertEquals("Primary key id cannot be NULL", assertThrows(IllegalArgumentException.class, () -> table.insert(keyed(3, null))).getMessage());
+        assertEquals("Invalid INTEGER primary key for id: ten",
+                assertThrows(IllegalArgumentException.class, () -> table.insert(keyed(4, "ten"))).getMessage());
+        assertEquals(1, table.size());
+        assertNull(table.getRow(2));
+
+        // Keys are converted to the column type, as a snapshot would
+        table.insert(keyed(5, "11"));
+        assertEquals(11, table.getRow(5).get("id"));
+        assertThrows(IllegalArgumentException.class, () -> table.insert(keyed(6, "11")));
+
+        // A replayed log record stores the same row again
+        table.insert(keyed(1, 10));
+        assertEquals(1, table.getPrimaryKey().lookup(10));
+        assertEquals(5, table.getPrimaryKey().lookup(11));
+        assertEquals(-1, table.getPrimaryKey().lookup(12));
+
+        table.clear();
+        table.insert(keyed(1, 10));
+        assertThrows(IllegalArgumentException.class, () -> table.addColumn(Column.primaryKey("other", DataType.INTEGER)));
+    }
+
+    @Test
+    void test_marked_key_not_enforced()
+    {
+        // As a column named id imported from CSV: the mark alone is no constraint
+        table.insert(keyed(1, 10));
+        table.insert(keyed(2, 10));
+        table.insert(keyed(3, null));
+        assertEquals(3, table.size());
+        assertNull(table.getPrimaryKey());
+        assertTrue(table.getColumn("id").isPrimaryKey());
+        assertFalse(table.getColumn("id").isDeclaredKey());
+    }
+
+    @Test
+    void test_failed_store_releases_key()
+    {
+        Table t = keyedTable("failing");
+        t.setRowStore(new HeapRowStore()
+        {
+            @Override
+            public void put(Row row)
+            {
+                if (row.getRowId() == 1) throw new IllegalStateException("disk full");
+                super.put(row);
+            }
+        }, StorageMode.ROW);
+        Row first = new Row(1);
+        first.set("id", 7);
+        assertThrows(IllegalStateException.class, () -> t.insert(first));
+        Row second = new Row(2);
+        second.set("id", 7);
+        t.insert(second);
+        assertEquals(2, t.getPrimaryKey().lookup(7));
+    }
+
+    @Test
+    void test_primary_key_built_from_opened_store()
+    {
+        HeapRowStore store = new HeapRowStore();
+        Table t = keyedTable("opened");
+        for (long i = 1; i <= 3; i++)
+        {
+            Row r = new Row(i, t.getSchema());
+            r.set(0, (int) i * 100);
+            store.put(r);
+        }
+        t.setRowStore(store, StorageMode.ROW);
+        assertEquals(3, t.getPrimaryKey().size());
+        assertThrows(IllegalArgumentException.class, () -> t.insert(keyed(4, 200)));
+
+        Table plain = new Table("plain");
+        plain.addColumn(new Column("id", DataType.INTEGER, false));
+        assertNull(plain.getPrimaryKey());
+    }
+}
@@ -15,7 +15,7 @@ class TokenizerTest
     @Test
     void test_symbol()
     {
-        String input = "* , ; ( ) = > < >= <= !=";
+        String input = "* , ; ( ) = > < >= <= != ?";
         List<Token> tokens = tokenize(input);
 
         assertEquals(TokenType.ASTERISK, tokens.get(0).type);
@@ -29,7 +29,8 @@ class TokenizerTest
         assertEquals(TokenType.GTE, tokens.get(8).type);
         assertEquals(TokenType.LTE, tokens.get(9).type);
         assertEquals(TokenType.NOT_EQUALS, tokens.get(10).type);
-        assertEquals(TokenType.EOF, tokens.get(11).type);
+        assertEquals(TokenType.PARAMETER, tokens.get(11).type);
+        assertEquals(TokenType.EOF, tokens.get(12).type);
     }
 
     @Test
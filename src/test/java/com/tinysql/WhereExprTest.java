@@ -0,0 +1,53 @@
+package com.tinysql.engine;
+
+import com.tinysql.model.Row;
+import org.junit.jupiter.api.*;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WhereExprTest
+{
+
+    private static final WhereExpr A = WhereExpr.of("a", "=", "1");
+    private static final WhereExpr B = WhereExpr.of("b", ">", "2");
+    private static final WhereExpr C = WhereExpr.of("c", "!=", "x");
+
+    @Test
+    void test_same_kind_nodes_flatten()
+    {
+        WhereExpr and = WhereExpr.and(List.of(A, WhereExpr.and(List.of(B, C))));
+        assertEquals(WhereExpr.Kind.AND, and.getKind());
+        assertEquals(3, and.getChildren().size());
+        assertEquals("(a = 1 AND b > 2 AND c != x)", and.toString());
+
+        WhereExpr mixed = WhereExpr.or(List.of(A, WhereExpr.and(List.of(B, C))));
+        assertEquals(2, mixed.getChildren().size());
+        assertEquals("(a = 1 OR (b > 2 AND c != x))", mixed.toString());
+
+        assertSame(A, WhereExpr.and(List.of(A)));
+        assertThrows(IllegalArgumentException.class, () -> WhereExpr.or(List.of()));
+    }
+
+    @Test
+    void test_from_condition_list()
+    {
+        List<Condition> conds = List.of(A.getCondition(), B.getCondition());
+        assertEquals(WhereExpr.Kind.OR, WhereExpr.of(conds, true).getKind());
+        assertEquals(WhereExpr.Kind.AND, WhereExpr.of(conds, false).getKind());
+        assertEquals(WhereExpr.Kind.CONDITION, WhereExpr.of(conds.subList(0, 1), true).getKind());
+        assertNull(WhereExpr.of(conds, true).getCondition());
+    }
+
+    @Test
+    void test_evaluated_row_by_row()
+    {
+        Row r = new Row(1);
+        r.set("a", 1);
+        r.set("b", 2);
+        r.set("c", "x");
+        assertTrue(ConditionEvaluator.evaluate(r, A));
+        assertFalse(ConditionEvaluator.evaluate(r, WhereExpr.and(List.of(A, B))));
+        assertTrue(ConditionEvaluator.evaluate(r, WhereExpr.or(List.of(B, A))));
+        assertFalse(ConditionEvaluator.evaluate(r, WhereExpr.or(List.of(B, WhereExpr.and(List.of(A, C))))));
+    }
+}
@@ -0,0 +1,238 @@
+package com.tinysql.storage;
+
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.zip.CRC32;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest
+{
+
+    private File file;
+
+    @BeforeEach
+    void setUp()
+    {
+        new File("data").mkdirs();
+        file = new File("data/wal_test.log");
+        file.delete();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        file.delete();
+    }
+
+    private static byte[] bytes(String s)
+    {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> records)
+    {
+        List<String> out = new ArrayList<>();
+        for (byte[] r : records) out.add(new String(r, StandardCharsets.UTF_8));
+        return out;
+    }
+
+    @Test
+    void test_append_and_read_back() throws IOException
+    {
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.EVERY_COMMIT, 0))
+        {
+            wal.append(bytes("1,Alice"));
+            wal.append(bytes("2,Bob"));
+            assertEquals(file.length(), wal.size());
+            assertEquals(2, wal.getSyncCount());
+        }
+
+        assertEquals(List.of("1,Alice", "2,Bob"), strings(WriteAheadLog.readRecords(file)));
+    }
+
+    @Test
+    void test_torn_tail_ignored_and_truncated() throws IOException
+    {
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.OS_MANAGED, 0))
+        {
+            wal.append(bytes("1,Alice"));
+        }
+        long intact = file.length();
+        Files.write(file.toPath(), "1234".getBytes(), StandardOpenOption.APPEND);
+
+        assertEquals(1, WriteAheadLog.readRecords(file).size());
+        assertEquals(1, WriteAheadLog.truncateTorn(file));
+        assertEquals(intact, file.length());
+    }
+
+    @Test
+    void test_corrupt_record_stops_replay() throws IOException
+    {
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.OS_MANAGED, 0))
+        {
+            wal.append(bytes("1,Alice"));
+        }
+        byte[] bad = ByteBuffer.allocate(8 + 5).putInt(5).putInt(0).put(bytes("2,Bob")).array();
+        Files.write(file.toPath(), bad, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("1,Alice"), strings(WriteAheadLog.readRecords(file)));
+    }
+
+    @Test
+    void test_payloads_framed_by_length() throws IOException
+    {
+        List<String> payloads = List.of("a\nb", "", "\n", "x,y\r\nz");
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.OS_MANAGED, 0))
+        {
+            for (String p : payloads) wal.append(bytes(p));
+        }
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.OS_MANAGED, 0))
+        {
+            wal.append(bytes("after reopen"));
+        }
+
+        List<String> expected = new ArrayList<>(payloads);
+        expected.add("after reopen");
+        assertEquals(expected, strings(WriteAheadLog.readRecords(file)));
+        assertEquals(expected.size(), WriteAheadLog.truncateTorn(file));
+    }
+
+    @Test
+    void test_text_log_read_and_not_appended_to() throws IOException
+    {
+        CRC32 crc = new CRC32();
+        crc.update(bytes("1,Alice"));
+        Files.write(file.toPath(), (String.format("%08x ", crc.getValue()) + "1,Alice\n").getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(WriteAheadLog.isTextLog(file));
+        assertEquals(List.of("1,Alice"), WriteAheadLog.readTextRecords(file));
+        assertThrows(IOException.class, () -> WriteAheadLog.readRecords(file));
+        assertThrows(IOException.class, () -> new WriteAheadLog(file, FsyncPolicy.OS_MANAGED, 0));
+    }
+
+    @Test
+    void test_concurrent_commits_share_force() throws Exception
+    {
+        int threads = 16;
+        int perThread = 50;
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.EVERY_COMMIT, 0))
+        {
+            // Released together so commits queue up behind each other's forces
+            CyclicBarrier start = new CyclicBarrier(threads);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                final int id = t;
+                Thread w = new Thread(() ->
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (Exception e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                    for (int i = 0; i < perThread; i++)
+                    {
+                        try
+                        {
+                            wal.append(bytes(id + "," + i));
+                        }
+                        catch (IOException e)
+                        {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+                workers.add(w);
+                w.start();
+            }
+            for (Thread w : workers) w.join();
+
+            // Every commit is durable, and some shared a force with another
+            long forces = wal.getSyncCount();
+            assertTrue(forces < threads * perThread, forces + " forces for " + threads * perThread + " commits");
+        }
+
+        assertEquals(threads * perThread, WriteAheadLog.readRecords(file).size());
+    }
+
+    @Test
+    void test_interval_policy_syncs_in_background() throws Exception
+    {
+        try (WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.INTERVAL, 5))
+        {
+            wal.append(bytes("1,Alice"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (wal.getSyncCount() == 0 && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(5);
+            }
+            assertTrue(wal.getSyncCount() > 0);
+        }
+    }
+
+    @Test
+    void test_close_interrupted_while_waiting_still_forces() throws Exception
+    {
+        WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.EVERY_COMMIT, 0);
+        long header = file.length();
+
+        // A leader busy writing a large record keeps the closer waiting
+        Thread leader = new Thread(() ->
+        {
+            try
+            {
+                wal.append(new byte[64 << 20]);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        });
+        leader.start();
+        while (file.length() == header && leader.isAlive()) Thread.onSpinWait();
+
+        IOException[] failure = new IOException[1];
+        boolean[] stillInterrupted = new boolean[1];
+        Thread closer = new Thread(() ->
+        {
+            try
+            {
+                wal.close();
+            }
+            catch (IOException e)
+            {
+                failure[0] = e;
+            }
+            stillInterrupted[0] = Thread.currentThread().isInterrupted();
+        });
+        closer.start();
+        while (closer.getState() != Thread.State.WAITING && closer.isAlive() && leader.isAlive()) Thread.onSpinWait();
+        Assumptions.assumeTrue(closer.getState() == Thread.State.WAITING && leader.isAlive(), "leader finished before close() waited");
+        closer.interrupt();
+        leader.join();
+        closer.join();
+
+        assertNull(failure[0]);
+        assertTrue(stillInterrupted[0]);
+        assertEquals(2, wal.getSyncCount());
+    }
+
+    @Test
+    void test_append_after_close_fails() throws IOException
+    {
+        WriteAheadLog wal = new WriteAheadLog(file, FsyncPolicy.OS_MANAGED, 0);
+        wal.close();
+        assertThrows(IOException.class, () -> wal.append(bytes("1,Alice")));
+    }
+}
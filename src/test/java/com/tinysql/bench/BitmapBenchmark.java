@@ -0,0 +1,94 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.Condition;
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.Executor;
+import com.tinysql.index.BitmapIndex;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Database;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Three conditions on low-cardinality columns of 1M rows, a status of five
+ * values, a boolean flag and a region of 100, ANDed to select about 0.1% of
+ * the rows and ORed to select about half: the matching rows and their COUNT,
+ * with and without bitmap indexes on the three columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BitmapBenchmark {
+    private static final String[] STATUSES = { "new", "open", "pending", "closed", "archived" };
+
+    @Param({"scan", "bitmap"})
+    public String access;
+
+    private Executor executor;
+    private final List<Condition> where = List.of(
+            new Condition("status", "=", "pending"), new Condition("active", "=", "true"), new Condition("region", "=", "42"));
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Table t = new Table("tickets");
+        t.addColumn(new Column("id", DataType.INTEGER, false));
+        t.addColumn(new Column("status", DataType.STRING, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        t.addColumn(new Column("region", DataType.INTEGER, false));
+        Random rnd = new Random(42);
+        for (int n = 1; n <= 1_000_000; n++) {
+            Row r = new Row(n);
+            r.set("id", n);
+            r.set("status", STATUSES[rnd.nextInt(STATUSES.length)]);
+            r.set("active", rnd.nextBoolean());
+            r.set("region", rnd.nextInt(100));
+            t.insert(r);
+        }
+        if (access.equals("bitmap")) {
+            for (String col : new String[] { "status", "active", "region" }) {
+                BitmapIndex index = new BitmapIndex("by_" + col, t, col);
+                index.build(t.scan());
+                t.addIndex(index);
+            }
+        }
+        Database db = new Database();
+        db.addTable(t);
+        executor = new Executor(db, new StorageManager());
+    }
+
+    @Benchmark
+    public ExecutionResult selectAnd() {
+        return executor.executeSelect("tickets", where, false);
+    }
+
+    @Benchmark
+    public ExecutionResult countAnd() {
+        return executor.executeAggregate("tickets", "*", "COUNT", where, false);
+    }
+
+    @Benchmark
+    public ExecutionResult countOr() {
+        return executor.executeAggregate("tickets", "*", "COUNT", where, true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BitmapBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.Executor;
+import com.tinysql.index.HashIndex;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Database;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code SELECT * WHERE col = v} over 1M rows: a full filtered scan versus a
+ * hash index lookup, for a key held by one row and one held by 100 rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class IndexBenchmark {
+    @Param({"id", "grp"})
+    public String column;
+
+    private Executor executor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Database db = new Database();
+        for (String name : new String[] { "plain", "indexed" }) {
+            Table t = new Table(name);
+            t.addColumn(new Column("id", DataType.INTEGER, false));
+            t.addColumn(new Column("grp", DataType.INTEGER, false));
+            t.addColumn(new Column("name", DataType.STRING, false));
+            for (int n = 1; n <= 1_000_000; n++) {
+                Row r = new Row(n);
+                r.set("id", n);
+                r.set("grp", n % 10_000);
+                r.set("name", "user" + n);
+                t.insert(r);
+            }
+            if (name.equals("indexed")) {
+                HashIndex index = new HashIndex("by_" + column, t, column);
+                t.addIndex(index);
+                index.build(t.scan());
+            }
+            db.addTable(t);
+        }
+        executor = new Executor(db, new StorageManager());
+    }
+
+    @Benchmark
+    public ExecutionResult scan() {
+        return executor.executeSelect("plain", column, "=", "4242");
+    }
+
+    @Benchmark
+    public ExecutionResult index() {
+        return executor.executeSelect("indexed", column, "=", "4242");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(IndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.JoinProcessor;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash join (serial and partitioned across all cores) versus the reference
+ * nested-loop join over input sizes and key skew.
+ * "uniform" draws left keys evenly; "skewed" concentrates them on a few hot keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JoinBenchmark {
+
+    @Param({"1000", "10000", "1000000"})
+    public int rows;
+
+    @Param({"uniform", "skewed"})
+    public String skew;
+
+    private Table left;
+    private Table right;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Random rnd = new Random(42);
+        left = table("l", rows, rnd, skew.equals("skewed"));
+        right = table("r", rows, rnd, false);
+    }
+
+    static Table table(String name, int n, Random rnd, boolean skewed) {
+        Table t = new Table(name);
+        t.addColumn(new Column("k", DataType.INTEGER, false));
+        t.addColumn(new Column("v", DataType.STRING, false));
+        for (int i = 1; i <= n; i++) {
+            double r = rnd.nextDouble();
+            int key = skewed ? (int) (n * r * r * r * r) : rnd.nextInt(n);
+            Row row = new Row(i);
+            row.set("k", key);
+            row.set("v", "v" + i);
+            t.insert(row);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public ExecutionResult hashJoin() {
+        return JoinProcessor.executeJoin(left, right, "k", "k");
+    }
+
+    @Benchmark
+    public ExecutionResult parallelHashJoin() {
+        return JoinProcessor.executeJoin(left, right, "k", "k", Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public ExecutionResult nestedLoopJoin() {
+        // Quadratic: skip the largest size instead of running for hours
+        if (rows > 10_000) return null;
+        return JoinProcessor.executeNestedLoopJoin(left, right, "k", "k");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JoinBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,167 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.WhereExpr;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.parser.Parser;
+import com.tinysql.parser.Statement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statements parsed per second: {@link Parser} over the tokenizer against the
+ * split-on-whitespace path the CLI used before it, copied here as it was,
+ * down to its scans for FROM and VALUES and its regexes per inserted value.
+ * Each invocation parses one statement of each kind in {@link #STATEMENTS}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    static final String[] STATEMENTS = {
+            "INSERT INTO users VALUES 42 alice 31.5 true 1200 -7 berlin 0.25",
+            "SELECT * FROM users WHERE age > 30 AND (city = berlin OR score >= 0.5)",
+            "SELECT SUM(score), MIN(age), COUNT(*) FROM users WHERE active = true",
+            "CREATE TABLE users (id INT PRIMARY KEY, name TEXT, score DOUBLE, active BOOL) USING COLUMNAR",
+    };
+
+    @Benchmark
+    public void tokenParser(Blackhole bh) {
+        for (String sql : STATEMENTS) {
+            Statement s = Parser.parse(sql);
+            bh.consume(s);
+        }
+    }
+
+    @Benchmark
+    public void splitParser(Blackhole bh) {
+        for (String sql : STATEMENTS) {
+            String[] parts = sql.trim().split("\\s+");
+            String cmd = parts[0].toUpperCase();
+            if (cmd.equals("SELECT")) bh.consume(legacySelect(parts));
+            else if (cmd.equals("INSERT")) bh.consume(legacyInsert(parts));
+            else if (cmd.equals("CREATE")) bh.consume(legacyCreate(parts));
+        }
+    }
+
+    private static List<Object> legacyInsert(String[] parts) {
+        int valIdx = -1;
+        for(int i=0; i<parts.length; i++) if(parts[i].equalsIgnoreCase("VALUES")) valIdx = i;
+        List<Object> values = new ArrayList<>();
+        for(int i=valIdx+1; i<parts.length; i++) {
+            String raw = parts[i];
+            if(raw.matches("-?\\d+")) values.add(Integer.parseInt(raw));
+            else if(raw.matches("-?\\d*\\.\\d+")) values.add(Double.parseDouble(raw));
+            else if(raw.equalsIgnoreCase("true") || raw.equalsIgnoreCase("false")) values.add(Boolean.parseBoolean(raw));
+            else values.add(raw);
+        }
+        return values;
+    }
+
+    private static Object[] legacySelect(String[] parts) {
+        int fromIdx = -1;
+        for(int i=0; i<parts.length; i++) if(parts[i].equalsIgnoreCase("FROM")) fromIdx = i;
+        String tableName = parts[fromIdx + 1];
+        int whereIdx = -1;
+        for(int i=0; i<parts.length; i++) if(parts[i].equalsIgnoreCase("WHERE")) whereIdx = i;
+        int groupIdx = -1;
+        for(int i=0; i<parts.length; i++) if(parts[i].equalsIgnoreCase("GROUP")) groupIdx = i;
+        WhereExpr where = null;
+        if (whereIdx != -1) {
+            int whereEnd = groupIdx > whereIdx ? groupIdx : parts.length;
+            String clause = String.join(" ", Arrays.copyOfRange(parts, whereIdx + 1, whereEnd));
+            List<String> tokens = Arrays.asList(clause.replace("(", " ( ").replace(")", " ) ").trim().split("\\s+"));
+            int[] pos = {0};
+            where = legacyOr(tokens, pos);
+        }
+        String[] items = String.join("", Arrays.copyOfRange(parts, 1, fromIdx)).split(",");
+        List<String> funcs = new ArrayList<>();
+        List<String> cols = new ArrayList<>();
+        for (String item : items) {
+            int open = item.indexOf('('), close = item.indexOf(')');
+            if (open > 0 && close > open) {
+                funcs.add(item.substring(0, open));
+                cols.add(item.substring(open + 1, close));
+            }
+        }
+        return new Object[] { tableName, where, funcs, cols };
+    }
+
+    private static WhereExpr legacyOr(List<String> tokens, int[] pos) {
+        List<WhereExpr> terms = new ArrayList<>();
+        terms.add(legacyAnd(tokens, pos));
+        while (pos[0] < tokens.size() && tokens.get(pos[0]).equalsIgnoreCase("OR")) {
+            pos[0]++;
+            terms.add(legacyAnd(tokens, pos));
+        }
+        return WhereExpr.or(terms);
+    }
+
+    private static WhereExpr legacyAnd(List<String> tokens, int[] pos) {
+        List<WhereExpr> terms = new ArrayList<>();
+        terms.add(legacyTerm(tokens, pos));
+        while (pos[0] < tokens.size() && tokens.get(pos[0]).equalsIgnoreCase("AND")) {
+            pos[0]++;
+            terms.add(legacyTerm(tokens, pos));
+        }
+        return WhereExpr.and(terms);
+    }
+
+    private static WhereExpr legacyTerm(List<String> tokens, int[] pos) {
+        int p = pos[0];
+        if (tokens.get(p).equals("(")) {
+            pos[0]++;
+            WhereExpr inner = legacyOr(tokens, pos);
+            pos[0]++;
+            return inner;
+        }
+        pos[0] += 3;
+        return WhereExpr.of(tokens.get(p), tokens.get(p + 1), tokens.get(p + 2));
+    }
+
+    private static List<Column> legacyCreate(String[] parts) {
+        int colEnd = parts.length;
+        if (parts.length >= 6 && parts[parts.length - 2].equalsIgnoreCase("USING")) colEnd = parts.length - 2;
+        StringBuilder rawCols = new StringBuilder();
+        for(int i=3; i<colEnd; i++) {
+            rawCols.append(parts[i]).append(" ");
+        }
+        String colString = rawCols.toString().trim();
+        String inner = colString.substring(1, colString.length() - 1);
+        List<Column> cols = new ArrayList<>();
+        for(String def : inner.split(",")) {
+            def = def.trim();
+            if (def.isEmpty()) continue;
+            String[] cp = def.split("\\s+");
+            String typeStr = cp[1].toUpperCase();
+            DataType type;
+            if(typeStr.startsWith("INT")) type = DataType.INTEGER;
+            else if(typeStr.startsWith("TEXT")) type = DataType.STRING;
+            else if(typeStr.startsWith("FLOAT")) type = DataType.FLOAT;
+            else if(typeStr.startsWith("DOUBLE")) type = DataType.DOUBLE;
+            else type = DataType.BOOLEAN;
+            boolean primaryKey = cp.length >= 4 && cp[2].equalsIgnoreCase("PRIMARY") && cp[3].equalsIgnoreCase("KEY");
+            cols.add(new Column(cp[0], type, primaryKey));
+        }
+        return cols;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ConditionEvaluator;
+import com.tinysql.engine.PredicateCompiler;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * WHERE evaluation per row: re-parsing the literal every time versus a
+ * predicate compiled once per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PredicateBenchmark {
+
+    @Param({"INTEGER", "DOUBLE", "STRING"})
+    public String column;
+
+    private Table table;
+    private List<Row> rows;
+    private String col;
+    private String literal;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        table = new Table("bench");
+        table.addColumn(new Column("i", DataType.INTEGER, false));
+        table.addColumn(new Column("d", DataType.DOUBLE, false));
+        table.addColumn(new Column("s", DataType.STRING, false));
+        for (int n = 1; n <= 100_000; n++) {
+            Row r = new Row(n);
+            r.set("i", n % 1000);
+            r.set("d", n * 0.5);
+            r.set("s", "v" + (n % 100));
+            table.insert(r);
+        }
+        rows = table.selectAll();
+        switch (column) {
+            case "INTEGER": col = "i"; literal = "500"; break;
+            case "DOUBLE": col = "d"; literal = "25000.0"; break;
+            default: col = "s"; literal = "v7"; break;
+        }
+    }
+
+    @Benchmark
+    public int interpreted() {
+        String op = column.equals("STRING") ? "=" : ">";
+        int hits = 0;
+        for (Row r : rows) {
+            if (ConditionEvaluator.evaluate(r, col, op, literal)) hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int compiled() {
+        String op = column.equals("STRING") ? "=" : ">";
+        Predicate<Row> p = PredicateCompiler.compile(table, col, op, literal);
+        int hits = 0;
+        for (Row r : rows) {
+            if (p.test(r)) hits++;
+        }
+        return hits;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PredicateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
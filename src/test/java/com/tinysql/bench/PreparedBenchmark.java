@@ -0,0 +1,86 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.Executor;
+import com.tinysql.engine.PreparedQuery;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Database;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.parser.Parser;
+import com.tinysql.parser.SelectStatement;
+import com.tinysql.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A primary-key lookup on 100k rows, {@code SELECT * FROM people WHERE id = n},
+ * run with a different n each time: parsed from its text every time, as the
+ * CLI did; through {@link Executor#prepare} with the literal in the text, so
+ * that each of the 100 distinct statements is parsed once and then found in
+ * the plan cache; and prepared once with {@code ?} bound per run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PreparedBenchmark {
+    private static final int ROWS = 100_000;
+
+    private Executor executor;
+    private PreparedQuery lookup;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Table t = new Table("people");
+        t.addColumn(new Column("id", DataType.INTEGER, true));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        for (int n = 1; n <= ROWS; n++) {
+            Row r = new Row(n);
+            r.set("id", n);
+            r.set("name", "user" + n);
+            t.insert(r);
+        }
+        Database db = new Database();
+        db.addTable(t);
+        executor = new Executor(db, new StorageManager());
+        lookup = executor.prepare("SELECT * FROM people WHERE id = ?");
+    }
+
+    private int id() {
+        next = next % 100 + 1;
+        return next * 997 % ROWS + 1;
+    }
+
+    @Benchmark
+    public ExecutionResult parsedEachTime() {
+        SelectStatement s = (SelectStatement) Parser.parse("SELECT * FROM people WHERE id = " + id());
+        return executor.executeSelect(s.getTable(), s.getWhere());
+    }
+
+    @Benchmark
+    public ExecutionResult planCache() {
+        return executor.prepare("SELECT * FROM people WHERE id = " + id()).execute();
+    }
+
+    @Benchmark
+    public ExecutionResult prepared() {
+        return lookup.execute(id());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PreparedBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,73 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.Executor;
+import com.tinysql.model.ClusteredRowStore;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Database;
+import com.tinysql.model.Row;
+import com.tinysql.model.StorageMode;
+import com.tinysql.model.Table;
+import com.tinysql.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary key access over 1M rows inserted in random key order: a point
+ * lookup {@code WHERE id = v} and a range {@code WHERE id < v} covering 0.1%
+ * of the rows, on a heap table without a key, with a PRIMARY KEY, and with
+ * a PRIMARY KEY and CLUSTERED storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PrimaryKeyBenchmark {
+    @Param({"plain", "keyed", "clustered"})
+    public String table;
+
+    private Executor executor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Table t = new Table(table);
+        t.addColumn(table.equals("plain") ? new Column("id", DataType.INTEGER, false) : Column.primaryKey("id", DataType.INTEGER));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        if (table.equals("clustered")) t.setRowStore(new ClusteredRowStore(t), StorageMode.CLUSTERED);
+        for (int n = 1; n <= 1_000_000; n++) {
+            Row r = new Row(n);
+            // A permutation of 0..999999
+            r.set("id", (int) ((n * 7_919L) % 1_000_000));
+            r.set("name", "user" + n);
+            t.insert(r);
+        }
+        Database db = new Database();
+        db.addTable(t);
+        executor = new Executor(db, new StorageManager());
+    }
+
+    @Benchmark
+    public ExecutionResult pointLookup() {
+        return executor.executeSelect(table, "id", "=", "424242");
+    }
+
+    @Benchmark
+    public ExecutionResult keyRange() {
+        return executor.executeSelect(table, "id", "<", "1000");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PrimaryKeyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
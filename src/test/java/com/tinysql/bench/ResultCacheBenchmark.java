@@ -0,0 +1,80 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.Executor;
+import com.tinysql.engine.PreparedQuery;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Database;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A dashboard's queries over 1M rows that do not change between runs: a
+ * filtered aggregate for one of ten regions and the top rows of a region,
+ * with the result cache off and on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ResultCacheBenchmark {
+    @Param({"off", "on"})
+    public String cache;
+
+    private PreparedQuery totals;
+    private PreparedQuery rows;
+    private int region;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Table t = new Table("events");
+        t.addColumn(new Column("id", DataType.INTEGER, false));
+        t.addColumn(new Column("region", DataType.INTEGER, false));
+        t.addColumn(new Column("amount", DataType.DOUBLE, false));
+        Random rnd = new Random(42);
+        for (int n = 1; n <= 1_000_000; n++) {
+            Row r = new Row(n);
+            r.set("id", n);
+            r.set("region", rnd.nextInt(10));
+            r.set("amount", rnd.nextDouble() * 100);
+            t.insert(r);
+        }
+        Database db = new Database();
+        db.addTable(t);
+        Executor executor = new Executor(db, new StorageManager());
+        if (cache.equals("on")) executor.setResultCacheBudget(64L << 20);
+        totals = executor.prepare("SELECT COUNT(*), SUM(amount), MAX(amount) FROM events WHERE region = ?");
+        rows = executor.prepare("SELECT * FROM events WHERE region = ? AND amount > 99.99");
+    }
+
+    @Benchmark
+    public ExecutionResult aggregate() {
+        region = (region + 1) % 10;
+        return totals.execute(region);
+    }
+
+    @Benchmark
+    public ExecutionResult select() {
+        region = (region + 1) % 10;
+        return rows.execute(region);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ResultCacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.tinysql.bench;
+
+import com.tinysql.model.ColumnRef;
+import com.tinysql.model.Row;
+import com.tinysql.model.Schema;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap footprint and scan cost of a HashMap per row versus schema-indexed rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RowLayoutBenchmark {
+    private static final String[] COLUMNS = { "id", "name", "score", "active" };
+
+    @Param({"100000"})
+    public int rows;
+
+    private List<Map<String, Object>> maps;
+    private List<Row> compact;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        maps = mapRows(rows);
+        compact = compactRows(rows);
+    }
+
+    @Benchmark
+    public double scanMaps() {
+        double sum = 0;
+        for (Map<String, Object> m : maps) sum += (Integer) m.get("score");
+        return sum;
+    }
+
+    @Benchmark
+    public double scanByName() {
+        double sum = 0;
+        for (Row r : compact) sum += (Integer) r.get("score");
+        return sum;
+    }
+
+    @Benchmark
+    public double scanByOrdinal() {
+        double sum = 0;
+        ColumnRef score = new ColumnRef("score");
+        for (Row r : compact) sum += (Integer) score.get(r);
+        return sum;
+    }
+
+    static List<Map<String, Object>> mapRows(int n) {
+        List<Map<String, Object>> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put(COLUMNS[0], i);
+            m.put(COLUMNS[1], "user" + i);
+            m.put(COLUMNS[2], i % 100);
+            m.put(COLUMNS[3], (i & 1) == 0);
+            out.add(m);
+        }
+        return out;
+    }
+
+    static List<Row> compactRows(int n) {
+        Schema schema = new Schema();
+        for (String c : COLUMNS) schema.add(c);
+        List<Row> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Row r = new Row(i, schema);
+            r.set(0, i);
+            r.set(1, "user" + i);
+            r.set(2, i % 100);
+            r.set(3, (i & 1) == 0);
+            out.add(r);
+        }
+        return out;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int n = 200_000;
+        long before = usedHeap();
+        List<Map<String, Object>> maps = mapRows(n);
+        long mapBytes = usedHeap() - before;
+        maps = null;
+
+        before = usedHeap();
+        List<Row> compact = compactRows(n);
+        long compactBytes = usedHeap() - before;
+        System.out.printf("HashMap rows: %d bytes/row, compact rows: %d bytes/row (%d rows kept)%n",
+                mapBytes / n, compactBytes / n, compact.size());
+
+        Options opt = new OptionsBuilder()
+                .include(RowLayoutBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
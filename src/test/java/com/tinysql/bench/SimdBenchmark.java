@@ -0,0 +1,130 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.Aggregator;
+import com.tinysql.engine.batch.Batch;
+import com.tinysql.engine.batch.Kernels;
+import com.tinysql.model.Row;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar versus Vector API kernels over 100 batches of 1024 values, with
+ * Aggregator's row-at-a-time SUM as a baseline. The vector kernels only exist
+ * in builds with the vector profile:
+ * mvn -Pbench,vector test -DskipTests -Dbenchmark=com.tinysql.bench.SimdBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimdBenchmark {
+    private static final int BATCHES = 100;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    private Kernels k;
+    private int[][] ints;
+    private float[][] floats;
+    private double[][] doubles;
+    private boolean[][] nulls;
+    private int[] sel;
+    private List<Row> rows;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        k = kernels.equals("vector") ? Kernels.vector() : Kernels.scalar();
+        if (k == null) throw new IllegalStateException("Vector kernels not built; add -Pvector");
+        Random rnd = new Random(7);
+        ints = new int[BATCHES][Batch.CAPACITY];
+        floats = new float[BATCHES][Batch.CAPACITY];
+        doubles = new double[BATCHES][Batch.CAPACITY];
+        nulls = new boolean[BATCHES][Batch.CAPACITY];
+        sel = new int[Batch.CAPACITY];
+        rows = new ArrayList<>();
+        for (int b = 0; b < BATCHES; b++) {
+            for (int i = 0; i < Batch.CAPACITY; i++) {
+                ints[b][i] = rnd.nextInt(1000);
+                doubles[b][i] = rnd.nextDouble() * 1000;
+                floats[b][i] = (float) doubles[b][i];
+                Row r = new Row(b * Batch.CAPACITY + i + 1);
+                r.set("d", doubles[b][i]);
+                rows.add(r);
+            }
+        }
+    }
+
+    @Benchmark
+    public double aggregatorSum() {
+        return Aggregator.calculate(rows, "d", "SUM");
+    }
+
+    @Benchmark
+    public double sumDoubles() {
+        double acc = 0;
+        for (int b = 0; b < BATCHES; b++) acc = k.sum(doubles[b], Batch.CAPACITY, acc);
+        return acc;
+    }
+
+    @Benchmark
+    public long sumInts() {
+        long acc = 0;
+        for (int b = 0; b < BATCHES; b++) acc += k.sum(ints[b], Batch.CAPACITY);
+        return acc;
+    }
+
+    @Benchmark
+    public double minDoubles() {
+        double acc = Double.MAX_VALUE;
+        for (int b = 0; b < BATCHES; b++) acc = Math.min(acc, k.min(doubles[b], nulls[b], Batch.CAPACITY));
+        return acc;
+    }
+
+    @Benchmark
+    public double maxInts() {
+        double acc = -Double.MAX_VALUE;
+        for (int b = 0; b < BATCHES; b++) acc = Math.max(acc, k.max(ints[b], nulls[b], Batch.CAPACITY));
+        return acc;
+    }
+
+    /** x > 500 keeps about half the slots. */
+    @Benchmark
+    public int selectInts() {
+        int hits = 0;
+        for (int b = 0; b < BATCHES; b++) hits += k.select(ints[b], nulls[b], Batch.CAPACITY, Kernels.GT, 500, sel);
+        return hits;
+    }
+
+    /** x > 500.0 keeps about half the slots. */
+    @Benchmark
+    public int selectFloats() {
+        int hits = 0;
+        for (int b = 0; b < BATCHES; b++) hits += k.select(floats[b], nulls[b], Batch.CAPACITY, Kernels.GT, 500f, sel);
+        return hits;
+    }
+
+    /** x > 900.0 keeps about a tenth of the slots. */
+    @Benchmark
+    public int selectDoubles() {
+        int hits = 0;
+        for (int b = 0; b < BATCHES; b++) hits += k.select(doubles[b], nulls[b], Batch.CAPACITY, Kernels.GT, 900.0, sel);
+        return hits;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SimdBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
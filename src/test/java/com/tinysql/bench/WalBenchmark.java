@@ -0,0 +1,63 @@
+package com.tinysql.bench;
+
+import com.tinysql.storage.FsyncPolicy;
+import com.tinysql.storage.WriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commits per second through the write-ahead log at 1, 8 and 64 concurrent writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class WalBenchmark {
+
+    @Param({"EVERY_COMMIT", "INTERVAL", "OS_MANAGED"})
+    public FsyncPolicy policy;
+
+    private File file;
+    private WriteAheadLog wal;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        file = Files.createTempFile("tinysql-wal", ".log").toFile();
+        wal = new WriteAheadLog(file, policy, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        wal.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void commit() throws IOException {
+        long id = nextId.incrementAndGet();
+        wal.append((id + "," + id + ",Alice,95.5").getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] { 1, 8, 64 }) {
+            Options opt = new OptionsBuilder()
+                    .include(WalBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tinysql.bench;
+
+import com.tinysql.engine.ExecutionResult;
+import com.tinysql.engine.Executor;
+import com.tinysql.engine.PredicateCompiler;
+import com.tinysql.engine.WhereExpr;
+import com.tinysql.index.BitmapIndex;
+import com.tinysql.model.Column;
+import com.tinysql.model.DataType;
+import com.tinysql.model.Database;
+import com.tinysql.model.Row;
+import com.tinysql.model.Table;
+import com.tinysql.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * {@code name != user7 AND active = true AND region = 42} over 1M rows, about
+ * 0.5% of which match, written with the selective condition last or first:
+ * evaluated in the written order, by the adaptive filter on a scan, and with
+ * bitmap indexes on region and active intersected before any row is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class WhereBenchmark {
+    @Param({"selectiveLast", "selectiveFirst"})
+    public String order;
+
+    private Table plain;
+    private Executor executor;
+    private WhereExpr where;
+    private List<Predicate<Row>> written;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        plain = table("plain");
+        Table indexed = table("indexed");
+        for (String col : new String[] { "region", "active" }) {
+            BitmapIndex index = new BitmapIndex("by_" + col, indexed, col);
+            index.build(indexed.scan());
+            indexed.addIndex(index);
+        }
+        Database db = new Database();
+        db.addTable(plain);
+        db.addTable(indexed);
+        executor = new Executor(db, new StorageManager());
+
+        List<WhereExpr> conds = new ArrayList<>(List.of(
+                WhereExpr.of("name", "!=", "user7"), WhereExpr.of("active", "=", "true"), WhereExpr.of("region", "=", "42")));
+        if (order.equals("selectiveFirst")) Collections.reverse(conds);
+        where = WhereExpr.and(conds);
+        written = new ArrayList<>();
+        for (WhereExpr c : conds) {
+            written.add(PredicateCompiler.compile(plain, c.getCondition().getColumn(), c.getCondition().getOperator(), c.getCondition().getValue()));
+        }
+    }
+
+    private static Table table(String name) {
+        Table t = new Table(name);
+        t.addColumn(new Column("id", DataType.INTEGER, false));
+        t.addColumn(new Column("name", DataType.STRING, false));
+        t.addColumn(new Column("active", DataType.BOOLEAN, false));
+        t.addColumn(new Column("region", DataType.INTEGER, false));
+        Random rnd = new Random(42);
+        for (int n = 1; n <= 1_000_000; n++) {
+            Row r = new Row(n);
+            r.set("id", n);
+            r.set("name", "user" + rnd.nextInt(1000));
+            r.set("active", rnd.nextBoolean());
+            r.set("region", rnd.nextInt(100));
+            t.insert(r);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public int writtenOrder() {
+        int n = 0;
+        rows:
+        for (Row r : plain.scan()) {
+            for (Predicate<Row> p : written) if (!p.test(r)) continue rows;
+            n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public ExecutionResult adaptiveScan() {
+        return executor.executeSelect("plain", where);
+    }
+
+    @Benchmark
+    public ExecutionResult bitmapIntersection() {
+        return executor.executeSelect("indexed", where);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(WhereBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,261 @@
+package com.tinysql.engine.batch;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels written against the incubating Vector API, at the platform's
+ * preferred vector width. Only compiled by the {@code vector} profile and
+ * loaded by name from {@link Kernels#vector()}; the JVM must run with
+ * {@code --add-modules jdk.incubator.vector}.
+ *
+ * Int and float selections compare a whole vector at once and store the
+ * lanes as 0/1 flags, which one scalar pass compacts into slot numbers while
+ * dropping null slots (building a mask from the boolean null array is slow
+ * on JDK 17). Integer sums widen to long lanes, float sums to
+ * double lanes, so neither overflows nor loses precision against the scalar
+ * loops. Tails shorter than a vector are finished one slot at a time.
+ */
+public final class VectorKernels extends Kernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Int species with as many lanes as FLOATS, for storing their compare masks
+    private static final VectorSpecies<Integer> INTS_PER_FLOAT = VectorSpecies.of(int.class, VectorShape.forBitSize(FLOATS.vectorBitSize()));
+
+    @Override
+    public String name() {
+        return "vector(" + INTS.vectorBitSize() + " bit)";
+    }
+
+    // The Vector API only compiles to SIMD instructions when the operator is a
+    // constant, so each operator gets its own call of a small, inlinable loop.
+
+    @Override
+    public int select(int[] v, boolean[] nulls, int n, int op, int target, int[] sel) {
+        int i;
+        switch (op) {
+            case EQ: i = flags(v, n, VectorOperators.EQ, target, sel); break;
+            case GT: i = flags(v, n, VectorOperators.GT, target, sel); break;
+            case LT: i = flags(v, n, VectorOperators.LT, target, sel); break;
+            case GE: i = flags(v, n, VectorOperators.GE, target, sel); break;
+            case LE: i = flags(v, n, VectorOperators.LE, target, sel); break;
+            case NE: i = flags(v, n, VectorOperators.NE, target, sel); break;
+            default: return 0;
+        }
+        for (; i < n; i++) sel[i] = ScalarKernels.matches(v[i], op, target) ? 1 : 0;
+        return compact(sel, nulls, n);
+    }
+
+    @Override
+    public int select(float[] v, boolean[] nulls, int n, int op, float target, int[] sel) {
+        int i;
+        switch (op) {
+            case EQ: i = near(v, n, VectorOperators.LT, target, sel); break;
+            case GT: i = flags(v, n, VectorOperators.GT, target, sel); break;
+            case LT: i = flags(v, n, VectorOperators.LT, target, sel); break;
+            case GE: i = flags(v, n, VectorOperators.GE, target, sel); break;
+            case LE: i = flags(v, n, VectorOperators.LE, target, sel); break;
+            case NE: i = near(v, n, VectorOperators.GT, target, sel); break;
+            default: return 0;
+        }
+        for (; i < n; i++) sel[i] = ScalarKernels.matches(v[i], op, target) ? 1 : 0;
+        return compact(sel, nulls, n);
+    }
+
+    /**
+     * Double lanes are half as many per vector and JDK 17 does not compile
+     * the mask-to-int conversion to SIMD code, so C2's scalar loop is faster.
+     */
+    @Override
+    public int select(double[] v, boolean[] nulls, int n, int op, double target, int[] sel) {
+        return Kernels.scalar().select(v, nulls, n, op, target, sel);
+    }
+
+    /** Stores 1 or 0 per slot for {@code v[i] cmp target}, up to the last whole vector; returns where it stopped. */
+    private static int flags(int[] v, int n, VectorOperators.Comparison cmp, int target, int[] sel) {
+        IntVector zero = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(n); i < bound; i += INTS.length()) {
+            zero.blend(1, IntVector.fromArray(INTS, v, i).compare(cmp, target)).intoArray(sel, i);
+        }
+        return i;
+    }
+
+    private static int flags(float[] v, int n, VectorOperators.Comparison cmp, float target, int[] sel) {
+        IntVector zero = IntVector.zero(INTS_PER_FLOAT);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            VectorMask<Float> hit = FloatVector.fromArray(FLOATS, v, i).compare(cmp, target);
+            zero.blend(1, hit.cast(INTS_PER_FLOAT)).intoArray(sel, i);
+        }
+        return i;
+    }
+
+    /** Flags for {@code |v[i] - target| cmp epsilon}, the float form of = and !=. */
+    private static int near(float[] v, int n, VectorOperators.Comparison cmp, float target, int[] sel) {
+        IntVector zero = IntVector.zero(INTS_PER_FLOAT);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            VectorMask<Float> hit = FloatVector.fromArray(FLOATS, v, i).sub(target).abs()
+                    .compare(cmp, ScalarKernels.FLOAT_EPSILON);
+            zero.blend(1, hit.cast(INTS_PER_FLOAT)).intoArray(sel, i);
+        }
+        return i;
+    }
+
+    @Override
+    public long sum(int[] v, int n) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = INTS.loopBound(n); i < bound; i += INTS.length()) {
+            IntVector x = IntVector.fromArray(INTS, v, i);
+            acc = acc.add((LongVector) x.convertShape(VectorOperators.I2L, LONGS, 0))
+                     .add((LongVector) x.convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+        long s = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) s += v[i];
+        return s;
+    }
+
+    @Override
+    public double sum(float[] v, int n, double acc) {
+        DoubleVector lanes = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            FloatVector x = FloatVector.fromArray(FLOATS, v, i);
+            lanes = lanes.add((DoubleVector) x.convertShape(VectorOperators.F2D, DOUBLES, 0))
+                         .add((DoubleVector) x.convertShape(VectorOperators.F2D, DOUBLES, 1));
+        }
+        acc += lanes.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) acc += v[i];
+        return acc;
+    }
+
+    @Override
+    public double sum(double[] v, int n, double acc) {
+        DoubleVector lanes = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(n); i < bound; i += DOUBLES.length()) {
+            lanes = lanes.add(DoubleVector.fromArray(DOUBLES, v, i));
+        }
+        acc += lanes.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) acc += v[i];
+        return acc;
+    }
+
+    @Override
+    public double min(int[] v, boolean[] nulls, int n) {
+        return extreme(v, nulls, n, true);
+    }
+
+    @Override
+    public double max(int[] v, boolean[] nulls, int n) {
+        return extreme(v, nulls, n, false);
+    }
+
+    @Override
+    public double min(float[] v, boolean[] nulls, int n) {
+        return extreme(v, nulls, n, true);
+    }
+
+    @Override
+    public double max(float[] v, boolean[] nulls, int n) {
+        return extreme(v, nulls, n, false);
+    }
+
+    @Override
+    public double min(double[] v, boolean[] nulls, int n) {
+        return extreme(v, nulls, n, true);
+    }
+
+    @Override
+    public double max(double[] v, boolean[] nulls, int n) {
+        return extreme(v, nulls, n, false);
+    }
+
+    /** Null lanes are replaced by the identity of MIN or MAX before folding. */
+    private static double extreme(int[] v, boolean[] nulls, int n, boolean min) {
+        VectorOperators.Associative fold = min ? VectorOperators.MIN : VectorOperators.MAX;
+        int identity = min ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        IntVector acc = IntVector.broadcast(INTS, identity);
+        boolean any = false;
+        int i = 0;
+        for (int bound = INTS.loopBound(n); i < bound; i += INTS.length()) {
+            VectorMask<Integer> isNull = VectorMask.fromArray(INTS, nulls, i);
+            any |= !isNull.allTrue();
+            acc = acc.lanewise(fold, IntVector.fromArray(INTS, v, i).blend(identity, isNull));
+        }
+        long best = acc.reduceLanes(fold);
+        for (; i < n; i++) {
+            if (nulls[i]) continue;
+            any = true;
+            best = min ? Math.min(best, v[i]) : Math.max(best, v[i]);
+        }
+        if (!any) return min ? Double.MAX_VALUE : -Double.MAX_VALUE;
+        return best;
+    }
+
+    private static double extreme(float[] v, boolean[] nulls, int n, boolean min) {
+        VectorOperators.Associative fold = min ? VectorOperators.MIN : VectorOperators.MAX;
+        float identity = min ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+        FloatVector acc = FloatVector.broadcast(FLOATS, identity);
+        boolean any = false;
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            VectorMask<Float> isNull = VectorMask.fromArray(FLOATS, nulls, i);
+            any |= !isNull.allTrue();
+            acc = acc.lanewise(fold, FloatVector.fromArray(FLOATS, v, i).blend(identity, isNull));
+        }
+        double best = acc.reduceLanes(fold);
+        for (; i < n; i++) {
+            if (nulls[i]) continue;
+            any = true;
+            best = min ? Math.min(best, v[i]) : Math.max(best, v[i]);
+        }
+        if (!any) return min ? Double.MAX_VALUE : -Double.MAX_VALUE;
+        return best;
+    }
+
+    private static double extreme(double[] v, boolean[] nulls, int n, boolean min) {
+        VectorOperators.Associative fold = min ? VectorOperators.MIN : VectorOperators.MAX;
+        double identity = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, identity);
+        boolean any = false;
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(n); i < bound; i += DOUBLES.length()) {
+            VectorMask<Double> isNull = VectorMask.fromArray(DOUBLES, nulls, i);
+            any |= !isNull.allTrue();
+            acc = acc.lanewise(fold, DoubleVector.fromArray(DOUBLES, v, i).blend(identity, isNull));
+        }
+        double best = acc.reduceLanes(fold);
+        for (; i < n; i++) {
+            if (nulls[i]) continue;
+            any = true;
+            best = min ? Math.min(best, v[i]) : Math.max(best, v[i]);
+        }
+        if (!any) return min ? Double.MAX_VALUE : -Double.MAX_VALUE;
+        return best;
+    }
+
+    /**
+     * Turns the 0/1 match flags in sel[0..n) into the list of matching non-null
+     * slots, in place: slot k's flag is read before anything is written at k.
+     */
+    private static int compact(int[] sel, boolean[] nulls, int n) {
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            int hit = sel[k] & (nulls[k] ? 0 : 1);
+            sel[m] = k;
+            m += hit;
+        }
+        return m;
+    }
+}